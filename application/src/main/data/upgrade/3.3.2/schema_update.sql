@@ -68,4 +68,27 @@ FROM alarm a
          INNER JOIN relation r ON r.relation_type_group = 'ALARM' and r.relation_type = 'ANY' and a.id = r.to_id
 ON CONFLICT DO NOTHING;
 
-DELETE FROM relation r WHERE r.relation_type_group = 'ALARM';
\ No newline at end of file
+DELETE FROM relation r WHERE r.relation_type_group = 'ALARM';
+
+CREATE INDEX IF NOT EXISTS idx_rpc_status_created_time_id ON rpc(status, created_time, id);
+
+CREATE TABLE IF NOT EXISTS ts_kv_rollup
+(
+    entity_id   uuid         NOT NULL,
+    key         varchar(255) NOT NULL,
+    granularity varchar(16)  NOT NULL,
+    ts          bigint       NOT NULL,
+    cnt         bigint       NOT NULL,
+    long_cnt    bigint       NOT NULL,
+    long_sum    bigint       NOT NULL,
+    long_min    bigint,
+    long_max    bigint,
+    dbl_cnt     bigint       NOT NULL,
+    dbl_sum     double precision NOT NULL,
+    dbl_min     double precision,
+    dbl_max     double precision,
+    first_ts    bigint,
+    last_ts     bigint,
+    dirty       boolean      NOT NULL,
+    CONSTRAINT ts_kv_rollup_pkey PRIMARY KEY (entity_id, key, granularity, ts)
+);
@@ -47,6 +47,8 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.msg.tools.TbRateLimits;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.common.transport.util.DataDecodingEncodingService;
 import org.thingsboard.server.dao.asset.AssetService;
 import org.thingsboard.server.dao.attributes.AttributesService;
@@ -58,6 +60,7 @@ import org.thingsboard.server.dao.device.ClaimDevicesService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.edge.EdgeEventService;
 import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.entityview.EntityViewService;
 import org.thingsboard.server.dao.event.EventService;
 import org.thingsboard.server.dao.nosql.CassandraBufferedRateReadExecutor;
@@ -74,6 +77,7 @@ import org.thingsboard.server.dao.timeseries.TimeseriesService;
 import org.thingsboard.server.dao.user.UserService;
 import org.thingsboard.server.queue.discovery.PartitionService;
 import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.tracing.TbMsgTracingService;
 import org.thingsboard.server.queue.usagestats.TbApiUsageClient;
 import org.thingsboard.server.service.apiusage.TbApiUsageStateService;
 import org.thingsboard.server.service.component.ComponentDiscoveryService;
@@ -84,6 +88,7 @@ import org.thingsboard.server.service.executors.SharedEventLoopGroupService;
 import org.thingsboard.server.service.mail.MailExecutorService;
 import org.thingsboard.server.service.profile.TbDeviceProfileCache;
 import org.thingsboard.server.service.rpc.TbCoreDeviceRpcService;
+import org.thingsboard.server.service.rpc.TbPendingRpcPreloadService;
 import org.thingsboard.server.service.rpc.TbRpcService;
 import org.thingsboard.server.service.rpc.TbRuleEngineDeviceRpcService;
 import org.thingsboard.server.service.script.JsInvokeService;
@@ -102,8 +107,10 @@ import java.io.StringWriter;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
@@ -210,10 +217,22 @@ public class ActorSystemContext {
     @Getter
     private RelationService relationService;
 
+    @Autowired
+    @Getter
+    private EntityService entityService;
+
     @Autowired
     @Getter
     private AuditLogService auditLogService;
 
+    @Autowired
+    @Getter
+    private StatsFactory statsFactory;
+
+    @Autowired
+    @Getter
+    private TbMsgTracingService msgTracingService;
+
     @Autowired
     @Getter
     private EntityViewService entityViewService;
@@ -330,6 +349,15 @@ public class ActorSystemContext {
     @Getter
     private TbRpcService tbRpcService;
 
+    @Lazy
+    @Autowired(required = false)
+    @Getter
+    private TbPendingRpcPreloadService pendingRpcPreloadService;
+
+    @Value("${actors.device.passivation_timeout:3600000}")
+    @Getter
+    private long devicePassivationTimeout;
+
     @Value("${actors.session.max_concurrent_sessions_per_device:1}")
     @Getter
     private long maxConcurrentSessionsPerDevice;
@@ -365,9 +393,16 @@ public class ActorSystemContext {
     @Getter
     private boolean localCacheType;
 
+    @Getter
+    private final AtomicInteger liveDeviceActors = new AtomicInteger();
+    @Getter
+    private DefaultCounter passivatedDeviceActors;
+
     @PostConstruct
     public void init() {
         this.localCacheType = "caffeine".equals(cacheType);
+        statsFactory.createGauge("deviceActors.live", liveDeviceActors);
+        passivatedDeviceActors = statsFactory.createDefaultCounter("deviceActors.passivated");
     }
 
     @Scheduled(fixedDelayString = "${actors.statistics.js_print_interval_ms}")
@@ -467,7 +502,22 @@ public class ActorSystemContext {
     }
 
     private void persistEvent(Event event) {
-        eventService.save(event);
+        ListenableFuture<Event> future = eventService.saveAsync(event);
+        Futures.addCallback(future, new FutureCallback<Event>() {
+            @Override
+            public void onSuccess(@Nullable Event event) {
+
+            }
+
+            @Override
+            public void onFailure(Throwable th) {
+                if (th instanceof RejectedExecutionException) {
+                    log.trace("[{}][{}] Event was dropped: {}", event.getTenantId(), event.getEntityId(), event.getType());
+                } else {
+                    log.error("[{}][{}] Could not save {} event", event.getTenantId(), event.getEntityId(), event.getType(), th);
+                }
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     private String toString(Throwable e) {
@@ -552,18 +602,7 @@ public class ActorSystemContext {
                 }
 
                 event.setBody(node);
-                ListenableFuture<Event> future = eventService.saveAsync(event);
-                Futures.addCallback(future, new FutureCallback<Event>() {
-                    @Override
-                    public void onSuccess(@Nullable Event event) {
-
-                    }
-
-                    @Override
-                    public void onFailure(Throwable th) {
-                        log.error("Could not save debug Event for Node", th);
-                    }
-                }, MoreExecutors.directExecutor());
+                persistEvent(event);
             } catch (IOException ex) {
                 log.warn("Failed to persist rule node debug message", ex);
             }
@@ -605,18 +644,7 @@ public class ActorSystemContext {
         }
 
         event.setBody(node);
-        ListenableFuture<Event> future = eventService.saveAsync(event);
-        Futures.addCallback(future, new FutureCallback<Event>() {
-            @Override
-            public void onSuccess(@Nullable Event event) {
-
-            }
-
-            @Override
-            public void onFailure(Throwable th) {
-                log.error("Could not save debug Event for Rule Chain", th);
-            }
-        }, MoreExecutors.directExecutor());
+        persistEvent(event);
     }
 
     public static Exception toException(Throwable error) {
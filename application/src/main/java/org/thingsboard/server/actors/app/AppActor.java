@@ -77,6 +77,7 @@ public class AppActor extends ContextAwareActor {
             case APP_INIT_MSG:
                 break;
             case PARTITION_CHANGE_MSG:
+            case SESSION_TIMEOUT_MSG:
                 ctx.broadcastToChildren(msg);
                 break;
             case COMPONENT_LIFE_CYCLE_MSG:
@@ -16,30 +16,34 @@
 package org.thingsboard.server.actors.device;
 
 import lombok.extern.slf4j.Slf4j;
-import org.thingsboard.rule.engine.api.msg.DeviceAttributesEventNotificationMsg;
-import org.thingsboard.rule.engine.api.msg.DeviceEdgeUpdateMsg;
-import org.thingsboard.rule.engine.api.msg.DeviceNameOrTypeUpdateMsg;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.TbActorCtx;
 import org.thingsboard.server.actors.TbActorException;
 import org.thingsboard.server.actors.service.ContextAwareActor;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg;
+import org.thingsboard.server.common.msg.rpc.RemoveRpcActorMsg;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceEdgeUpdateMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg;
 import org.thingsboard.server.common.msg.timeout.DeviceActorServerSideRpcTimeoutMsg;
-import org.thingsboard.server.service.rpc.FromDeviceRpcResponseActorMsg;
-import org.thingsboard.server.service.rpc.RemoveRpcActorMsg;
-import org.thingsboard.server.service.rpc.ToDeviceRpcRequestActorMsg;
 import org.thingsboard.server.service.transport.msg.TransportToDeviceActorMsgWrapper;
 
 @Slf4j
 public class DeviceActor extends ContextAwareActor {
 
     private final DeviceActorMessageProcessor processor;
+    private long lastActivityTime;
 
     DeviceActor(ActorSystemContext systemContext, TenantId tenantId, DeviceId deviceId) {
         super(systemContext);
         this.processor = new DeviceActorMessageProcessor(systemContext, tenantId, deviceId);
+        this.lastActivityTime = System.currentTimeMillis();
+        systemContext.getLiveDeviceActors().incrementAndGet();
     }
 
     @Override
@@ -55,8 +59,16 @@ public class DeviceActor extends ContextAwareActor {
         }
     }
 
+    @Override
+    public void destroy() {
+        systemContext.getLiveDeviceActors().decrementAndGet();
+    }
+
     @Override
     protected boolean doProcess(TbActorMsg msg) {
+        if (msg.getMsgType() != MsgType.SESSION_TIMEOUT_MSG) {
+            lastActivityTime = System.currentTimeMillis();
+        }
         switch (msg.getMsgType()) {
             case TRANSPORT_TO_DEVICE_ACTOR_MSG:
                 processor.process(ctx, (TransportToDeviceActorMsgWrapper) msg);
@@ -81,6 +93,7 @@ public class DeviceActor extends ContextAwareActor {
                 break;
             case SESSION_TIMEOUT_MSG:
                 processor.checkSessionsTimeout();
+                checkPassivation();
                 break;
             case DEVICE_EDGE_UPDATE_TO_DEVICE_ACTOR_MSG:
                 processor.processEdgeUpdate((DeviceEdgeUpdateMsg) msg);
@@ -94,4 +107,13 @@ public class DeviceActor extends ContextAwareActor {
         return true;
     }
 
+    private void checkPassivation() {
+        long passivationTimeout = systemContext.getDevicePassivationTimeout();
+        if (passivationTimeout > 0 && System.currentTimeMillis() - lastActivityTime > passivationTimeout && processor.prepareForPassivation()) {
+            log.debug("[{}][{}] Passivating idle device actor.", processor.tenantId, processor.deviceId);
+            systemContext.getPassivatedDeviceActors().increment();
+            ctx.passivate();
+        }
+    }
+
 }
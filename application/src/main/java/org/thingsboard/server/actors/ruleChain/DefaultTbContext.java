@@ -55,11 +55,13 @@ import org.thingsboard.server.common.data.rule.RuleNode;
 import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.TbMsgProcessingStackItem;
 import org.thingsboard.server.common.msg.queue.ServiceQueue;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.asset.AssetService;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.cassandra.CassandraCluster;
@@ -68,6 +70,7 @@ import org.thingsboard.server.dao.dashboard.DashboardService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.edge.EdgeEventService;
 import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.entityview.EntityViewService;
 import org.thingsboard.server.dao.nosql.CassandraStatementTask;
 import org.thingsboard.server.dao.nosql.TbResultSetFuture;
@@ -448,6 +451,11 @@ class DefaultTbContext implements TbContext {
         }
     }
 
+    @Override
+    public void traceMsg(TbMsg msg, TbMsgTraceStage stage) {
+        mainCtx.getMsgTracingService().trace(getTenantId(), msg, stage, nodeCtx.getSelf().getType());
+    }
+
     @Override
     public String getServiceId() {
         return mainCtx.getServiceInfoProvider().getServiceId();
@@ -518,6 +526,16 @@ class DefaultTbContext implements TbContext {
         return mainCtx.getRelationService();
     }
 
+    @Override
+    public EntityService getEntityService() {
+        return mainCtx.getEntityService();
+    }
+
+    @Override
+    public StatsFactory getStatsFactory() {
+        return mainCtx.getStatsFactory();
+    }
+
     @Override
     public EntityViewService getEntityViewService() {
         return mainCtx.getEntityViewService();
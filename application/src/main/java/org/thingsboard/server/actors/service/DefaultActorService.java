@@ -31,6 +31,7 @@ import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
+import org.thingsboard.server.actors.device.SessionTimeoutCheckMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
@@ -118,6 +119,8 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
         log.info("Received application ready event. Sending application init message to actor system");
         appActor.tellWithHighPriority(new AppInitMsg());
+        actorContext.schedulePeriodicMsgWithDelay(appActor, SessionTimeoutCheckMsg.instance(),
+                actorContext.getSessionReportTimeout(), actorContext.getSessionReportTimeout());
     }
 
     @Override
@@ -124,6 +124,9 @@ public class TenantActor extends RuleChainManagerActor {
     @Override
     protected boolean doProcess(TbActorMsg msg) {
         if (cantFindTenant) {
+            if (msg.getMsgType() == MsgType.SESSION_TIMEOUT_MSG) {
+                return true;
+            }
             log.info("[{}] Processing missing Tenant msg: {}", tenantId, msg);
             if (msg.getMsgType().equals(MsgType.QUEUE_TO_RULE_ENGINE_MSG)) {
                 QueueToRuleEngineMsg queueMsg = (QueueToRuleEngineMsg) msg;
@@ -151,6 +154,14 @@ public class TenantActor extends RuleChainManagerActor {
                     deviceActorIds.forEach(id -> ctx.stop(id));
                 }
                 break;
+            case SESSION_TIMEOUT_MSG:
+                if (isCore) {
+                    ctx.broadcastToChildren(msg, new TbEntityTypeActorIdPredicate(EntityType.DEVICE));
+                }
+                break;
+            case DEVICE_ACTOR_SERVER_SIDE_RPC_TIMEOUT_MSG:
+                log.trace("[{}] Ignoring RPC timeout of the passivated device actor: {}", tenantId, msg);
+                break;
             case COMPONENT_LIFE_CYCLE_MSG:
                 onComponentLifecycleMsg((ComponentLifecycleMsg) msg);
                 break;
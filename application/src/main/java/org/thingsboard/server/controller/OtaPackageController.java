@@ -156,6 +156,9 @@ public class OtaPackageController extends BaseController {
             otaPackageInfo.setTenantId(getTenantId());
             checkEntity(otaPackageInfo.getId(), otaPackageInfo, Resource.OTA_PACKAGE);
             OtaPackageInfo savedOtaPackageInfo = otaPackageService.saveOtaPackageInfo(new OtaPackageInfo(otaPackageInfo), otaPackageInfo.isUsesUrl());
+            if (!created) {
+                tbClusterService.onOtaPackageChange(savedOtaPackageInfo, null);
+            }
             logEntityAction(savedOtaPackageInfo.getId(), savedOtaPackageInfo,
                     null, created ? ActionType.ADDED : ActionType.UPDATED, null);
             return savedOtaPackageInfo;
@@ -210,6 +213,7 @@ public class OtaPackageController extends BaseController {
             otaPackage.setData(ByteBuffer.wrap(bytes));
             otaPackage.setDataSize((long) bytes.length);
             OtaPackageInfo savedOtaPackage = otaPackageService.saveOtaPackage(otaPackage);
+            tbClusterService.onOtaPackageChange(new OtaPackageInfo(savedOtaPackage), null);
             logEntityAction(savedOtaPackage.getId(), savedOtaPackage, null, ActionType.UPDATED, null);
             return savedOtaPackage;
         } catch (Exception e) {
@@ -289,6 +293,7 @@ public class OtaPackageController extends BaseController {
             OtaPackageId otaPackageId = new OtaPackageId(toUUID(strOtaPackageId));
             OtaPackageInfo info = checkOtaPackageInfoId(otaPackageId, Operation.DELETE);
             otaPackageService.deleteOtaPackage(getTenantId(), otaPackageId);
+            tbClusterService.onOtaPackageDeleted(info, null);
             logEntityAction(otaPackageId, info, null, ActionType.DELETED, null, strOtaPackageId);
         } catch (Exception e) {
             logEntityAction(emptyId(EntityType.OTA_PACKAGE), null, null, ActionType.DELETED, e, strOtaPackageId);
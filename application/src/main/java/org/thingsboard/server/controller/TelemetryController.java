@@ -16,6 +16,7 @@
 package org.thingsboard.server.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Function;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -31,6 +32,7 @@ import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -46,11 +48,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.async.DeferredResult;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
-import org.thingsboard.rule.engine.api.msg.DeviceAttributesEventNotificationMsg;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.exception.ThingsboardErrorCode;
 import org.thingsboard.server.common.data.exception.ThingsboardException;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
@@ -75,6 +77,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
 import org.thingsboard.server.common.transport.adaptor.JsonConverter;
 import org.thingsboard.server.dao.service.ConstraintValidator;
 import org.thingsboard.server.dao.timeseries.TimeseriesService;
@@ -90,6 +93,13 @@ import org.thingsboard.server.service.telemetry.exception.UncheckedApiException;
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -99,6 +109,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -157,11 +168,17 @@ public class TelemetryController extends BaseController {
     @Value("${transport.json.max_string_value_length:0}")
     private int maxStringValueLength;
 
+    @Value("${server.rest.timeseries_export.max_concurrent:4}")
+    private int maxConcurrentExports;
+
     private ExecutorService executor;
 
+    private Semaphore exportPermits;
+
     @PostConstruct
     public void initExecutor() {
         executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("telemetry-controller"));
+        exportPermits = new Semaphore(maxConcurrentExports);
     }
 
     @PreDestroy
@@ -364,6 +381,72 @@ public class TelemetryController extends BaseController {
         }
     }
 
+    @ApiOperation(value = "Export time-series data (exportTimeseries)",
+            notes = "Streams all raw time-series values of the specified keys and time range as CSV ('ts,key,value' rows) " +
+                    "or as newline delimited JSON (one '{\"ts\", \"key\", \"value\"}' object per line). " +
+                    "Unlike 'getTimeseries', the result is neither limited nor aggregated and is written to the response " +
+                    "while it is being read from the database, so it is suitable for large time ranges. " +
+                    "The number of concurrent exports is limited, the request fails with 429 status code when the limit is reached. \n\n"
+                    + INVALID_ENTITY_ID_OR_ENTITY_TYPE_DESCRIPTION + TENANT_OR_CUSTOMER_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAnyAuthority('SYS_ADMIN', 'TENANT_ADMIN', 'CUSTOMER_USER')")
+    @RequestMapping(value = "/{entityType}/{entityId}/values/timeseries/export", method = RequestMethod.GET, params = {"keys", "startTs", "endTs"})
+    public void exportTimeseries(
+            @ApiParam(value = ENTITY_TYPE_PARAM_DESCRIPTION, required = true, defaultValue = "DEVICE") @PathVariable("entityType") String entityType,
+            @ApiParam(value = ENTITY_ID_PARAM_DESCRIPTION, required = true) @PathVariable("entityId") String entityIdStr,
+            @ApiParam(value = TELEMETRY_KEYS_BASE_DESCRIPTION, required = true) @RequestParam(name = "keys") String keys,
+            @ApiParam(value = "A long value representing the start timestamp of the time range in milliseconds, UTC.")
+            @RequestParam(name = "startTs") Long startTs,
+            @ApiParam(value = "A long value representing the end timestamp of the time range in milliseconds, UTC.")
+            @RequestParam(name = "endTs") Long endTs,
+            @ApiParam(value = "Output format.", allowableValues = "csv, ndjson")
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            HttpServletResponse response) throws ThingsboardException {
+        try {
+            EntityId entityId = EntityIdFactory.getByTypeAndId(entityType, entityIdStr);
+            checkEntityId(entityId, Operation.READ_TELEMETRY);
+            List<String> keyList = toKeysList(keys);
+            if (!exportPermits.tryAcquire()) {
+                throw new ThingsboardException("Too many concurrent timeseries exports, try again later", ThingsboardErrorCode.TOO_MANY_REQUESTS);
+            }
+            try {
+                exportTimeseries(entityId, entityIdStr, keyList, startTs, endTs, format, response);
+            } finally {
+                exportPermits.release();
+            }
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    private void exportTimeseries(EntityId entityId, String entityIdStr, List<String> keyList, long startTs, long endTs,
+                                  String format, HttpServletResponse response) throws Exception {
+        boolean csv;
+        if ("csv".equalsIgnoreCase(format)) {
+            csv = true;
+            response.setContentType("text/csv");
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            csv = false;
+            response.setContentType("application/x-ndjson");
+        } else {
+            throw new ThingsboardException("Unsupported export format: " + format, ThingsboardErrorCode.BAD_REQUEST_PARAMS);
+        }
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + entityIdStr + (csv ? ".csv" : ".ndjson") + "\"");
+        // Rows are written straight to the socket, so a slow client throttles the database cursor instead of filling the heap
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("ts,key,value\n");
+        }
+        tsService.exportAll(getTenantId(), entityId, keyList, startTs, endTs, entry -> {
+            try {
+                writer.write(csv ? toCsvRow(entry) : toJsonRow(entry));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
     @ApiOperation(value = "Save device attributes (saveDeviceAttributes)",
             notes = "Creates or updates the device attributes based on device id and specified attribute scope. " +
                     SAVE_ATTRIBUTES_REQUEST_PAYLOAD
@@ -943,6 +1026,40 @@ public class TelemetryController extends BaseController {
                 }, executor);
     }
 
+    private static String toCsvRow(TsKvEntry entry) {
+        return entry.getTs() + "," + escapeCsv(entry.getKey()) + "," + escapeCsv(entry.getValueAsString()) + "\n";
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String toJsonRow(TsKvEntry entry) {
+        ObjectNode row = JacksonUtil.newObjectNode();
+        row.put("ts", entry.getTs());
+        row.put("key", entry.getKey());
+        switch (entry.getDataType()) {
+            case BOOLEAN:
+                row.put("value", entry.getBooleanValue().get());
+                break;
+            case LONG:
+                row.put("value", entry.getLongValue().get());
+                break;
+            case DOUBLE:
+                row.put("value", entry.getDoubleValue().get());
+                break;
+            case JSON:
+                row.set("value", JacksonUtil.toJsonNode(entry.getJsonValue().get()));
+                break;
+            default:
+                row.put("value", entry.getValueAsString());
+        }
+        return JacksonUtil.toString(row) + "\n";
+    }
+
     private List<String> toKeysList(String keys) {
         List<String> keyList = null;
         if (!StringUtils.isEmpty(keys)) {
@@ -213,6 +213,9 @@ public class ThingsboardInstallService {
                         case "3.3.2":
                             log.info("Upgrading ThingsBoard from version 3.3.2 to 3.3.3 ...");
                             databaseEntitiesUpgradeService.upgradeDatabase("3.3.2");
+                            if (databaseTsUpgradeService != null) {
+                                databaseTsUpgradeService.upgradeDatabase("3.3.2");
+                            }
                             dataUpdateService.updateData("3.3.2");
                             log.info("Updating system data...");
                             systemDataLoaderService.updateSystemWidgets();
@@ -40,6 +40,7 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.dao.audit.AuditLogService;
+import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.queue.util.TbCoreComponent;
 import org.thingsboard.server.cluster.TbClusterService;
 
@@ -54,6 +55,7 @@ import java.util.stream.Collectors;
 public class EntityActionService {
     private final TbClusterService tbClusterService;
     private final AuditLogService auditLogService;
+    private final EntityService entityService;
 
     private static final ObjectMapper json = new ObjectMapper();
 
@@ -218,6 +220,9 @@ public class EntityActionService {
             customerId = user.getCustomerId();
         }
         if (e == null) {
+            if (actionType == ActionType.UPDATED || actionType == ActionType.DELETED) {
+                entityService.evictEntityName(entityId);
+            }
             pushEntityActionToRuleEngine(entityId, entity, user.getTenantId(), customerId, actionType, user, additionalInfo);
         }
         auditLogService.logEntityAction(user.getTenantId(), customerId, user.getId(), user.getName(), entityId, entity, actionType, e, additionalInfo);
@@ -16,6 +16,8 @@
 package org.thingsboard.server.service.apiusage;
 
 import com.google.common.util.concurrent.FutureCallback;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -50,6 +52,8 @@ import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.tools.SchedulerUtils;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.customer.CustomerService;
 import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
 import org.thingsboard.server.dao.tenant.TenantService;
@@ -71,6 +75,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -90,6 +95,7 @@ import java.util.stream.Collectors;
 public class DefaultTbApiUsageStateService extends TbApplicationEventListener<PartitionChangeEvent> implements TbApiUsageStateService {
 
     public static final String HOURLY = "Hourly";
+    private static final String STATS_NAME = "apiUsage";
     public static final FutureCallback<Integer> VOID_CALLBACK = new FutureCallback<Integer>() {
         @Override
         public void onSuccess(@Nullable Integer result) {
@@ -108,6 +114,7 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
     private final SchedulerComponent scheduler;
     private final TbTenantProfileCache tenantProfileCache;
     private final MailService mailService;
+    private final StatsFactory statsFactory;
 
     @Lazy
     @Autowired
@@ -120,12 +127,23 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
 
     private final Set<EntityId> deletedEntities = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
+    // Usage counters that are aggregated in memory and not yet saved to the database
+    private final Map<ApiUsageStateId, PendingUsageUpdate> pendingUpdates = new ConcurrentHashMap<>();
+
     @Value("${usage.stats.report.enabled:true}")
     private boolean enabled;
 
     @Value("${usage.stats.check.cycle:60000}")
     private long nextCycleCheckInterval;
 
+    @Value("${usage.stats.flush.interval:1000}")
+    private long flushInterval;
+
+    private DefaultCounter receivedMsgsCounter;
+    private DefaultCounter receivedReportsCounter;
+    private DefaultCounter flushedEntriesCounter;
+    private Timer flushTimer;
+
     private final Lock updateLock = new ReentrantLock();
 
     private final ExecutorService mailExecutor;
@@ -138,7 +156,8 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
                                          ApiUsageStateService apiUsageStateService,
                                          SchedulerComponent scheduler,
                                          TbTenantProfileCache tenantProfileCache,
-                                         MailService mailService) {
+                                         MailService mailService,
+                                         StatsFactory statsFactory) {
         this.clusterService = clusterService;
         this.partitionService = partitionService;
         this.tenantService = tenantService;
@@ -148,6 +167,7 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
         this.scheduler = scheduler;
         this.tenantProfileCache = tenantProfileCache;
         this.mailService = mailService;
+        this.statsFactory = statsFactory;
         this.mailExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("api-usage-svc-mail"));
     }
 
@@ -155,7 +175,14 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
     public void init() {
         if (enabled) {
             log.info("Starting api usage service.");
+            receivedMsgsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "msgs");
+            receivedReportsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "reports");
+            flushedEntriesCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "flushedEntries");
+            flushTimer = statsFactory.createTimer(STATS_NAME + ".flush");
             scheduler.scheduleAtFixedRate(this::checkStartOfNextCycle, nextCycleCheckInterval, nextCycleCheckInterval, TimeUnit.MILLISECONDS);
+            if (flushInterval > 0) {
+                scheduler.scheduleAtFixedRate(this::flushPendingUpdates, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+            }
             log.info("Started api usage service.");
         }
     }
@@ -163,7 +190,25 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
     @Override
     public void process(TbProtoQueueMsg<ToUsageStatsServiceMsg> msg, TbCallback callback) {
         ToUsageStatsServiceMsg statsMsg = msg.getValue();
+        receivedMsgsCounter.increment();
+        if (statsMsg.getPackedMsgsCount() > 0) {
+            for (ToUsageStatsServiceMsg packedMsg : statsMsg.getPackedMsgsList()) {
+                // a broken report must not block the other tenants of the pack
+                try {
+                    processStatsMsg(packedMsg);
+                } catch (Exception e) {
+                    log.warn("[{}][{}] Failed to process usage stats report", new UUID(packedMsg.getTenantIdMSB(), packedMsg.getTenantIdLSB()),
+                            new UUID(packedMsg.getCustomerIdMSB(), packedMsg.getCustomerIdLSB()), e);
+                }
+            }
+        } else {
+            processStatsMsg(statsMsg);
+        }
+        callback.onSuccess();
+    }
 
+    private void processStatsMsg(ToUsageStatsServiceMsg statsMsg) {
+        receivedReportsCounter.increment();
         TenantId tenantId = new TenantId(new UUID(statsMsg.getTenantIdMSB(), statsMsg.getTenantIdLSB()));
         EntityId entityId;
         if (statsMsg.getCustomerIdMSB() != 0 && statsMsg.getCustomerIdLSB() != 0) {
@@ -173,7 +218,6 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
         }
 
         processEntityUsageStats(tenantId, entityId, statsMsg.getValuesList());
-        callback.onSuccess();
     }
 
     private void processEntityUsageStats(TenantId tenantId, EntityId entityId, List<UsageStatsKVProto> values) {
@@ -210,7 +254,7 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
         } finally {
             updateLock.unlock();
         }
-        tsWsService.saveAndNotifyInternal(tenantId, usageState.getApiUsageState().getId(), updatedEntries, VOID_CALLBACK);
+        saveUsageEntries(tenantId, usageState.getApiUsageState().getId(), updatedEntries);
         if (!result.isEmpty()) {
             persistAndNotify(usageState, result);
         }
@@ -417,7 +461,45 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
                 .map(key -> new BasicTsKvEntry(state.getCurrentCycleTs(), new LongDataEntry(key.getApiCountKey(), 0L)))
                 .collect(Collectors.toList());
 
-        tsWsService.saveAndNotifyInternal(state.getTenantId(), state.getApiUsageState().getId(), counts, VOID_CALLBACK);
+        saveUsageEntries(state.getTenantId(), state.getApiUsageState().getId(), counts);
+    }
+
+    private void saveUsageEntries(TenantId tenantId, ApiUsageStateId apiUsageStateId, List<TsKvEntry> entries) {
+        if (flushInterval > 0) {
+            pendingUpdates.compute(apiUsageStateId, (id, pending) -> {
+                if (pending == null) {
+                    pending = new PendingUsageUpdate(tenantId);
+                }
+                pending.add(entries);
+                return pending;
+            });
+        } else {
+            tsWsService.saveAndNotifyInternal(tenantId, apiUsageStateId, entries, VOID_CALLBACK);
+        }
+    }
+
+    private void flushPendingUpdates() {
+        if (pendingUpdates.isEmpty()) {
+            return;
+        }
+        long startTs = System.nanoTime();
+        int entriesCount = 0;
+        try {
+            for (ApiUsageStateId apiUsageStateId : pendingUpdates.keySet()) {
+                PendingUsageUpdate pending = pendingUpdates.remove(apiUsageStateId);
+                if (pending != null) {
+                    List<TsKvEntry> entries = new ArrayList<>(pending.getEntries().values());
+                    entriesCount += entries.size();
+                    tsWsService.saveAndNotifyInternal(pending.getTenantId(), apiUsageStateId, entries, VOID_CALLBACK);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to flush api usage updates", e);
+        } finally {
+            flushedEntriesCounter.add(entriesCount);
+            flushTimer.record(System.nanoTime() - startTs, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Flushed {} api usage entries", entriesCount);
     }
 
     private BaseApiUsageState getOrFetchState(TenantId tenantId, EntityId entityId) {
@@ -521,8 +603,24 @@ public class DefaultTbApiUsageStateService extends TbApplicationEventListener<Pa
 
     @PreDestroy
     private void destroy() {
+        if (enabled && flushInterval > 0) {
+            flushPendingUpdates();
+        }
         if (mailExecutor != null) {
             mailExecutor.shutdownNow();
         }
     }
+
+    @Data
+    private static class PendingUsageUpdate {
+        private final TenantId tenantId;
+        // Only the latest value of each key and timestamp is saved, since the counters are cumulative
+        private final Map<String, TsKvEntry> entries = new LinkedHashMap<>();
+
+        void add(List<TsKvEntry> newEntries) {
+            for (TsKvEntry entry : newEntries) {
+                entries.put(entry.getKey() + "_" + entry.getTs(), entry);
+            }
+        }
+    }
 }
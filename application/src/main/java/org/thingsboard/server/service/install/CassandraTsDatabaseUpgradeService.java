@@ -17,16 +17,22 @@ package org.thingsboard.server.service.install;
 
 import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.dao.util.NoSqlTsDao;
 
+import java.nio.file.Paths;
+
 @Service
 @NoSqlTsDao
 @Profile("install")
 @Slf4j
 public class CassandraTsDatabaseUpgradeService extends AbstractCassandraDatabaseUpgradeService implements DatabaseTsUpgradeService {
 
+    @Autowired
+    private InstallScripts installScripts;
+
     @Override
     public void upgradeDatabase(String fromVersion) throws Exception {
         switch (fromVersion) {
@@ -53,6 +59,11 @@ public class CassandraTsDatabaseUpgradeService extends AbstractCassandraDatabase
             case "3.2.1":
             case "3.2.2":
                 break;
+            case "3.3.2":
+                log.info("Updating schema ...");
+                loadCql(Paths.get(installScripts.getDataDir(), "upgrade", "3.3.2", "schema_update.cql"));
+                log.info("Schema updated.");
+                break;
             default:
                 throw new RuntimeException("Unable to upgrade Cassandra database, unsupported fromVersion: " + fromVersion);
         }
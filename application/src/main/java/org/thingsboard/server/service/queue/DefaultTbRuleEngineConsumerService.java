@@ -25,6 +25,7 @@ import org.thingsboard.server.common.data.rpc.RpcError;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
 import org.thingsboard.server.common.msg.queue.RuleEngineException;
 import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
@@ -47,6 +48,7 @@ import org.thingsboard.server.queue.settings.TbRuleEngineQueueConfiguration;
 import org.thingsboard.server.queue.util.TbRuleEngineComponent;
 import org.thingsboard.server.service.apiusage.TbApiUsageStateService;
 import org.thingsboard.server.service.profile.TbDeviceProfileCache;
+import org.thingsboard.server.dao.alarm.AlarmService;
 import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
 import org.thingsboard.server.service.queue.processing.AbstractConsumerService;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingDecision;
@@ -64,7 +66,6 @@ import javax.annotation.PreDestroy;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
@@ -117,8 +118,9 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
                                               StatsFactory statsFactory,
                                               TbDeviceProfileCache deviceProfileCache,
                                               TbTenantProfileCache tenantProfileCache,
-                                              TbApiUsageStateService apiUsageStateService) {
-        super(actorContext, encodingService, tenantProfileCache, deviceProfileCache, apiUsageStateService, tbRuleEngineQueueFactory.createToRuleEngineNotificationsMsgConsumer());
+                                              TbApiUsageStateService apiUsageStateService,
+                                              AlarmService alarmService) {
+        super(actorContext, encodingService, tenantProfileCache, deviceProfileCache, apiUsageStateService, alarmService, tbRuleEngineQueueFactory.createToRuleEngineNotificationsMsgConsumer());
         this.statisticsService = statisticsService;
         this.ruleEngineSettings = ruleEngineSettings;
         this.tbRuleEngineQueueFactory = tbRuleEngineQueueFactory;
@@ -258,16 +260,16 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
                 submitStrategy.init(msgs);
                 while (!stopped) {
                     TbMsgPackProcessingContext ctx = new TbMsgPackProcessingContext(configuration.getName(), submitStrategy, ackStrategy.isSkipTimeoutMsgs());
-                    submitStrategy.submitAttempt((id, msg) -> submitExecutor.submit(() -> submitMessage(configuration, stats, ctx, id, msg)));
+                    submitStrategy.submitAttempt(slot -> submitExecutor.submit(() -> submitMessage(configuration, stats, ctx, slot, ctx.getMsg(slot))));
 
                     final boolean timeout = !ctx.await(configuration.getPackProcessingTimeout(), TimeUnit.MILLISECONDS);
 
                     TbRuleEngineProcessingResult result = new TbRuleEngineProcessingResult(configuration.getName(), timeout, ctx);
                     if (timeout) {
-                        printFirstOrAll(configuration, ctx, ctx.getPendingMap(), "Timeout");
+                        printFirstOrAll(configuration, ctx, ctx.getPendingSlots(), "Timeout");
                     }
-                    if (!ctx.getFailedMap().isEmpty()) {
-                        printFirstOrAll(configuration, ctx, ctx.getFailedMap(), "Failed");
+                    if (ctx.getFailedCount() > 0) {
+                        printFirstOrAll(configuration, ctx, ctx.getFailedSlots(), "Failed");
                     }
                     ctx.printProfilerStats();
 
@@ -282,7 +284,7 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
                         submitStrategy.stop();
                         break;
                     } else {
-                        submitStrategy.update(decision.getReprocessMap());
+                        submitStrategy.update(decision.getReprocessSlots());
                     }
                 }
                 consumer.commit();
@@ -318,13 +320,13 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
         return submitStrategyFactory.newInstance(configuration.getName(), configuration.getSubmitStrategy());
     }
 
-    void submitMessage(TbRuleEngineQueueConfiguration configuration, TbRuleEngineConsumerStats stats, TbMsgPackProcessingContext ctx, UUID id, TbProtoQueueMsg<ToRuleEngineMsg> msg) {
-        log.trace("[{}] Creating callback for topic {} message: {}", id, configuration.getName(), msg.getValue());
+    void submitMessage(TbRuleEngineQueueConfiguration configuration, TbRuleEngineConsumerStats stats, TbMsgPackProcessingContext ctx, int slot, TbProtoQueueMsg<ToRuleEngineMsg> msg) {
+        log.trace("[{}] Creating callback for topic {} message: {}", msg.getKey(), configuration.getName(), msg.getValue());
         ToRuleEngineMsg toRuleEngineMsg = msg.getValue();
         TenantId tenantId = new TenantId(new UUID(toRuleEngineMsg.getTenantIdMSB(), toRuleEngineMsg.getTenantIdLSB()));
         TbMsgCallback callback = prometheusStatsEnabled ?
-                new TbMsgPackCallback(id, tenantId, ctx, stats.getTimer(tenantId, SUCCESSFUL_STATUS), stats.getTimer(tenantId, FAILED_STATUS)) :
-                new TbMsgPackCallback(id, tenantId, ctx);
+                new TbMsgPackCallback(slot, tenantId, ctx, stats.getTimer(tenantId, SUCCESSFUL_STATUS), stats.getTimer(tenantId, FAILED_STATUS)) :
+                new TbMsgPackCallback(slot, tenantId, ctx);
         try {
             if (toRuleEngineMsg.getTbMsg() != null && !toRuleEngineMsg.getTbMsg().isEmpty()) {
                 forwardToRuleEngineActor(configuration.getName(), tenantId, toRuleEngineMsg, callback);
@@ -336,13 +338,13 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
         }
     }
 
-    private void printFirstOrAll(TbRuleEngineQueueConfiguration configuration, TbMsgPackProcessingContext ctx, Map<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> map, String prefix) {
+    private void printFirstOrAll(TbRuleEngineQueueConfiguration configuration, TbMsgPackProcessingContext ctx, int[] slots, String prefix) {
         boolean printAll = log.isTraceEnabled();
-        log.info("{} to process [{}] messages", prefix, map.size());
-        for (Map.Entry<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> pending : map.entrySet()) {
-            ToRuleEngineMsg tmp = pending.getValue().getValue();
-            TbMsg tmpMsg = TbMsg.fromBytes(configuration.getName(), tmp.getTbMsg().toByteArray(), TbMsgCallback.EMPTY);
-            RuleNodeInfo ruleNodeInfo = ctx.getLastVisitedRuleNode(pending.getKey());
+        log.info("{} to process [{}] messages", prefix, slots.length);
+        for (int slot : slots) {
+            ToRuleEngineMsg tmp = ctx.getMsg(slot).getValue();
+            TbMsg tmpMsg = TbMsg.fromBytes(configuration.getName(), tmp.getTbMsg(), TbMsgCallback.EMPTY);
+            RuleNodeInfo ruleNodeInfo = ctx.getLastVisitedRuleNode(slot);
             if (printAll) {
                 log.trace("[{}] {} to process message: {}, Last Rule Node: {}", new TenantId(new UUID(tmp.getTenantIdMSB(), tmp.getTenantIdLSB())), prefix, tmpMsg, ruleNodeInfo);
             } else {
@@ -387,7 +389,7 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
     }
 
     private void forwardToRuleEngineActor(String queueName, TenantId tenantId, ToRuleEngineMsg toRuleEngineMsg, TbMsgCallback callback) {
-        TbMsg tbMsg = TbMsg.fromBytes(queueName, toRuleEngineMsg.getTbMsg().toByteArray(), callback);
+        TbMsg tbMsg = TbMsg.fromBytes(queueName, toRuleEngineMsg.getTbMsg(), callback);
         QueueToRuleEngineMsg msg;
         ProtocolStringList relationTypesList = toRuleEngineMsg.getRelationTypesList();
         Set<String> relationTypes = null;
@@ -399,6 +401,7 @@ public class DefaultTbRuleEngineConsumerService extends AbstractConsumerService<
             }
         }
         msg = new QueueToRuleEngineMsg(tenantId, tbMsg, relationTypes, toRuleEngineMsg.getFailureMessage());
+        actorContext.getMsgTracingService().trace(tenantId, tbMsg, TbMsgTraceStage.QUEUE_CONSUME);
         actorContext.tell(msg);
     }
 
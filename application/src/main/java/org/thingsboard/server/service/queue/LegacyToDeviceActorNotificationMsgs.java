@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue;
+
+import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg;
+import org.thingsboard.server.common.msg.rpc.RemoveRpcActorMsg;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceCredentialsUpdateNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceEdgeUpdateMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg;
+
+/**
+ * Maps device actor notifications to the classes older nodes know by name before they are FST encoded.
+ */
+@SuppressWarnings("deprecation")
+final class LegacyToDeviceActorNotificationMsgs {
+
+    private LegacyToDeviceActorNotificationMsgs() {
+    }
+
+    static ToDeviceActorNotificationMsg toLegacy(ToDeviceActorNotificationMsg msg) {
+        switch (msg.getMsgType()) {
+            case DEVICE_ATTRIBUTES_UPDATE_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.rule.engine.api.msg.DeviceAttributesEventNotificationMsg) {
+                    return msg;
+                }
+                DeviceAttributesEventNotificationMsg attributesMsg = (DeviceAttributesEventNotificationMsg) msg;
+                return new org.thingsboard.rule.engine.api.msg.DeviceAttributesEventNotificationMsg(attributesMsg.getTenantId(), attributesMsg.getDeviceId(),
+                        attributesMsg.getDeletedKeys(), attributesMsg.getScope(), attributesMsg.getValues(), attributesMsg.isDeleted());
+            case DEVICE_CREDENTIALS_UPDATE_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.rule.engine.api.msg.DeviceCredentialsUpdateNotificationMsg) {
+                    return msg;
+                }
+                DeviceCredentialsUpdateNotificationMsg credentialsMsg = (DeviceCredentialsUpdateNotificationMsg) msg;
+                return new org.thingsboard.rule.engine.api.msg.DeviceCredentialsUpdateNotificationMsg(credentialsMsg.getTenantId(), credentialsMsg.getDeviceId(),
+                        credentialsMsg.getDeviceCredentials());
+            case DEVICE_NAME_OR_TYPE_UPDATE_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.rule.engine.api.msg.DeviceNameOrTypeUpdateMsg) {
+                    return msg;
+                }
+                DeviceNameOrTypeUpdateMsg nameMsg = (DeviceNameOrTypeUpdateMsg) msg;
+                return new org.thingsboard.rule.engine.api.msg.DeviceNameOrTypeUpdateMsg(nameMsg.getTenantId(), nameMsg.getDeviceId(),
+                        nameMsg.getDeviceName(), nameMsg.getDeviceType());
+            case DEVICE_EDGE_UPDATE_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.rule.engine.api.msg.DeviceEdgeUpdateMsg) {
+                    return msg;
+                }
+                DeviceEdgeUpdateMsg edgeMsg = (DeviceEdgeUpdateMsg) msg;
+                return new org.thingsboard.rule.engine.api.msg.DeviceEdgeUpdateMsg(edgeMsg.getTenantId(), edgeMsg.getDeviceId(), edgeMsg.getEdgeId());
+            case DEVICE_RPC_REQUEST_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.server.service.rpc.ToDeviceRpcRequestActorMsg) {
+                    return msg;
+                }
+                ToDeviceRpcRequestActorMsg requestMsg = (ToDeviceRpcRequestActorMsg) msg;
+                return new org.thingsboard.server.service.rpc.ToDeviceRpcRequestActorMsg(requestMsg.getServiceId(), requestMsg.getMsg());
+            case DEVICE_RPC_RESPONSE_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.server.service.rpc.FromDeviceRpcResponseActorMsg) {
+                    return msg;
+                }
+                FromDeviceRpcResponseActorMsg responseMsg = (FromDeviceRpcResponseActorMsg) msg;
+                return new org.thingsboard.server.service.rpc.FromDeviceRpcResponseActorMsg(responseMsg.getRequestId(), responseMsg.getTenantId(),
+                        responseMsg.getDeviceId(), responseMsg.getMsg());
+            case REMOVE_RPC_TO_DEVICE_ACTOR_MSG:
+                if (msg instanceof org.thingsboard.server.service.rpc.RemoveRpcActorMsg) {
+                    return msg;
+                }
+                RemoveRpcActorMsg removeMsg = (RemoveRpcActorMsg) msg;
+                return new org.thingsboard.server.service.rpc.RemoveRpcActorMsg(removeMsg.getTenantId(), removeMsg.getDeviceId(), removeMsg.getRequestId());
+            default:
+                return msg;
+        }
+    }
+}
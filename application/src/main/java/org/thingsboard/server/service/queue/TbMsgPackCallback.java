@@ -23,24 +23,23 @@ import org.thingsboard.server.common.msg.queue.RuleEngineException;
 import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
 import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class TbMsgPackCallback implements TbMsgCallback {
-    private final UUID id;
+    private final int slot;
     private final TenantId tenantId;
     private final TbMsgPackProcessingContext ctx;
     private final long startMsgProcessing;
     private final Timer successfulMsgTimer;
     private final Timer failedMsgTimer;
 
-    public TbMsgPackCallback(UUID id, TenantId tenantId, TbMsgPackProcessingContext ctx) {
-        this(id, tenantId, ctx, null, null);
+    public TbMsgPackCallback(int slot, TenantId tenantId, TbMsgPackProcessingContext ctx) {
+        this(slot, tenantId, ctx, null, null);
     }
 
-    public TbMsgPackCallback(UUID id, TenantId tenantId, TbMsgPackProcessingContext ctx, Timer successfulMsgTimer, Timer failedMsgTimer) {
-        this.id = id;
+    public TbMsgPackCallback(int slot, TenantId tenantId, TbMsgPackProcessingContext ctx, Timer successfulMsgTimer, Timer failedMsgTimer) {
+        this.slot = slot;
         this.tenantId = tenantId;
         this.ctx = ctx;
         this.successfulMsgTimer = successfulMsgTimer;
@@ -50,20 +49,20 @@ public class TbMsgPackCallback implements TbMsgCallback {
 
     @Override
     public void onSuccess() {
-        log.trace("[{}] ON SUCCESS", id);
+        log.trace("[{}] ON SUCCESS", slot);
         if (successfulMsgTimer != null) {
             successfulMsgTimer.record(System.currentTimeMillis() - startMsgProcessing, TimeUnit.MILLISECONDS);
         }
-        ctx.onSuccess(id);
+        ctx.onSuccess(slot);
     }
 
     @Override
     public void onFailure(RuleEngineException e) {
-        log.trace("[{}] ON FAILURE", id, e);
+        log.trace("[{}] ON FAILURE", slot, e);
         if (failedMsgTimer != null) {
             failedMsgTimer.record(System.currentTimeMillis() - startMsgProcessing, TimeUnit.MILLISECONDS);
         }
-        ctx.onFailure(tenantId, id, e);
+        ctx.onFailure(tenantId, slot, e);
     }
 
     @Override
@@ -73,13 +72,13 @@ public class TbMsgPackCallback implements TbMsgCallback {
 
     @Override
     public void onProcessingStart(RuleNodeInfo ruleNodeInfo) {
-        log.trace("[{}] ON PROCESSING START: {}", id, ruleNodeInfo);
-        ctx.onProcessingStart(id, ruleNodeInfo);
+        log.trace("[{}] ON PROCESSING START: {}", slot, ruleNodeInfo);
+        ctx.onProcessingStart(slot, ruleNodeInfo);
     }
 
     @Override
     public void onProcessingEnd(RuleNodeId ruleNodeId) {
-        log.trace("[{}] ON PROCESSING END: {}", id, ruleNodeId);
-        ctx.onProcessingEnd(id, ruleNodeId);
+        log.trace("[{}] ON PROCESSING END: {}", slot, ruleNodeId);
+        ctx.onProcessingEnd(slot, ruleNodeId);
     }
 }
@@ -25,7 +25,9 @@ import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineSubmitStrategy;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,27 +35,37 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Tracks the processing of a single submit attempt of the polled pack. Messages are addressed by their slot,
+ * i.e. the index in the polled pack, and the state of each slot is kept in an atomic array instead of per-message maps.
+ */
 @Slf4j
 public class TbMsgPackProcessingContext {
 
+    private static final int NONE = 0;
+    private static final int PENDING = 1;
+    private static final int SUCCESS = 2;
+    private static final int FAILED = 3;
+
     private final String queueName;
     private final TbRuleEngineSubmitStrategy submitStrategy;
     private final boolean skipTimeoutMsgsPossible;
     @Getter
     private final boolean profilerEnabled;
+    private final List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs;
+    private final int[] slots;
+    private final AtomicIntegerArray states;
     private final AtomicInteger pendingCount;
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
     private final CountDownLatch processingTimeoutLatch = new CountDownLatch(1);
     @Getter
-    private final ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> pendingMap;
-    @Getter
-    private final ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> successMap = new ConcurrentHashMap<>();
-    @Getter
-    private final ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> failedMap = new ConcurrentHashMap<>();
-    @Getter
     private final ConcurrentMap<TenantId, RuleEngineException> exceptionsMap = new ConcurrentHashMap<>();
 
-    private final ConcurrentMap<UUID, RuleNodeInfo> lastRuleNodeMap = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<RuleNodeInfo> lastRuleNodes;
 
     private volatile boolean canceled = false;
 
@@ -62,8 +74,14 @@ public class TbMsgPackProcessingContext {
         this.submitStrategy = submitStrategy;
         this.skipTimeoutMsgsPossible = skipTimeoutMsgsPossible;
         this.profilerEnabled = log.isDebugEnabled();
-        this.pendingMap = submitStrategy.getPendingMap();
-        this.pendingCount = new AtomicInteger(pendingMap.size());
+        this.msgs = submitStrategy.getMsgs();
+        this.slots = submitStrategy.getPendingSlots();
+        this.states = new AtomicIntegerArray(msgs.size());
+        this.lastRuleNodes = new AtomicReferenceArray<>(msgs.size());
+        for (int slot : slots) {
+            states.set(slot, PENDING);
+        }
+        this.pendingCount = new AtomicInteger(slots.length);
     }
 
     public boolean await(long packProcessingTimeout, TimeUnit milliseconds) throws InterruptedException {
@@ -74,48 +92,80 @@ public class TbMsgPackProcessingContext {
         return success;
     }
 
-    public void onSuccess(UUID id) {
-        TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> msg;
-        boolean empty = false;
-        msg = pendingMap.remove(id);
-        if (msg != null) {
-            empty = pendingCount.decrementAndGet() == 0;
-            successMap.put(id, msg);
-            submitStrategy.onSuccess(id);
-        }
-        if (empty) {
-            processingTimeoutLatch.countDown();
+    public void onSuccess(int slot) {
+        if (states.compareAndSet(slot, PENDING, SUCCESS)) {
+            successCount.incrementAndGet();
+            boolean empty = pendingCount.decrementAndGet() == 0;
+            submitStrategy.onSuccess(slot);
+            if (empty) {
+                processingTimeoutLatch.countDown();
+            }
         }
     }
 
-    public void onFailure(TenantId tenantId, UUID id, RuleEngineException e) {
-        TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> msg;
-        boolean empty = false;
-        msg = pendingMap.remove(id);
-        if (msg != null) {
-            empty = pendingCount.decrementAndGet() == 0;
-            failedMap.put(id, msg);
+    public void onFailure(TenantId tenantId, int slot, RuleEngineException e) {
+        if (states.compareAndSet(slot, PENDING, FAILED)) {
+            failedCount.incrementAndGet();
             exceptionsMap.putIfAbsent(tenantId, e);
+            if (pendingCount.decrementAndGet() == 0) {
+                processingTimeoutLatch.countDown();
+            }
         }
-        if (empty) {
-            processingTimeoutLatch.countDown();
+    }
+
+    public TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> getMsg(int slot) {
+        return msgs.get(slot);
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public int getSuccessCount() {
+        return successCount.get();
+    }
+
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int[] getPendingSlots() {
+        return getSlots(PENDING);
+    }
+
+    public int[] getSuccessSlots() {
+        return getSlots(SUCCESS);
+    }
+
+    public int[] getFailedSlots() {
+        return getSlots(FAILED);
+    }
+
+    private int[] getSlots(int state) {
+        int[] result = new int[slots.length];
+        int size = 0;
+        for (int slot : slots) {
+            if (states.get(slot) == state) {
+                result[size++] = slot;
+            }
         }
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
-    private final ConcurrentHashMap<UUID, TbMsgProfilerInfo> msgProfilerMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, TbMsgProfilerInfo> msgProfilerMap = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<UUID, TbRuleNodeProfilerInfo> ruleNodeProfilerMap = new ConcurrentHashMap<>();
 
-    public void onProcessingStart(UUID id, RuleNodeInfo ruleNodeInfo) {
-        lastRuleNodeMap.put(id, ruleNodeInfo);
+    public void onProcessingStart(int slot, RuleNodeInfo ruleNodeInfo) {
+        lastRuleNodes.set(slot, ruleNodeInfo);
         if (profilerEnabled) {
-            msgProfilerMap.computeIfAbsent(id, TbMsgProfilerInfo::new).onStart(ruleNodeInfo.getRuleNodeId());
+            msgProfilerMap.computeIfAbsent(slot, this::newProfilerInfo).onStart(ruleNodeInfo.getRuleNodeId());
             ruleNodeProfilerMap.putIfAbsent(ruleNodeInfo.getRuleNodeId().getId(), new TbRuleNodeProfilerInfo(ruleNodeInfo));
         }
     }
 
-    public void onProcessingEnd(UUID id, RuleNodeId ruleNodeId) {
+    public void onProcessingEnd(int slot, RuleNodeId ruleNodeId) {
         if (profilerEnabled) {
-            long processingTime = msgProfilerMap.computeIfAbsent(id, TbMsgProfilerInfo::new).onEnd(ruleNodeId);
+            long processingTime = msgProfilerMap.computeIfAbsent(slot, this::newProfilerInfo).onEnd(ruleNodeId);
             if (processingTime > 0) {
                 ruleNodeProfilerMap.computeIfAbsent(ruleNodeId.getId(), TbRuleNodeProfilerInfo::new).record(processingTime);
             }
@@ -129,8 +179,8 @@ public class TbMsgPackProcessingContext {
         }
     }
 
-    public RuleNodeInfo getLastVisitedRuleNode(UUID id) {
-        return lastRuleNodeMap.get(id);
+    public RuleNodeInfo getLastVisitedRuleNode(int slot) {
+        return lastRuleNodes.get(slot);
     }
 
     public void printProfilerStats() {
@@ -154,12 +204,16 @@ public class TbMsgPackProcessingContext {
 
     public void cleanup() {
         canceled = true;
-        pendingMap.clear();
-        successMap.clear();
-        failedMap.clear();
+        for (int slot : slots) {
+            states.compareAndSet(slot, PENDING, NONE);
+        }
     }
 
     public boolean isCanceled() {
         return skipTimeoutMsgsPossible && canceled;
     }
+
+    private TbMsgProfilerInfo newProfilerInfo(int slot) {
+        return new TbMsgProfilerInfo(msgs.get(slot).getKey());
+    }
 }
@@ -97,21 +97,27 @@ public class TbRuleEngineConsumerStats {
     }
 
     public void log(TbRuleEngineProcessingResult msg, boolean finalIterationForPack) {
-        int success = msg.getSuccessMap().size();
-        int pending = msg.getPendingMap().size();
-        int failed = msg.getFailedMap().size();
+        int success = msg.getSuccessCount();
+        int pending = msg.getPendingCount();
+        int failed = msg.getFailedCount();
         totalMsgCounter.add(success + pending + failed);
         successMsgCounter.add(success);
-        msg.getSuccessMap().values().forEach(m -> getTenantStats(m).logSuccess());
+        for (int slot : msg.getSuccessSlots()) {
+            getTenantStats(msg.getMsg(slot)).logSuccess();
+        }
         if (finalIterationForPack) {
             if (pending > 0 || failed > 0) {
                 timeoutMsgCounter.add(pending);
                 failedMsgCounter.add(failed);
                 if (pending > 0) {
-                    msg.getPendingMap().values().forEach(m -> getTenantStats(m).logTimeout());
+                    for (int slot : msg.getPendingSlots()) {
+                        getTenantStats(msg.getMsg(slot)).logTimeout();
+                    }
                 }
                 if (failed > 0) {
-                    msg.getFailedMap().values().forEach(m -> getTenantStats(m).logFailed());
+                    for (int slot : msg.getFailedSlots()) {
+                        getTenantStats(msg.getMsg(slot)).logFailed();
+                    }
                 }
                 failedIterationsCounter.increment();
             } else {
@@ -122,10 +128,14 @@ public class TbRuleEngineConsumerStats {
             tmpTimeoutMsgCounter.add(pending);
             tmpFailedMsgCounter.add(failed);
             if (pending > 0) {
-                msg.getPendingMap().values().forEach(m -> getTenantStats(m).logTmpTimeout());
+                for (int slot : msg.getPendingSlots()) {
+                    getTenantStats(msg.getMsg(slot)).logTmpTimeout();
+                }
             }
             if (failed > 0) {
-                msg.getFailedMap().values().forEach(m -> getTenantStats(m).logTmpFailed());
+                for (int slot : msg.getFailedSlots()) {
+                    getTenantStats(msg.getMsg(slot)).logTmpFailed();
+                }
             }
         }
         msg.getExceptionsMap().forEach(tenantExceptions::putIfAbsent);
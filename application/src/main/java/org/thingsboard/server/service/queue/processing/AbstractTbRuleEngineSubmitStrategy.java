@@ -18,49 +18,49 @@ package org.thingsboard.server.service.queue.processing;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public abstract class AbstractTbRuleEngineSubmitStrategy implements TbRuleEngineSubmitStrategy {
 
     protected final String queueName;
-    protected List<IdMsgPair<TransportProtos.ToRuleEngineMsg>> orderedMsgList;
+    protected List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs;
+    protected volatile int[] orderedSlots;
     private volatile boolean stopped;
 
     public AbstractTbRuleEngineSubmitStrategy(String queueName) {
         this.queueName = queueName;
     }
 
-    protected abstract void doOnSuccess(UUID id);
+    protected abstract void doOnSuccess(int slot);
 
     @Override
     public void init(List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs) {
-        orderedMsgList = msgs.stream().map(msg -> new IdMsgPair<>(UUID.randomUUID(), msg)).collect(Collectors.toList());
+        this.msgs = msgs;
+        this.orderedSlots = IntStream.range(0, msgs.size()).toArray();
     }
 
     @Override
-    public ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> getPendingMap() {
-        return orderedMsgList.stream().collect(Collectors.toConcurrentMap(pair -> pair.uuid, pair -> pair.msg));
+    public List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> getMsgs() {
+        return msgs;
     }
 
     @Override
-    public void update(ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> reprocessMap) {
-        List<IdMsgPair<TransportProtos.ToRuleEngineMsg>> newOrderedMsgList = new ArrayList<>(reprocessMap.size());
-        for (IdMsgPair<TransportProtos.ToRuleEngineMsg> pair : orderedMsgList) {
-            if (reprocessMap.containsKey(pair.uuid)) {
-                newOrderedMsgList.add(pair);
-            }
-        }
-        orderedMsgList = newOrderedMsgList;
+    public int[] getPendingSlots() {
+        return orderedSlots;
+    }
+
+    @Override
+    public void update(BitSet reprocessSlots) {
+        orderedSlots = Arrays.stream(orderedSlots).filter(reprocessSlots::get).toArray();
     }
 
     @Override
-    public void onSuccess(UUID id) {
+    public void onSuccess(int slot) {
         if (!stopped) {
-            doOnSuccess(id);
+            doOnSuccess(slot);
         }
     }
 
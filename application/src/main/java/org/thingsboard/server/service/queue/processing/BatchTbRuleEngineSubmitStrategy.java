@@ -16,23 +16,19 @@
 package org.thingsboard.server.service.queue.processing;
 
 import lombok.extern.slf4j.Slf4j;
-import org.thingsboard.server.gen.transport.TransportProtos;
-import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
+import java.util.BitSet;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 
 @Slf4j
 public class BatchTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitStrategy {
 
     private final int batchSize;
     private final AtomicInteger packIdx = new AtomicInteger(0);
-    private final Map<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> pendingPack = new LinkedHashMap<>();
-    private volatile BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer;
+    private final BitSet pendingPack = new BitSet();
+    private int pendingPackSize;
+    private volatile IntConsumer slotConsumer;
 
     public BatchTbRuleEngineSubmitStrategy(String queueName, int batchSize) {
         super(queueName);
@@ -40,23 +36,25 @@ public class BatchTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitS
     }
 
     @Override
-    public void submitAttempt(BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer) {
-        this.msgConsumer = msgConsumer;
+    public void submitAttempt(IntConsumer slotConsumer) {
+        this.slotConsumer = slotConsumer;
         submitNext();
     }
 
     @Override
-    public void update(ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> reprocessMap) {
-        super.update(reprocessMap);
+    public void update(BitSet reprocessSlots) {
+        super.update(reprocessSlots);
         packIdx.set(0);
     }
 
     @Override
-    protected void doOnSuccess(UUID id) {
-        boolean endOfPendingPack;
+    protected void doOnSuccess(int slot) {
+        boolean endOfPendingPack = false;
         synchronized (pendingPack) {
-            TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> msg = pendingPack.remove(id);
-            endOfPendingPack = msg != null && pendingPack.isEmpty();
+            if (pendingPack.get(slot)) {
+                pendingPack.clear(slot);
+                endOfPendingPack = --pendingPackSize == 0;
+            }
         }
         if (endOfPendingPack) {
             packIdx.incrementAndGet();
@@ -65,23 +63,24 @@ public class BatchTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitS
     }
 
     private void submitNext() {
-        int listSize = orderedMsgList.size();
+        int[] slots = orderedSlots;
+        int listSize = slots.length;
         int startIdx = Math.min(packIdx.get() * batchSize, listSize);
         int endIdx = Math.min(startIdx + batchSize, listSize);
-        Map<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> tmpPack;
         synchronized (pendingPack) {
             pendingPack.clear();
             for (int i = startIdx; i < endIdx; i++) {
-                IdMsgPair<TransportProtos.ToRuleEngineMsg> pair = orderedMsgList.get(i);
-                pendingPack.put(pair.uuid, pair.msg);
+                pendingPack.set(slots[i]);
             }
-            tmpPack = new LinkedHashMap<>(pendingPack);
+            pendingPackSize = endIdx - startIdx;
         }
-        int submitSize = pendingPack.size();
+        int submitSize = endIdx - startIdx;
         if (log.isDebugEnabled() && submitSize > 0) {
             log.debug("[{}] submitting [{}] messages to rule engine", queueName, submitSize);
         }
-        tmpPack.forEach(msgConsumer);
+        for (int i = startIdx; i < endIdx; i++) {
+            slotConsumer.accept(slots[i]);
+        }
     }
 
 }
@@ -16,11 +16,8 @@
 package org.thingsboard.server.service.queue.processing;
 
 import lombok.extern.slf4j.Slf4j;
-import org.thingsboard.server.gen.transport.TransportProtos;
-import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
-import java.util.UUID;
-import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 
 @Slf4j
 public class BurstTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitStrategy {
@@ -30,15 +27,18 @@ public class BurstTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitS
     }
 
     @Override
-    public void submitAttempt(BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer) {
+    public void submitAttempt(IntConsumer slotConsumer) {
+        int[] slots = orderedSlots;
         if (log.isDebugEnabled()) {
-            log.debug("[{}] submitting [{}] messages to rule engine", queueName, orderedMsgList.size());
+            log.debug("[{}] submitting [{}] messages to rule engine", queueName, slots.length);
+        }
+        for (int slot : slots) {
+            slotConsumer.accept(slot);
         }
-        orderedMsgList.forEach(pair -> msgConsumer.accept(pair.uuid, pair.msg));
     }
 
     @Override
-    protected void doOnSuccess(UUID id) {
+    protected void doOnSuccess(int slot) {
 
     }
 }
@@ -20,20 +20,24 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.function.BiConsumer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
 
 @Slf4j
 public abstract class SequentialByEntityIdTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSubmitStrategy {
 
-    private volatile BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer;
-    private volatile ConcurrentMap<UUID, EntityId> msgToEntityIdMap = new ConcurrentHashMap<>();
-    private volatile ConcurrentMap<EntityId, Queue<IdMsgPair<TransportProtos.ToRuleEngineMsg>>> entityIdToListMap = new ConcurrentHashMap<>();
+    private volatile IntConsumer slotConsumer;
+    /**
+     * Per entity chains of slots: nextSlots[slot] is the slot of the next message of the same entity or -1.
+     */
+    private volatile int[] nextSlots;
+    private volatile int[] headSlots;
+    private volatile AtomicIntegerArray inFlight;
 
     public SequentialByEntityIdTbRuleEngineSubmitStrategy(String queueName) {
         super(queueName);
@@ -42,57 +46,58 @@ public abstract class SequentialByEntityIdTbRuleEngineSubmitStrategy extends Abs
     @Override
     public void init(List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs) {
         super.init(msgs);
-        initMaps();
+        initChains();
     }
 
     @Override
-    public void submitAttempt(BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer) {
-        this.msgConsumer = msgConsumer;
-        entityIdToListMap.forEach((entityId, queue) -> {
-            IdMsgPair<TransportProtos.ToRuleEngineMsg> msg = queue.peek();
-            if (msg != null) {
-                msgConsumer.accept(msg.uuid, msg.msg);
-            }
-        });
+    public void submitAttempt(IntConsumer slotConsumer) {
+        this.slotConsumer = slotConsumer;
+        AtomicIntegerArray inFlight = this.inFlight;
+        for (int slot : headSlots) {
+            inFlight.set(slot, 1);
+            slotConsumer.accept(slot);
+        }
     }
 
     @Override
-    public void update(ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> reprocessMap) {
-        super.update(reprocessMap);
-        initMaps();
+    public void update(BitSet reprocessSlots) {
+        super.update(reprocessSlots);
+        initChains();
     }
 
     @Override
-    protected void doOnSuccess(UUID id) {
-        EntityId entityId = msgToEntityIdMap.get(id);
-        if (entityId != null) {
-            Queue<IdMsgPair<TransportProtos.ToRuleEngineMsg>> queue = entityIdToListMap.get(entityId);
-            if (queue != null) {
-                IdMsgPair<TransportProtos.ToRuleEngineMsg> next = null;
-                synchronized (queue) {
-                    IdMsgPair<TransportProtos.ToRuleEngineMsg> expected = queue.peek();
-                    if (expected != null && expected.uuid.equals(id)) {
-                        queue.poll();
-                        next = queue.peek();
-                    }
-                }
-                if (next != null) {
-                    msgConsumer.accept(next.uuid, next.msg);
-                }
+    protected void doOnSuccess(int slot) {
+        AtomicIntegerArray inFlight = this.inFlight;
+        if (slot < inFlight.length() && inFlight.compareAndSet(slot, 1, 0)) {
+            int next = nextSlots[slot];
+            if (next >= 0) {
+                inFlight.set(next, 1);
+                slotConsumer.accept(next);
             }
         }
     }
 
-    private void initMaps() {
-        msgToEntityIdMap.clear();
-        entityIdToListMap.clear();
-        for (IdMsgPair<TransportProtos.ToRuleEngineMsg> pair : orderedMsgList) {
-            EntityId entityId = getEntityId(pair.msg.getValue());
+    private void initChains() {
+        int size = msgs.size();
+        int[] nextSlots = new int[size];
+        Arrays.fill(nextSlots, -1);
+        Map<EntityId, Integer> lastSlots = new HashMap<>();
+        int[] heads = new int[size];
+        int headsCount = 0;
+        for (int slot : orderedSlots) {
+            EntityId entityId = getEntityId(msgs.get(slot).getValue());
             if (entityId != null) {
-                msgToEntityIdMap.put(pair.uuid, entityId);
-                entityIdToListMap.computeIfAbsent(entityId, id -> new LinkedList<>()).add(pair);
+                Integer prev = lastSlots.put(entityId, slot);
+                if (prev == null) {
+                    heads[headsCount++] = slot;
+                } else {
+                    nextSlots[prev] = slot;
+                }
             }
         }
+        this.nextSlots = nextSlots;
+        this.headSlots = Arrays.copyOf(heads, headsCount);
+        this.inFlight = new AtomicIntegerArray(size);
     }
 
     protected abstract EntityId getEntityId(TransportProtos.ToRuleEngineMsg msg);
@@ -22,7 +22,6 @@ import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.service.queue.TbMsgPackProcessingContext;
 
-import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 
 public class TbRuleEngineProcessingResult {
@@ -40,19 +39,35 @@ public class TbRuleEngineProcessingResult {
         this.queueName = queueName;
         this.timeout = timeout;
         this.ctx = ctx;
-        this.success = !timeout && ctx.getPendingMap().isEmpty() && ctx.getFailedMap().isEmpty();
+        this.success = !timeout && ctx.getPendingCount() == 0 && ctx.getFailedCount() == 0;
     }
 
-    public ConcurrentMap<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> getPendingMap() {
-        return ctx.getPendingMap();
+    public int getPendingCount() {
+        return ctx.getPendingCount();
     }
 
-    public ConcurrentMap<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> getSuccessMap() {
-        return ctx.getSuccessMap();
+    public int getSuccessCount() {
+        return ctx.getSuccessCount();
     }
 
-    public ConcurrentMap<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> getFailedMap() {
-        return ctx.getFailedMap();
+    public int getFailedCount() {
+        return ctx.getFailedCount();
+    }
+
+    public int[] getPendingSlots() {
+        return ctx.getPendingSlots();
+    }
+
+    public int[] getSuccessSlots() {
+        return ctx.getSuccessSlots();
+    }
+
+    public int[] getFailedSlots() {
+        return ctx.getFailedSlots();
+    }
+
+    public TbProtoQueueMsg<ToRuleEngineMsg> getMsg(int slot) {
+        return ctx.getMsg(slot);
     }
 
     public ConcurrentMap<TenantId, RuleEngineException> getExceptionsMap() {
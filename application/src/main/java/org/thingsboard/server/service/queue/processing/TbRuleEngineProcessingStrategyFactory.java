@@ -17,16 +17,13 @@ package org.thingsboard.server.service.queue.processing;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.settings.TbRuleEngineQueueAckStrategyConfiguration;
 
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.BitSet;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -89,10 +86,10 @@ public class TbRuleEngineProcessingStrategyFactory {
                 return new TbRuleEngineProcessingDecision(true, null);
             } else {
                 if (retryCount == 0) {
-                    initialTotalCount = result.getPendingMap().size() + result.getFailedMap().size() + result.getSuccessMap().size();
+                    initialTotalCount = result.getPendingCount() + result.getFailedCount() + result.getSuccessCount();
                 }
                 retryCount++;
-                double failedCount = result.getFailedMap().size() + result.getPendingMap().size();
+                double failedCount = result.getFailedCount() + result.getPendingCount();
                 if (maxRetries > 0 && retryCount > maxRetries) {
                     log.debug("[{}] Skip reprocess of the rule engine pack due to max retries", queueName);
                     return new TbRuleEngineProcessingDecision(true, null);
@@ -101,31 +98,31 @@ public class TbRuleEngineProcessingStrategyFactory {
                     return new TbRuleEngineProcessingDecision(true, null);
                 } else {
                     log.debug("[{}] The result of msg pack processing is unsuccessful, checking unprocessed msgs and going to reprocess them", queueName);
-                    ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> toReprocess = new ConcurrentHashMap<>(initialTotalCount);
+                    BitSet toReprocess = new BitSet(initialTotalCount);
                     if (retryFailed) {
-                        result.getFailedMap().forEach(toReprocess::put);
-                    } else if (log.isDebugEnabled() && !result.getFailedMap().isEmpty()) {
-                        log.debug("[{}] Skipped {} failed messages due to the processing strategy configuration", queueName, result.getFailedMap().size());
+                        setAll(toReprocess, result.getFailedSlots());
+                    } else if (log.isDebugEnabled() && result.getFailedCount() > 0) {
+                        log.debug("[{}] Skipped {} failed messages due to the processing strategy configuration", queueName, result.getFailedCount());
                     }
                     if (retryTimeout) {
-                        result.getPendingMap().forEach(toReprocess::put);
-                    } else if (log.isDebugEnabled() && !result.getPendingMap().isEmpty()) {
-                        log.debug("[{}] Skipped {} timedOut messages due to the processing strategy configuration", queueName, result.getPendingMap().size());
+                        setAll(toReprocess, result.getPendingSlots());
+                    } else if (log.isDebugEnabled() && result.getPendingCount() > 0) {
+                        log.debug("[{}] Skipped {} timedOut messages due to the processing strategy configuration", queueName, result.getPendingCount());
                     }
                     if (retrySuccessful) {
-                        result.getSuccessMap().forEach(toReprocess::put);
-                    } else if (log.isTraceEnabled() && !result.getSuccessMap().isEmpty()) {
-                        log.trace("[{}] Skipped {} successful messages due to the processing strategy configuration", queueName, result.getSuccessMap().size());
+                        setAll(toReprocess, result.getSuccessSlots());
+                    } else if (log.isTraceEnabled() && result.getSuccessCount() > 0) {
+                        log.trace("[{}] Skipped {} successful messages due to the processing strategy configuration", queueName, result.getSuccessCount());
                     }
-                    if (CollectionUtils.isEmpty(toReprocess)) {
+                    if (toReprocess.isEmpty()) {
                         if (log.isDebugEnabled()) {
                             log.debug("[{}] Stopping the reprocessing logic due to reprocessing map is empty", queueName);
                         }
                         return new TbRuleEngineProcessingDecision(true, null);
                     }
-                    log.debug("[{}] Going to reprocess {} messages", queueName, toReprocess.size());
+                    log.debug("[{}] Going to reprocess {} messages", queueName, toReprocess.cardinality());
                     if (log.isTraceEnabled()) {
-                        toReprocess.forEach((id, msg) -> log.trace("Going to reprocess [{}]: {}", id, TbMsg.fromBytes(result.getQueueName(), msg.getValue().getTbMsg().toByteArray(), TbMsgCallback.EMPTY)));
+                        toReprocess.stream().forEach(slot -> logMsg("Going to reprocess", result, slot));
                     }
                     if (pauseBetweenRetries > 0) {
                         try {
@@ -161,15 +158,30 @@ public class TbRuleEngineProcessingStrategyFactory {
         @Override
         public TbRuleEngineProcessingDecision analyze(TbRuleEngineProcessingResult result) {
             if (!result.isSuccess()) {
-                log.debug("[{}] Reprocessing skipped for {} failed and {} timeout messages", queueName, result.getFailedMap().size(), result.getPendingMap().size());
+                log.debug("[{}] Reprocessing skipped for {} failed and {} timeout messages", queueName, result.getFailedCount(), result.getPendingCount());
             }
             if (log.isTraceEnabled()) {
-                result.getFailedMap().forEach((id, msg) -> log.trace("Failed messages [{}]: {}", id, TbMsg.fromBytes(result.getQueueName(), msg.getValue().getTbMsg().toByteArray(), TbMsgCallback.EMPTY)));
+                for (int slot : result.getFailedSlots()) {
+                    logMsg("Failed messages", result, slot);
+                }
             }
             if (log.isTraceEnabled()) {
-                result.getPendingMap().forEach((id, msg) -> log.trace("Timeout messages [{}]: {}", id, TbMsg.fromBytes(result.getQueueName(), msg.getValue().getTbMsg().toByteArray(), TbMsgCallback.EMPTY)));
+                for (int slot : result.getPendingSlots()) {
+                    logMsg("Timeout messages", result, slot);
+                }
             }
             return new TbRuleEngineProcessingDecision(true, null);
         }
     }
+
+    private static void setAll(BitSet bitSet, int[] slots) {
+        for (int slot : slots) {
+            bitSet.set(slot);
+        }
+    }
+
+    private static void logMsg(String prefix, TbRuleEngineProcessingResult result, int slot) {
+        TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> msg = result.getMsg(slot);
+        log.trace("{} [{}]: {}", prefix, msg.getKey(), TbMsg.fromBytes(result.getQueueName(), msg.getValue().getTbMsg(), TbMsgCallback.EMPTY));
+    }
 }
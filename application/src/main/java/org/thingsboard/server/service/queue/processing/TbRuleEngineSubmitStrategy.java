@@ -18,22 +18,27 @@ package org.thingsboard.server.service.queue.processing;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 
+/**
+ * Decides in which order the messages of the polled pack are submitted to the rule engine.
+ * Messages are addressed by their slot, i.e. the index in the polled pack.
+ */
 public interface TbRuleEngineSubmitStrategy {
 
     void init(List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs);
 
-    ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> getPendingMap();
+    List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> getMsgs();
+
+    int[] getPendingSlots();
 
-    void submitAttempt(BiConsumer<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgConsumer);
+    void submitAttempt(IntConsumer slotConsumer);
 
-    void update(ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> reprocessMap);
+    void update(BitSet reprocessSlots);
 
-    void onSuccess(UUID id);
+    void onSuccess(int slot);
 
     void stop();
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rpc;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rpc.Rpc;
+import org.thingsboard.server.common.data.rpc.RpcStatus;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
+import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Service
+@TbCoreComponent
+@RequiredArgsConstructor
+public class DefaultTbPendingRpcPreloadService extends TbApplicationEventListener<PartitionChangeEvent> implements TbPendingRpcPreloadService {
+
+    private final TbRpcService tbRpcService;
+    private final PartitionService partitionService;
+
+    @Value("${actors.rpc.preload.enabled:true}")
+    private boolean enabled;
+    @Value("${actors.rpc.preload.page_size:1024}")
+    private int pageSize;
+
+    private final Queue<Set<TopicPartitionInfo>> subscribeQueue = new ConcurrentLinkedQueue<>();
+    private final Object lock = new Object();
+    // guarded by lock
+    private final Map<DeviceId, List<Rpc>> queuedRpcs = new HashMap<>();
+    private final Set<TopicPartitionInfo> preloadedPartitions = new HashSet<>();
+    private final Set<TopicPartitionInfo> loadingPartitions = new HashSet<>();
+    private final Set<DeviceId> loadedFromDb = new HashSet<>();
+    private final Set<DeviceId> polledDevices = new HashSet<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("pending-rpc-preload"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected void onTbApplicationEvent(PartitionChangeEvent event) {
+        if (enabled && ServiceType.TB_CORE.equals(event.getServiceType())) {
+            subscribeQueue.add(event.getPartitions());
+            executor.submit(this::preload);
+        }
+    }
+
+    @Override
+    public List<Rpc> pollQueuedRpcs(TenantId tenantId, DeviceId deviceId) {
+        if (!enabled) {
+            return null;
+        }
+        TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceId);
+        synchronized (lock) {
+            if (preloadedPartitions.contains(tpi)) {
+                if (!polledDevices.add(deviceId)) {
+                    // the snapshot is only valid for the first actor created after the rebalance
+                    return null;
+                }
+                // the snapshot of the partition is complete, so a device without preloaded requests has none
+                List<Rpc> rpcs = queuedRpcs.remove(deviceId);
+                return rpcs != null ? rpcs : Collections.emptyList();
+            }
+            if (loadingPartitions.contains(tpi)) {
+                // the actor reads its requests from the database, the preloaded copy would be stale
+                loadedFromDb.add(deviceId);
+            }
+            return null;
+        }
+    }
+
+    void preload() {
+        Set<TopicPartitionInfo> partitions = null;
+        while (!subscribeQueue.isEmpty()) {
+            partitions = subscribeQueue.poll();
+        }
+        if (partitions == null) {
+            return;
+        }
+        Set<TopicPartitionInfo> added = new HashSet<>(partitions);
+        synchronized (lock) {
+            preloadedPartitions.retainAll(partitions);
+            queuedRpcs.values().removeIf(rpcs -> !partitions.contains(resolve(rpcs.get(0))));
+            added.removeAll(preloadedPartitions);
+            loadingPartitions.clear();
+            loadingPartitions.addAll(added);
+            loadedFromDb.clear();
+            polledDevices.clear();
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        long startTs = System.currentTimeMillis();
+        Map<DeviceId, List<Rpc>> loaded = new HashMap<>();
+        try {
+            Collection<TenantId> tenantIds = getTenantIds(added);
+            Rpc last = loadQueuedRpcs(tenantIds, added, null, loaded);
+            synchronized (lock) {
+                // requests written after the last page was read are loaded while no device of the partitions can poll,
+                // requests written after the snapshot is published reach the device actors with their own actor messages
+                loadQueuedRpcs(tenantIds, added, last, loaded);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                loaded.keySet().removeAll(loadedFromDb);
+                queuedRpcs.putAll(loaded);
+                preloadedPartitions.addAll(added);
+                // these devices have read their requests from the database, the snapshot does not apply to them
+                polledDevices.addAll(loadedFromDb);
+                loadingPartitions.clear();
+                loadedFromDb.clear();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to preload queued RPC requests for partitions {}", added, e);
+            synchronized (lock) {
+                loadingPartitions.clear();
+                loadedFromDb.clear();
+            }
+            return;
+        }
+        int count = loaded.values().stream().mapToInt(List::size).sum();
+        log.info("Preloaded {} queued RPC requests of {} devices for {} partitions in {} ms", count, loaded.size(), added.size(), System.currentTimeMillis() - startTs);
+    }
+
+    /**
+     * Reads the queued requests that follow the given one by keyset paging, so requests delivered or expired
+     * during the scan do not shift the following pages. Returns the last request read.
+     */
+    private Rpc loadQueuedRpcs(Collection<TenantId> tenantIds, Set<TopicPartitionInfo> partitions, Rpc last, Map<DeviceId, List<Rpc>> loaded) {
+        List<Rpc> rpcs;
+        do {
+            long createdTime = last != null ? last.getCreatedTime() : -1L;
+            UUID id = last != null ? last.getId().getId() : new UUID(0L, 0L);
+            rpcs = tbRpcService.findAllByStatusAfter(tenantIds, RpcStatus.QUEUED, createdTime, id, pageSize);
+            for (Rpc rpc : rpcs) {
+                if (partitions.contains(resolve(rpc))) {
+                    loaded.computeIfAbsent(rpc.getDeviceId(), deviceId -> new ArrayList<>()).add(rpc);
+                }
+            }
+            if (!rpcs.isEmpty()) {
+                last = rpcs.get(rpcs.size() - 1);
+            }
+        } while (rpcs.size() == pageSize && !Thread.currentThread().isInterrupted());
+        return last;
+    }
+
+    /**
+     * Partitions of isolated tenants belong to a single tenant, so the scan is restricted to those tenants.
+     * Shared partitions are resolved by hashing the device id, which the database can not filter on,
+     * so adding any of them requires scanning the requests of all tenants.
+     */
+    private Collection<TenantId> getTenantIds(Set<TopicPartitionInfo> partitions) {
+        Set<TenantId> tenantIds = new HashSet<>();
+        for (TopicPartitionInfo tpi : partitions) {
+            if (tpi.getTenantId().isEmpty()) {
+                return null;
+            }
+            tenantIds.add(tpi.getTenantId().get());
+        }
+        return tenantIds;
+    }
+
+    private TopicPartitionInfo resolve(Rpc rpc) {
+        return partitionService.resolve(ServiceType.TB_CORE, rpc.getTenantId(), rpc.getDeviceId());
+    }
+
+}
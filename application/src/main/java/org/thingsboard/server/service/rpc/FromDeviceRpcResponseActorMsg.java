@@ -15,31 +15,19 @@
  */
 package org.thingsboard.server.service.rpc;
 
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
-import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
-import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponse;
 
-@ToString
-@RequiredArgsConstructor
-public class FromDeviceRpcResponseActorMsg implements ToDeviceActorNotificationMsg {
-
-    @Getter
-    private final Integer requestId;
-    @Getter
-    private final TenantId tenantId;
-    @Getter
-    private final DeviceId deviceId;
-
-    @Getter
-    private final FromDeviceRpcResponse msg;
+/**
+ * Keeps the original class name readable for FST encoded notifications exchanged with older nodes.
+ *
+ * @deprecated use {@link org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg}
+ */
+@Deprecated
+public class FromDeviceRpcResponseActorMsg extends org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg {
 
-    @Override
-    public MsgType getMsgType() {
-        return MsgType.DEVICE_RPC_RESPONSE_TO_DEVICE_ACTOR_MSG;
+    public FromDeviceRpcResponseActorMsg(Integer requestId, TenantId tenantId, DeviceId deviceId, FromDeviceRpcResponse msg) {
+        super(requestId, tenantId, deviceId, msg);
     }
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rpc;
+
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rpc.Rpc;
+
+import java.util.List;
+
+/**
+ * Loads queued persistent RPC requests for the newly assigned tb-core partitions in bulk,
+ * so that device actors with queued requests created after a rebalance do not query the database one by one.
+ */
+public interface TbPendingRpcPreloadService {
+
+    /**
+     * Returns the queued RPC requests of the device and removes them from the preloaded state.
+     *
+     * @param tenantId the tenant of the device
+     * @param deviceId the device
+     * @return preloaded queued RPC requests, an empty list if the device has no queued requests,
+     * or null if they are unknown and have to be fetched from the database,
+     * for example when the partition of the device is not preloaded or the device was already polled since the rebalance
+     */
+    List<Rpc> pollQueuedRpcs(TenantId tenantId, DeviceId deviceId);
+
+}
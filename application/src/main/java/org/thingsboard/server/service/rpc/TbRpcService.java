@@ -33,6 +33,10 @@ import org.thingsboard.server.dao.rpc.RpcService;
 import org.thingsboard.server.queue.util.TbCoreComponent;
 import org.thingsboard.server.cluster.TbClusterService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @TbCoreComponent
 @Service
 @RequiredArgsConstructor
@@ -74,4 +78,8 @@ public class TbRpcService {
         return rpcService.findAllByDeviceIdAndStatus(tenantId, deviceId, rpcStatus, pageLink);
     }
 
+    public List<Rpc> findAllByStatusAfter(Collection<TenantId> tenantIds, RpcStatus rpcStatus, long createdTime, UUID id, int limit) {
+        return rpcService.findAllByStatusAfter(tenantIds, rpcStatus, createdTime, id, limit);
+    }
+
 }
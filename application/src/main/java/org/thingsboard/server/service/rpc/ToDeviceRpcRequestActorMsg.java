@@ -15,41 +15,17 @@
  */
 package org.thingsboard.server.service.rpc;
 
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
-import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
-import org.thingsboard.server.common.data.id.DeviceId;
-import org.thingsboard.server.common.data.id.TenantId;
-import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequest;
 
 /**
- * Created by ashvayka on 16.04.18.
+ * Keeps the original class name readable for FST encoded notifications exchanged with older nodes.
+ *
+ * @deprecated use {@link org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg}
  */
-@ToString
-@RequiredArgsConstructor
-public class ToDeviceRpcRequestActorMsg implements ToDeviceActorNotificationMsg {
-
-    private static final long serialVersionUID = -8592877558138716589L;
-
-    @Getter
-    private final String serviceId;
-    @Getter
-    private final ToDeviceRpcRequest msg;
-
-    @Override
-    public DeviceId getDeviceId() {
-        return msg.getDeviceId();
-    }
-
-    @Override
-    public TenantId getTenantId() {
-        return msg.getTenantId();
-    }
+@Deprecated
+public class ToDeviceRpcRequestActorMsg extends org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg {
 
-    @Override
-    public MsgType getMsgType() {
-        return MsgType.DEVICE_RPC_REQUEST_TO_DEVICE_ACTOR_MSG;
+    public ToDeviceRpcRequestActorMsg(String serviceId, ToDeviceRpcRequest msg) {
+        super(serviceId, msg);
     }
 }
@@ -21,19 +21,9 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
-import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
-import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
-import org.thingsboard.server.common.data.kv.BooleanDataEntry;
-import org.thingsboard.server.common.data.kv.DataType;
-import org.thingsboard.server.common.data.kv.DoubleDataEntry;
-import org.thingsboard.server.common.data.kv.JsonDataEntry;
 import org.thingsboard.server.common.data.kv.KvEntry;
-import org.thingsboard.server.common.data.kv.LongDataEntry;
-import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.gen.transport.TransportProtos;
-import org.thingsboard.server.gen.transport.TransportProtos.KeyValueProto;
-import org.thingsboard.server.gen.transport.TransportProtos.KeyValueType;
 import org.thingsboard.server.gen.transport.TransportProtos.SubscriptionMgrMsgProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbAlarmDeleteProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbAlarmUpdateProto;
@@ -50,6 +40,7 @@ import org.thingsboard.server.gen.transport.TransportProtos.TbTimeSeriesSubscrip
 import org.thingsboard.server.gen.transport.TransportProtos.TbTimeSeriesUpdateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.TsKvProto;
+import org.thingsboard.server.queue.util.KvProtoUtil;
 import org.thingsboard.server.service.telemetry.sub.AlarmSubscriptionUpdate;
 import org.thingsboard.server.service.telemetry.sub.SubscriptionErrorCode;
 import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
@@ -252,28 +243,8 @@ public class TbSubscriptionUtils {
     }
 
 
-    private static TsKvProto.Builder toKeyValueProto(long ts, KvEntry attr) {
-        KeyValueProto.Builder dataBuilder = KeyValueProto.newBuilder();
-        dataBuilder.setKey(attr.getKey());
-        dataBuilder.setType(KeyValueType.forNumber(attr.getDataType().ordinal()));
-        switch (attr.getDataType()) {
-            case BOOLEAN:
-                attr.getBooleanValue().ifPresent(dataBuilder::setBoolV);
-                break;
-            case LONG:
-                attr.getLongValue().ifPresent(dataBuilder::setLongV);
-                break;
-            case DOUBLE:
-                attr.getDoubleValue().ifPresent(dataBuilder::setDoubleV);
-                break;
-            case JSON:
-                attr.getJsonValue().ifPresent(dataBuilder::setJsonV);
-                break;
-            case STRING:
-                attr.getStrValue().ifPresent(dataBuilder::setStringV);
-                break;
-        }
-        return TsKvProto.newBuilder().setTs(ts).setKv(dataBuilder);
+    public static TsKvProto.Builder toKeyValueProto(long ts, KvEntry attr) {
+        return KvProtoUtil.toKeyValueProto(ts, attr);
     }
 
     public static EntityId toEntityId(String entityType, long entityIdMSB, long entityIdLSB) {
@@ -281,38 +252,11 @@ public class TbSubscriptionUtils {
     }
 
     public static List<TsKvEntry> toTsKvEntityList(List<TsKvProto> dataList) {
-        List<TsKvEntry> result = new ArrayList<>(dataList.size());
-        dataList.forEach(proto -> result.add(new BasicTsKvEntry(proto.getTs(), getKvEntry(proto.getKv()))));
-        return result;
+        return KvProtoUtil.toTsKvEntityList(dataList);
     }
 
     public static List<AttributeKvEntry> toAttributeKvList(List<TsKvProto> dataList) {
-        List<AttributeKvEntry> result = new ArrayList<>(dataList.size());
-        dataList.forEach(proto -> result.add(new BaseAttributeKvEntry(getKvEntry(proto.getKv()), proto.getTs())));
-        return result;
-    }
-
-    private static KvEntry getKvEntry(KeyValueProto proto) {
-        KvEntry entry = null;
-        DataType type = DataType.values()[proto.getType().getNumber()];
-        switch (type) {
-            case BOOLEAN:
-                entry = new BooleanDataEntry(proto.getKey(), proto.getBoolV());
-                break;
-            case LONG:
-                entry = new LongDataEntry(proto.getKey(), proto.getLongV());
-                break;
-            case DOUBLE:
-                entry = new DoubleDataEntry(proto.getKey(), proto.getDoubleV());
-                break;
-            case STRING:
-                entry = new StringDataEntry(proto.getKey(), proto.getStringV());
-                break;
-            case JSON:
-                entry = new JsonDataEntry(proto.getKey(), proto.getJsonV());
-                break;
-        }
-        return entry;
+        return KvProtoUtil.toAttributeKvList(dataList);
     }
 
     public static ToCoreMsg toAlarmUpdateProto(TenantId tenantId, EntityId entityId, Alarm alarm) {
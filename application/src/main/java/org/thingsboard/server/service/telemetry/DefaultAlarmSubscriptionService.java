@@ -19,9 +19,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.ApiUsageRecordKey;
 import org.thingsboard.server.common.data.alarm.Alarm;
@@ -35,11 +37,13 @@ import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.data.query.AlarmData;
 import org.thingsboard.server.common.data.query.AlarmDataQuery;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.alarm.AlarmCacheEvictEvent;
 import org.thingsboard.server.dao.alarm.AlarmOperationResult;
 import org.thingsboard.server.dao.alarm.AlarmService;
 import org.thingsboard.server.gen.transport.TransportProtos;
@@ -88,11 +92,21 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
     @Override
     public Alarm createOrUpdateAlarm(Alarm alarm) {
         AlarmOperationResult result = alarmService.createOrUpdateAlarm(alarm, apiUsageStateService.getApiUsageState(alarm.getTenantId()).isAlarmCreationEnabled());
+        return onAlarmCreatedOrUpdated(result);
+    }
+
+    @Override
+    public ListenableFuture<Alarm> createOrUpdateAlarmAsync(Alarm alarm) {
+        ListenableFuture<AlarmOperationResult> result = alarmService.createOrUpdateAlarmAsync(alarm, apiUsageStateService.getApiUsageState(alarm.getTenantId()).isAlarmCreationEnabled());
+        return Futures.transform(result, this::onAlarmCreatedOrUpdated, MoreExecutors.directExecutor());
+    }
+
+    private Alarm onAlarmCreatedOrUpdated(AlarmOperationResult result) {
         if (result.isSuccessful()) {
             onAlarmUpdated(result);
         }
         if (result.isCreated()) {
-            apiUsageClient.report(alarm.getTenantId(), null, ApiUsageRecordKey.CREATED_ALARMS_COUNT);
+            apiUsageClient.report(result.getAlarm().getTenantId(), null, ApiUsageRecordKey.CREATED_ALARMS_COUNT);
         }
         return result.getAlarm();
     }
@@ -159,6 +173,12 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
         return alarmService.findLatestByOriginatorAndType(tenantId, originator, type);
     }
 
+    @EventListener(AlarmCacheEvictEvent.class)
+    public void onAlarmCacheEvict(AlarmCacheEvictEvent event) {
+        clusterService.broadcastEntityStateChangeEvent(event.getTenantId(), event.getAlarmId(),
+                event.isDeleted() ? ComponentLifecycleEvent.DELETED : ComponentLifecycleEvent.UPDATED);
+    }
+
     private void onAlarmUpdated(AlarmOperationResult result) {
         wsCallBackExecutor.submit(() -> {
             Alarm alarm = result.getAlarm();
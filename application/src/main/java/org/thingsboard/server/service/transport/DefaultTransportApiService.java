@@ -89,6 +89,8 @@ import org.thingsboard.server.gen.transport.TransportProtos.TransportApiResponse
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceLwM2MCredentialsRequestMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokensRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokensResponseMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceX509CertRequestMsg;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.util.TbCoreComponent;
@@ -99,6 +101,7 @@ import org.thingsboard.server.cluster.TbClusterService;
 import org.thingsboard.server.service.resource.TbResourceService;
 import org.thingsboard.server.service.state.DeviceStateService;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -146,6 +149,8 @@ public class DefaultTransportApiService implements TransportApiService {
         if (transportApiRequestMsg.hasValidateTokenRequestMsg()) {
             ValidateDeviceTokenRequestMsg msg = transportApiRequestMsg.getValidateTokenRequestMsg();
             result = validateCredentials(msg.getToken(), DeviceCredentialsType.ACCESS_TOKEN);
+        } else if (transportApiRequestMsg.hasValidateTokensRequestMsg()) {
+            result = validateTokens(transportApiRequestMsg.getValidateTokensRequestMsg());
         } else if (transportApiRequestMsg.hasValidateBasicMqttCredRequestMsg()) {
             TransportProtos.ValidateBasicMqttCredRequestMsg msg = transportApiRequestMsg.getValidateBasicMqttCredRequestMsg();
             result = validateCredentials(msg);
@@ -190,6 +195,17 @@ public class DefaultTransportApiService implements TransportApiService {
         }
     }
 
+    private ListenableFuture<TransportApiResponseMsg> validateTokens(ValidateDeviceTokensRequestMsg requestMsg) {
+        List<ListenableFuture<TransportApiResponseMsg>> futures = requestMsg.getTokensList().stream()
+                .map(token -> validateCredentials(token, DeviceCredentialsType.ACCESS_TOKEN))
+                .collect(Collectors.toList());
+        return Futures.transform(Futures.allAsList(futures), responses -> {
+            ValidateDeviceTokensResponseMsg.Builder builder = ValidateDeviceTokensResponseMsg.newBuilder();
+            responses.forEach(response -> builder.addResponses(response.getValidateCredResponseMsg()));
+            return TransportApiResponseMsg.newBuilder().setValidateTokensResponseMsg(builder).build();
+        }, MoreExecutors.directExecutor());
+    }
+
     private ListenableFuture<TransportApiResponseMsg> validateCredentials(TransportProtos.ValidateBasicMqttCredRequestMsg mqtt) {
         DeviceCredentials credentials;
         if (StringUtils.isEmpty(mqtt.getUserName())) {
@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.Tenant;
+import org.thingsboard.server.common.data.User;
+import org.thingsboard.server.common.data.security.Authority;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public abstract class BaseTelemetryControllerTest extends AbstractControllerTest {
+
+    private static final long TS = 1000L;
+
+    private Tenant savedTenant;
+    private Device savedDevice;
+
+    @Before
+    public void beforeTest() throws Exception {
+        loginSysAdmin();
+
+        Tenant tenant = new Tenant();
+        tenant.setTitle("My tenant");
+        savedTenant = doPost("/api/tenant", tenant, Tenant.class);
+        Assert.assertNotNull(savedTenant);
+
+        User tenantAdmin = new User();
+        tenantAdmin.setAuthority(Authority.TENANT_ADMIN);
+        tenantAdmin.setTenantId(savedTenant.getId());
+        tenantAdmin.setEmail("tenant2@thingsboard.org");
+        tenantAdmin.setFirstName("Joe");
+        tenantAdmin.setLastName("Downs");
+        createUserAndLogin(tenantAdmin, "testPassword1");
+
+        Device device = new Device();
+        device.setName("My device");
+        device.setType("default");
+        savedDevice = doPost("/api/device", device, Device.class);
+
+        JsonNode telemetry = JacksonUtil.toJsonNode("[" +
+                "{\"ts\": " + TS + ", \"values\": {\"temperature\": 42, \"label\": \"a,b\"}}," +
+                "{\"ts\": " + (TS + 1) + ", \"values\": {\"temperature\": 43.5}}," +
+                "{\"ts\": " + (TS + 2) + ", \"values\": {\"temperature\": 44}}]");
+        doPostAsync("/api/plugins/telemetry/DEVICE/" + savedDevice.getId().getId() + "/timeseries/ANY", telemetry, 10000L)
+                .andExpect(status().isOk());
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        loginSysAdmin();
+
+        doDelete("/api/tenant/" + savedTenant.getId().getId().toString())
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testExportTimeseriesAsCsv() throws Exception {
+        String csv = exportTimeseries("temperature,label", TS, TS + 2, "csv");
+
+        Assert.assertEquals("ts,key,value\n" +
+                TS + ",temperature,42\n" +
+                (TS + 1) + ",temperature,43.5\n" +
+                TS + ",label,\"a,b\"\n", csv);
+    }
+
+    @Test
+    public void testExportTimeseriesAsNdjson() throws Exception {
+        String ndjson = exportTimeseries("temperature", TS, TS + 3, "ndjson");
+
+        List<String> rows = List.of(ndjson.split("\n"));
+        Assert.assertEquals(3, rows.size());
+        JsonNode row = JacksonUtil.toJsonNode(rows.get(1));
+        Assert.assertEquals(TS + 1, row.get("ts").asLong());
+        Assert.assertEquals("temperature", row.get("key").asText());
+        Assert.assertEquals(43.5, row.get("value").asDouble(), 0.0);
+    }
+
+    @Test
+    public void testExportOfUnknownKeyIsEmpty() throws Exception {
+        Assert.assertEquals("ts,key,value\n", exportTimeseries("unknownKey", TS, TS + 3, "csv"));
+    }
+
+    @Test
+    public void testExportWithUnsupportedFormat() throws Exception {
+        doGet("/api/plugins/telemetry/DEVICE/" + savedDevice.getId().getId() + "/values/timeseries/export" +
+                "?keys=temperature&startTs=" + TS + "&endTs=" + (TS + 3) + "&format=xml")
+                .andExpect(status().isBadRequest());
+    }
+
+    private String exportTimeseries(String keys, long startTs, long endTs, String format) throws Exception {
+        return doGet("/api/plugins/telemetry/DEVICE/" + savedDevice.getId().getId() + "/values/timeseries/export" +
+                "?keys=" + keys + "&startTs=" + startTs + "&endTs=" + endTs + "&format=" + format)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.apiusage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.rule.engine.api.MailService;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.TbCallback;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.customer.CustomerService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+import org.thingsboard.server.dao.tenant.TenantService;
+import org.thingsboard.server.dao.timeseries.TimeseriesService;
+import org.thingsboard.server.dao.usagerecord.ApiUsageStateService;
+import org.thingsboard.server.gen.transport.TransportProtos.ToUsageStatsServiceMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.UsageStatsKVProto;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.scheduler.SchedulerComponent;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultTbApiUsageStateServiceTest {
+
+    @Mock
+    TbClusterService clusterService;
+    @Mock
+    PartitionService partitionService;
+    @Mock
+    TenantService tenantService;
+    @Mock
+    CustomerService customerService;
+    @Mock
+    TimeseriesService tsService;
+    @Mock
+    ApiUsageStateService apiUsageStateService;
+    @Mock
+    SchedulerComponent scheduler;
+    @Mock
+    TbTenantProfileCache tenantProfileCache;
+    @Mock
+    MailService mailService;
+    @Mock
+    StatsFactory statsFactory;
+    @Mock
+    DefaultCounter receivedMsgsCounter;
+    @Mock
+    DefaultCounter receivedReportsCounter;
+    @Mock
+    TbCallback callback;
+
+    TenantId brokenTenantId = new TenantId(UUID.fromString("3c7b0a3e-5d4f-11ec-bf63-0242ac130002"));
+    TenantId deletedTenantId = new TenantId(UUID.fromString("4a1e7c2c-5d4f-11ec-bf63-0242ac130002"));
+
+    DefaultTbApiUsageStateService service;
+
+    @Before
+    public void setUp() {
+        service = new DefaultTbApiUsageStateService(clusterService, partitionService, tenantService, customerService, tsService,
+                apiUsageStateService, scheduler, tenantProfileCache, mailService, statsFactory);
+        ReflectionTestUtils.setField(service, "receivedMsgsCounter", receivedMsgsCounter);
+        ReflectionTestUtils.setField(service, "receivedReportsCounter", receivedReportsCounter);
+        @SuppressWarnings("unchecked")
+        Set<EntityId> deletedEntities = (Set<EntityId>) ReflectionTestUtils.getField(service, "deletedEntities");
+        deletedEntities.add(deletedTenantId);
+    }
+
+    @Test
+    public void givenLegacyMsg_whenProcess_thenReportIsProcessed() {
+        service.process(new TbProtoQueueMsg<>(UUID.randomUUID(), toReport(deletedTenantId)), callback);
+
+        verify(receivedMsgsCounter, times(1)).increment();
+        verify(receivedReportsCounter, times(1)).increment();
+        verify(callback, times(1)).onSuccess();
+    }
+
+    @Test
+    public void givenPackWithFailingReport_whenProcess_thenOtherReportsAreProcessedAndMsgIsAcked() {
+        when(apiUsageStateService.findApiUsageStateByEntityId(any())).thenThrow(new RuntimeException("DB is down"));
+        ToUsageStatsServiceMsg pack = ToUsageStatsServiceMsg.newBuilder()
+                .addPackedMsgs(toReport(brokenTenantId))
+                .addPackedMsgs(toReport(deletedTenantId))
+                .build();
+
+        service.process(new TbProtoQueueMsg<>(UUID.randomUUID(), pack), callback);
+
+        verify(apiUsageStateService, times(1)).findApiUsageStateByEntityId(brokenTenantId);
+        verify(receivedMsgsCounter, times(1)).increment();
+        verify(receivedReportsCounter, times(2)).increment();
+        verify(callback, times(1)).onSuccess();
+    }
+
+    private static ToUsageStatsServiceMsg toReport(TenantId tenantId) {
+        return ToUsageStatsServiceMsg.newBuilder()
+                .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                .addValues(UsageStatsKVProto.newBuilder().setKey(ApiUsageRecordKey.TRANSPORT_MSG_COUNT.name()).setValue(1).build())
+                .build();
+    }
+
+}
@@ -26,16 +26,17 @@ import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineSubmitStrategy;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -62,20 +63,22 @@ public class TbMsgPackProcessingContextTest {
         int parallelCount = 5;
         executorService = Executors.newFixedThreadPool(parallelCount, ThingsBoardThreadFactory.forName(getClass().getSimpleName() + "-test-scope"));
 
-        ConcurrentMap<UUID, TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> messages = new ConcurrentHashMap<>(msgCount);
+        List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> messages = new ArrayList<>(msgCount);
         for (int i = 0; i < msgCount; i++) {
-            messages.put(UUID.randomUUID(), new TbProtoQueueMsg<>(UUID.randomUUID(), null));
+            messages.add(new TbProtoQueueMsg<>(UUID.randomUUID(), null));
         }
         TbRuleEngineSubmitStrategy strategyMock = mock(TbRuleEngineSubmitStrategy.class);
-        when(strategyMock.getPendingMap()).thenReturn(messages);
+        when(strategyMock.getMsgs()).thenReturn(messages);
+        when(strategyMock.getPendingSlots()).thenReturn(IntStream.range(0, msgCount).toArray());
 
         TbMsgPackProcessingContext context = new TbMsgPackProcessingContext("Main", strategyMock, false);
-        for (UUID uuid : messages.keySet()) {
+        for (int slot = 0; slot < msgCount; slot++) {
+            final int msgSlot = slot;
             final CountDownLatch readyLatch = new CountDownLatch(parallelCount);
             final CountDownLatch startLatch = new CountDownLatch(1);
             final CountDownLatch finishLatch = new CountDownLatch(parallelCount);
             for (int i = 0; i < parallelCount; i++) {
-                //final String taskName = "" + uuid + " " + i;
+                //final String taskName = "" + msgSlot + " " + i;
                 executorService.submit(() -> {
                     //log.warn("ready {}", taskName);
                     readyLatch.countDown();
@@ -86,7 +89,7 @@ public class TbMsgPackProcessingContextTest {
                     }
                     //log.warn("go    {}", taskName);
 
-                    context.onSuccess(uuid);
+                    context.onSuccess(msgSlot);
 
                     finishLatch.countDown();
                 });
@@ -97,6 +100,6 @@ public class TbMsgPackProcessingContextTest {
             assertTrue(finishLatch.await(TIMEOUT, TimeUnit.SECONDS));
         }
         assertTrue(context.await(TIMEOUT, TimeUnit.SECONDS));
-        verify(strategyMock, times(msgCount)).onSuccess(any(UUID.class));
+        verify(strategyMock, times(msgCount)).onSuccess(anyInt());
     }
 }
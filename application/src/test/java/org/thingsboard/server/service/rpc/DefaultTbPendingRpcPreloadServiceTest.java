@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rpc;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RpcId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rpc.Rpc;
+import org.thingsboard.server.common.data.rpc.RpcStatus;
+import org.thingsboard.server.common.msg.queue.ServiceQueue;
+import org.thingsboard.server.common.msg.queue.ServiceQueueKey;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultTbPendingRpcPreloadServiceTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    TbRpcService tbRpcService;
+    @Mock
+    PartitionService partitionService;
+
+    TenantId tenantId = new TenantId(UUID.fromString("7e2f3c1a-6b4d-11ec-90d6-0242ac120003"));
+    TopicPartitionInfo tpi = TopicPartitionInfo.builder().topic("tb_core").partition(0).myPartition(true).build();
+
+    DefaultTbPendingRpcPreloadService service;
+
+    @Before
+    public void setUp() {
+        service = new DefaultTbPendingRpcPreloadService(tbRpcService, partitionService);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "pageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(service, "executor", MoreExecutors.newDirectExecutorService());
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), any(), any())).thenReturn(tpi);
+    }
+
+    @Test
+    public void givenPreloadedPartition_whenPoll_thenSnapshotIsReturnedOnce() {
+        DeviceId deviceWithRpcs = new DeviceId(UUID.randomUUID());
+        DeviceId deviceWithoutRpcs = new DeviceId(UUID.randomUUID());
+        Rpc first = newRpc(deviceWithRpcs, 1L);
+        Rpc second = newRpc(deviceWithRpcs, 2L);
+        Rpc third = newRpc(deviceWithRpcs, 3L);
+        when(tbRpcService.findAllByStatusAfter(any(), eq(RpcStatus.QUEUED), anyLong(), any(), anyInt()))
+                .thenReturn(Arrays.asList(first, second), Collections.singletonList(third), Collections.emptyList());
+
+        preload();
+
+        // keyset paging continues after the last request of the previous page
+        verify(tbRpcService).findAllByStatusAfter(null, RpcStatus.QUEUED, -1L, new UUID(0L, 0L), PAGE_SIZE);
+        verify(tbRpcService).findAllByStatusAfter(null, RpcStatus.QUEUED, 2L, second.getId().getId(), PAGE_SIZE);
+        verify(tbRpcService).findAllByStatusAfter(null, RpcStatus.QUEUED, 3L, third.getId().getId(), PAGE_SIZE);
+        assertThat(service.pollQueuedRpcs(tenantId, deviceWithRpcs)).containsExactly(first, second, third);
+        assertThat(service.pollQueuedRpcs(tenantId, deviceWithoutRpcs)).isEmpty();
+        // the snapshot is only valid for the first actor of the device
+        assertThat(service.pollQueuedRpcs(tenantId, deviceWithRpcs)).isNull();
+        assertThat(service.pollQueuedRpcs(tenantId, deviceWithoutRpcs)).isNull();
+    }
+
+    @Test
+    public void givenRpcWrittenAfterLastPage_whenPreloaded_thenRpcIsInSnapshot() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        Rpc early = newRpc(deviceId, 1L);
+        Rpc late = newRpc(deviceId, 2L);
+        when(tbRpcService.findAllByStatusAfter(any(), eq(RpcStatus.QUEUED), anyLong(), any(), anyInt()))
+                .thenReturn(Collections.singletonList(early), Collections.singletonList(late));
+
+        preload();
+
+        assertThat(service.pollQueuedRpcs(tenantId, deviceId)).containsExactly(early, late);
+    }
+
+    @Test
+    public void givenPreloadFailure_whenPoll_thenFallbackToDatabase() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        when(tbRpcService.findAllByStatusAfter(any(), eq(RpcStatus.QUEUED), anyLong(), any(), anyInt()))
+                .thenThrow(new RuntimeException("Database is not available"));
+
+        preload();
+
+        assertThat(service.pollQueuedRpcs(tenantId, deviceId)).isNull();
+    }
+
+    @Test
+    public void givenDevicePolledWhileLoading_whenPreloaded_thenSnapshotIsNotUsedForIt() {
+        DeviceId loadedFromDb = new DeviceId(UUID.randomUUID());
+        Rpc rpc = newRpc(loadedFromDb, 1L);
+        AtomicBoolean readFromDb = new AtomicBoolean();
+        when(tbRpcService.findAllByStatusAfter(any(), eq(RpcStatus.QUEUED), anyLong(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    // the actor of the device is created before the snapshot is published and reads the database
+                    readFromDb.set(service.pollQueuedRpcs(tenantId, loadedFromDb) == null);
+                    return Collections.singletonList(rpc);
+                })
+                .thenReturn(Collections.emptyList());
+
+        preload();
+
+        assertThat(readFromDb).isTrue();
+        assertThat(service.pollQueuedRpcs(tenantId, loadedFromDb)).isNull();
+    }
+
+    private void preload() {
+        service.onTbApplicationEvent(new PartitionChangeEvent(this, new ServiceQueueKey(new ServiceQueue(ServiceType.TB_CORE), null),
+                Collections.singleton(tpi)));
+    }
+
+    private Rpc newRpc(DeviceId deviceId, long createdTime) {
+        Rpc rpc = new Rpc(new RpcId(UUID.randomUUID()));
+        rpc.setCreatedTime(createdTime);
+        rpc.setTenantId(tenantId);
+        rpc.setDeviceId(deviceId);
+        rpc.setStatus(RpcStatus.QUEUED);
+        return rpc;
+    }
+
+}
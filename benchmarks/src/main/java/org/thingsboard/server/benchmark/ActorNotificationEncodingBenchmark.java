@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.DataConstants;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.rpc.ToDeviceRpcRequestBody;
+import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequest;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
+import org.thingsboard.server.common.transport.util.ProtoWithFSTService;
+import org.thingsboard.server.gen.transport.TransportProtos.ToDeviceActorNotificationMsgProto;
+import org.thingsboard.server.queue.util.TbActorNotificationProtoUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the device actor notifications sent through the tb-core queue: legacy FST against explicit protobuf.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActorNotificationEncodingBenchmark {
+
+    private final ProtoWithFSTService fstService = new ProtoWithFSTService();
+
+    private DeviceAttributesEventNotificationMsg attributesMsg;
+    private ToDeviceRpcRequestActorMsg rpcMsg;
+    private byte[] attributesFst;
+    private byte[] attributesProto;
+    private byte[] rpcFst;
+    private byte[] rpcProto;
+
+    @Setup
+    public void setup() {
+        TenantId tenantId = new TenantId(UUID.randomUUID());
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        long ts = System.currentTimeMillis();
+        List<AttributeKvEntry> values = Arrays.asList(
+                new BaseAttributeKvEntry(new DoubleDataEntry("targetTemperature", 21.5), ts),
+                new BaseAttributeKvEntry(new StringDataEntry("firmwareChannel", "stable"), ts));
+        attributesMsg = DeviceAttributesEventNotificationMsg.onUpdate(tenantId, deviceId, DataConstants.SHARED_SCOPE, values);
+        rpcMsg = new ToDeviceRpcRequestActorMsg("tb-core-0", new ToDeviceRpcRequest(UUID.randomUUID(), tenantId, deviceId,
+                false, ts + 10000, new ToDeviceRpcRequestBody("setGpio", "{\"pin\":4,\"value\":1}"), false, null, null));
+
+        attributesFst = fstService.encode(attributesMsg);
+        attributesProto = TbActorNotificationProtoUtils.toProto(attributesMsg).toByteArray();
+        rpcFst = fstService.encode(rpcMsg);
+        rpcProto = TbActorNotificationProtoUtils.toProto(rpcMsg).toByteArray();
+        log.info("Attributes update: FST {} bytes, protobuf {} bytes", attributesFst.length, attributesProto.length);
+        log.info("RPC request: FST {} bytes, protobuf {} bytes", rpcFst.length, rpcProto.length);
+    }
+
+    @Benchmark
+    public byte[] attributesEncodeFst() {
+        return fstService.encode(attributesMsg);
+    }
+
+    @Benchmark
+    public byte[] attributesEncodeProto() {
+        return TbActorNotificationProtoUtils.toProto(attributesMsg).toByteArray();
+    }
+
+    @Benchmark
+    public Optional<ToDeviceActorNotificationMsg> attributesDecodeFst() {
+        return fstService.decode(attributesFst);
+    }
+
+    @Benchmark
+    public ToDeviceActorNotificationMsg attributesDecodeProto() throws Exception {
+        return TbActorNotificationProtoUtils.fromProto(ToDeviceActorNotificationMsgProto.parseFrom(attributesProto));
+    }
+
+    @Benchmark
+    public byte[] rpcEncodeFst() {
+        return fstService.encode(rpcMsg);
+    }
+
+    @Benchmark
+    public byte[] rpcEncodeProto() {
+        return TbActorNotificationProtoUtils.toProto(rpcMsg).toByteArray();
+    }
+
+    @Benchmark
+    public Optional<ToDeviceActorNotificationMsg> rpcDecodeFst() {
+        return fstService.decode(rpcFst);
+    }
+
+    @Benchmark
+    public ToDeviceActorNotificationMsg rpcDecodeProto() throws Exception {
+        return TbActorNotificationProtoUtils.fromProto(ToDeviceActorNotificationMsgProto.parseFrom(rpcProto));
+    }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.common.util.concurrent.Futures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleEngineAlarmService;
+import org.thingsboard.rule.engine.api.RuleEngineDeviceProfileCache;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.profile.TbDeviceProfileNode;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.alarm.AlarmSeverity;
+import org.thingsboard.server.common.data.device.profile.AlarmCondition;
+import org.thingsboard.server.common.data.device.profile.AlarmConditionFilter;
+import org.thingsboard.server.common.data.device.profile.AlarmConditionFilterKey;
+import org.thingsboard.server.common.data.device.profile.AlarmConditionKeyType;
+import org.thingsboard.server.common.data.device.profile.AlarmRule;
+import org.thingsboard.server.common.data.device.profile.DeviceProfileAlarm;
+import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
+import org.thingsboard.server.common.data.device.profile.SimpleAlarmConditionSpec;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.query.EntityKeyValueType;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.NumericFilterPredicate;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgDataType;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.session.SessionMsgType;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.timeseries.TimeseriesService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Processing of the device telemetry by the device profile node: the message is parsed, merged into
+ * the data snapshot of the device and the numeric alarm rule is evaluated against the latest values.
+ * The node runs with a stub rule engine context, so no database or queue is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlarmRuleStateBenchmark {
+
+    private static final int CONDITIONS = 3;
+
+    private TbDeviceProfileNode node;
+    private TbContext ctx;
+    private TbMsg[] msgs;
+    private long counter;
+
+    @Setup
+    public void setup() throws TbNodeException {
+        TenantId tenantId = new TenantId(UUID.randomUUID());
+        RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        DeviceProfile deviceProfile = createDeviceProfile();
+
+        RuleEngineDeviceProfileCache cache = stub(RuleEngineDeviceProfileCache.class, Map.of(
+                "get", args -> deviceProfile,
+                "addListener", args -> null));
+        TimeseriesService timeseriesService = stub(TimeseriesService.class, Map.of(
+                "findLatest", args -> Futures.immediateFuture(Collections.emptyList())));
+        DeviceService deviceService = stub(DeviceService.class, Map.of(
+                "findDeviceById", args -> null));
+        RuleEngineAlarmService alarmService = stub(RuleEngineAlarmService.class, Map.of(
+                "findLatestByOriginatorAndType", args -> Futures.immediateFuture(null)));
+
+        Map<String, Function<Object[], Object>> ctxAnswers = new HashMap<>();
+        ctxAnswers.put("getTenantId", args -> tenantId);
+        ctxAnswers.put("getSelfId", args -> ruleNodeId);
+        ctxAnswers.put("getDeviceProfileCache", args -> cache);
+        ctxAnswers.put("getTimeseriesService", args -> timeseriesService);
+        ctxAnswers.put("getDeviceService", args -> deviceService);
+        ctxAnswers.put("getAlarmService", args -> alarmService);
+        ctxAnswers.put("getStatsFactory", args -> null);
+        ctxAnswers.put("isLocalEntity", args -> false);
+        ctxAnswers.put("addDeviceProfileListeners", args -> null);
+        ctxAnswers.put("removeListeners", args -> null);
+        ctxAnswers.put("tellSelf", args -> null);
+        ctxAnswers.put("tellSuccess", args -> null);
+        ctx = stub(TbContext.class, ctxAnswers);
+
+        node = new TbDeviceProfileNode();
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.newObjectNode()));
+
+        // the last key stays below the threshold, so every condition is evaluated but the alarm is never raised
+        msgs = new TbMsg[2];
+        for (int i = 0; i < msgs.length; i++) {
+            double value = i == 0 ? 25.0 : 35.0;
+            Map<String, Double> data = new TreeMap<>();
+            for (int j = 0; j < CONDITIONS; j++) {
+                data.put("temperature" + j, j < CONDITIONS - 1 ? value : 25.0);
+            }
+            msgs[i] = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                    TbMsgDataType.JSON, JacksonUtil.toString(data), null, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        node.destroy();
+    }
+
+    @Benchmark
+    public void processTelemetry() throws ExecutionException, InterruptedException {
+        node.onMsg(ctx, msgs[(int) (++counter & 1)]);
+    }
+
+    private static DeviceProfile createDeviceProfile() {
+        List<AlarmConditionFilter> filters = new ArrayList<>(CONDITIONS);
+        for (int i = 0; i < CONDITIONS; i++) {
+            NumericFilterPredicate predicate = new NumericFilterPredicate();
+            predicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+            predicate.setValue(new FilterPredicateValue<>(30.0));
+            AlarmConditionFilter filter = new AlarmConditionFilter();
+            filter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature" + i));
+            filter.setValueType(EntityKeyValueType.NUMERIC);
+            filter.setPredicate(predicate);
+            filters.add(filter);
+        }
+        AlarmCondition condition = new AlarmCondition();
+        condition.setCondition(filters);
+        condition.setSpec(new SimpleAlarmConditionSpec());
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(condition);
+        DeviceProfileAlarm alarm = new DeviceProfileAlarm();
+        alarm.setId("highTemperatureAlarmID");
+        alarm.setAlarmType("highTemperatureAlarm");
+        alarm.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        DeviceProfileData profileData = new DeviceProfileData();
+        profileData.setAlarms(Collections.singletonList(alarm));
+        DeviceProfile deviceProfile = new DeviceProfile();
+        deviceProfile.setId(new DeviceProfileId(UUID.randomUUID()));
+        deviceProfile.setProfileData(profileData);
+        return deviceProfile;
+    }
+
+    /**
+     * Implements the interface with the given answers by method name. Any other call fails,
+     * so the benchmark breaks loudly once the node starts to depend on more of its context.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+            }
+        });
+    }
+
+}
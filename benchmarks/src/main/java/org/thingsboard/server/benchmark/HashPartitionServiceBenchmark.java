@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.discovery.HashPartitionService;
+import org.thingsboard.server.queue.discovery.TenantRoutingInfo;
+import org.thingsboard.server.queue.settings.TbQueueRuleEngineSettings;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partition resolution that is performed for every message pushed to the core and rule engine queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashPartitionServiceBenchmark {
+
+    private static final int ENTITIES = 1024;
+
+    private HashPartitionService partitionService;
+    private TenantId tenantId;
+    private DeviceId[] deviceIds;
+
+    @Setup
+    public void setup() {
+        TbQueueRuleEngineSettings ruleEngineSettings = new TbQueueRuleEngineSettings();
+        ruleEngineSettings.setQueues(Collections.emptyList());
+        partitionService = new HashPartitionService(null,
+                tenantId -> new TenantRoutingInfo(tenantId, false, false),
+                event -> {
+                },
+                ruleEngineSettings,
+                null);
+        setField("coreTopic", "tb_core");
+        setField("corePartitions", 10);
+        setField("hashFunctionName", "murmur3_128");
+        partitionService.init();
+        tenantId = new TenantId(UUID.randomUUID());
+        deviceIds = new DeviceId[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            deviceIds[i] = new DeviceId(UUID.randomUUID());
+        }
+    }
+
+    @Benchmark
+    public TopicPartitionInfo resolve() {
+        return partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceIds[ThreadLocalRandom.current().nextInt(ENTITIES)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TopicPartitionInfo resolveConcurrent() {
+        return partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceIds[ThreadLocalRandom.current().nextInt(ENTITIES)]);
+    }
+
+    private void setField(String name, Object value) {
+        Field field = ReflectionUtils.findField(HashPartitionService.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, partitionService, value);
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.transport.adaptor.JsonConverter;
+import org.thingsboard.server.gen.transport.TransportProtos.PostTelemetryMsg;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of device telemetry JSON into transport protos, done for every uplink message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    private final JsonParser parser = new JsonParser();
+
+    private String flatJson;
+    private String tsArrayJson;
+
+    @Setup
+    public void setup() {
+        flatJson = "{\"temperature\":42.5,\"humidity\":73,\"active\":true,\"firmware\":\"1.2.3\",\"config\":{\"interval\":10}}";
+        StringBuilder sb = new StringBuilder("[");
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"ts\":").append(ts + i).append(",\"values\":{\"temperature\":").append(20 + i).append(",\"humidity\":").append(50 + i).append("}}");
+        }
+        sb.append(']');
+        tsArrayJson = sb.toString();
+    }
+
+    @Benchmark
+    public PostTelemetryMsg flatTelemetry() {
+        JsonElement json = parser.parse(flatJson);
+        return JsonConverter.convertToTelemetryProto(json);
+    }
+
+    @Benchmark
+    public PostTelemetryMsg timeseriesArray() {
+        JsonElement json = parser.parse(tsArrayJson);
+        return JsonConverter.convertToTelemetryProto(json);
+    }
+
+}
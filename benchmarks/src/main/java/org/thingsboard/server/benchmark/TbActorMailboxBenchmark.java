@@ -0,0 +1,139 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.actors.AbstractTbActor;
+import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActor;
+import org.thingsboard.server.actors.TbActorCreator;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbActorSystem;
+import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbStringActorId;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message delivery through actor mailboxes: messages are spread over a set of actors
+ * and the invocation completes once every message has been processed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbActorMailboxBenchmark {
+
+    private static final String DISPATCHER = "benchmark-dispatcher";
+    private static final int MSGS_PER_INVOCATION = 100_000;
+
+    @Param({"1", "1000"})
+    private int actorCount;
+
+    @Param({"4"})
+    private int parallelism;
+
+    private TbActorSystem actorSystem;
+    private TbActorRef[] actors;
+
+    @Setup
+    public void setup() {
+        actorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(5, parallelism, 42));
+        actorSystem.createDispatcher(DISPATCHER, ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass()));
+        actors = new TbActorRef[actorCount];
+        for (int i = 0; i < actorCount; i++) {
+            actors[i] = actorSystem.createRootActor(DISPATCHER, new CountingActorCreator(new TbStringActorId("actor-" + i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        actorSystem.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MSGS_PER_INVOCATION)
+    public void tell() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MSGS_PER_INVOCATION);
+        CountDownMsg msg = new CountDownMsg(latch);
+        for (int i = 0; i < MSGS_PER_INVOCATION; i++) {
+            actors[i % actorCount].tell(msg);
+        }
+        latch.await();
+    }
+
+    private static class CountDownMsg implements TbActorMsg {
+
+        private final CountDownLatch latch;
+
+        CountDownMsg(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+    }
+
+    private static class CountingActor extends AbstractTbActor {
+
+        @Override
+        public boolean process(TbActorMsg msg) {
+            ((CountDownMsg) msg).latch.countDown();
+            return true;
+        }
+    }
+
+    private static class CountingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+
+        CountingActorCreator(TbActorId actorId) {
+            this.actorId = actorId;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new CountingActor();
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization round trip of rule engine messages as they are passed through the queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbMsgBenchmark {
+
+    @Param({"16", "1024"})
+    private int payloadSize;
+
+    private TbMsg msg;
+    private byte[] bytes;
+    private ByteString byteString;
+
+    @Setup
+    public void setup() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("deviceName", "Device A");
+        metaData.putValue("deviceType", "default");
+        metaData.putValue("ts", Long.toString(System.currentTimeMillis()));
+        StringBuilder data = new StringBuilder("{\"temperature\":42,\"payload\":\"");
+        for (int i = 0; i < payloadSize; i++) {
+            data.append('a');
+        }
+        data.append("\"}");
+        msg = TbMsg.newMsg("Main", "POST_TELEMETRY_REQUEST", new DeviceId(UUID.randomUUID()), metaData, data.toString());
+        bytes = TbMsg.toByteArray(msg);
+        byteString = TbMsg.toByteString(msg);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return TbMsg.toByteArray(msg);
+    }
+
+    @Benchmark
+    public TbMsg deserialize() {
+        return TbMsg.fromBytes("Main", bytes, TbMsgCallback.EMPTY);
+    }
+
+    @Benchmark
+    public ByteString serializeToByteString() {
+        return TbMsg.toByteString(msg);
+    }
+
+    /**
+     * Queue hop of a message that is only routed and not inspected: the payload is neither decoded nor copied.
+     */
+    @Benchmark
+    public ByteString reserializeFromByteString() {
+        return TbMsg.toByteString(TbMsg.fromBytes("Main", byteString, TbMsgCallback.EMPTY));
+    }
+
+}
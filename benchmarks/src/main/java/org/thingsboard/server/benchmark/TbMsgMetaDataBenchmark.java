@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata copies along a typical rule chain: the message is consumed from the queue and passed through
+ * a number of rule nodes, each of them transforms the message and every few of them add a metadata value.
+ * Run with "-prof gc" to compare the allocation rate of the chain with the legacy copy of the whole map on each hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbMsgMetaDataBenchmark {
+
+    @Param({"15"})
+    private int chainLength;
+
+    @Param({"5"})
+    private int enrichEvery;
+
+    @Param({"4", "32"})
+    private int metaDataSize;
+
+    private TbMsg consumedMsg;
+    private Map<String, String> legacyMetaData;
+
+    @Setup
+    public void setup() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("deviceName", "Device A");
+        metaData.putValue("deviceType", "default");
+        metaData.putValue("ts", Long.toString(System.currentTimeMillis()));
+        for (int i = 3; i < metaDataSize; i++) {
+            metaData.putValue("ss_attribute" + i, "value" + i);
+        }
+        TbMsg msg = TbMsg.newMsg("Main", "POST_TELEMETRY_REQUEST", new DeviceId(UUID.randomUUID()), metaData, "{\"temperature\":42}");
+        consumedMsg = TbMsg.fromBytes("Main", TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+        legacyMetaData = new ConcurrentHashMap<>(metaData.getData());
+    }
+
+    @Benchmark
+    public TbMsg chain() {
+        TbMsg msg = consumedMsg;
+        for (int i = 1; i <= chainLength; i++) {
+            TbMsgMetaData metaData = msg.getMetaData();
+            if (i % enrichEvery == 0) {
+                metaData = metaData.copy();
+                metaData.putValue("node" + i, "value");
+            }
+            msg = TbMsg.transformMsg(msg, msg.getType(), msg.getOriginator(), metaData, msg.getData());
+        }
+        return msg;
+    }
+
+    /**
+     * The same chain with the metadata copied into a new {@link ConcurrentHashMap} on every hop, as it was done before.
+     */
+    @Benchmark
+    public Map<String, String> legacyChain() {
+        Map<String, String> metaData = legacyMetaData;
+        for (int i = 1; i <= chainLength; i++) {
+            Map<String, String> copy = new ConcurrentHashMap<>(metaData);
+            if (i % enrichEvery == 0) {
+                copy.put("node" + i, "value");
+            }
+            metaData = new ConcurrentHashMap<>(copy);
+        }
+        return metaData;
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit checks that guard every transport and REST API call. The limits are high enough
+ * to measure the cost of the check itself rather than of rejected calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbRateLimitsBenchmark {
+
+    private TbRateLimits rateLimits;
+
+    @Setup
+    public void setup() {
+        rateLimits = new TbRateLimits("100000000000:1,1000000000000:60");
+    }
+
+    @Benchmark
+    public boolean tryConsume() {
+        return rateLimits.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean tryConsumeContended() {
+        return rateLimits.tryConsume();
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.stats.DefaultMessagesStats;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueue;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batching overhead of the SQL write queues used for timeseries, attributes and events.
+ * The save function only consumes the batch, so the result does not depend on a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TbSqlBlockingQueueBenchmark {
+
+    private static final int ELEMENTS_PER_INVOCATION = 10_000;
+
+    private ScheduledLogExecutorComponent logExecutor;
+    private final AtomicLong savedCount = new AtomicLong();
+    private TbSqlBlockingQueue<Long> queue;
+
+    @Setup
+    public void setup() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DefaultMessagesStats stats = new DefaultMessagesStats(
+                newCounter(registry, "total"), newCounter(registry, "successful"), newCounter(registry, "failed"));
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Benchmark")
+                .batchSize(1000)
+                .maxDelay(100)
+                .statsPrintIntervalMs(60000)
+                .statsNamePrefix("benchmark")
+                .batchSortEnabled(true)
+                .build();
+        logExecutor = new ScheduledLogExecutorComponent();
+        logExecutor.init();
+        queue = new TbSqlBlockingQueue<>(params, stats, newCounter(registry, "dropped"));
+        queue.init(logExecutor, batch -> savedCount.addAndGet(batch.size()), Comparator.naturalOrder(), 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.destroy();
+        logExecutor.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS_PER_INVOCATION)
+    public List<Void> addBatch() throws Exception {
+        List<ListenableFuture<Void>> futures = new ArrayList<>(ELEMENTS_PER_INVOCATION);
+        for (long i = 0; i < ELEMENTS_PER_INVOCATION; i++) {
+            futures.add(queue.add(i));
+        }
+        return Futures.allAsList(futures).get();
+    }
+
+    private static StatsCounter newCounter(MeterRegistry registry, String name) {
+        return new StatsCounter(new AtomicInteger(), registry.counter("benchmark." + name), name);
+    }
+
+}
@@ -163,7 +163,12 @@ public class DefaultTbActorSystem implements TbActorSystem {
     public void broadcastToChildren(TbActorId parent, Predicate<TbActorId> childFilter, TbActorMsg msg) {
         Set<TbActorId> children = parentChildMap.get(parent);
         if (children != null) {
-            children.stream().filter(childFilter).forEach(id -> tell(id, msg));
+            children.stream().filter(childFilter).forEach(id -> {
+                TbActorMailbox mailbox = actors.get(id);
+                if (mailbox != null) {
+                    mailbox.tell(msg);
+                }
+            });
         }
     }
 
@@ -192,6 +197,12 @@ public class DefaultTbActorSystem implements TbActorSystem {
         }
         TbActorMailbox mailbox = actors.remove(actorId);
         if (mailbox != null) {
+            if (mailbox.getParentRef() != null) {
+                Set<TbActorId> siblings = parentChildMap.get(mailbox.getParentRef().getActorId());
+                if (siblings != null) {
+                    siblings.remove(actorId);
+                }
+            }
             mailbox.destroy();
         }
     }
@@ -31,6 +31,12 @@ public interface TbActorCtx extends TbActorRef {
 
     void stop(TbActorId target);
 
+    /**
+     * Stops the current actor. Messages that are still queued or arrive while the actor is stopping are forwarded to the parent,
+     * which is expected to route them to a new instance of the actor.
+     */
+    void passivate();
+
     TbActorRef getOrCreateChildActor(TbActorId actorId, Supplier<String> dispatcher, Supplier<TbActorCreator> creator);
 
     void broadcastToChildren(TbActorMsg msg);
@@ -106,6 +106,8 @@ public final class TbActorMailbox implements TbActorCtx {
                         msg.onTbActorStopped(stopReason);
                     }
                 }
+            } else if (stopReason == TbActorStopReason.PASSIVATED) {
+                forwardToParent(msg, highPriority);
             } else {
                 msg.onTbActorStopped(stopReason);
             }
@@ -131,6 +133,11 @@ public final class TbActorMailbox implements TbActorCtx {
     private void processMailbox() {
         boolean noMoreElements = false;
         for (int i = 0; i < settings.getActorThroughput(); i++) {
+            if (stopReason == TbActorStopReason.PASSIVATED) {
+                // remaining messages are forwarded to the parent on destroy
+                noMoreElements = true;
+                break;
+            }
             TbActorMsg msg = highPriorityMsgs.poll();
             if (msg == null) {
                 msg = normalPriorityMsgs.poll();
@@ -192,6 +199,23 @@ public final class TbActorMailbox implements TbActorCtx {
         system.stop(target);
     }
 
+    @Override
+    public void passivate() {
+        stopReason = TbActorStopReason.PASSIVATED;
+        ready.set(NOT_READY);
+        system.stop(selfId);
+    }
+
+    private void forwardToParent(TbActorMsg msg, boolean highPriority) {
+        if (parentRef == null) {
+            msg.onTbActorStopped(stopReason);
+        } else if (highPriority) {
+            parentRef.tellWithHighPriority(msg);
+        } else {
+            parentRef.tell(msg);
+        }
+    }
+
     @Override
     public TbActorRef getOrCreateChildActor(TbActorId actorId, Supplier<String> dispatcher, Supplier<TbActorCreator> creator) {
         TbActorRef actorRef = system.getActor(actorId);
@@ -211,8 +235,18 @@ public final class TbActorMailbox implements TbActorCtx {
             try {
                 ready.set(NOT_READY);
                 actor.destroy();
-                highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
-                normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                if (stopReason == TbActorStopReason.PASSIVATED) {
+                    TbActorMsg msg;
+                    while ((msg = highPriorityMsgs.poll()) != null) {
+                        forwardToParent(msg, HIGH_PRIORITY);
+                    }
+                    while ((msg = normalPriorityMsgs.poll()) != null) {
+                        forwardToParent(msg, NORMAL_PRIORITY);
+                    }
+                } else {
+                    highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                    normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                }
             } catch (Throwable t) {
                 log.warn("[{}] Failed to destroy actor: {}", selfId, t);
             }
@@ -203,6 +203,30 @@ public class ActorSystemTest {
     }
 
 
+    @Test
+    public void testPassivatedActorForwardsMessagesToParent() throws InterruptedException {
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+        ActorTestCtx parentCtx = getActorTestCtx(3);
+        ActorTestCtx childCtx = getActorTestCtx(1);
+
+        TbActorRef parent = actorSystem.createRootActor(ROOT_DISPATCHER, new TestRootActor.TestRootActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), parentCtx));
+        TbActorRef child = actorSystem.createChildActor(ROOT_DISPATCHER, new PassivatingActor.PassivatingActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), childCtx), parent.getActorId());
+
+        child.tell(new IntTbActorMsg(0));
+        child.tell(new IntTbActorMsg(1));
+        child.tell(new IntTbActorMsg(2));
+        child.tell(new IntTbActorMsg(3));
+
+        Assert.assertTrue(parentCtx.getLatch().await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(6, parentCtx.getActual().get());
+        Assert.assertEquals(0, childCtx.getInvocationCount().get());
+        Assert.assertNull(actorSystem.getActor(child.getActorId()));
+        Assert.assertTrue(actorSystem.filterChildren(parent.getActorId(), id -> true).isEmpty());
+    }
+
     public void testActorsAndMessages(int actorsCount, int msgNumber, int times) throws InterruptedException {
         Random random = new Random();
         int[] randomIntegers = new int[msgNumber];
@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+public class PassivatingActor extends AbstractTbActor {
+
+    private final TbActorId actorId;
+    private final ActorTestCtx testCtx;
+
+    public PassivatingActor(TbActorId actorId, ActorTestCtx testCtx) {
+        this.actorId = actorId;
+        this.testCtx = testCtx;
+    }
+
+    @Override
+    public boolean process(TbActorMsg msg) {
+        if (((IntTbActorMsg) msg).getValue() == 0) {
+            ctx.passivate();
+        } else {
+            testCtx.getInvocationCount().incrementAndGet();
+        }
+        return true;
+    }
+
+    public static class PassivatingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+        private final ActorTestCtx testCtx;
+
+        public PassivatingActorCreator(TbActorId actorId, ActorTestCtx testCtx) {
+            this.actorId = actorId;
+            this.testCtx = testCtx;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new PassivatingActor(actorId, testCtx);
+        }
+    }
+}
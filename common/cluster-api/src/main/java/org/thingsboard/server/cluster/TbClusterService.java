@@ -21,6 +21,7 @@ import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
 import org.thingsboard.server.common.data.ApiUsageState;
 import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.OtaPackageInfo;
 import org.thingsboard.server.common.data.TbResource;
 import org.thingsboard.server.common.data.Tenant;
 import org.thingsboard.server.common.data.TenantProfile;
@@ -83,6 +84,10 @@ public interface TbClusterService {
 
     void onResourceDeleted(TbResource resource, TbQueueCallback callback);
 
+    void onOtaPackageChange(OtaPackageInfo otaPackage, TbQueueCallback callback);
+
+    void onOtaPackageDeleted(OtaPackageInfo otaPackage, TbQueueCallback callback);
+
     void onEdgeEventUpdate(TenantId tenantId, EdgeId edgeId);
 
     void sendNotificationMsgToEdgeService(TenantId tenantId, EdgeId edgeId, EntityId entityId, String body, EdgeEventType type, EdgeEventActionType action);
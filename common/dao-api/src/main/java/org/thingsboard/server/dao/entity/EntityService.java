@@ -24,10 +24,17 @@ import org.thingsboard.server.common.data.query.EntityCountQuery;
 import org.thingsboard.server.common.data.query.EntityData;
 import org.thingsboard.server.common.data.query.EntityDataQuery;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface EntityService {
 
     ListenableFuture<String> fetchEntityNameAsync(TenantId tenantId, EntityId entityId);
 
+    ListenableFuture<Map<EntityId, String>> fetchEntityNamesAsync(TenantId tenantId, Collection<? extends EntityId> entityIds);
+
+    void evictEntityName(EntityId entityId);
+
     CustomerId fetchEntityCustomerId(TenantId tenantId, EntityId entityId);
 
     long countEntitiesByQuery(TenantId tenantId, CustomerId customerId, EntityCountQuery query);
@@ -89,19 +89,30 @@ public class TbResultSet implements AsyncResultSet {
     }
 
     public ListenableFuture<List<Row>> allRows(Executor executor) {
+        return rows(executor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fetches the pages one by one until the result set is exhausted or the limit is reached.
+     * Pages after the one that reaches the limit are not requested.
+     */
+    public ListenableFuture<List<Row>> rows(Executor executor, int limit) {
         List<Row> allRows = new ArrayList<>();
         SettableFuture<List<Row>> resultFuture = SettableFuture.create();
-        this.processRows(originalStatement, delegate, allRows, resultFuture, executor);
+        this.processRows(originalStatement, delegate, allRows, limit, resultFuture, executor);
         return resultFuture;
     }
 
     private void processRows(Statement statement,
                              AsyncResultSet resultSet,
                              List<Row> allRows,
+                             int limit,
                              SettableFuture<List<Row>> resultFuture,
                              Executor executor) {
         allRows.addAll(loadRows(resultSet));
-        if (resultSet.hasMorePages()) {
+        if (allRows.size() >= limit) {
+            resultFuture.set(allRows.size() > limit ? new ArrayList<>(allRows.subList(0, limit)) : allRows);
+        } else if (resultSet.hasMorePages()) {
             ByteBuffer nextPagingState = resultSet.getExecutionInfo().getPagingState();
             Statement<?> nextStatement = statement.setPagingState(nextPagingState);
             TbResultSetFuture resultSetFuture = executeAsyncFunction.apply(nextStatement);
@@ -110,7 +121,7 @@ public class TbResultSet implements AsyncResultSet {
                         @Override
                         public void onSuccess(@Nullable TbResultSet result) {
                             processRows(nextStatement, result,
-                                    allRows, resultFuture, executor);
+                                    allRows, limit, resultFuture, executor);
                         }
 
                         @Override
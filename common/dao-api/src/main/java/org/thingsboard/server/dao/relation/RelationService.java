@@ -76,6 +76,8 @@ public interface RelationService {
 
     ListenableFuture<List<EntityRelation>> findByToAndTypeAsync(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup);
 
+    ListenableFuture<List<EntityRelation>> findByToRecursivelyAsync(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup, int maxLevel);
+
     ListenableFuture<List<EntityRelation>> findByQuery(TenantId tenantId, EntityRelationsQuery query);
 
     ListenableFuture<List<EntityRelationInfo>> findInfoByQuery(TenantId tenantId, EntityRelationsQuery query);
@@ -24,6 +24,10 @@ import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.common.data.rpc.Rpc;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 public interface RpcService {
     Rpc save(Rpc rpc);
 
@@ -38,4 +42,11 @@ public interface RpcService {
     PageData<Rpc> findAllByDeviceId(TenantId tenantId, DeviceId deviceId, PageLink pageLink);
 
     PageData<Rpc> findAllByDeviceIdAndStatus(TenantId tenantId, DeviceId deviceId, RpcStatus rpcStatus, PageLink pageLink);
+
+    /**
+     * Returns up to {@code limit} requests with the given status ordered by created time and id,
+     * starting right after the request with the given created time and id.
+     * A null {@code tenantIds} collection matches requests of all tenants.
+     */
+    List<Rpc> findAllByStatusAfter(Collection<TenantId> tenantIds, RpcStatus rpcStatus, long createdTime, UUID id, int limit);
 }
@@ -23,6 +23,8 @@ public class CacheConstants {
     public static final String ASSET_CACHE = "assets";
     public static final String ENTITY_VIEW_CACHE = "entityViews";
     public static final String EDGE_CACHE = "edges";
+    public static final String ALARM_CACHE = "alarms";
+    public static final String ALARM_PROPAGATION_CACHE = "alarmPropagation";
     public static final String CLAIM_DEVICES_CACHE = "claimDevices";
     public static final String SECURITY_SETTINGS_CACHE = "securitySettings";
     public static final String TENANT_PROFILE_CACHE = "tenantProfiles";
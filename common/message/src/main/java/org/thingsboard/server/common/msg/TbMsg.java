@@ -17,10 +17,13 @@ package org.thingsboard.server.common.msg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.CustomerId;
@@ -32,6 +35,7 @@ import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.common.msg.queue.ServiceQueue;
 import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -43,6 +47,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public final class TbMsg implements Serializable {
 
+    // Nodes before 3.3.3 can read only the string id and data, so the compact encoding is opt-in until all nodes are upgraded
+    private static volatile boolean compactEncodingEnabled = false;
+
     private final String queueName;
     private final UUID id;
     private final long ts;
@@ -51,7 +58,14 @@ public final class TbMsg implements Serializable {
     private final CustomerId customerId;
     private final TbMsgMetaData metaData;
     private final TbMsgDataType dataType;
-    private final String data;
+    @Setter(AccessLevel.NONE)
+    private volatile String data;
+    // UTF-8 encoded data as received from the queue. Decoded on the first call of getData() and reused on serialization.
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @JsonIgnore
+    private final ByteString dataBytes;
     private final RuleChainId ruleChainId;
     private final RuleNodeId ruleNodeId;
     @Getter(value = AccessLevel.NONE)
@@ -124,32 +138,37 @@ public final class TbMsg implements Serializable {
 
     public static TbMsg transformMsg(TbMsg tbMsg, CustomerId customerId) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.type, tbMsg.originator, customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.dataBytes, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
     }
 
     public static TbMsg transformMsg(TbMsg tbMsg, RuleChainId ruleChainId) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.dataBytes, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
     }
 
     public static TbMsg transformMsg(TbMsg tbMsg, String queueName) {
         return new TbMsg(queueName, tbMsg.id, tbMsg.ts, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, tbMsg.getRuleChainId(), null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.dataBytes, tbMsg.getRuleChainId(), null, tbMsg.ctx.copy(), tbMsg.getCallback());
     }
 
     public static TbMsg transformMsg(TbMsg tbMsg, RuleChainId ruleChainId, String queueName) {
         return new TbMsg(queueName, tbMsg.id, tbMsg.ts, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.dataBytes, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
     }
 
     //used for enqueueForTellNext
     public static TbMsg newMsg(TbMsg tbMsg, String queueName, RuleChainId ruleChainId, RuleNodeId ruleNodeId) {
         return new TbMsg(queueName, UUID.randomUUID(), tbMsg.getTs(), tbMsg.getType(), tbMsg.getOriginator(), tbMsg.customerId, tbMsg.getMetaData().copy(),
-                tbMsg.getDataType(), tbMsg.getData(), ruleChainId, ruleNodeId, tbMsg.ctx.copy(), TbMsgCallback.EMPTY);
+                tbMsg.getDataType(), tbMsg.data, tbMsg.dataBytes, ruleChainId, ruleNodeId, tbMsg.ctx.copy(), TbMsgCallback.EMPTY);
     }
 
     private TbMsg(String queueName, UUID id, long ts, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType, String data,
                   RuleChainId ruleChainId, RuleNodeId ruleNodeId, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
+        this(queueName, id, ts, type, originator, customerId, metaData, dataType, data, null, ruleChainId, ruleNodeId, ctx, callback);
+    }
+
+    private TbMsg(String queueName, UUID id, long ts, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType,
+                  String data, ByteString dataBytes, RuleChainId ruleChainId, RuleNodeId ruleNodeId, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
         this.id = id;
         this.queueName = queueName != null ? queueName : ServiceQueue.MAIN;
         if (ts > 0) {
@@ -171,6 +190,7 @@ public final class TbMsg implements Serializable {
         this.metaData = metaData;
         this.dataType = dataType;
         this.data = data;
+        this.dataBytes = dataBytes;
         this.ruleChainId = ruleChainId;
         this.ruleNodeId = ruleNodeId;
         this.ctx = ctx != null ? ctx : new TbMsgProcessingCtx();
@@ -181,13 +201,27 @@ public final class TbMsg implements Serializable {
         }
     }
 
+    public static void setCompactEncodingEnabled(boolean enabled) {
+        compactEncodingEnabled = enabled;
+    }
+
     public static ByteString toByteString(TbMsg msg) {
-        return ByteString.copyFrom(toByteArray(msg));
+        return toProto(msg).toByteString();
     }
 
     public static byte[] toByteArray(TbMsg msg) {
+        return toProto(msg).toByteArray();
+    }
+
+    private static MsgProtos.TbMsgProto toProto(TbMsg msg) {
+        boolean compact = compactEncodingEnabled;
         MsgProtos.TbMsgProto.Builder builder = MsgProtos.TbMsgProto.newBuilder();
-        builder.setId(msg.getId().toString());
+        if (compact) {
+            builder.setIdMSB(msg.getId().getMostSignificantBits());
+            builder.setIdLSB(msg.getId().getLeastSignificantBits());
+        } else {
+            builder.setId(msg.getId().toString());
+        }
         builder.setTs(msg.getTs());
         builder.setType(msg.getType());
         builder.setEntityType(msg.getOriginator().getEntityType().name());
@@ -214,58 +248,108 @@ public final class TbMsg implements Serializable {
         }
 
         builder.setDataType(msg.getDataType().ordinal());
-        builder.setData(msg.getData());
+        if (compact) {
+            if (msg.dataBytes != null) {
+                builder.setDataUtf8(msg.dataBytes);
+            } else if (msg.data != null) {
+                builder.setDataUtf8(ByteString.copyFromUtf8(msg.data));
+            }
+        } else {
+            // the string field is UTF-8 on the wire as well, so the received bytes are written as is
+            if (msg.dataBytes != null) {
+                builder.setDataBytes(msg.dataBytes);
+            } else if (msg.data != null) {
+                builder.setData(msg.data);
+            }
+        }
 
         builder.setCtx(msg.ctx.toProto());
-        return builder.build().toByteArray();
+        return builder.build();
     }
 
     public static TbMsg fromBytes(String queueName, byte[] data, TbMsgCallback callback) {
         try {
-            MsgProtos.TbMsgProto proto = MsgProtos.TbMsgProto.parseFrom(data);
-            TbMsgMetaData metaData = new TbMsgMetaData(proto.getMetaData().getDataMap());
-            EntityId entityId = EntityIdFactory.getByTypeAndUuid(proto.getEntityType(), new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
-            CustomerId customerId = null;
-            RuleChainId ruleChainId = null;
-            RuleNodeId ruleNodeId = null;
-            if (proto.getCustomerIdMSB() != 0L && proto.getCustomerIdLSB() != 0L) {
-                customerId = new CustomerId(new UUID(proto.getCustomerIdMSB(), proto.getCustomerIdLSB()));
-            }
-            if (proto.getRuleChainIdMSB() != 0L && proto.getRuleChainIdLSB() != 0L) {
-                ruleChainId = new RuleChainId(new UUID(proto.getRuleChainIdMSB(), proto.getRuleChainIdLSB()));
-            }
-            if (proto.getRuleNodeIdMSB() != 0L && proto.getRuleNodeIdLSB() != 0L) {
-                ruleNodeId = new RuleNodeId(new UUID(proto.getRuleNodeIdMSB(), proto.getRuleNodeIdLSB()));
-            }
-
-            TbMsgProcessingCtx ctx;
-            if (proto.hasCtx()) {
-                ctx = TbMsgProcessingCtx.fromProto(proto.getCtx());
-            } else {
-                // Backward compatibility with unprocessed messages fetched from queue after update.
-                ctx = new TbMsgProcessingCtx(proto.getRuleNodeExecCounter());
-            }
+            return fromProto(queueName, MsgProtos.TbMsgProto.parseFrom(data), callback);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not parse protobuf for TbMsg", e);
+        }
+    }
 
-            TbMsgDataType dataType = TbMsgDataType.values()[proto.getDataType()];
-            return new TbMsg(queueName, UUID.fromString(proto.getId()), proto.getTs(), proto.getType(), entityId, customerId,
-                    metaData, dataType, proto.getData(), ruleChainId, ruleNodeId, ctx, callback);
-        } catch (InvalidProtocolBufferException e) {
+    /**
+     * Parses the message without copying the payload. The payload is decoded on the first call of {@link #getData()}.
+     */
+    public static TbMsg fromBytes(String queueName, ByteString data, TbMsgCallback callback) {
+        try {
+            CodedInputStream input = data.newCodedInput();
+            input.enableAliasing(true);
+            return fromProto(queueName, MsgProtos.TbMsgProto.parseFrom(input), callback);
+        } catch (IOException e) {
             throw new IllegalStateException("Could not parse protobuf for TbMsg", e);
         }
     }
 
+    private static TbMsg fromProto(String queueName, MsgProtos.TbMsgProto proto, TbMsgCallback callback) {
+        TbMsgMetaData metaData = new TbMsgMetaData(proto.getMetaData().getDataMap());
+        EntityId entityId = EntityIdFactory.getByTypeAndUuid(proto.getEntityType(), new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
+        CustomerId customerId = null;
+        RuleChainId ruleChainId = null;
+        RuleNodeId ruleNodeId = null;
+        if (proto.getCustomerIdMSB() != 0L && proto.getCustomerIdLSB() != 0L) {
+            customerId = new CustomerId(new UUID(proto.getCustomerIdMSB(), proto.getCustomerIdLSB()));
+        }
+        if (proto.getRuleChainIdMSB() != 0L && proto.getRuleChainIdLSB() != 0L) {
+            ruleChainId = new RuleChainId(new UUID(proto.getRuleChainIdMSB(), proto.getRuleChainIdLSB()));
+        }
+        if (proto.getRuleNodeIdMSB() != 0L && proto.getRuleNodeIdLSB() != 0L) {
+            ruleNodeId = new RuleNodeId(new UUID(proto.getRuleNodeIdMSB(), proto.getRuleNodeIdLSB()));
+        }
+
+        UUID id;
+        if (proto.getIdMSB() != 0L || proto.getIdLSB() != 0L) {
+            id = new UUID(proto.getIdMSB(), proto.getIdLSB());
+        } else {
+            // Backward compatibility with messages serialized with the string id.
+            id = UUID.fromString(proto.getId());
+        }
+
+        TbMsgProcessingCtx ctx;
+        if (proto.hasCtx()) {
+            ctx = TbMsgProcessingCtx.fromProto(proto.getCtx());
+        } else {
+            // Backward compatibility with unprocessed messages fetched from queue after update.
+            ctx = new TbMsgProcessingCtx(proto.getRuleNodeExecCounter());
+        }
+
+        // The string data is decoded lazily as well
+        ByteString dataBytes = !proto.getDataUtf8().isEmpty() ? proto.getDataUtf8() : proto.getDataBytes();
+        String data = null;
+
+        TbMsgDataType dataType = TbMsgDataType.values()[proto.getDataType()];
+        return new TbMsg(queueName, id, proto.getTs(), proto.getType(), entityId, customerId,
+                metaData, dataType, data, dataBytes, ruleChainId, ruleNodeId, ctx, callback);
+    }
+
     public TbMsg copyWithRuleChainId(RuleChainId ruleChainId) {
         return copyWithRuleChainId(ruleChainId, this.id);
     }
 
     public TbMsg copyWithRuleChainId(RuleChainId ruleChainId, UUID msgId) {
         return new TbMsg(this.queueName, msgId, this.ts, this.type, this.originator, this.customerId,
-                this.metaData, this.dataType, this.data, ruleChainId, null, this.ctx, callback);
+                this.metaData, this.dataType, this.data, this.dataBytes, ruleChainId, null, this.ctx, callback);
     }
 
     public TbMsg copyWithRuleNodeId(RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID msgId) {
         return new TbMsg(this.queueName, msgId, this.ts, this.type, this.originator, this.customerId,
-                this.metaData, this.dataType, this.data, ruleChainId, ruleNodeId, this.ctx, callback);
+                this.metaData, this.dataType, this.data, this.dataBytes, ruleChainId, ruleNodeId, this.ctx, callback);
+    }
+
+    public String getData() {
+        String result = data;
+        if (result == null && dataBytes != null) {
+            result = dataBytes.toStringUtf8();
+            data = result;
+        }
+        return result;
     }
 
     public TbMsgCallback getCallback() {
@@ -289,6 +373,25 @@ public final class TbMsg implements Serializable {
         return ctx.pop();
     }
 
+    /**
+     * Marks the message as sampled for latency tracing. The timestamp is propagated to all copies of the message
+     * and through the queues, so the latency of each processing stage is measured relative to it.
+     * @param traceTs the time when the message was received, in milliseconds.
+     */
+    public void startTrace(long traceTs) {
+        ctx.setTraceTs(traceTs);
+    }
+
+    @JsonIgnore
+    public long getTraceTs() {
+        return ctx.getTraceTs();
+    }
+
+    @JsonIgnore
+    public boolean isTraced() {
+        return ctx.getTraceTs() > 0;
+    }
+
     /**
      * Checks if the message is still valid for processing. May be invalid if the message pack is timed-out or canceled.
      * @return 'true' if message is valid for processing, 'false' otherwise.
@@ -15,46 +15,289 @@
  */
 package org.thingsboard.server.common.msg;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by ashvayka on 13.01.18.
+ *
+ * Metadata is stored as an immutable snapshot that is shared between the copies of the message
+ * and replaced on each write, so {@link #copy()} does not allocate a new map.
+ * New keys are appended in place into the spare capacity of the array allocated by the instance,
+ * so writing many keys does not copy the entries and rebuild the index on every write.
  */
-@Data
-@NoArgsConstructor
 public final class TbMsgMetaData implements Serializable {
 
     public static final TbMsgMetaData EMPTY = new TbMsgMetaData(Collections.emptyMap());
 
-    private final Map<String, String> data = new ConcurrentHashMap<>();
+    private volatile EntriesMap data;
+    // the snapshot whose array was allocated by this instance, guarded by this. Copies share the snapshot
+    // but only see its length, so only this instance appends into the array
+    private transient EntriesMap owned;
+
+    public TbMsgMetaData() {
+        this.data = EntriesMap.EMPTY;
+    }
 
     public TbMsgMetaData(Map<String, String> data) {
-        data.forEach((key, val) -> putValue(key, val));
+        this.data = EntriesMap.of(data);
+    }
+
+    private TbMsgMetaData(EntriesMap data) {
+        this.data = data;
     }
 
     public String getValue(String key) {
         return data.get(key);
     }
 
-    public void putValue(String key, String value) {
+    public synchronized void putValue(String key, String value) {
         if (key != null && value != null) {
-            data.put(key, value);
+            EntriesMap current = data;
+            EntriesMap updated = current.with(key, value, current == owned);
+            if (updated != current) {
+                owned = updated;
+                data = updated;
+            }
         }
     }
 
+    /**
+     * @return read-only view of the metadata.
+     */
+    public Map<String, String> getData() {
+        return data;
+    }
+
     public Map<String, String> values() {
         return new HashMap<>(data);
     }
 
     public TbMsgMetaData copy() {
-        return new TbMsgMetaData(new ConcurrentHashMap<>(data));
+        return new TbMsgMetaData(data);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return data.equals(((TbMsgMetaData) o).data);
+    }
+
+    @Override
+    public int hashCode() {
+        return data.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TbMsgMetaData(data=" + data + ")";
+    }
+
+    /**
+     * Immutable map that keeps keys and values in a single array. Lookups are linear for the typical small metadata,
+     * the large ones have a hash index. The slots after the length of the map may be used by the maps appended to it,
+     * which share the array and the index with it.
+     */
+    private static final class EntriesMap extends AbstractMap<String, String> implements Serializable {
+
+        private static final EntriesMap EMPTY = new EntriesMap(new String[0], 0, null);
+        private static final int INDEX_THRESHOLD = 16;
+        private static final int MIN_CAPACITY = 16;
+        private static final Map<String, String> COMMON_KEYS = commonKeys("deviceName", "deviceType", "ts");
+
+        // key0, value0, key1, value1, ...
+        private final String[] entries;
+        private final int length;
+        // positions at or above the length belong to the maps appended to this one
+        private final transient Map<String, Integer> index;
+        private transient Set<Entry<String, String>> entrySet;
+
+        private EntriesMap(String[] entries, int length, Map<String, Integer> index) {
+            this.entries = entries;
+            this.length = length;
+            this.index = index;
+        }
+
+        private static EntriesMap create(String[] entries, int length) {
+            Map<String, Integer> index = null;
+            if (length > INDEX_THRESHOLD * 2) {
+                index = new ConcurrentHashMap<>(length);
+                for (int i = 0; i < length; i += 2) {
+                    index.put(entries[i], i);
+                }
+            }
+            return new EntriesMap(entries, length, index);
+        }
+
+        static EntriesMap of(Map<String, String> map) {
+            if (map.isEmpty()) {
+                return EMPTY;
+            }
+            if (map instanceof EntriesMap) {
+                return (EntriesMap) map;
+            }
+            String[] entries = new String[map.size() * 2];
+            int length = 0;
+            for (Entry<String, String> entry : map.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    entries[length++] = internKey(entry.getKey());
+                    entries[length++] = entry.getValue();
+                }
+            }
+            return create(entries, length);
+        }
+
+        /**
+         * @param append whether the spare capacity of this map may be used, i.e. the caller is the only one appending to it
+         */
+        EntriesMap with(String key, String value, boolean append) {
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                if (value.equals(entries[idx + 1])) {
+                    return this;
+                }
+                String[] newEntries = copyEntries(entries.length);
+                newEntries[idx + 1] = value;
+                return create(newEntries, length);
+            }
+            key = internKey(key);
+            if (append && length < entries.length) {
+                entries[length] = key;
+                entries[length + 1] = value;
+                Map<String, Integer> newIndex = index;
+                if (newIndex != null) {
+                    newIndex.put(key, length);
+                } else if (length + 2 > INDEX_THRESHOLD * 2) {
+                    return create(entries, length + 2);
+                }
+                return new EntriesMap(entries, length + 2, newIndex);
+            }
+            String[] newEntries = copyEntries(Math.max(MIN_CAPACITY, length * 2));
+            newEntries[length] = key;
+            newEntries[length + 1] = value;
+            return create(newEntries, length + 2);
+        }
+
+        private String[] copyEntries(int capacity) {
+            String[] result = new String[capacity];
+            System.arraycopy(entries, 0, result, 0, length);
+            return result;
+        }
+
+        private int indexOf(Object key) {
+            if (key == null) {
+                return -1;
+            }
+            if (index != null) {
+                Integer idx = index.get(key);
+                return idx != null && idx < length ? idx : -1;
+            }
+            for (int i = 0; i < length; i += 2) {
+                String k = entries[i];
+                if (k == key || k.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String get(Object key) {
+            int idx = indexOf(key);
+            return idx >= 0 ? entries[idx + 1] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return length / 2;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            Set<Entry<String, String>> result = entrySet;
+            if (result == null) {
+                result = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new EntriesIterator(entries, length);
+                    }
+
+                    @Override
+                    public int size() {
+                        return length / 2;
+                    }
+                };
+                entrySet = result;
+            }
+            return result;
+        }
+
+        private Object writeReplace() {
+            return length == entries.length ? this : new EntriesMap(Arrays.copyOf(entries, length), length, null);
+        }
+
+        private Object readResolve() {
+            return create(entries, length);
+        }
+
+        private static String internKey(String key) {
+            String common = COMMON_KEYS.get(key);
+            return common != null ? common : key;
+        }
+
+        private static Map<String, String> commonKeys(String... keys) {
+            Map<String, String> result = new HashMap<>();
+            for (String key : keys) {
+                result.put(key, key);
+            }
+            return result;
+        }
+    }
+
+    private static final class EntriesIterator implements Iterator<Map.Entry<String, String>> {
+
+        private final String[] entries;
+        private final int length;
+        private int position;
+
+        private EntriesIterator(String[] entries, int length) {
+            this.entries = entries;
+            this.length = length;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (position >= length) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<>(entries[position], entries[position + 1]);
+            position += 2;
+            return entry;
+        }
     }
 }
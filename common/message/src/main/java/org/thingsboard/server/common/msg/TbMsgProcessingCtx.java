@@ -32,6 +32,7 @@ public final class TbMsgProcessingCtx implements Serializable {
 
     private final AtomicInteger ruleNodeExecCounter;
     private volatile LinkedList<TbMsgProcessingStackItem> stack;
+    private volatile long traceTs;
 
     public TbMsgProcessingCtx() {
         this(0);
@@ -42,8 +43,13 @@ public final class TbMsgProcessingCtx implements Serializable {
     }
 
     protected TbMsgProcessingCtx(int ruleNodeExecCounter, LinkedList<TbMsgProcessingStackItem> stack) {
+        this(ruleNodeExecCounter, stack, 0L);
+    }
+
+    protected TbMsgProcessingCtx(int ruleNodeExecCounter, LinkedList<TbMsgProcessingStackItem> stack, long traceTs) {
         this.ruleNodeExecCounter = new AtomicInteger(ruleNodeExecCounter);
         this.stack = stack;
+        this.traceTs = traceTs;
     }
 
     public int getAndIncrementRuleNodeCounter() {
@@ -52,12 +58,20 @@ public final class TbMsgProcessingCtx implements Serializable {
 
     public TbMsgProcessingCtx copy() {
         if (stack == null || stack.isEmpty()) {
-            return new TbMsgProcessingCtx(ruleNodeExecCounter.get());
+            return new TbMsgProcessingCtx(ruleNodeExecCounter.get(), null, traceTs);
         } else {
-            return new TbMsgProcessingCtx(ruleNodeExecCounter.get(), new LinkedList<>(stack));
+            return new TbMsgProcessingCtx(ruleNodeExecCounter.get(), new LinkedList<>(stack), traceTs);
         }
     }
 
+    public long getTraceTs() {
+        return traceTs;
+    }
+
+    public void setTraceTs(long traceTs) {
+        this.traceTs = traceTs;
+    }
+
     public void push(RuleChainId ruleChainId, RuleNodeId ruleNodeId) {
         if (stack == null) {
             stack = new LinkedList<>();
@@ -76,15 +90,18 @@ public final class TbMsgProcessingCtx implements Serializable {
             for (MsgProtos.TbMsgProcessingStackItemProto item : ctx.getStackList()) {
                 stack.add(TbMsgProcessingStackItem.fromProto(item));
             }
-            return new TbMsgProcessingCtx(ruleNodeExecCounter, stack);
+            return new TbMsgProcessingCtx(ruleNodeExecCounter, stack, ctx.getTraceTs());
         } else {
-            return new TbMsgProcessingCtx(ruleNodeExecCounter);
+            return new TbMsgProcessingCtx(ruleNodeExecCounter, null, ctx.getTraceTs());
         }
     }
 
     public MsgProtos.TbMsgProcessingCtxProto toProto() {
         var ctxBuilder = MsgProtos.TbMsgProcessingCtxProto.newBuilder();
         ctxBuilder.setRuleNodeExecCounter(ruleNodeExecCounter.get());
+        if (traceTs > 0) {
+            ctxBuilder.setTraceTs(traceTs);
+        }
         if (stack != null) {
             for (TbMsgProcessingStackItem item : stack) {
                 ctxBuilder.addStack(item.toProto());
@@ -0,0 +1,43 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+/**
+ * Stages of the message lifecycle that are measured for the messages sampled for latency tracing.
+ * Latency of each stage is the time elapsed since the message was received by the transport (or pushed to the rule engine).
+ */
+public enum TbMsgTraceStage {
+
+    QUEUE_PRODUCE("queueProduce"),
+    // Message is consumed from the rule engine queue and submitted to the actor system
+    QUEUE_CONSUME("queueConsume"),
+    ACTOR_DEQUEUE("actorDequeue"),
+    // Message is pushed to the mailbox of the rule node actor
+    ACTOR_ENQUEUE("actorEnqueue"),
+    RULE_NODE("ruleNode"),
+    DAO_ENQUEUE("daoEnqueue"),
+    DB_FLUSH("dbFlush");
+
+    private final String name;
+
+    TbMsgTraceStage(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TbMsgMetaDataTest {
+
+    @Test
+    public void givenCopy_whenOriginalChanged_thenCopyIsNotAffected() {
+        TbMsgMetaData original = new TbMsgMetaData();
+        original.putValue("deviceName", "Device A");
+        TbMsgMetaData copy = original.copy();
+        assertSame(original.getData(), copy.getData());
+
+        original.putValue("deviceType", "default");
+        copy.putValue("deviceName", "Device B");
+
+        assertEquals("Device A", original.getValue("deviceName"));
+        assertEquals("default", original.getValue("deviceType"));
+        assertEquals("Device B", copy.getValue("deviceName"));
+        assertNull(copy.getValue("deviceType"));
+    }
+
+    @Test
+    public void givenNullKeyOrValue_whenPut_thenIgnored() {
+        Map<String, String> source = new HashMap<>();
+        source.put("a", null);
+        source.put("b", "1");
+        TbMsgMetaData metaData = new TbMsgMetaData(source);
+        metaData.putValue(null, "2");
+        metaData.putValue("c", null);
+
+        assertEquals(1, metaData.getData().size());
+        assertEquals("1", metaData.getValue("b"));
+    }
+
+    @Test
+    public void givenLargeMetaData_whenLookup_thenAllValuesFound() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            metaData.putValue("key" + i, "value" + i);
+            expected.put("key" + i, "value" + i);
+        }
+        metaData.putValue("key42", "updated");
+        expected.put("key42", "updated");
+
+        assertEquals(expected, metaData.getData());
+        assertEquals(expected, metaData.values());
+        assertEquals("updated", metaData.getValue(new String("key42")));
+        assertEquals(new TbMsgMetaData(expected), metaData);
+    }
+
+    @Test
+    public void givenSnapshotsSharingArray_whenKeysAppended_thenSnapshotsAreNotAffected() {
+        TbMsgMetaData original = new TbMsgMetaData();
+        for (int i = 0; i < 20; i++) {
+            original.putValue("key" + i, "value" + i);
+        }
+        Map<String, String> snapshot = original.getData();
+        TbMsgMetaData copy = original.copy();
+
+        original.putValue("key20", "original");
+        copy.putValue("key20", "copy");
+        copy.putValue("key21", "copy");
+        original.putValue("key21", "original");
+
+        assertEquals(20, snapshot.size());
+        assertNull(snapshot.get("key20"));
+        assertEquals(22, original.getData().size());
+        assertEquals("original", original.getValue("key20"));
+        assertEquals("original", original.getValue("key21"));
+        assertEquals(22, copy.getData().size());
+        assertEquals("copy", copy.getValue("key20"));
+        assertEquals("copy", copy.getValue("key21"));
+        assertEquals("value0", copy.getValue("key0"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void givenData_whenModified_thenException() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("ts", "1");
+        assertTrue(metaData.getData().containsKey("ts"));
+        metaData.getData().put("ts", "2");
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.msg.gen.MsgProtos;
+import org.thingsboard.server.common.msg.queue.ServiceQueue;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TbMsgTest {
+
+    @Test
+    public void givenNewMsg_whenCreated_thenNotTraced() {
+        TbMsg msg = newMsg();
+
+        assertThat(msg.isTraced(), is(false));
+        assertThat(TbMsg.fromBytes(ServiceQueue.MAIN, TbMsg.toByteArray(msg), TbMsgCallback.EMPTY).isTraced(), is(false));
+    }
+
+    @Test
+    public void givenTracedMsg_whenSerializedAndCopied_thenTraceTsPreserved() {
+        TbMsg msg = newMsg();
+        msg.startTrace(12345L);
+
+        TbMsg deserialized = TbMsg.fromBytes(ServiceQueue.MAIN, TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+        assertThat(deserialized.isTraced(), is(true));
+        assertThat(deserialized.getTraceTs(), is(12345L));
+
+        TbMsg transformed = TbMsg.transformMsg(deserialized, new RuleChainId(UUID.randomUUID()));
+        assertThat(transformed.getTraceTs(), is(12345L));
+
+        TbMsg enqueued = TbMsg.newMsg(transformed, ServiceQueue.MAIN, null, null);
+        assertThat(enqueued.getTraceTs(), is(12345L));
+    }
+
+    @Test
+    public void givenMsg_whenSerializedAsByteString_thenRestored() {
+        TbMsg msg = newMsg();
+        msg.getMetaData().putValue("deviceName", "Device A");
+
+        ByteString bytes = TbMsg.toByteString(msg);
+        TbMsg restored = TbMsg.fromBytes(ServiceQueue.MAIN, bytes, TbMsgCallback.EMPTY);
+
+        assertThat(restored.getId(), is(msg.getId()));
+        assertThat(restored.getMetaData(), is(msg.getMetaData()));
+        assertThat(restored.getData(), is(msg.getData()));
+        assertThat(TbMsg.toByteString(restored), is(bytes));
+    }
+
+    @Test
+    public void givenMsgWithStringIdAndData_whenParsed_thenRestored() {
+        UUID id = UUID.randomUUID();
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        byte[] legacyBytes = MsgProtos.TbMsgProto.newBuilder()
+                .setId(id.toString())
+                .setType("POST_TELEMETRY_REQUEST")
+                .setEntityType(deviceId.getEntityType().name())
+                .setEntityIdMSB(deviceId.getId().getMostSignificantBits())
+                .setEntityIdLSB(deviceId.getId().getLeastSignificantBits())
+                .setData("{\"temperature\":42}")
+                .build().toByteArray();
+
+        TbMsg msg = TbMsg.fromBytes(ServiceQueue.MAIN, legacyBytes, TbMsgCallback.EMPTY);
+
+        assertThat(msg.getId(), is(id));
+        assertThat(msg.getOriginator(), is(deviceId));
+        assertThat(msg.getData(), is("{\"temperature\":42}"));
+    }
+
+    @Test
+    public void givenDefaultEncoding_whenSerialized_thenReadableByOlderVersions() throws Exception {
+        TbMsg msg = newMsg();
+
+        MsgProtos.TbMsgProto proto = MsgProtos.TbMsgProto.parseFrom(TbMsg.toByteArray(msg));
+
+        assertThat(proto.getId(), is(msg.getId().toString()));
+        assertThat(proto.getData(), is(msg.getData()));
+        assertThat(proto.getDataUtf8().isEmpty(), is(true));
+    }
+
+    @Test
+    public void givenCompactEncoding_whenSerialized_thenRestored() throws Exception {
+        TbMsg.setCompactEncodingEnabled(true);
+        try {
+            TbMsg msg = newMsg();
+
+            byte[] bytes = TbMsg.toByteArray(msg);
+            MsgProtos.TbMsgProto proto = MsgProtos.TbMsgProto.parseFrom(bytes);
+            assertThat(proto.getId().isEmpty(), is(true));
+            assertThat(proto.getData().isEmpty(), is(true));
+
+            TbMsg restored = TbMsg.fromBytes(ServiceQueue.MAIN, bytes, TbMsgCallback.EMPTY);
+            assertThat(restored.getId(), is(msg.getId()));
+            assertThat(restored.getData(), is(msg.getData()));
+        } finally {
+            TbMsg.setCompactEncodingEnabled(false);
+        }
+    }
+
+    private static TbMsg newMsg() {
+        return TbMsg.newMsg("POST_TELEMETRY_REQUEST", new DeviceId(UUID.randomUUID()), new TbMsgMetaData(), "{\"temperature\":42}");
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgDecoder;
+import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer of the file queue. Instead of sleeping the whole poll interval the consumer waits for an append
+ * notification from the subscribed topic logs. Polled messages are committed to the topic logs on {@link #commit()}
+ * under the consumer group of the consumer; after a re-subscribe or restart the consumer continues from the last
+ * offset committed by its group.
+ * <p>
+ * The poll budget is shared by the subscribed partitions: each round reads at most an equal share from every partition,
+ * starting from a partition that rotates between polls, so a backlogged partition does not starve the others.
+ */
+@Slf4j
+public class TbFileQueueConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQueueConsumerTemplate<TbFileQueueRecord, T> {
+
+    private final TbFileQueueStorage storage;
+    private final String groupId;
+    private final TbQueueMsgDecoder<T> decoder;
+    private final int maxPollRecords;
+    private final Semaphore signal = new Semaphore(0);
+    private final Runnable listener = () -> {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    };
+
+    private Map<TbFileQueueTopicLog, TbFileQueueTopicLog.Cursor> cursors = Collections.emptyMap();
+    private List<Map.Entry<TbFileQueueTopicLog, TbFileQueueTopicLog.Cursor>> pollOrder = Collections.emptyList();
+    private int pollStart;
+
+    public TbFileQueueConsumerTemplate(TbFileQueueStorage storage, TbFileQueueSettings settings, String topic, String groupId,
+                                       TbQueueMsgDecoder<T> decoder) {
+        super(topic);
+        this.storage = storage;
+        this.groupId = groupId;
+        this.decoder = decoder;
+        this.maxPollRecords = settings.getMaxPollRecords();
+    }
+
+    @Override
+    protected List<TbFileQueueRecord> doPoll(long durationInMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationInMillis);
+        cursors.keySet().forEach(topicLog -> topicLog.keepAlive(groupId));
+        while (!stopped) {
+            signal.drainPermits();
+            List<TbFileQueueRecord> records = readRoundRobin();
+            if (!records.isEmpty()) {
+                return records;
+            }
+            long nanosLeft = deadline - System.nanoTime();
+            try {
+                if (nanosLeft <= 0 || !signal.tryAcquire(nanosLeft, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                if (!stopped) {
+                    log.error("Failed to wait for messages", e);
+                }
+                break;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<TbFileQueueRecord> readRoundRobin() {
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        int partitions = pollOrder.size();
+        if (partitions == 0) {
+            return records;
+        }
+        int start = pollStart;
+        pollStart = (pollStart + 1) % partitions;
+        int quota = Math.max(1, maxPollRecords / partitions);
+        boolean hasMore = true;
+        while (hasMore && records.size() < maxPollRecords) {
+            hasMore = false;
+            for (int i = 0; i < partitions && records.size() < maxPollRecords; i++) {
+                Map.Entry<TbFileQueueTopicLog, TbFileQueueTopicLog.Cursor> entry = pollOrder.get((start + i) % partitions);
+                int limit = Math.min(quota, maxPollRecords - records.size());
+                // the budget left by the partitions that ran out of messages is shared in the next round
+                if (entry.getKey().read(entry.getValue(), limit, records) == limit) {
+                    hasMore = true;
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    protected T decode(TbFileQueueRecord record) throws IOException {
+        return decoder.decode(record);
+    }
+
+    @Override
+    protected void doSubscribe(List<String> topicNames) {
+        removeListeners();
+        Map<TbFileQueueTopicLog, TbFileQueueTopicLog.Cursor> newCursors = new LinkedHashMap<>();
+        for (String topicName : topicNames) {
+            TbFileQueueTopicLog topicLog = storage.getTopicLog(topicName);
+            newCursors.put(topicLog, topicLog.seek(topicLog.getCommittedOffset(groupId)));
+            topicLog.addListener(listener);
+        }
+        cursors = newCursors;
+        pollOrder = new ArrayList<>(newCursors.entrySet());
+        pollStart = 0;
+    }
+
+    @Override
+    protected void doCommit() {
+        cursors.forEach((topicLog, cursor) -> topicLog.commit(groupId, cursor.getOffset()));
+    }
+
+    @Override
+    public void unsubscribe() {
+        signal.release();
+        super.unsubscribe();
+    }
+
+    @Override
+    protected void doUnsubscribe() {
+        removeListeners();
+        cursors = Collections.emptyMap();
+        pollOrder = Collections.emptyList();
+    }
+
+    private void removeListeners() {
+        cursors.keySet().forEach(topicLog -> topicLog.removeListener(listener));
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only memory-mapped segment of a topic log. Each record is stored as [size][crc32][payload];
+ * a zero size marks the end of the written data, so the segment can be recovered by a simple scan after restart.
+ * Only one thread appends to a segment; readers use their own buffer views.
+ */
+@Slf4j
+class TbFileQueueSegment {
+
+    static final String SUFFIX = ".log";
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final Object UNSAFE;
+    private static final Method UNMAP;
+
+    static {
+        Object unsafe = null;
+        Method unmap = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            unmap = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            log.warn("Unmapping of deleted segments is not supported, the memory is released by the garbage collector", e);
+        }
+        UNSAFE = unsafe;
+        UNMAP = unmap;
+    }
+
+    @Getter
+    private final long baseOffset;
+    @Getter
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private volatile int writePosition;
+    @Getter
+    private volatile int count;
+
+    private TbFileQueueSegment(long baseOffset, File file, int size) throws IOException {
+        this.baseOffset = baseOffset;
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+    }
+
+    static TbFileQueueSegment create(File dir, long baseOffset, int size) throws IOException {
+        return new TbFileQueueSegment(baseOffset, new File(dir, String.format("%020d%s", baseOffset, SUFFIX)), size);
+    }
+
+    static TbFileQueueSegment open(File file) throws IOException {
+        String name = file.getName();
+        long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        TbFileQueueSegment segment = new TbFileQueueSegment(baseOffset, file, 0);
+        segment.recover();
+        return segment;
+    }
+
+    private void recover() {
+        int capacity = buffer.capacity();
+        int position = 0;
+        int recovered = 0;
+        ByteBuffer view = buffer.duplicate();
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int size = view.getInt(position);
+            if (size <= 0 || position + RECORD_HEADER_SIZE + size > capacity) {
+                break;
+            }
+            int crc = view.getInt(position + 4);
+            if (crc != crc(view, position + RECORD_HEADER_SIZE, size)) {
+                log.warn("[{}] Corrupted record at position {}, truncating the segment", file, position);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + size;
+            recovered++;
+        }
+        if (position + RECORD_HEADER_SIZE <= capacity) {
+            buffer.putInt(position, 0);
+        }
+        this.count = recovered;
+        this.writePosition = position;
+    }
+
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    long getNextOffset() {
+        return baseOffset + count;
+    }
+
+    boolean append(byte[] payload) {
+        int position = writePosition;
+        int end = position + RECORD_HEADER_SIZE + payload.length;
+        if (end > buffer.capacity()) {
+            return false;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.put(payload);
+        if (end + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            view.putInt(end, 0);
+        }
+        view.putInt(position + 4, crc(view, position + RECORD_HEADER_SIZE, payload.length));
+        view.putInt(position, payload.length);
+        count++;
+        writePosition = end;
+        return true;
+    }
+
+    /**
+     * Returns the position of the record that follows the record at the given position.
+     */
+    int skip(int position) {
+        return position + RECORD_HEADER_SIZE + buffer.getInt(position);
+    }
+
+    TbFileQueueRecord read(int position, long offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        UUID key = new UUID(view.getLong(), view.getLong());
+        DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        int headersCount = view.getInt();
+        for (int i = 0; i < headersCount; i++) {
+            byte[] headerKey = new byte[view.getInt()];
+            view.get(headerKey);
+            byte[] headerValue = new byte[view.getInt()];
+            view.get(headerValue);
+            headers.put(new String(headerKey, StandardCharsets.UTF_8), headerValue);
+        }
+        byte[] data = new byte[view.getInt()];
+        view.get(data);
+        return new TbFileQueueRecord(offset, key, headers, data);
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Unmaps and deletes the segment. Must not be called while the segment may still be read.
+     */
+    void delete() {
+        // the mapping would otherwise keep the disk space (and on Windows the file itself) until the buffer is garbage collected
+        unmap(buffer);
+        if (!file.delete()) {
+            log.warn("[{}] Failed to delete segment", file);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invoke(UNSAFE, buffer);
+        } catch (Exception e) {
+            log.debug("Failed to unmap segment buffer", e);
+        }
+    }
+
+    static byte[] encode(TbQueueMsg msg) {
+        Map<String, byte[]> headers = msg.getHeaders().getData();
+        byte[][] headerKeys = new byte[headers.size()][];
+        byte[][] headerValues = new byte[headers.size()][];
+        int size = 16 + 4 + 4 + msg.getData().length;
+        int i = 0;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            headerKeys[i] = header.getKey().getBytes(StandardCharsets.UTF_8);
+            headerValues[i] = header.getValue() != null ? header.getValue() : new byte[0];
+            size += 8 + headerKeys[i].length + headerValues[i].length;
+            i++;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.putLong(msg.getKey().getMostSignificantBits());
+        payload.putLong(msg.getKey().getLeastSignificantBits());
+        payload.putInt(headerKeys.length);
+        for (int j = 0; j < headerKeys.length; j++) {
+            payload.putInt(headerKeys[j].length).put(headerKeys[j]);
+            payload.putInt(headerValues[j].length).put(headerValues[j]);
+        }
+        payload.putInt(msg.getData().length).put(msg.getData());
+        return payload.array();
+    }
+
+    private static int crc(ByteBuffer view, int position, int size) {
+        ByteBuffer slice = view.duplicate();
+        slice.position(position);
+        slice.limit(position + size);
+        CRC32 crc32 = new CRC32();
+        crc32.update(slice);
+        return (int) crc32.getValue();
+    }
+}
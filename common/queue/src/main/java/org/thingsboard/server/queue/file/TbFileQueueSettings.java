@@ -0,0 +1,43 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+@ConditionalOnExpression("'${queue.type:null}'=='file'")
+@Component
+@Data
+public class TbFileQueueSettings {
+
+    @Value("${queue.file.dir:${java.io.tmpdir}/tb-queue}")
+    private String dir;
+
+    @Value("${queue.file.segment_size_bytes:67108864}")
+    private int segmentSizeBytes;
+
+    @Value("${queue.file.max_topic_size_bytes:1073741824}")
+    private long maxTopicSizeBytes;
+
+    @Value("${queue.file.group_expiration_ms:604800000}")
+    private long groupExpirationMs;
+
+    @Value("${queue.file.max_poll_records:1000}")
+    private int maxPollRecords;
+
+}
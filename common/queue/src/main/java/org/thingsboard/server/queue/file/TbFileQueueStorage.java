@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='file'")
+public class TbFileQueueStorage {
+
+    private final TbFileQueueSettings settings;
+    private final ConcurrentMap<String, TbFileQueueTopicLog> logs = new ConcurrentHashMap<>();
+
+    public TbFileQueueStorage(TbFileQueueSettings settings) {
+        this.settings = settings;
+    }
+
+    public TbFileQueueTopicLog getTopicLog(String topic) {
+        return logs.computeIfAbsent(topic, t -> {
+            try {
+                return new TbFileQueueTopicLog(t, new File(settings.getDir(), t.replaceAll("[^a-zA-Z0-9._-]", "_")),
+                        settings.getSegmentSizeBytes(), settings.getMaxTopicSizeBytes(), settings.getGroupExpirationMs());
+            } catch (IOException e) {
+                log.error("[{}] Failed to open topic log", t, e);
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public long getLagTotal() {
+        return logs.values().stream().mapToLong(TbFileQueueTopicLog::getLag).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${queue.file.flush_interval_ms:1000}")
+    public void flush() {
+        logs.values().forEach(TbFileQueueTopicLog::flush);
+    }
+
+    @Scheduled(fixedRateString = "${queue.file.stats.print-interval-ms:60000}")
+    public void printStats() {
+        if (log.isDebugEnabled()) {
+            logs.forEach((topic, topicLog) -> {
+                long lag = topicLog.getLag();
+                if (lag > 0) {
+                    log.debug("[{}] Queue Lag [{}]", topic, lag);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Log of a single topic (partition) that consists of memory-mapped segments and the committed offsets of its consumer groups.
+ * Offsets are sequence numbers of the messages in the topic. Segments that are fully committed by every group are deleted,
+ * and appends are rejected once the total size of the segments of this topic partition reaches the configured limit.
+ * <p>
+ * A group that neither polls nor commits for the configured expiration time is considered gone: its committed offset
+ * stops holding back the deletion of segments and its offset file is removed by the next flush. A group that comes back
+ * later starts again from the oldest message that is still stored.
+ */
+@Slf4j
+public class TbFileQueueTopicLog {
+
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    @Getter
+    private final String topic;
+    private final File dir;
+    private final int segmentSize;
+    private final long maxSize;
+    private final long groupExpirationMs;
+    private final ConcurrentNavigableMap<Long, TbFileQueueSegment> segments = new ConcurrentSkipListMap<>();
+    private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+    private final ConcurrentMap<String, ConsumerOffset> consumerOffsets = new ConcurrentHashMap<>();
+    private volatile TbFileQueueSegment activeSegment;
+    private long totalSize;
+
+    public TbFileQueueTopicLog(String topic, File dir, int segmentSize, long maxSize) throws IOException {
+        this(topic, dir, segmentSize, maxSize, 0);
+    }
+
+    public TbFileQueueTopicLog(String topic, File dir, int segmentSize, long maxSize, long groupExpirationMs) throws IOException {
+        this.topic = topic;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.groupExpirationMs = groupExpirationMs;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create queue directory: " + dir);
+        }
+        File[] offsetFiles = dir.listFiles((d, name) -> name.endsWith(OFFSET_SUFFIX));
+        if (offsetFiles != null) {
+            for (File file : offsetFiles) {
+                String group = file.getName().substring(0, file.getName().length() - OFFSET_SUFFIX.length());
+                consumerOffsets.put(group, new ConsumerOffset(file));
+            }
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(TbFileQueueSegment.SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                TbFileQueueSegment segment = TbFileQueueSegment.open(file);
+                segments.put(segment.getBaseOffset(), segment);
+                totalSize += segment.getCapacity();
+            }
+        }
+        if (segments.isEmpty()) {
+            long baseOffset = consumerOffsets.values().stream().mapToLong(ConsumerOffset::getOffset).max().orElse(0L);
+            activeSegment = newSegment(baseOffset, segmentSize);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+        consumerOffsets.forEach((group, consumerOffset) -> {
+            if (consumerOffset.getOffset() > activeSegment.getNextOffset()) {
+                log.warn("[{}][{}] Committed offset {} is ahead of the log end {}, resetting", topic, group, consumerOffset.getOffset(), activeSegment.getNextOffset());
+                consumerOffset.set(activeSegment.getNextOffset());
+            }
+        });
+        deleteCommittedSegments();
+        log.info("[{}] Opened topic log with {} segments, consumer groups {}, end offset {}", topic, segments.size(), consumerOffsets.keySet(), getEndOffset());
+    }
+
+    public synchronized boolean append(TbQueueMsg msg) throws IOException {
+        byte[] payload = TbFileQueueSegment.encode(msg);
+        if (!activeSegment.append(payload)) {
+            int size = Math.max(segmentSize, payload.length + 2 * TbFileQueueSegment.RECORD_HEADER_SIZE);
+            if (totalSize + size > maxSize) {
+                deleteCommittedSegments();
+                if (totalSize + size > maxSize) {
+                    return false;
+                }
+            }
+            activeSegment.flush();
+            activeSegment = newSegment(activeSegment.getNextOffset(), size);
+            activeSegment.append(payload);
+        }
+        listeners.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * Returns a cursor positioned at the given offset, or at the first available message if the offset was already deleted.
+     * Synchronized with the deletion of segments, since positioning the cursor reads the segment.
+     */
+    public synchronized Cursor seek(long offset) {
+        Map.Entry<Long, TbFileQueueSegment> entry = segments.floorEntry(offset);
+        TbFileQueueSegment segment = entry != null ? entry.getValue() : segments.firstEntry().getValue();
+        Cursor cursor = new Cursor(segment, 0, segment.getBaseOffset());
+        long toSkip = Math.min(offset, segment.getNextOffset()) - segment.getBaseOffset();
+        for (long i = 0; i < toSkip; i++) {
+            cursor.position = segment.skip(cursor.position);
+            cursor.offset++;
+        }
+        return cursor;
+    }
+
+    /**
+     * Reads up to maxRecords messages starting from the cursor position and advances the cursor.
+     * The cursor of a group never falls behind the offset committed by the group, so the segment it reads is not deleted.
+     */
+    public int read(Cursor cursor, int maxRecords, List<TbFileQueueRecord> result) {
+        int read = 0;
+        while (read < maxRecords) {
+            TbFileQueueSegment segment = cursor.segment;
+            if (cursor.position < segment.getWritePosition()) {
+                result.add(segment.read(cursor.position, cursor.offset));
+                cursor.position = segment.skip(cursor.position);
+                cursor.offset++;
+                read++;
+            } else {
+                Map.Entry<Long, TbFileQueueSegment> next = segments.higherEntry(segment.getBaseOffset());
+                if (next == null) {
+                    break;
+                }
+                // The next segment is created only after the last append to the current one, so re-check before moving on.
+                if (cursor.position >= segment.getWritePosition()) {
+                    cursor.segment = next.getValue();
+                    cursor.position = 0;
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Returns the offset committed by the consumer group. A new group starts from the oldest message
+     * that is still needed by the other groups.
+     */
+    public synchronized long getCommittedOffset(String group) {
+        ConsumerOffset consumerOffset = getConsumerOffset(group);
+        consumerOffset.touch();
+        return consumerOffset.getOffset();
+    }
+
+    public synchronized void commit(String group, long offset) {
+        ConsumerOffset consumerOffset = getConsumerOffset(group);
+        consumerOffset.touch();
+        if (offset != consumerOffset.getOffset()) {
+            consumerOffset.set(offset);
+        }
+    }
+
+    /**
+     * Keeps the consumer group from expiring while it polls without new messages to commit.
+     */
+    public synchronized void keepAlive(String group) {
+        getConsumerOffset(group).touch();
+    }
+
+    public long getEndOffset() {
+        return activeSegment.getNextOffset();
+    }
+
+    /**
+     * Returns the lag of the slowest consumer group.
+     */
+    public long getLag() {
+        return getEndOffset() - getMinCommittedOffset();
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void flush() {
+        activeSegment.flush();
+        removeExpiredGroups();
+        consumerOffsets.values().forEach(ConsumerOffset::flush);
+        deleteCommittedSegments();
+    }
+
+    private ConsumerOffset getConsumerOffset(String group) {
+        // the offsets are keyed by the file name, so they are found again after a restart
+        String name = group.replaceAll("[^a-zA-Z0-9._-]", "_");
+        ConsumerOffset consumerOffset = consumerOffsets.get(name);
+        if (consumerOffset == null) {
+            long offset = getMinCommittedOffset();
+            try {
+                consumerOffset = new ConsumerOffset(new File(dir, name + OFFSET_SUFFIX));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            consumerOffset.set(offset);
+            consumerOffsets.put(name, consumerOffset);
+            log.info("[{}][{}] Registered consumer group at offset {}", topic, group, offset);
+        }
+        return consumerOffset;
+    }
+
+    private long getMinCommittedOffset() {
+        long now = System.currentTimeMillis();
+        return consumerOffsets.values().stream().filter(consumerOffset -> !isExpired(consumerOffset, now))
+                .mapToLong(ConsumerOffset::getOffset).min()
+                .orElseGet(() -> segments.firstKey());
+    }
+
+    private boolean isExpired(ConsumerOffset consumerOffset, long now) {
+        return groupExpirationMs > 0 && now - consumerOffset.getLastActiveTs() > groupExpirationMs;
+    }
+
+    private void removeExpiredGroups() {
+        long now = System.currentTimeMillis();
+        consumerOffsets.entrySet().removeIf(entry -> {
+            if (!isExpired(entry.getValue(), now)) {
+                return false;
+            }
+            log.warn("[{}][{}] Removing consumer group inactive for more than {} ms at offset {}", topic, entry.getKey(), groupExpirationMs, entry.getValue().getOffset());
+            entry.getValue().delete();
+            return true;
+        });
+    }
+
+    private TbFileQueueSegment newSegment(long baseOffset, int size) throws IOException {
+        TbFileQueueSegment segment = TbFileQueueSegment.create(dir, baseOffset, size);
+        segments.put(baseOffset, segment);
+        totalSize += segment.getCapacity();
+        return segment;
+    }
+
+    private void deleteCommittedSegments() {
+        long committedOffset = getMinCommittedOffset();
+        while (segments.size() > 1) {
+            TbFileQueueSegment oldest = segments.firstEntry().getValue();
+            if (oldest == activeSegment || oldest.getNextOffset() > committedOffset) {
+                break;
+            }
+            segments.remove(oldest.getBaseOffset());
+            totalSize -= oldest.getCapacity();
+            oldest.delete();
+            log.debug("[{}] Deleted committed segment {}", topic, oldest.getFile());
+        }
+    }
+
+    private static class ConsumerOffset {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        @Getter
+        private volatile long offset;
+        // a group restored from disk gets the whole expiration time to come back
+        @Getter
+        private volatile long lastActiveTs = System.currentTimeMillis();
+
+        ConsumerOffset(File file) throws IOException {
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            }
+            offset = buffer.getLong(0);
+        }
+
+        void touch() {
+            lastActiveTs = System.currentTimeMillis();
+        }
+
+        void delete() {
+            if (!file.delete()) {
+                log.warn("Failed to delete consumer offset file {}", file);
+            }
+        }
+
+        void set(long offset) {
+            buffer.putLong(0, offset);
+            this.offset = offset;
+        }
+
+        void flush() {
+            buffer.force();
+        }
+    }
+
+    public static class Cursor {
+        private TbFileQueueSegment segment;
+        private int position;
+        @Getter
+        private long offset;
+
+        private Cursor(TbFileQueueSegment segment, int position, long offset) {
+            this.segment = segment;
+            this.position = position;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.tracing;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DefaultTbMsgTracingService implements TbMsgTracingService {
+
+    private static final String STATS_NAME = "tbMsgTrace";
+    private static final String NO_RULE_NODE = "none";
+
+    private final StatsFactory statsFactory;
+
+    @Value("${metrics.msg_tracing.enabled:false}")
+    private boolean enabled;
+    @Value("${metrics.msg_tracing.sampling_rate:0.001}")
+    private double samplingRate;
+    @Value("${metrics.msg_tracing.per_tenant:false}")
+    private boolean perTenant;
+
+    private final ConcurrentMap<StageKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void sample(TbMsg msg) {
+        if (enabled && !msg.isTraced() && ThreadLocalRandom.current().nextDouble() < samplingRate) {
+            msg.startTrace(System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void trace(TenantId tenantId, TbMsg msg, TbMsgTraceStage stage) {
+        trace(tenantId, msg, stage, null);
+    }
+
+    @Override
+    public void trace(TenantId tenantId, TbMsg msg, TbMsgTraceStage stage, String ruleNodeType) {
+        if (!enabled || !msg.isTraced()) {
+            return;
+        }
+        // clocks of different services may be slightly out of sync
+        long latency = Math.max(0L, System.currentTimeMillis() - msg.getTraceTs());
+        StageKey key = new StageKey(stage, msg.getQueueName(), perTenant && tenantId != null ? tenantId : TenantId.SYS_TENANT_ID,
+                ruleNodeType != null ? ruleNodeType.substring(ruleNodeType.lastIndexOf('.') + 1) : NO_RULE_NODE);
+        timers.computeIfAbsent(key, this::createTimer).record(latency, TimeUnit.MILLISECONDS);
+    }
+
+    private Timer createTimer(StageKey key) {
+        return statsFactory.createHistogramTimer(STATS_NAME,
+                "stage", key.getStage().getName(),
+                "queue", key.getQueueName(),
+                "tenantId", key.getTenantId().getId().toString(),
+                "ruleNodeType", key.getRuleNodeType());
+    }
+
+    @Data
+    private static class StageKey {
+        private final TbMsgTraceStage stage;
+        private final String queueName;
+        private final TenantId tenantId;
+        // simple class name of the rule node, so the number of the time series is bounded by the number of the node types
+        private final String ruleNodeType;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.tracing;
+
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
+
+public interface TbMsgTracingService {
+
+    /**
+     * Marks the message for latency tracing according to the configured sampling rate.
+     * Messages that are already traced are left untouched.
+     */
+    void sample(TbMsg msg);
+
+    /**
+     * Records the latency of the traced message at the given stage. Does nothing if the message is not traced.
+     */
+    void trace(TenantId tenantId, TbMsg msg, TbMsgTraceStage stage);
+
+    /**
+     * Records the latency of the traced message at the given stage of the rule node of the given type.
+     */
+    void trace(TenantId tenantId, TbMsg msg, TbMsgTraceStage stage, String ruleNodeType);
+
+}
@@ -26,6 +26,8 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.gen.transport.TransportProtos.ToUsageStatsServiceMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.UsageStatsKVProto;
 import org.thingsboard.server.queue.TbQueueProducer;
@@ -36,6 +38,8 @@ import org.thingsboard.server.queue.scheduler.SchedulerComponent;
 
 import javax.annotation.PostConstruct;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
@@ -48,30 +52,42 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class DefaultTbApiUsageClient implements TbApiUsageClient {
 
+    private static final String STATS_NAME = "apiUsageReport";
+
     @Value("${usage.stats.report.enabled:true}")
     private boolean enabled;
     @Value("${usage.stats.report.enabled_per_customer:false}")
     private boolean enabledPerCustomer;
     @Value("${usage.stats.report.interval:10}")
     private int interval;
+    @Value("${usage.stats.report.pack_size:1}")
+    private int packSize;
 
     private final EnumMap<ApiUsageRecordKey, ConcurrentMap<OwnerId, AtomicLong>> stats = new EnumMap<>(ApiUsageRecordKey.class);
 
     private final PartitionService partitionService;
     private final SchedulerComponent scheduler;
     private final TbQueueProducerProvider producerProvider;
+    private final StatsFactory statsFactory;
     private TbQueueProducer<TbProtoQueueMsg<ToUsageStatsServiceMsg>> msgProducer;
 
-    public DefaultTbApiUsageClient(PartitionService partitionService, SchedulerComponent scheduler, TbQueueProducerProvider producerProvider) {
+    private DefaultCounter reportedOwnersCounter;
+    private DefaultCounter sentMsgsCounter;
+
+    public DefaultTbApiUsageClient(PartitionService partitionService, SchedulerComponent scheduler, TbQueueProducerProvider producerProvider,
+                                   StatsFactory statsFactory) {
         this.partitionService = partitionService;
         this.scheduler = scheduler;
         this.producerProvider = producerProvider;
+        this.statsFactory = statsFactory;
     }
 
     @PostConstruct
     private void init() {
         if (enabled) {
             msgProducer = this.producerProvider.getTbUsageStatsMsgProducer();
+            reportedOwnersCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "owners");
+            sentMsgsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "msgs");
             for (ApiUsageRecordKey key : ApiUsageRecordKey.values()) {
                 stats.put(key, new ConcurrentHashMap<>());
             }
@@ -115,20 +131,37 @@ public class DefaultTbApiUsageClient implements TbApiUsageClient {
             statsForKey.clear();
         }
 
+        Map<TopicPartitionInfo, ToUsageStatsServiceMsg.Builder> packs = new HashMap<>();
         report.forEach(((ownerId, statsMsg) -> {
-            //TODO: figure out how to minimize messages into the queue. Maybe group by 100s of messages?
-
             TenantId tenantId = ownerId.getTenantId();
             EntityId entityId = Optional.ofNullable(ownerId.getEntityId()).orElse(tenantId);
             TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, entityId).newByTopic(msgProducer.getDefaultTopic());
-            msgProducer.send(tpi, new TbProtoQueueMsg<>(UUID.randomUUID(), statsMsg.build()), null);
+            ToUsageStatsServiceMsg.Builder pack = packs.computeIfAbsent(tpi, k -> ToUsageStatsServiceMsg.newBuilder());
+            pack.addPackedMsgs(statsMsg);
+            if (pack.getPackedMsgsCount() >= packSize) {
+                sendPack(tpi, packs.remove(tpi));
+            }
         }));
+        packs.forEach(this::sendPack);
 
         if (!report.isEmpty()) {
+            reportedOwnersCounter.add(report.size());
             log.debug("Reporting API usage statistics for {} tenants and customers", report.size());
         }
     }
 
+    private void sendPack(TopicPartitionInfo tpi, ToUsageStatsServiceMsg.Builder pack) {
+        ToUsageStatsServiceMsg msg;
+        if (pack.getPackedMsgsCount() == 1) {
+            // no need to wrap a single report, and such messages are understood by the nodes of the previous versions as well.
+            msg = pack.getPackedMsgs(0);
+        } else {
+            msg = pack.build();
+        }
+        msgProducer.send(tpi, new TbProtoQueueMsg<>(UUID.randomUUID(), msg), null);
+        sentMsgsCounter.increment();
+    }
+
     @Override
     public void report(TenantId tenantId, CustomerId customerId, ApiUsageRecordKey key, long value) {
         if (enabled) {
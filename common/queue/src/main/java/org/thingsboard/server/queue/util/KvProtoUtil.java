@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.util;
+
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueType;
+import org.thingsboard.server.gen.transport.TransportProtos.TsKvProto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KvProtoUtil {
+
+    private KvProtoUtil() {
+    }
+
+    public static TsKvProto.Builder toKeyValueProto(long ts, KvEntry attr) {
+        KeyValueProto.Builder dataBuilder = KeyValueProto.newBuilder();
+        dataBuilder.setKey(attr.getKey());
+        dataBuilder.setType(KeyValueType.forNumber(attr.getDataType().ordinal()));
+        switch (attr.getDataType()) {
+            case BOOLEAN:
+                attr.getBooleanValue().ifPresent(dataBuilder::setBoolV);
+                break;
+            case LONG:
+                attr.getLongValue().ifPresent(dataBuilder::setLongV);
+                break;
+            case DOUBLE:
+                attr.getDoubleValue().ifPresent(dataBuilder::setDoubleV);
+                break;
+            case JSON:
+                attr.getJsonValue().ifPresent(dataBuilder::setJsonV);
+                break;
+            case STRING:
+                attr.getStrValue().ifPresent(dataBuilder::setStringV);
+                break;
+        }
+        return TsKvProto.newBuilder().setTs(ts).setKv(dataBuilder);
+    }
+
+    public static List<TsKvEntry> toTsKvEntityList(List<TsKvProto> dataList) {
+        List<TsKvEntry> result = new ArrayList<>(dataList.size());
+        dataList.forEach(proto -> result.add(new BasicTsKvEntry(proto.getTs(), toKvEntry(proto.getKv()))));
+        return result;
+    }
+
+    public static List<AttributeKvEntry> toAttributeKvList(List<TsKvProto> dataList) {
+        List<AttributeKvEntry> result = new ArrayList<>(dataList.size());
+        dataList.forEach(proto -> result.add(new BaseAttributeKvEntry(toKvEntry(proto.getKv()), proto.getTs())));
+        return result;
+    }
+
+    public static KvEntry toKvEntry(KeyValueProto proto) {
+        KvEntry entry = null;
+        DataType type = DataType.values()[proto.getType().getNumber()];
+        switch (type) {
+            case BOOLEAN:
+                entry = new BooleanDataEntry(proto.getKey(), proto.getBoolV());
+                break;
+            case LONG:
+                entry = new LongDataEntry(proto.getKey(), proto.getLongV());
+                break;
+            case DOUBLE:
+                entry = new DoubleDataEntry(proto.getKey(), proto.getDoubleV());
+                break;
+            case STRING:
+                entry = new StringDataEntry(proto.getKey(), proto.getStringV());
+                break;
+            case JSON:
+                entry = new JsonDataEntry(proto.getKey(), proto.getJsonV());
+                break;
+        }
+        return entry;
+    }
+
+}
@@ -0,0 +1,336 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.util;
+
+import org.thingsboard.server.common.data.id.DeviceCredentialsId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKey;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.rpc.RpcError;
+import org.thingsboard.server.common.data.rpc.ToDeviceRpcRequestBody;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.common.data.security.DeviceCredentialsType;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
+import org.thingsboard.server.common.msg.edge.EdgeEventUpdateMsg;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponse;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg;
+import org.thingsboard.server.common.msg.rpc.RemoveRpcActorMsg;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequest;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceCredentialsUpdateNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceEdgeUpdateMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.gen.transport.TransportProtos.AttributeKeyProto;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceAttributesEventMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceCredentialsUpdateMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceEdgeUpdateMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceNameOrTypeUpdateMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdgeEventUpdateMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.FromDeviceRpcResponseActorMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.RemoveRpcActorMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToDeviceActorNotificationMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToDeviceRpcRequestActorMsgProto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts device actor and edge notifications to explicit protobuf messages, replacing the FST encoded payloads.
+ * {@link #toProto(ToDeviceActorNotificationMsg)} returns null for notifications that are not mapped yet,
+ * so the caller may fall back to the legacy encoding.
+ */
+public class TbActorNotificationProtoUtils {
+
+    private TbActorNotificationProtoUtils() {
+    }
+
+    public static ToDeviceActorNotificationMsgProto toProto(ToDeviceActorNotificationMsg msg) {
+        ToDeviceActorNotificationMsgProto.Builder builder = ToDeviceActorNotificationMsgProto.newBuilder();
+        MsgType msgType = msg.getMsgType();
+        switch (msgType) {
+            case DEVICE_ATTRIBUTES_UPDATE_TO_DEVICE_ACTOR_MSG:
+                return builder.setDeviceAttributesEventMsg(toProto((DeviceAttributesEventNotificationMsg) msg)).build();
+            case DEVICE_RPC_REQUEST_TO_DEVICE_ACTOR_MSG:
+                return builder.setToDeviceRpcRequestMsg(toProto((ToDeviceRpcRequestActorMsg) msg)).build();
+            case DEVICE_RPC_RESPONSE_TO_DEVICE_ACTOR_MSG:
+                return builder.setFromDeviceRpcResponseMsg(toProto((FromDeviceRpcResponseActorMsg) msg)).build();
+            case REMOVE_RPC_TO_DEVICE_ACTOR_MSG:
+                return builder.setRemoveRpcMsg(toProto((RemoveRpcActorMsg) msg)).build();
+            case DEVICE_NAME_OR_TYPE_UPDATE_TO_DEVICE_ACTOR_MSG:
+                return builder.setDeviceNameOrTypeUpdateMsg(toProto((DeviceNameOrTypeUpdateMsg) msg)).build();
+            case DEVICE_EDGE_UPDATE_TO_DEVICE_ACTOR_MSG:
+                return builder.setDeviceEdgeUpdateMsg(toProto((DeviceEdgeUpdateMsg) msg)).build();
+            case DEVICE_CREDENTIALS_UPDATE_TO_DEVICE_ACTOR_MSG:
+                return builder.setDeviceCredentialsUpdateMsg(toProto((DeviceCredentialsUpdateNotificationMsg) msg)).build();
+            default:
+                return null;
+        }
+    }
+
+    public static ToDeviceActorNotificationMsg fromProto(ToDeviceActorNotificationMsgProto proto) {
+        if (proto.hasDeviceAttributesEventMsg()) {
+            return fromProto(proto.getDeviceAttributesEventMsg());
+        } else if (proto.hasToDeviceRpcRequestMsg()) {
+            return fromProto(proto.getToDeviceRpcRequestMsg());
+        } else if (proto.hasFromDeviceRpcResponseMsg()) {
+            return fromProto(proto.getFromDeviceRpcResponseMsg());
+        } else if (proto.hasRemoveRpcMsg()) {
+            return fromProto(proto.getRemoveRpcMsg());
+        } else if (proto.hasDeviceNameOrTypeUpdateMsg()) {
+            return fromProto(proto.getDeviceNameOrTypeUpdateMsg());
+        } else if (proto.hasDeviceEdgeUpdateMsg()) {
+            return fromProto(proto.getDeviceEdgeUpdateMsg());
+        } else if (proto.hasDeviceCredentialsUpdateMsg()) {
+            return fromProto(proto.getDeviceCredentialsUpdateMsg());
+        }
+        throw new IllegalArgumentException("Unsupported device actor notification: " + proto);
+    }
+
+    public static EdgeEventUpdateMsgProto toProto(EdgeEventUpdateMsg msg) {
+        return EdgeEventUpdateMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setEdgeIdMSB(msg.getEdgeId().getId().getMostSignificantBits())
+                .setEdgeIdLSB(msg.getEdgeId().getId().getLeastSignificantBits())
+                .build();
+    }
+
+    public static EdgeEventUpdateMsg fromProto(EdgeEventUpdateMsgProto proto) {
+        return new EdgeEventUpdateMsg(
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new EdgeId(new UUID(proto.getEdgeIdMSB(), proto.getEdgeIdLSB())));
+    }
+
+    static DeviceAttributesEventMsgProto toProto(DeviceAttributesEventNotificationMsg msg) {
+        DeviceAttributesEventMsgProto.Builder builder = DeviceAttributesEventMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits())
+                .setDeleted(msg.isDeleted());
+        if (msg.getScope() != null) {
+            builder.setScope(msg.getScope());
+        }
+        if (msg.getValues() != null) {
+            for (AttributeKvEntry entry : msg.getValues()) {
+                builder.addValues(KvProtoUtil.toKeyValueProto(entry.getLastUpdateTs(), entry));
+            }
+        }
+        if (msg.getDeletedKeys() != null) {
+            for (AttributeKey key : msg.getDeletedKeys()) {
+                builder.addDeletedKeys(AttributeKeyProto.newBuilder().setScope(key.getScope()).setKey(key.getAttributeKey()));
+            }
+        }
+        return builder.build();
+    }
+
+    static DeviceAttributesEventNotificationMsg fromProto(DeviceAttributesEventMsgProto proto) {
+        TenantId tenantId = new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB()));
+        DeviceId deviceId = new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB()));
+        if (proto.getDeleted()) {
+            Set<AttributeKey> keys = new HashSet<>(proto.getDeletedKeysCount());
+            for (AttributeKeyProto key : proto.getDeletedKeysList()) {
+                keys.add(new AttributeKey(key.getScope(), key.getKey()));
+            }
+            return DeviceAttributesEventNotificationMsg.onDelete(tenantId, deviceId, keys);
+        } else {
+            List<AttributeKvEntry> values = KvProtoUtil.toAttributeKvList(proto.getValuesList());
+            return DeviceAttributesEventNotificationMsg.onUpdate(tenantId, deviceId, proto.getScope(), values);
+        }
+    }
+
+    static ToDeviceRpcRequestActorMsgProto toProto(ToDeviceRpcRequestActorMsg msg) {
+        ToDeviceRpcRequest request = msg.getMsg();
+        ToDeviceRpcRequestActorMsgProto.Builder builder = ToDeviceRpcRequestActorMsgProto.newBuilder()
+                .setTenantIdMSB(request.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(request.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(request.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(request.getDeviceId().getId().getLeastSignificantBits())
+                .setServiceId(msg.getServiceId())
+                .setRequestIdMSB(request.getId().getMostSignificantBits())
+                .setRequestIdLSB(request.getId().getLeastSignificantBits())
+                .setOneway(request.isOneway())
+                .setExpirationTime(request.getExpirationTime())
+                .setMethod(request.getBody().getMethod())
+                .setPersisted(request.isPersisted());
+        if (request.getBody().getParams() != null) {
+            builder.setParams(request.getBody().getParams());
+        }
+        if (request.getRetries() != null) {
+            builder.setRetries(request.getRetries());
+        }
+        if (request.getAdditionalInfo() != null) {
+            builder.setAdditionalInfo(request.getAdditionalInfo());
+        }
+        return builder.build();
+    }
+
+    static ToDeviceRpcRequestActorMsg fromProto(ToDeviceRpcRequestActorMsgProto proto) {
+        ToDeviceRpcRequest request = new ToDeviceRpcRequest(
+                new UUID(proto.getRequestIdMSB(), proto.getRequestIdLSB()),
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                proto.getOneway(),
+                proto.getExpirationTime(),
+                new ToDeviceRpcRequestBody(proto.getMethod(), proto.hasParams() ? proto.getParams() : null),
+                proto.getPersisted(),
+                proto.hasRetries() ? proto.getRetries() : null,
+                proto.hasAdditionalInfo() ? proto.getAdditionalInfo() : null);
+        return new ToDeviceRpcRequestActorMsg(proto.getServiceId(), request);
+    }
+
+    static FromDeviceRpcResponseActorMsgProto toProto(FromDeviceRpcResponseActorMsg msg) {
+        FromDeviceRpcResponse response = msg.getMsg();
+        FromDeviceRpcResponseActorMsgProto.Builder builder = FromDeviceRpcResponseActorMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits())
+                .setRequestId(msg.getRequestId())
+                .setRequestIdMSB(response.getId().getMostSignificantBits())
+                .setRequestIdLSB(response.getId().getLeastSignificantBits())
+                .setError(response.getError().map(Enum::ordinal).orElse(-1));
+        response.getResponse().ifPresent(builder::setResponse);
+        return builder.build();
+    }
+
+    static FromDeviceRpcResponseActorMsg fromProto(FromDeviceRpcResponseActorMsgProto proto) {
+        FromDeviceRpcResponse response = new FromDeviceRpcResponse(
+                new UUID(proto.getRequestIdMSB(), proto.getRequestIdLSB()),
+                proto.hasResponse() ? proto.getResponse() : null,
+                proto.getError() >= 0 ? RpcError.values()[proto.getError()] : null);
+        return new FromDeviceRpcResponseActorMsg(proto.getRequestId(),
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                response);
+    }
+
+    static RemoveRpcActorMsgProto toProto(RemoveRpcActorMsg msg) {
+        return RemoveRpcActorMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits())
+                .setRequestIdMSB(msg.getRequestId().getMostSignificantBits())
+                .setRequestIdLSB(msg.getRequestId().getLeastSignificantBits())
+                .build();
+    }
+
+    static RemoveRpcActorMsg fromProto(RemoveRpcActorMsgProto proto) {
+        return new RemoveRpcActorMsg(
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                new UUID(proto.getRequestIdMSB(), proto.getRequestIdLSB()));
+    }
+
+    static DeviceNameOrTypeUpdateMsgProto toProto(DeviceNameOrTypeUpdateMsg msg) {
+        return DeviceNameOrTypeUpdateMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits())
+                .setDeviceName(msg.getDeviceName())
+                .setDeviceType(msg.getDeviceType())
+                .build();
+    }
+
+    static DeviceNameOrTypeUpdateMsg fromProto(DeviceNameOrTypeUpdateMsgProto proto) {
+        return new DeviceNameOrTypeUpdateMsg(
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                proto.getDeviceName(), proto.getDeviceType());
+    }
+
+    static DeviceEdgeUpdateMsgProto toProto(DeviceEdgeUpdateMsg msg) {
+        DeviceEdgeUpdateMsgProto.Builder builder = DeviceEdgeUpdateMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits());
+        if (msg.getEdgeId() != null) {
+            builder.setEdgeIdMSB(msg.getEdgeId().getId().getMostSignificantBits())
+                    .setEdgeIdLSB(msg.getEdgeId().getId().getLeastSignificantBits());
+        }
+        return builder.build();
+    }
+
+    static DeviceEdgeUpdateMsg fromProto(DeviceEdgeUpdateMsgProto proto) {
+        EdgeId edgeId = null;
+        if (proto.getEdgeIdMSB() != 0 || proto.getEdgeIdLSB() != 0) {
+            edgeId = new EdgeId(new UUID(proto.getEdgeIdMSB(), proto.getEdgeIdLSB()));
+        }
+        return new DeviceEdgeUpdateMsg(
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                edgeId);
+    }
+
+    static DeviceCredentialsUpdateMsgProto toProto(DeviceCredentialsUpdateNotificationMsg msg) {
+        DeviceCredentialsUpdateMsgProto.Builder builder = DeviceCredentialsUpdateMsgProto.newBuilder()
+                .setTenantIdMSB(msg.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(msg.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(msg.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(msg.getDeviceId().getId().getLeastSignificantBits());
+        DeviceCredentials credentials = msg.getDeviceCredentials();
+        if (credentials != null) {
+            if (credentials.getId() != null) {
+                builder.setCredentialsIdMSB(credentials.getId().getId().getMostSignificantBits())
+                        .setCredentialsIdLSB(credentials.getId().getId().getLeastSignificantBits());
+            }
+            builder.setCreatedTime(credentials.getCreatedTime());
+            TransportProtos.DeviceCredentialsProto.Builder credentialsBuilder = TransportProtos.DeviceCredentialsProto.newBuilder()
+                    .setDeviceIdMSB(credentials.getDeviceId().getId().getMostSignificantBits())
+                    .setDeviceIdLSB(credentials.getDeviceId().getId().getLeastSignificantBits())
+                    .setCredentialsType(TransportProtos.CredentialsType.valueOf(credentials.getCredentialsType().name()));
+            if (credentials.getCredentialsId() != null) {
+                credentialsBuilder.setCredentialsId(credentials.getCredentialsId());
+            }
+            if (credentials.getCredentialsValue() != null) {
+                credentialsBuilder.setCredentialsValue(credentials.getCredentialsValue());
+            }
+            builder.setDeviceCredentials(credentialsBuilder);
+        }
+        return builder.build();
+    }
+
+    static DeviceCredentialsUpdateNotificationMsg fromProto(DeviceCredentialsUpdateMsgProto proto) {
+        DeviceCredentials credentials = null;
+        if (proto.hasDeviceCredentials()) {
+            TransportProtos.DeviceCredentialsProto credentialsProto = proto.getDeviceCredentials();
+            if (proto.getCredentialsIdMSB() != 0 || proto.getCredentialsIdLSB() != 0) {
+                credentials = new DeviceCredentials(new DeviceCredentialsId(new UUID(proto.getCredentialsIdMSB(), proto.getCredentialsIdLSB())));
+            } else {
+                credentials = new DeviceCredentials();
+            }
+            credentials.setCreatedTime(proto.getCreatedTime());
+            credentials.setDeviceId(new DeviceId(new UUID(credentialsProto.getDeviceIdMSB(), credentialsProto.getDeviceIdLSB())));
+            credentials.setCredentialsType(DeviceCredentialsType.valueOf(credentialsProto.getCredentialsType().name()));
+            credentials.setCredentialsId(credentialsProto.getCredentialsId().isEmpty() ? null : credentialsProto.getCredentialsId());
+            credentials.setCredentialsValue(credentialsProto.getCredentialsValue().isEmpty() ? null : credentialsProto.getCredentialsValue());
+        }
+        return new DeviceCredentialsUpdateNotificationMsg(
+                new TenantId(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())),
+                new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())),
+                credentials);
+    }
+}
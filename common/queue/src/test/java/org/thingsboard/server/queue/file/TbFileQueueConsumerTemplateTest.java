@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbFileQueueConsumerTemplateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void givenBackloggedPartition_whenPoll_thenOtherPartitionsShareTheBudget() throws IOException {
+        TbFileQueueSettings settings = new TbFileQueueSettings();
+        settings.setDir(folder.getRoot().getAbsolutePath());
+        settings.setSegmentSizeBytes(64 * 1024);
+        settings.setMaxTopicSizeBytes(Long.MAX_VALUE);
+        settings.setMaxPollRecords(10);
+        TbFileQueueStorage storage = new TbFileQueueStorage(settings);
+        for (int i = 0; i < 100; i++) {
+            storage.getTopicLog("main.0").append(newMsg("busy-" + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            storage.getTopicLog("main.1").append(newMsg("quiet-" + i));
+        }
+        TbFileQueueConsumerTemplate<TbFileQueueRecord> consumer = new TbFileQueueConsumerTemplate<>(storage, settings, "main", "group",
+                msg -> (TbFileQueueRecord) msg);
+        consumer.doSubscribe(Arrays.asList("main.0", "main.1"));
+
+        List<TbFileQueueRecord> first = consumer.doPoll(0);
+        assertThat(first).hasSize(10);
+        assertThat(first).filteredOn(record -> new String(record.getData(), StandardCharsets.UTF_8).startsWith("quiet")).hasSize(5);
+
+        List<TbFileQueueRecord> second = consumer.doPoll(0);
+        assertThat(second).hasSize(10);
+        assertThat(second).allMatch(record -> new String(record.getData(), StandardCharsets.UTF_8).startsWith("busy"));
+    }
+
+    private static TbFileQueueRecord newMsg(String data) {
+        return new TbFileQueueRecord(-1, UUID.randomUUID(), new DefaultTbQueueMsgHeaders(), data.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbFileQueueTopicLogTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private static final String GROUP = "consumer";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void givenAppendedMessages_whenRead_thenReturnedInOrderWithHeaders() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        List<TbQueueMsg> msgs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TbQueueMsg msg = newMsg("msg-" + i);
+            msgs.add(msg);
+            assertThat(topicLog.append(msg)).isTrue();
+        }
+        assertThat(folder.getRoot().listFiles((dir, name) -> name.endsWith(TbFileQueueSegment.SUFFIX)).length).isGreaterThan(1);
+
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        TbFileQueueTopicLog.Cursor cursor = topicLog.seek(0);
+        assertThat(topicLog.read(cursor, 1000, records)).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(records.get(i).getOffset()).isEqualTo(i);
+            assertThat(records.get(i).getKey()).isEqualTo(msgs.get(i).getKey());
+            assertThat(records.get(i).getData()).isEqualTo(msgs.get(i).getData());
+            assertThat(records.get(i).getHeaders().get("header")).isEqualTo(msgs.get(i).getHeaders().get("header"));
+        }
+        assertThat(cursor.getOffset()).isEqualTo(100);
+        assertThat(topicLog.getLag()).isEqualTo(100);
+    }
+
+    @Test
+    public void givenCommittedOffset_whenReopened_thenUncommittedMessagesAreRedelivered() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            topicLog.append(newMsg("msg-" + i));
+        }
+        TbFileQueueTopicLog.Cursor cursor = topicLog.seek(topicLog.getCommittedOffset(GROUP));
+        topicLog.read(cursor, 30, new ArrayList<>());
+        topicLog.commit(GROUP, cursor.getOffset());
+        topicLog.read(cursor, 10, new ArrayList<>());
+        topicLog.flush();
+
+        TbFileQueueTopicLog reopened = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        assertThat(reopened.getCommittedOffset(GROUP)).isEqualTo(30);
+        assertThat(reopened.getEndOffset()).isEqualTo(50);
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        reopened.read(reopened.seek(reopened.getCommittedOffset(GROUP)), 1000, records);
+        assertThat(records).hasSize(20);
+        assertThat(new String(records.get(0).getData(), StandardCharsets.UTF_8)).isEqualTo("msg-30");
+
+        reopened.append(newMsg("msg-50"));
+        assertThat(reopened.getEndOffset()).isEqualTo(51);
+    }
+
+    @Test
+    public void givenTornRecord_whenReopened_thenLogIsTruncatedToLastValidRecord() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        topicLog.append(newMsg("msg-0"));
+        topicLog.append(newMsg("msg-1"));
+        topicLog.flush();
+
+        File segment = folder.getRoot().listFiles((dir, name) -> name.endsWith(TbFileQueueSegment.SUFFIX))[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            int firstSize = raf.readInt();
+            int secondCrcPosition = TbFileQueueSegment.RECORD_HEADER_SIZE + firstSize + 4;
+            raf.seek(secondCrcPosition);
+            int crc = raf.readInt();
+            raf.seek(secondCrcPosition);
+            raf.writeInt(~crc);
+        }
+
+        TbFileQueueTopicLog reopened = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        assertThat(reopened.getEndOffset()).isEqualTo(1);
+        reopened.append(newMsg("msg-2"));
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        reopened.read(reopened.seek(0), 1000, records);
+        assertThat(records).hasSize(2);
+        assertThat(new String(records.get(1).getData(), StandardCharsets.UTF_8)).isEqualTo("msg-2");
+    }
+
+    @Test
+    public void givenSizeLimit_whenFull_thenAppendRejectedUntilCommitted() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, 2 * SEGMENT_SIZE);
+        int appended = 0;
+        while (topicLog.append(newMsg("msg-" + appended))) {
+            appended++;
+        }
+        assertThat(appended).isGreaterThan(0);
+
+        TbFileQueueTopicLog.Cursor cursor = topicLog.seek(0);
+        topicLog.read(cursor, 1000, new ArrayList<>());
+        topicLog.commit(GROUP, cursor.getOffset());
+        assertThat(topicLog.append(newMsg("msg-" + appended))).isTrue();
+    }
+
+    @Test
+    public void givenTwoConsumerGroups_whenOneCommits_thenSegmentsAreKeptForTheOther() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        assertThat(topicLog.getCommittedOffset("fast")).isZero();
+        assertThat(topicLog.getCommittedOffset("slow")).isZero();
+        for (int i = 0; i < 100; i++) {
+            topicLog.append(newMsg("msg-" + i));
+        }
+        int segmentFiles = countSegmentFiles();
+        assertThat(segmentFiles).isGreaterThan(2);
+
+        TbFileQueueTopicLog.Cursor fastCursor = topicLog.seek(topicLog.getCommittedOffset("fast"));
+        assertThat(topicLog.read(fastCursor, 1000, new ArrayList<>())).isEqualTo(100);
+        topicLog.commit("fast", fastCursor.getOffset());
+        topicLog.flush();
+        assertThat(countSegmentFiles()).isEqualTo(segmentFiles);
+        assertThat(topicLog.getLag()).isEqualTo(100);
+
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        TbFileQueueTopicLog.Cursor slowCursor = topicLog.seek(topicLog.getCommittedOffset("slow"));
+        assertThat(topicLog.read(slowCursor, 1000, records)).isEqualTo(100);
+        assertThat(new String(records.get(0).getData(), StandardCharsets.UTF_8)).isEqualTo("msg-0");
+        topicLog.commit("slow", slowCursor.getOffset());
+        topicLog.flush();
+        assertThat(countSegmentFiles()).isEqualTo(1);
+        assertThat(topicLog.getLag()).isZero();
+
+        TbFileQueueTopicLog reopened = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        assertThat(reopened.getCommittedOffset("fast")).isEqualTo(100);
+        assertThat(reopened.getCommittedOffset("slow")).isEqualTo(100);
+        // a new group starts from the oldest message that is still stored
+        assertThat(reopened.getCommittedOffset("new")).isEqualTo(100);
+    }
+
+    @Test
+    public void givenInactiveConsumerGroup_whenExpired_thenSegmentsAreNoLongerKeptForIt() throws Exception {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE, 50);
+        assertThat(topicLog.getCommittedOffset("active")).isZero();
+        assertThat(topicLog.getCommittedOffset("stale")).isZero();
+        for (int i = 0; i < 100; i++) {
+            topicLog.append(newMsg("msg-" + i));
+        }
+        TbFileQueueTopicLog.Cursor cursor = topicLog.seek(topicLog.getCommittedOffset("active"));
+        topicLog.read(cursor, 1000, new ArrayList<>());
+        topicLog.commit("active", cursor.getOffset());
+        topicLog.flush();
+        assertThat(countSegmentFiles()).isGreaterThan(2);
+
+        Thread.sleep(100);
+        topicLog.keepAlive("active");
+        topicLog.flush();
+        assertThat(countSegmentFiles()).isEqualTo(1);
+        assertThat(topicLog.getLag()).isZero();
+        assertThat(new File(folder.getRoot(), "active.offset")).exists();
+        assertThat(new File(folder.getRoot(), "stale.offset")).doesNotExist();
+    }
+
+    @Test
+    public void givenOffsetInMiddleSegment_whenSeek_thenCursorIsPositionedAtOffset() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            topicLog.append(newMsg("msg-" + i));
+        }
+        assertThat(countSegmentFiles()).isGreaterThan(2);
+
+        List<TbFileQueueRecord> records = new ArrayList<>();
+        TbFileQueueTopicLog.Cursor cursor = topicLog.seek(57);
+        assertThat(cursor.getOffset()).isEqualTo(57);
+        topicLog.read(cursor, 1, records);
+        assertThat(new String(records.get(0).getData(), StandardCharsets.UTF_8)).isEqualTo("msg-57");
+    }
+
+    @Test
+    public void givenListener_whenAppend_thenNotified() throws IOException {
+        TbFileQueueTopicLog topicLog = new TbFileQueueTopicLog("main", folder.getRoot(), SEGMENT_SIZE, Long.MAX_VALUE);
+        AtomicInteger notifications = new AtomicInteger();
+        Runnable listener = notifications::incrementAndGet;
+        topicLog.addListener(listener);
+        topicLog.append(newMsg("msg-0"));
+        topicLog.removeListener(listener);
+        topicLog.append(newMsg("msg-1"));
+        assertThat(notifications.get()).isEqualTo(1);
+    }
+
+    private int countSegmentFiles() {
+        return folder.getRoot().listFiles((dir, name) -> name.endsWith(TbFileQueueSegment.SUFFIX)).length;
+    }
+
+    private static TbQueueMsg newMsg(String data) {
+        DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        headers.put("header", data.getBytes(StandardCharsets.UTF_8));
+        return new TbFileQueueRecord(-1, UUID.randomUUID(), headers, data.getBytes(StandardCharsets.UTF_8));
+    }
+}
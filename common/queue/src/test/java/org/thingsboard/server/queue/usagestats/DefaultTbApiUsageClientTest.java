@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.usagestats;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.gen.transport.TransportProtos.ToUsageStatsServiceMsg;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
+import org.thingsboard.server.queue.scheduler.SchedulerComponent;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultTbApiUsageClientTest {
+
+    private static final String TOPIC = "tb_usage_stats";
+
+    private final TopicPartitionInfo tpi = new TopicPartitionInfo(TOPIC, null, 0, true);
+
+    @Mock
+    private PartitionService partitionService;
+    @Mock
+    private SchedulerComponent scheduler;
+    @Mock
+    private TbQueueProducerProvider producerProvider;
+    @Mock
+    private StatsFactory statsFactory;
+    @Mock
+    private TbQueueProducer<TbProtoQueueMsg<ToUsageStatsServiceMsg>> msgProducer;
+
+    private DefaultTbApiUsageClient client;
+
+    @Before
+    public void before() {
+        when(producerProvider.getTbUsageStatsMsgProducer()).thenReturn(msgProducer);
+        when(msgProducer.getDefaultTopic()).thenReturn(TOPIC);
+        when(statsFactory.createDefaultCounter(anyString(), any())).thenAnswer(inv -> mock(DefaultCounter.class));
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), any(), any())).thenReturn(tpi);
+        client = new DefaultTbApiUsageClient(partitionService, scheduler, producerProvider, statsFactory);
+        ReflectionTestUtils.setField(client, "enabled", true);
+        ReflectionTestUtils.setField(client, "interval", 10);
+    }
+
+    @Test
+    public void testReportsAreNotPackedByDefault() {
+        init(1);
+        client.report(new TenantId(UUID.randomUUID()), null, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, 5);
+
+        List<ToUsageStatsServiceMsg> msgs = reportStats(2);
+
+        // the tenant and the system tenant reports are sent in the format of the previous versions
+        msgs.forEach(msg -> {
+            Assert.assertEquals(0, msg.getPackedMsgsCount());
+            Assert.assertEquals(5, msg.getValues(0).getValue());
+        });
+    }
+
+    @Test
+    public void testReportsArePackedPerPartition() {
+        init(1024);
+        client.report(new TenantId(UUID.randomUUID()), null, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, 5);
+        client.report(new TenantId(UUID.randomUUID()), null, ApiUsageRecordKey.STORAGE_DP_COUNT, 7);
+
+        List<ToUsageStatsServiceMsg> msgs = reportStats(1);
+
+        ToUsageStatsServiceMsg pack = msgs.get(0);
+        Assert.assertEquals(3, pack.getPackedMsgsCount());
+        Assert.assertEquals(0, pack.getValuesCount());
+        Assert.assertEquals(24, pack.getPackedMsgsList().stream()
+                .flatMap(msg -> msg.getValuesList().stream())
+                .mapToLong(value -> value.getValue()).sum());
+    }
+
+    @Test
+    public void testPackSizeLimitsReportsPerMsg() {
+        init(2);
+        client.report(new TenantId(UUID.randomUUID()), null, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, 5);
+        client.report(new TenantId(UUID.randomUUID()), null, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, 7);
+
+        List<ToUsageStatsServiceMsg> msgs = reportStats(2);
+
+        List<Integer> packSizes = msgs.stream().map(ToUsageStatsServiceMsg::getPackedMsgsCount).sorted().collect(Collectors.toList());
+        Assert.assertEquals(List.of(0, 2), packSizes);
+    }
+
+    private void init(int packSize) {
+        ReflectionTestUtils.setField(client, "packSize", packSize);
+        ReflectionTestUtils.invokeMethod(client, "init");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ToUsageStatsServiceMsg> reportStats(int expectedMsgs) {
+        ReflectionTestUtils.invokeMethod(client, "reportStats");
+        ArgumentCaptor<TbProtoQueueMsg<ToUsageStatsServiceMsg>> captor = ArgumentCaptor.forClass(TbProtoQueueMsg.class);
+        verify(msgProducer, times(expectedMsgs)).send(eq(tpi), captor.capture(), isNull());
+        return captor.getAllValues().stream().map(TbProtoQueueMsg::getValue).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.DataConstants;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKey;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.rpc.RpcError;
+import org.thingsboard.server.common.data.rpc.ToDeviceRpcRequestBody;
+import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
+import org.thingsboard.server.common.msg.edge.EdgeEventUpdateMsg;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponse;
+import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponseActorMsg;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequest;
+import org.thingsboard.server.common.msg.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceEdgeUpdateMsg;
+import org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ToDeviceActorNotificationMsgProto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class TbActorNotificationProtoUtilsTest {
+
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void testAttributesUpdateRoundTrip() throws Exception {
+        List<AttributeKvEntry> values = Arrays.asList(
+                new BaseAttributeKvEntry(new LongDataEntry("interval", 30L), 1000L),
+                new BaseAttributeKvEntry(new StringDataEntry("mode", "eco"), 2000L));
+        DeviceAttributesEventNotificationMsg msg = DeviceAttributesEventNotificationMsg.onUpdate(tenantId, deviceId, DataConstants.SHARED_SCOPE, values);
+
+        DeviceAttributesEventNotificationMsg result = (DeviceAttributesEventNotificationMsg) roundTrip(msg);
+
+        Assert.assertEquals(tenantId, result.getTenantId());
+        Assert.assertEquals(deviceId, result.getDeviceId());
+        Assert.assertFalse(result.isDeleted());
+        Assert.assertEquals(DataConstants.SHARED_SCOPE, result.getScope());
+        Assert.assertEquals(values, result.getValues());
+        Assert.assertNull(result.getDeletedKeys());
+    }
+
+    @Test
+    public void testAttributesDeleteRoundTrip() throws Exception {
+        AttributeKey key = new AttributeKey(DataConstants.SERVER_SCOPE, "mode");
+        DeviceAttributesEventNotificationMsg msg = DeviceAttributesEventNotificationMsg.onDelete(tenantId, deviceId, Collections.singleton(key));
+
+        DeviceAttributesEventNotificationMsg result = (DeviceAttributesEventNotificationMsg) roundTrip(msg);
+
+        Assert.assertTrue(result.isDeleted());
+        Assert.assertEquals(Collections.singleton(key), result.getDeletedKeys());
+        Assert.assertNull(result.getScope());
+        Assert.assertNull(result.getValues());
+    }
+
+    @Test
+    public void testRpcRequestRoundTripKeepsNullFields() throws Exception {
+        ToDeviceRpcRequest request = new ToDeviceRpcRequest(UUID.randomUUID(), tenantId, deviceId, true, 12345L,
+                new ToDeviceRpcRequestBody("reboot", null), true, null, null);
+
+        ToDeviceRpcRequestActorMsg result = (ToDeviceRpcRequestActorMsg) roundTrip(new ToDeviceRpcRequestActorMsg("tb-core-1", request));
+
+        Assert.assertEquals("tb-core-1", result.getServiceId());
+        Assert.assertEquals(request, result.getMsg());
+        Assert.assertNull(result.getMsg().getRetries());
+
+        request = new ToDeviceRpcRequest(UUID.randomUUID(), tenantId, deviceId, false, 12345L,
+                new ToDeviceRpcRequestBody("setValue", "{\"v\":1}"), false, 0, "{\"source\":\"test\"}");
+        result = (ToDeviceRpcRequestActorMsg) roundTrip(new ToDeviceRpcRequestActorMsg("tb-core-1", request));
+        Assert.assertEquals(request, result.getMsg());
+    }
+
+    @Test
+    public void testRpcResponseRoundTrip() throws Exception {
+        UUID requestId = UUID.randomUUID();
+        FromDeviceRpcResponseActorMsg msg = new FromDeviceRpcResponseActorMsg(7, tenantId, deviceId,
+                new FromDeviceRpcResponse(requestId, null, RpcError.TIMEOUT));
+
+        FromDeviceRpcResponseActorMsg result = (FromDeviceRpcResponseActorMsg) roundTrip(msg);
+
+        Assert.assertEquals(Integer.valueOf(7), result.getRequestId());
+        Assert.assertEquals(requestId, result.getMsg().getId());
+        Assert.assertFalse(result.getMsg().getResponse().isPresent());
+        Assert.assertEquals(RpcError.TIMEOUT, result.getMsg().getError().orElse(null));
+    }
+
+    @Test
+    public void testDeviceUpdatesRoundTrip() throws Exception {
+        DeviceNameOrTypeUpdateMsg nameMsg = new DeviceNameOrTypeUpdateMsg(tenantId, deviceId, "Device A", "thermostat");
+        Assert.assertEquals(nameMsg, roundTrip(nameMsg));
+
+        DeviceEdgeUpdateMsg edgeMsg = new DeviceEdgeUpdateMsg(tenantId, deviceId, new EdgeId(UUID.randomUUID()));
+        Assert.assertEquals(edgeMsg, roundTrip(edgeMsg));
+
+        DeviceEdgeUpdateMsg unassignMsg = new DeviceEdgeUpdateMsg(tenantId, deviceId, null);
+        Assert.assertEquals(unassignMsg, roundTrip(unassignMsg));
+    }
+
+    @Test
+    public void testEdgeEventUpdateRoundTrip() {
+        EdgeId edgeId = new EdgeId(UUID.randomUUID());
+        EdgeEventUpdateMsg result = TbActorNotificationProtoUtils.fromProto(
+                TbActorNotificationProtoUtils.toProto(new EdgeEventUpdateMsg(tenantId, edgeId)));
+        Assert.assertEquals(tenantId, result.getTenantId());
+        Assert.assertEquals(edgeId, result.getEdgeId());
+    }
+
+    private static ToDeviceActorNotificationMsg roundTrip(ToDeviceActorNotificationMsg msg) throws Exception {
+        byte[] bytes = TbActorNotificationProtoUtils.toProto(msg).toByteArray();
+        return TbActorNotificationProtoUtils.fromProto(ToDeviceActorNotificationMsgProto.parseFrom(bytes));
+    }
+
+}
@@ -83,6 +83,14 @@ public class DefaultStatsFactory implements StatsFactory {
         return meterRegistry.gauge(key, Tags.of(tags), number);
     }
 
+    @Override
+    public void removeGauge(String key, String... tags) {
+        Gauge gauge = meterRegistry.find(key).tags(tags).gauge();
+        if (gauge != null) {
+            meterRegistry.remove(gauge);
+        }
+    }
+
     @Override
     public MessagesStats createMessagesStats(String key) {
         StatsCounter totalCounter = createStatsCounter(key, TOTAL_MSGS);
@@ -102,6 +110,17 @@ public class DefaultStatsFactory implements StatsFactory {
         return timerBuilder.register(meterRegistry);
     }
 
+    @Override
+    public Timer createHistogramTimer(String key, String... tags) {
+        Timer.Builder timerBuilder = Timer.builder(key)
+                .tags(tags)
+                .publishPercentileHistogram();
+        if (timerPercentiles != null && timerPercentiles.length > 0) {
+            timerBuilder.publishPercentiles(timerPercentiles);
+        }
+        return timerBuilder.register(meterRegistry);
+    }
+
     private static class StubCounter implements Counter {
         @Override
         public void increment(double amount) {
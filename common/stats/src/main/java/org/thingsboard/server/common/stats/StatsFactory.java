@@ -24,7 +24,11 @@ public interface StatsFactory {
 
     <T extends Number> T createGauge(String key, T number, String... tags);
 
+    void removeGauge(String key, String... tags);
+
     MessagesStats createMessagesStats(String key);
 
     Timer createTimer(String key, String... tags);
+
+    Timer createHistogramTimer(String key, String... tags);
 }
@@ -24,7 +24,7 @@ import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.californium.core.server.resources.ResourceObserver;
-import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
 
 import java.util.List;
 import java.util.UUID;
@@ -39,11 +39,11 @@ import static org.thingsboard.server.transport.lwm2m.server.ota.DefaultLwM2MOtaU
 public class LwM2mTransportCoapResource extends AbstractLwM2mTransportResource {
     private final ConcurrentMap<String, ObserveRelation> tokenToObserveRelationMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AtomicInteger> tokenToObserveNotificationSeqMap = new ConcurrentHashMap<>();
-    private final OtaPackageDataCache otaPackageDataCache;
+    private final TransportOtaPackageStore otaPackageStore;
 
-    public LwM2mTransportCoapResource(OtaPackageDataCache otaPackageDataCache, String name) {
+    public LwM2mTransportCoapResource(TransportOtaPackageStore otaPackageStore, String name) {
         super(name);
-        this.otaPackageDataCache = otaPackageDataCache;
+        this.otaPackageStore = otaPackageStore;
         this.setObservable(true); // enable observing
         this.addObserver(new CoapResourceObserver());
     }
@@ -156,7 +156,7 @@ public class LwM2mTransportCoapResource extends AbstractLwM2mTransportResource {
     }
 
     private byte[] getOtaData(UUID currentId) {
-        return otaPackageDataCache.get(currentId.toString());
+        return otaPackageStore.getBytes(currentId.toString(), 0, 0);
     }
 
 }
@@ -23,12 +23,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.DonAsynchron;
-import org.thingsboard.server.cache.ota.OtaPackageDataCache;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.device.profile.lwm2m.OtherConfiguration;
 import org.thingsboard.server.common.data.ota.OtaPackageKey;
 import org.thingsboard.server.common.data.ota.OtaPackageType;
 import org.thingsboard.server.common.data.ota.OtaPackageUpdateStatus;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
 import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.TransportServiceCallback;
 import org.thingsboard.server.gen.transport.TransportProtos;
@@ -130,7 +130,7 @@ public class DefaultLwM2MOtaUpdateService extends LwM2MExecutorAwareService impl
     private final LwM2MTransportServerConfig config;
     private final LwM2mUplinkMsgHandler uplinkHandler;
     private final LwM2mDownlinkMsgHandler downlinkHandler;
-    private final OtaPackageDataCache otaPackageDataCache;
+    private final TransportOtaPackageStore otaPackageStore;
     private final LwM2MTelemetryLogService logService;
     private final LwM2mTransportServerHelper helper;
     private final TbLwM2MClientOtaInfoStore otaInfoStore;
@@ -547,7 +547,7 @@ public class DefaultLwM2MOtaUpdateService extends LwM2MExecutorAwareService impl
     }
 
     private void startUpdateUsingBinary(LwM2mClient client, String versionedId, UUID otaPackageId) {
-        byte[] firmwareChunk = otaPackageDataCache.get(otaPackageId.toString(), 0, 0);
+        byte[] firmwareChunk = otaPackageStore.getBytes(otaPackageId.toString(), 0, 0);
         TbLwM2MWriteReplaceRequest writeRequest = TbLwM2MWriteReplaceRequest.builder().versionedId(versionedId)
                 .value(firmwareChunk).contentFormat(ContentFormat.OPAQUE)
                 .timeout(clientContext.getRequestTimeout(client)).build();
@@ -41,9 +41,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.RedisClusterConnection;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.ScanOptions;
-import org.springframework.integration.redis.util.RedisLockRegistry;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
@@ -58,7 +58,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -74,14 +73,28 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
     // Redis key prefixes
     private static final String REG_EP = "REG:EP:"; // (Endpoint => Registration)
     private static final String REG_EP_REGID_IDX = "EP:REGID:"; // secondary index key (Registration ID => Endpoint)
-    private static final String REG_EP_ADDR_IDX = "EP:ADDR:"; // secondary index key (Socket Address => Endpoint)
-    private static final String REG_EP_IDENTITY = "EP:IDENTITY:"; // secondary index key (Identity => Endpoint)
-    private static final String LOCK_EP = "LOCK:EP:";
+    private static final String REG_EP_ADDR_IDX = "EP:ADDR:"; // secondary index key (Socket Address => Registration ID)
+    private static final String REG_EP_IDENTITY = "EP:IDENTITY:"; // secondary index key (Identity => Registration ID)
     private static final byte[] OBS_TKN = "OBS:TKN:".getBytes(UTF_8);
     private static final String OBS_TKNS_REGID_IDX = "TKNS:REGID:"; // secondary index (token list by registration)
     private static final byte[] EXP_EP = "EXP:EP".getBytes(UTF_8); // a sorted set used for registration expiration
     // (expiration date, Endpoint)
 
+    /*
+     * The registrations are modified without distributed locks. Every key is changed by a single atomic command and
+     * the read-modify-write steps use the compare-and-set/compare-and-delete scripts below, so a concurrent change
+     * of the same key is detected instead of being overwritten. The scripts touch a single key, so they are routed
+     * to the node owning the key in a cluster as well. The address and identity indexes point to the registration id,
+     * so an index reused by a newer registration of the same endpoint is not removed with the old one.
+     * An observation is stored first and dropped again if its registration was removed in the meantime: the removal
+     * deletes the registration id index before the observations, so either it sees the new token or the check does.
+     */
+    private static final byte[] COMPARE_AND_SET_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "redis.call('set', KEYS[1], ARGV[2]) return 1 else return 0 end").getBytes(UTF_8);
+    private static final byte[] COMPARE_AND_DELETE_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('del', KEYS[1]) else return 0 end").getBytes(UTF_8);
+    private static final int MAX_UPDATE_ATTEMPTS = 10;
+
     private final RedisConnectionFactory connectionFactory;
 
     // Listener use to notify when a registration expires
@@ -89,14 +102,12 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
 
     private final ScheduledExecutorService schedExecutor;
     private ScheduledFuture<?> cleanerTask;
-    private boolean started = false;
+    private volatile boolean started = false;
 
     private final long cleanPeriod; // in seconds
     private final int cleanLimit; // maximum number to clean in a clean period
     private final long gracePeriod; // in seconds
 
-    private final RedisLockRegistry redisLock;
-
     public TbLwM2mRedisRegistrationStore(RedisConnectionFactory connectionFactory) {
         this(connectionFactory, DEFAULT_CLEAN_PERIOD, DEFAULT_GRACE_PERIOD, DEFAULT_CLEAN_LIMIT); // default clean period 60s
     }
@@ -114,7 +125,6 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
         this.cleanPeriod = cleanPeriodInSec;
         this.cleanLimit = cleanLimit;
         this.gracePeriod = lifetimeGracePeriodInSec;
-        this.redisLock = new RedisLockRegistry(connectionFactory, "Registration");
     }
 
     /* *************** Redis Key utility function **************** */
@@ -130,94 +140,74 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
         return (prefix + registrationID).getBytes();
     }
 
-    private String toLockKey(String endpoint) {
-        return new String(toKey(LOCK_EP, endpoint));
-    }
-
-    private String toLockKey(byte[] endpoint) {
-        return new String(toKey(LOCK_EP.getBytes(UTF_8), endpoint));
-    }
-
     /* *************** Leshan Registration API **************** */
 
     @Override
     public Deregistration addRegistration(Registration registration) {
-        Lock lock = null;
         try (var connection = connectionFactory.getConnection()) {
-            String lockKey = toLockKey(registration.getEndpoint());
-
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-                // add registration
-                byte[] k = toEndpointKey(registration.getEndpoint());
-                byte[] old = connection.getSet(k, serializeReg(registration));
-
-                // add registration: secondary indexes
-                byte[] regid_idx = toRegIdKey(registration.getId());
-                connection.set(regid_idx, registration.getEndpoint().getBytes(UTF_8));
-                byte[] addr_idx = toRegAddrKey(registration.getSocketAddress());
-                connection.set(addr_idx, registration.getEndpoint().getBytes(UTF_8));
-                byte[] identity_idx = toRegIdentityKey(registration.getIdentity());
-                connection.set(identity_idx, registration.getEndpoint().getBytes(UTF_8));
-
-                // Add or update expiration
-                addOrUpdateExpiration(connection, registration);
-
-                if (old != null) {
-                    Registration oldRegistration = deserializeReg(old);
-                    // remove old secondary index
-                    if (!registration.getId().equals(oldRegistration.getId()))
-                        connection.del(toRegIdKey(oldRegistration.getId()));
-                    if (!oldRegistration.getSocketAddress().equals(registration.getSocketAddress())) {
-                        removeAddrIndex(connection, oldRegistration);
-                    }
-                    if (!oldRegistration.getIdentity().equals(registration.getIdentity())) {
-                        removeIdentityIndex(connection, oldRegistration);
-                    }
-                    // remove old observation
-                    Collection<Observation> obsRemoved = unsafeRemoveAllObservations(connection, oldRegistration.getId());
-
-                    return new Deregistration(oldRegistration, obsRemoved);
+            byte[] endpoint = registration.getEndpoint().getBytes(UTF_8);
+            byte[] registrationId = registration.getId().getBytes(UTF_8);
+            // add registration
+            byte[] old = connection.getSet(toEndpointKey(registration.getEndpoint()), serializeReg(registration));
+
+            // add registration: secondary indexes
+            connection.set(toRegIdKey(registration.getId()), endpoint);
+            connection.set(toRegAddrKey(registration.getSocketAddress()), registrationId);
+            connection.set(toRegIdentityKey(registration.getIdentity()), registrationId);
+
+            // Add or update expiration
+            addOrUpdateExpiration(connection, registration);
+
+            if (old != null) {
+                Registration oldRegistration = deserializeReg(old);
+                // remove old secondary index
+                if (!registration.getId().equals(oldRegistration.getId()))
+                    connection.del(toRegIdKey(oldRegistration.getId()));
+                if (!oldRegistration.getSocketAddress().equals(registration.getSocketAddress())) {
+                    removeAddrIndex(connection, oldRegistration);
                 }
-
-                return null;
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
+                if (!oldRegistration.getIdentity().equals(registration.getIdentity())) {
+                    removeIdentityIndex(connection, oldRegistration);
                 }
+                // remove old observation
+                Collection<Observation> obsRemoved = unsafeRemoveAllObservations(connection, oldRegistration.getId());
+
+                return new Deregistration(oldRegistration, obsRemoved);
             }
+
+            return null;
         }
     }
 
     @Override
     public UpdatedRegistration updateRegistration(RegistrationUpdate update) {
-        Lock lock = null;
         try (var connection = connectionFactory.getConnection()) {
-
-            // Fetch the registration ep by registration ID index
-            byte[] ep = connection.get(toRegIdKey(update.getRegistrationId()));
-            if (ep == null) {
-                return null;
-            }
-
-            String lockKey = toLockKey(ep);
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
+            for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+                // Fetch the registration ep by registration ID index
+                byte[] ep = connection.get(toRegIdKey(update.getRegistrationId()));
+                if (ep == null) {
+                    return null;
+                }
 
                 // Fetch the registration
-                byte[] data = connection.get(toEndpointKey(ep));
+                byte[] endpointKey = toEndpointKey(ep);
+                byte[] data = connection.get(endpointKey);
                 if (data == null) {
                     return null;
                 }
 
                 Registration r = deserializeReg(data);
+                if (!r.getId().equals(update.getRegistrationId())) {
+                    // the endpoint was registered again and the index is about to be removed
+                    return null;
+                }
 
                 Registration updatedRegistration = update.update(r);
 
-                // Store the new registration
-                connection.set(toEndpointKey(updatedRegistration.getEndpoint()), serializeReg(updatedRegistration));
+                // Store the new registration unless it was changed concurrently, otherwise retry with the fresh one
+                if (!compareAndSet(connection, endpointKey, data, serializeReg(updatedRegistration))) {
+                    continue;
+                }
 
                 // Add or update expiration
                 addOrUpdateExpiration(connection, updatedRegistration);
@@ -226,7 +216,7 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
                  * If registration is already associated to this address we don't care as we only want to keep the most
                  * recent binding. */
                 byte[] addr_idx = toRegAddrKey(updatedRegistration.getSocketAddress());
-                connection.set(addr_idx, updatedRegistration.getEndpoint().getBytes(UTF_8));
+                connection.set(addr_idx, updatedRegistration.getId().getBytes(UTF_8));
                 if (!r.getSocketAddress().equals(updatedRegistration.getSocketAddress())) {
                     removeAddrIndex(connection, r);
                 }
@@ -235,12 +225,9 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
                 }
 
                 return new UpdatedRegistration(r, updatedRegistration);
-
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
             }
+            LOG.warn("Failed to update registration {} after {} attempts due to concurrent modifications", update.getRegistrationId(), MAX_UPDATE_ATTEMPTS);
+            return null;
         }
     }
 
@@ -267,15 +254,7 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
     public Registration getRegistrationByAdress(InetSocketAddress address) {
         Validate.notNull(address);
         try (var connection = connectionFactory.getConnection()) {
-            byte[] ep = connection.get(toRegAddrKey(address));
-            if (ep == null) {
-                return null;
-            }
-            byte[] data = connection.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            return deserializeReg(data);
+            return getRegistrationByIndex(connection, toRegAddrKey(address));
         }
     }
 
@@ -283,15 +262,7 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
     public Registration getRegistrationByIdentity(Identity identity) {
         Validate.notNull(identity);
         try (var connection = connectionFactory.getConnection()) {
-            byte[] ep = connection.get(toRegIdentityKey(identity));
-            if (ep == null) {
-                return null;
-            }
-            byte[] data = connection.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            return deserializeReg(data);
+            return getRegistrationByIndex(connection, toRegIdentityKey(identity));
         }
     }
 
@@ -333,64 +304,69 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
             return null;
         }
 
-        Lock lock = null;
-        String lockKey = toLockKey(ep);
-        try {
-            lock = redisLock.obtain(lockKey);
-            lock.lock();
-
-            // fetch the client
-            byte[] data = connection.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            Registration r = deserializeReg(data);
+        // fetch the client
+        byte[] endpointKey = toEndpointKey(ep);
+        byte[] data = connection.get(endpointKey);
+        if (data == null) {
+            return null;
+        }
+        Registration r = deserializeReg(data);
+        if (!r.getId().equals(registrationId)) {
+            // stale index of a registration replaced by a new registration of the same endpoint
+            return null;
+        }
 
-            if (!removeOnlyIfNotAlive || !r.isAlive(gracePeriod)) {
-                long nbRemoved = connection.del(toRegIdKey(r.getId()));
-                if (nbRemoved > 0) {
-                    connection.del(toEndpointKey(r.getEndpoint()));
-                    Collection<Observation> obsRemoved = unsafeRemoveAllObservations(connection, r.getId());
-                    removeAddrIndex(connection, r);
-                    removeIdentityIndex(connection, r);
+        if (!removeOnlyIfNotAlive || !r.isAlive(gracePeriod)) {
+            // only the caller that removed the index completes the removal
+            long nbRemoved = connection.del(toRegIdKey(registrationId));
+            if (nbRemoved > 0) {
+                Collection<Observation> obsRemoved = unsafeRemoveAllObservations(connection, registrationId);
+                removeAddrIndex(connection, r);
+                removeIdentityIndex(connection, r);
+                if (removeEndpoint(connection, endpointKey, data, registrationId)) {
                     removeExpiration(connection, r);
-                    return new Deregistration(r, obsRemoved);
                 }
+                return new Deregistration(r, obsRemoved);
             }
-            return null;
-        } finally {
-            if (lock != null) {
-                lock.unlock();
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the endpoint while it still holds the given registration, so a concurrent update of the registration
+     * does not bring it back and a new registration of the endpoint is kept together with its expiration.
+     */
+    private boolean removeEndpoint(RedisConnection connection, byte[] endpointKey, byte[] data, String registrationId) {
+        while (data != null && registrationId.equals(deserializeReg(data).getId())) {
+            if (compareAndDelete(connection, endpointKey, data)) {
+                return true;
             }
+            data = connection.get(endpointKey);
         }
+        return false;
     }
 
     private void removeAddrIndex(RedisConnection connection, Registration r) {
-        removeSecondaryIndex(connection, toRegAddrKey(r.getSocketAddress()), r.getEndpoint());
+        removeSecondaryIndex(connection, toRegAddrKey(r.getSocketAddress()), r.getId());
     }
 
     private void removeIdentityIndex(RedisConnection connection, Registration r) {
-        removeSecondaryIndex(connection, toRegIdentityKey(r.getIdentity()), r.getEndpoint());
-    }
-
-    //TODO: JedisCluster didn't implement Transaction, maybe should use some advanced key creation strategies
-    private void removeSecondaryIndex(RedisConnection connection, byte[] indexKey, String endpointName) {
-        // Watch the key to remove.
-//        connection.watch(indexKey);
-
-        byte[] epFromAddr = connection.get(indexKey);
-        // Delete the key if needed.
-        if (Arrays.equals(epFromAddr, endpointName.getBytes(UTF_8))) {
-            // Try to delete the key
-//            connection.multi();
-            connection.del(indexKey);
-//            connection.exec();
-            // if transaction failed this is not an issue as the index is probably reused and we don't need to
-            // delete it anymore.
-        } else {
-            // the key must not be deleted.
-//            connection.unwatch();
-        }
+        removeSecondaryIndex(connection, toRegIdentityKey(r.getIdentity()), r.getId());
+    }
+
+    private void removeSecondaryIndex(RedisConnection connection, byte[] indexKey, String registrationId) {
+        // the index is not deleted if it is already reused by another registration
+        compareAndDelete(connection, indexKey, registrationId.getBytes(UTF_8));
+    }
+
+    private boolean compareAndSet(RedisConnection connection, byte[] key, byte[] expected, byte[] value) {
+        Long result = connection.eval(COMPARE_AND_SET_SCRIPT, ReturnType.INTEGER, 1, key, expected, value);
+        return result != null && result > 0;
+    }
+
+    private boolean compareAndDelete(RedisConnection connection, byte[] key, byte[] expected) {
+        Long result = connection.eval(COMPARE_AND_DELETE_SCRIPT, ReturnType.INTEGER, 1, key, expected);
+        return result != null && result > 0;
     }
 
     private void addOrUpdateExpiration(RedisConnection connection, Registration registration) {
@@ -446,26 +422,15 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
                 return null;
             }
 
-            Lock lock = null;
-            String lockKey = toLockKey(ep);
-
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-
-                // cancel existing observations for the same path and registration id.
-                for (Observation obs : getObservations(connection, registrationId)) {
-                    if (observation.getPath().equals(obs.getPath())
-                            && !Arrays.equals(observation.getId(), obs.getId())) {
+            // cancel existing observations for the same path and registration id.
+            for (Observation obs : getObservations(connection, registrationId)) {
+                if (observation.getPath().equals(obs.getPath())
+                        && !Arrays.equals(observation.getId(), obs.getId())) {
+                    // the observation is reported as removed only once if it is cancelled concurrently
+                    if (unsafeRemoveObservation(connection, registrationId, obs.getId())) {
                         removed.add(obs);
-                        unsafeRemoveObservation(connection, registrationId, obs.getId());
                     }
                 }
-
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
             }
         }
         return removed;
@@ -482,24 +447,12 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
             }
 
             // remove observation
-            Lock lock = null;
-            String lockKey = toLockKey(ep);
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-
-                Observation observation = build(get(new Token(observationId)));
-                if (observation != null && registrationId.equals(observation.getRegistrationId())) {
-                    unsafeRemoveObservation(connection, registrationId, observationId);
-                    return observation;
-                }
-                return null;
-
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
+            Observation observation = build(get(new Token(observationId)));
+            if (observation != null && registrationId.equals(observation.getRegistrationId())
+                    && unsafeRemoveObservation(connection, registrationId, observationId)) {
+                return observation;
             }
+            return null;
         }
     }
 
@@ -534,19 +487,7 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
             if (registration == null)
                 return Collections.emptyList();
 
-            // get endpoint and create lock
-            String endpoint = registration.getEndpoint();
-            Lock lock = null;
-            String lockKey = toLockKey(endpoint);
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-                return unsafeRemoveAllObservations(connection, registrationId);
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
-            }
+            return unsafeRemoveAllObservations(connection, registrationId);
         }
     }
 
@@ -565,47 +506,45 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
     }
 
     private org.eclipse.californium.core.observe.Observation add(org.eclipse.californium.core.observe.Observation obs, boolean ifAbsent) throws ObservationStoreException {
-        String endpoint = ObserveUtil.validateCoapObservation(obs);
+        ObserveUtil.validateCoapObservation(obs);
         org.eclipse.californium.core.observe.Observation previousObservation = null;
 
         try (var connection = connectionFactory.getConnection()) {
-            Lock lock = null;
-            String lockKey = toLockKey(endpoint);
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-
-                String registrationId = ObserveUtil.extractRegistrationId(obs);
-                if (!connection.exists(toRegIdKey(registrationId)))
-                    throw new ObservationStoreException("no registration for this Id");
-                byte[] key = toKey(OBS_TKN, obs.getRequest().getToken().getBytes());
-                byte[] serializeObs = serializeObs(obs);
-                byte[] previousValue;
-                if (ifAbsent) {
+            String registrationId = ObserveUtil.extractRegistrationId(obs);
+            if (!connection.exists(toRegIdKey(registrationId)))
+                throw new ObservationStoreException("no registration for this Id");
+            byte[] key = toKey(OBS_TKN, obs.getRequest().getToken().getBytes());
+            byte[] serializeObs = serializeObs(obs);
+            byte[] previousValue;
+            if (ifAbsent) {
+                if (!Boolean.TRUE.equals(connection.setNX(key, serializeObs))) {
                     previousValue = connection.get(key);
-                    if (previousValue == null || previousValue.length == 0) {
-                        connection.set(key, serializeObs);
-                    } else {
+                    if (previousValue != null && previousValue.length != 0) {
                         return deserializeObs(previousValue);
                     }
-                } else {
-                    previousValue = connection.getSet(key, serializeObs);
+                    // the observation was removed concurrently
+                    connection.set(key, serializeObs);
                 }
+                previousValue = null;
+            } else {
+                previousValue = connection.getSet(key, serializeObs);
+            }
 
-                // secondary index to get the list by registrationId
-                connection.lPush(toKey(OBS_TKNS_REGID_IDX, registrationId), obs.getRequest().getToken().getBytes());
+            // secondary index to get the list by registrationId
+            connection.lPush(toKey(OBS_TKNS_REGID_IDX, registrationId), obs.getRequest().getToken().getBytes());
 
-                // log any collisions
-                if (previousValue != null && previousValue.length != 0) {
-                    previousObservation = deserializeObs(previousValue);
-                    LOG.warn(
-                            "Token collision ? observation from request [{}] will be replaced by observation from request [{}] ",
-                            previousObservation.getRequest(), obs.getRequest());
-                }
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
+            if (!connection.exists(toRegIdKey(registrationId))) {
+                // the registration was removed concurrently and may have missed this observation
+                unsafeRemoveObservation(connection, registrationId, obs.getRequest().getToken().getBytes());
+                throw new ObservationStoreException("no registration for this Id");
+            }
+
+            // log any collisions
+            if (previousValue != null && previousValue.length != 0) {
+                previousObservation = deserializeObs(previousValue);
+                LOG.warn(
+                        "Token collision ? observation from request [{}] will be replaced by observation from request [{}] ",
+                        previousObservation.getRequest(), obs.getRequest());
             }
         }
         return previousObservation;
@@ -630,19 +569,7 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
                 return;
             }
 
-            String endpoint = registration.getEndpoint();
-            Lock lock = null;
-            String lockKey = toLockKey(endpoint);
-            try {
-                lock = redisLock.obtain(lockKey);
-                lock.lock();
-
-                unsafeRemoveObservation(connection, registrationId, token.getBytes());
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
-            }
+            unsafeRemoveObservation(connection, registrationId, token.getBytes());
         }
 
     }
@@ -661,6 +588,14 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
 
     /* *************** Observation utility functions **************** */
 
+    private Registration getRegistrationByIndex(RedisConnection connection, byte[] indexKey) {
+        byte[] registrationId = connection.get(indexKey);
+        if (registrationId == null) {
+            return null;
+        }
+        return getRegistration(connection, new String(registrationId, UTF_8));
+    }
+
     private Registration getRegistration(RedisConnection connection, String registrationId) {
         byte[] ep = connection.get(toRegIdKey(registrationId));
         if (ep == null) {
@@ -674,10 +609,12 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
         return deserializeReg(data);
     }
 
-    private void unsafeRemoveObservation(RedisConnection connection, String registrationId, byte[] observationId) {
+    private boolean unsafeRemoveObservation(RedisConnection connection, String registrationId, byte[] observationId) {
         if (connection.del(toKey(OBS_TKN, observationId)) > 0L) {
             connection.lRem(toKey(OBS_TKNS_REGID_IDX, registrationId), 0, observationId);
+            return true;
         }
+        return false;
     }
 
     private Collection<Observation> unsafeRemoveAllObservations(RedisConnection connection, String registrationId) {
@@ -763,21 +700,41 @@ public class TbLwM2mRedisRegistrationStore implements CaliforniumRegistrationSto
         @Override
         public void run() {
             try (var connection = connectionFactory.getConnection()) {
-                Set<byte[]> endpointsExpired = connection.zRangeByScore(EXP_EP, Double.NEGATIVE_INFINITY,
-                        System.currentTimeMillis(), 0, cleanLimit);
-
-                for (byte[] endpoint : endpointsExpired) {
-                    Registration r = deserializeReg(connection.get(toEndpointKey(endpoint)));
-                    if (!r.isAlive(gracePeriod)) {
-                        Deregistration dereg = removeRegistration(connection, r.getId(), true);
-                        if (dereg != null)
-                            expirationListener.registrationExpired(dereg.getRegistration(), dereg.getObservations());
+                // the expiration set is ordered by expiration time, so it is read page by page from the oldest entries
+                // until a page is not full or none of its entries can be removed
+                Set<byte[]> endpointsExpired;
+                int removed;
+                do {
+                    endpointsExpired = connection.zRangeByScore(EXP_EP, Double.NEGATIVE_INFINITY,
+                            System.currentTimeMillis(), 0, cleanLimit);
+                    removed = 0;
+                    for (byte[] endpoint : endpointsExpired) {
+                        if (clean(connection, endpoint)) {
+                            removed++;
+                        }
                     }
-                }
+                } while (started && endpointsExpired.size() == cleanLimit && removed > 0);
             } catch (Exception e) {
                 LOG.warn("Unexpected Exception while registration cleaning", e);
             }
         }
+
+        private boolean clean(RedisConnection connection, byte[] endpoint) {
+            byte[] data = connection.get(toEndpointKey(endpoint));
+            if (data == null) {
+                // stale expiration entry of the already removed registration
+                return connection.zRem(EXP_EP, endpoint) > 0;
+            }
+            Registration r = deserializeReg(data);
+            if (!r.isAlive(gracePeriod)) {
+                Deregistration dereg = removeRegistration(connection, r.getId(), true);
+                if (dereg != null) {
+                    expirationListener.registrationExpired(dereg.getRegistration(), dereg.getObservations());
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     @Override
@@ -0,0 +1,208 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.lwm2m.server.store;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.observe.ObservationStoreException;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.server.californium.observation.ObserveUtil;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class TbLwM2mRedisRegistrationStoreTest {
+
+    private static final String ENDPOINT = "lwm2m-device";
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 5683);
+
+    @ClassRule
+    public static GenericContainer<?> redis = new GenericContainer<>("redis:4.0").withExposedPorts(6379);
+
+    private final AtomicBoolean concurrentRegistration = new AtomicBoolean();
+    private final AtomicBoolean concurrentRemoval = new AtomicBoolean();
+
+    private JedisConnectionFactory jedisConnectionFactory;
+    private TbLwM2mRedisRegistrationStore store;
+
+    @Before
+    public void before() {
+        jedisConnectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getFirstMappedPort()));
+        jedisConnectionFactory.afterPropertiesSet();
+        try (RedisConnection connection = jedisConnectionFactory.getConnection()) {
+            connection.flushDb();
+        }
+        // the connections run the real scripts, the hooks only interleave a concurrent change before them
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenAnswer(inv -> {
+            RedisConnection connection = spy(jedisConnectionFactory.getConnection());
+            doAnswer(eval -> {
+                if (concurrentRegistration.getAndSet(false)) {
+                    store.addRegistration(newRegistration("reg-concurrent", ADDRESS));
+                }
+                return eval.callRealMethod();
+            }).when(connection).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+            doAnswer(getSet -> {
+                if (concurrentRemoval.getAndSet(false)) {
+                    store.removeRegistration("reg-1");
+                }
+                return getSet.callRealMethod();
+            }).when(connection).getSet(any(byte[].class), any(byte[].class));
+            return connection;
+        });
+        store = new TbLwM2mRedisRegistrationStore(connectionFactory, mock(ScheduledExecutorService.class), 60, 0, 500);
+    }
+
+    @After
+    public void after() {
+        jedisConnectionFactory.destroy();
+    }
+
+    @Test
+    public void testUpdateIsAppliedWithCompareAndSet() {
+        InetSocketAddress newAddress = new InetSocketAddress("127.0.0.1", 5684);
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+
+        UpdatedRegistration updated = store.updateRegistration(newUpdate("reg-1", newAddress));
+
+        Assert.assertNotNull(updated);
+        Assert.assertEquals(newAddress, store.getRegistrationByEndpoint(ENDPOINT).getSocketAddress());
+        Assert.assertEquals("reg-1", store.getRegistrationByAdress(newAddress).getId());
+        Assert.assertNull(store.getRegistrationByAdress(ADDRESS));
+    }
+
+    @Test
+    public void testUpdateIsDroppedWhenEndpointRegisteredConcurrently() {
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+        concurrentRegistration.set(true);
+
+        UpdatedRegistration updated = store.updateRegistration(newUpdate("reg-1", new InetSocketAddress("127.0.0.1", 5684)));
+
+        // the script rejects the stale registration and the retry sees the new one of the endpoint
+        Assert.assertNull(updated);
+        Assert.assertEquals("reg-concurrent", store.getRegistrationByEndpoint(ENDPOINT).getId());
+        Assert.assertEquals("reg-concurrent", store.getRegistrationByAdress(ADDRESS).getId());
+    }
+
+    @Test
+    public void testRemoveKeepsIndexesOfNewRegistration() {
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+        store.addRegistration(newRegistration("reg-2", ADDRESS));
+
+        Assert.assertNull(store.removeRegistration("reg-1"));
+        Assert.assertEquals("reg-2", store.getRegistrationByAdress(ADDRESS).getId());
+        Assert.assertEquals("reg-2", store.getRegistrationByIdentity(Identity.unsecure(ADDRESS)).getId());
+
+        Assert.assertNotNull(store.removeRegistration("reg-2"));
+        Assert.assertNull(store.getRegistrationByAdress(ADDRESS));
+        Assert.assertNull(store.getRegistrationByEndpoint(ENDPOINT));
+    }
+
+    @Test
+    public void testRemoveByStaleIndexKeepsNewRegistration() {
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+        store.addRegistration(newRegistration("reg-2", ADDRESS));
+        try (RedisConnection connection = jedisConnectionFactory.getConnection()) {
+            // the index of the old registration is read before the new registration removes it
+            connection.set("EP:REGID:reg-1".getBytes(UTF_8), ENDPOINT.getBytes(UTF_8));
+        }
+
+        Assert.assertNull(store.removeRegistration("reg-1"));
+        Assert.assertEquals("reg-2", store.getRegistration("reg-2").getId());
+        Assert.assertEquals("reg-2", store.getRegistrationByEndpoint(ENDPOINT).getId());
+        Assert.assertEquals("reg-2", store.getRegistrationByAdress(ADDRESS).getId());
+    }
+
+    @Test
+    public void testObservationOfConcurrentlyRemovedRegistrationIsNotStored() {
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+        org.eclipse.californium.core.observe.Observation observation = newObservation("reg-1", new byte[]{1, 2, 3, 4});
+        // the registration is removed after the observation passed the registration check
+        concurrentRemoval.set(true);
+
+        Assert.assertThrows(ObservationStoreException.class, () -> store.put(observation.getRequest().getToken(), observation));
+
+        Assert.assertNull(store.getRegistration("reg-1"));
+        Assert.assertNull(store.get(observation.getRequest().getToken()));
+        try (RedisConnection connection = jedisConnectionFactory.getConnection()) {
+            Assert.assertFalse(connection.exists("TKNS:REGID:reg-1".getBytes(UTF_8)));
+        }
+    }
+
+    @Test
+    public void testObservationIsRemovedWithRegistration() {
+        store.addRegistration(newRegistration("reg-1", ADDRESS));
+        org.eclipse.californium.core.observe.Observation observation = newObservation("reg-1", new byte[]{5, 6, 7, 8});
+        store.put(observation.getRequest().getToken(), observation);
+        Assert.assertEquals(1, store.getObservations("reg-1").size());
+
+        Assert.assertEquals(1, store.removeRegistration("reg-1").getObservations().size());
+        Assert.assertNull(store.get(observation.getRequest().getToken()));
+    }
+
+    private static Registration newRegistration(String registrationId, InetSocketAddress address) {
+        return new Registration.Builder(registrationId, ENDPOINT, Identity.unsecure(address))
+                .objectLinks(new Link[0])
+                .build();
+    }
+
+    private static RegistrationUpdate newUpdate(String registrationId, InetSocketAddress address) {
+        RegistrationUpdate update = mock(RegistrationUpdate.class);
+        when(update.getRegistrationId()).thenReturn(registrationId);
+        doAnswer(inv -> new Registration.Builder(registrationId, ENDPOINT, Identity.unsecure(address))
+                .objectLinks(new Link[0])
+                .build()).when(update).update(any(Registration.class));
+        return update;
+    }
+
+    private static org.eclipse.californium.core.observe.Observation newObservation(String registrationId, byte[] token) {
+        Request request = Request.newGet();
+        request.setToken(new Token(token));
+        request.setMID(1);
+        request.getOptions().setObserve(0);
+        request.getOptions().setUriPath("3/0/9");
+        request.setDestinationContext(new AddressEndpointContext(ADDRESS));
+        request.setUserContext(ObserveUtil.createCoapObserveRequestContext(ENDPOINT, registrationId, new ObserveRequest("/3/0/9")));
+        return new org.eclipse.californium.core.observe.Observation(request, new AddressEndpointContext(ADDRESS));
+    }
+
+}
@@ -35,6 +35,8 @@ import org.thingsboard.server.common.data.transport.snmp.config.SnmpCommunicatio
 import org.thingsboard.server.queue.util.TbSnmpTransportComponent;
 import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +66,26 @@ public class PduService {
         return pdu;
     }
 
+    /**
+     * Creates the requests for the mappings of the config, splitting the variable bindings into
+     * several PDUs with at most maxOids bindings each, so that large OID sets do not exceed the agent's PDU size limits.
+     */
+    public List<PDU> createPdus(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig, Map<String, String> values, int maxOids) {
+        PDU pdu = createPdu(sessionContext, communicationConfig, values);
+        if (maxOids <= 0 || pdu.size() <= maxOids) {
+            return Collections.singletonList(pdu);
+        }
+        List<? extends VariableBinding> variableBindings = pdu.getVariableBindings();
+        List<PDU> pdus = new ArrayList<>((variableBindings.size() + maxOids - 1) / maxOids);
+        for (int from = 0; from < variableBindings.size(); from += maxOids) {
+            PDU part = setUpPdu(sessionContext);
+            part.setType(pdu.getType());
+            part.addAll(new ArrayList<VariableBinding>(variableBindings.subList(from, Math.min(from + maxOids, variableBindings.size()))));
+            pdus.add(part);
+        }
+        return pdus;
+    }
+
     public PDU createSingleVariablePdu(DeviceSessionContext sessionContext, SnmpMethod snmpMethod, String oid, String value, DataType dataType) {
         PDU pdu = setUpPdu(sessionContext);
         pdu.setType(snmpMethod.getCode());
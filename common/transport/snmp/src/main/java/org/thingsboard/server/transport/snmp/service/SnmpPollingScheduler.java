@@ -0,0 +1,248 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.transport.snmp.config.RepeatingQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.queue.util.TbSnmpTransportComponent;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Central scheduler of the periodic SNMP querying.
+ * <p>
+ * Polling tasks are kept in a hashed timing wheel that is advanced by a single ticker thread. The first poll of every task
+ * is shifted by a random phase within its period, so devices with the same querying frequency do not fire at the same instant
+ * after a restart. A poll is dispatched only while the number of outstanding requests is below the global limit (otherwise
+ * it is deferred to the next tick) and the number of unfinished polls of the same target is below the per-target limit
+ * (otherwise the cycle is skipped). A poll may consist of several requests when its OIDs do not fit into a single PDU,
+ * so the per-target limit counts polls rather than requests.
+ */
+@TbSnmpTransportComponent
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SnmpPollingScheduler {
+
+    private static final String STATS_NAME = "snmpPolling";
+
+    private final StatsFactory statsFactory;
+
+    @Value("${transport.snmp.polling.tick_ms:100}")
+    private long tickMs;
+    @Value("${transport.snmp.polling.wheel_size:512}")
+    private int wheelSize;
+    @Value("${transport.snmp.polling.max_in_flight:10000}")
+    private int maxInFlight;
+    @Value("${transport.snmp.polling.max_in_flight_per_target:2}")
+    private int maxInFlightPerTarget;
+    @Value("${transport.stats.print-interval-ms:60000}")
+    private long statsPrintIntervalMs;
+
+    private final Queue<SnmpPollingTask> newTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // the wheel and the current tick are accessed by the ticker thread only
+    private Queue<SnmpPollingTask>[] wheel;
+    private long currentTick;
+    private long lastStatsPrintTs;
+
+    private ScheduledExecutorService tickerExecutor;
+    private ExecutorService pollingExecutor;
+
+    private Timer pollLagTimer;
+    private DefaultCounter pollsCounter;
+    private DefaultCounter requestsCounter;
+    private DefaultCounter timeoutsCounter;
+    private DefaultCounter skippedCounter;
+    private DefaultCounter deferredCounter;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    private void init() {
+        wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        pollLagTimer = statsFactory.createTimer(STATS_NAME + ".lag");
+        pollsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "polls");
+        requestsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "requests");
+        timeoutsCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "timeouts");
+        skippedCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "skipped");
+        deferredCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "deferred");
+        statsFactory.createGauge(STATS_NAME + ".inFlight", inFlight);
+
+        long now = System.currentTimeMillis();
+        currentTick = now / tickMs;
+        lastStatsPrintTs = now;
+        pollingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), ThingsBoardThreadFactory.forName("snmp-polling"));
+        tickerExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("snmp-polling-ticker"));
+        tickerExecutor.scheduleAtFixedRate(this::onTick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tickerExecutor != null) {
+            tickerExecutor.shutdownNow();
+        }
+        if (pollingExecutor != null) {
+            pollingExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules the periodic querying. The poll action must report every sent request using
+     * {@link #onRequestSent(DeviceSessionContext)} and its completion using {@link #onRequestCompleted(DeviceSessionContext, boolean)},
+     * and the completion of the whole poll (including a poll without requests) using {@link #onPollCompleted(DeviceSessionContext)}.
+     */
+    public SnmpPollingTask schedule(DeviceSessionContext sessionContext, RepeatingQueryingSnmpCommunicationConfig communicationConfig, Runnable poll) {
+        long periodMs = communicationConfig.getQueryingFrequencyMs() != null ? communicationConfig.getQueryingFrequencyMs() : 0;
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Querying frequency must be positive");
+        }
+        long phase = ThreadLocalRandom.current().nextLong(periodMs);
+        SnmpPollingTask task = new SnmpPollingTask(sessionContext, communicationConfig, periodMs, System.currentTimeMillis() + phase, poll);
+        newTasks.add(task);
+        return task;
+    }
+
+    public void onRequestSent(DeviceSessionContext sessionContext) {
+        inFlight.incrementAndGet();
+        requestsCounter.increment();
+    }
+
+    public void onRequestCompleted(DeviceSessionContext sessionContext, boolean timedOut) {
+        inFlight.decrementAndGet();
+        if (timedOut) {
+            timeoutsCounter.increment();
+        }
+    }
+
+    public void onPollCompleted(DeviceSessionContext sessionContext) {
+        sessionContext.getPollsInFlight().decrementAndGet();
+    }
+
+    private void onTick() {
+        try {
+            SnmpPollingTask task;
+            while ((task = newTasks.poll()) != null) {
+                addToWheel(task, currentTick);
+            }
+            long now = System.currentTimeMillis();
+            long nowTick = now / tickMs;
+            while (currentTick <= nowTick) {
+                processSlot(now);
+                currentTick++;
+            }
+            if (now - lastStatsPrintTs >= statsPrintIntervalMs) {
+                printStats();
+                lastStatsPrintTs = now;
+            }
+        } catch (Throwable e) {
+            log.error("Failed to process SNMP polling tick", e);
+        }
+    }
+
+    private void processSlot(long now) {
+        Queue<SnmpPollingTask> slot = wheel[(int) (currentTick % wheelSize)];
+        for (int i = slot.size(); i > 0; i--) {
+            SnmpPollingTask task = slot.poll();
+            if (task.isCancelled()) {
+                continue;
+            }
+            if (task.nextPollTs / tickMs > currentTick) {
+                // due in one of the next rotations of the wheel
+                slot.add(task);
+                continue;
+            }
+            dispatch(task, now);
+        }
+    }
+
+    private void dispatch(SnmpPollingTask task, long now) {
+        DeviceSessionContext sessionContext = task.getSessionContext();
+        if (!sessionContext.isActive()) {
+            reschedule(task, now);
+        } else if (sessionContext.getPollsInFlight().get() >= maxInFlightPerTarget) {
+            skippedCounter.increment();
+            reschedule(task, now);
+        } else if (inFlight.get() >= maxInFlight) {
+            deferredCounter.increment();
+            addToWheel(task, currentTick + 1);
+        } else {
+            pollsCounter.increment();
+            pollLagTimer.record(Math.max(0, now - task.nextPollTs), TimeUnit.MILLISECONDS);
+            reschedule(task, now);
+            sessionContext.getPollsInFlight().incrementAndGet();
+            pollingExecutor.execute(() -> {
+                try {
+                    task.poll();
+                } catch (Exception e) {
+                    log.error("Failed to send SNMP request for device {}: {}", sessionContext.getDeviceId(), e.toString());
+                    onPollCompleted(sessionContext);
+                }
+            });
+        }
+    }
+
+    private void reschedule(SnmpPollingTask task, long now) {
+        long nextPollTs = task.nextPollTs + task.getPeriodMs();
+        if (nextPollTs <= now) {
+            // keeps the phase of the task when the polls were delayed for more than a period
+            long missedPeriods = (now - task.nextPollTs) / task.getPeriodMs();
+            nextPollTs = task.nextPollTs + (missedPeriods + 1) * task.getPeriodMs();
+        }
+        task.nextPollTs = nextPollTs;
+        addToWheel(task, currentTick + 1);
+    }
+
+    private void addToWheel(SnmpPollingTask task, long minTick) {
+        long tick = Math.max(task.nextPollTs / tickMs, minTick);
+        wheel[(int) (tick % wheelSize)].add(task);
+    }
+
+    private void printStats() {
+        if (pollsCounter.get() > 0 || skippedCounter.get() > 0 || deferredCounter.get() > 0) {
+            log.info("SNMP polling stats: polls [{}], requests [{}], timeouts [{}], skipped [{}], deferred [{}], in flight [{}], lag mean [{}] ms, max [{}] ms",
+                    pollsCounter.get(), requestsCounter.get(), timeoutsCounter.get(), skippedCounter.get(), deferredCounter.get(), inFlight.get(),
+                    (long) pollLagTimer.mean(TimeUnit.MILLISECONDS), (long) pollLagTimer.max(TimeUnit.MILLISECONDS));
+            pollsCounter.clear();
+            requestsCounter.clear();
+            timeoutsCounter.clear();
+            skippedCounter.clear();
+            deferredCounter.clear();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import lombok.Getter;
+import org.thingsboard.server.common.data.transport.snmp.config.RepeatingQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+/**
+ * Periodic querying of a device, scheduled by the {@link SnmpPollingScheduler}.
+ */
+public class SnmpPollingTask {
+
+    @Getter
+    private final DeviceSessionContext sessionContext;
+    @Getter
+    private final RepeatingQueryingSnmpCommunicationConfig communicationConfig;
+    @Getter
+    private final long periodMs;
+    private final Runnable poll;
+
+    // accessed by the scheduler's ticker thread only
+    long nextPollTs;
+
+    private volatile boolean cancelled;
+
+    SnmpPollingTask(DeviceSessionContext sessionContext, RepeatingQueryingSnmpCommunicationConfig communicationConfig,
+                    long periodMs, long firstPollTs, Runnable poll) {
+        this.sessionContext = sessionContext;
+        this.communicationConfig = communicationConfig;
+        this.periodMs = periodMs;
+        this.nextPollTs = firstPollTs;
+        this.poll = poll;
+    }
+
+    void poll() {
+        poll.run();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+}
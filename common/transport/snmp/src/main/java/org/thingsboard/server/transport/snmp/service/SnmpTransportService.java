@@ -35,7 +35,6 @@ import org.snmp4j.transport.DefaultUdpTransportMapping;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.ThingsBoardExecutors;
-import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.TbTransportService;
 import org.thingsboard.server.common.data.kv.DataType;
@@ -61,10 +60,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @TbSnmpTransportComponent
@@ -74,10 +70,10 @@ import java.util.stream.Collectors;
 public class SnmpTransportService implements TbTransportService {
     private final TransportService transportService;
     private final PduService pduService;
+    private final SnmpPollingScheduler pollingScheduler;
 
     @Getter
     private Snmp snmp;
-    private ScheduledExecutorService queryingExecutor;
     private ExecutorService responseProcessingExecutor;
 
     private final Map<SnmpCommunicationSpec, ResponseDataMapper> responseDataMappers = new EnumMap<>(SnmpCommunicationSpec.class);
@@ -87,10 +83,11 @@ public class SnmpTransportService implements TbTransportService {
     private Integer responseProcessingParallelismLevel;
     @Value("${transport.snmp.underlying_protocol}")
     private String snmpUnderlyingProtocol;
+    @Value("${transport.snmp.max_request_oids:100}")
+    private int maxRequestOids;
 
     @PostConstruct
     private void init() throws IOException {
-        queryingExecutor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), ThingsBoardThreadFactory.forName("snmp-querying"));
         responseProcessingExecutor = ThingsBoardExecutors.newWorkStealingPool(responseProcessingParallelismLevel, "snmp-response-processing");
 
         initializeSnmp();
@@ -102,9 +99,6 @@ public class SnmpTransportService implements TbTransportService {
 
     @PreDestroy
     public void stop() {
-        if (queryingExecutor != null) {
-            queryingExecutor.shutdownNow();
-        }
         if (responseProcessingExecutor != null) {
             responseProcessingExecutor.shutdownNow();
         }
@@ -130,51 +124,64 @@ public class SnmpTransportService implements TbTransportService {
     }
 
     public void createQueryingTasks(DeviceSessionContext sessionContext) {
-        List<ScheduledFuture<?>> queryingTasks = sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
+        List<SnmpPollingTask> queryingTasks = sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
                 .filter(communicationConfig -> communicationConfig instanceof RepeatingQueryingSnmpCommunicationConfig)
                 .map(config -> {
                     RepeatingQueryingSnmpCommunicationConfig repeatingCommunicationConfig = (RepeatingQueryingSnmpCommunicationConfig) config;
-                    Long queryingFrequency = repeatingCommunicationConfig.getQueryingFrequencyMs();
-
-                    return queryingExecutor.scheduleWithFixedDelay(() -> {
-                        try {
-                            if (sessionContext.isActive()) {
-                                sendRequest(sessionContext, repeatingCommunicationConfig);
-                            }
-                        } catch (Exception e) {
-                            log.error("Failed to send SNMP request for device {}: {}", sessionContext.getDeviceId(), e.toString());
-                        }
-                    }, queryingFrequency, queryingFrequency, TimeUnit.MILLISECONDS);
+                    return pollingScheduler.schedule(sessionContext, repeatingCommunicationConfig,
+                            () -> sendPollingRequests(sessionContext, repeatingCommunicationConfig));
                 })
                 .collect(Collectors.toList());
         sessionContext.getQueryingTasks().addAll(queryingTasks);
     }
 
     public void cancelQueryingTasks(DeviceSessionContext sessionContext) {
-        sessionContext.getQueryingTasks().forEach(task -> task.cancel(true));
+        sessionContext.getQueryingTasks().forEach(SnmpPollingTask::cancel);
         sessionContext.getQueryingTasks().clear();
     }
 
+    private void sendPollingRequests(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig) {
+        List<PDU> requests = pduService.createPdus(sessionContext, communicationConfig, Collections.emptyMap(), maxRequestOids);
+        if (requests.isEmpty()) {
+            pollingScheduler.onPollCompleted(sessionContext);
+            return;
+        }
+        RequestInfo requestInfo = new RequestInfo(communicationConfig.getSpec(), communicationConfig.getAllMappings());
+        requestInfo.setPolling(true);
+        requestInfo.setPendingPollRequests(new AtomicInteger(requests.size()));
+        for (PDU request : requests) {
+            pollingScheduler.onRequestSent(sessionContext);
+            if (!sendRequest(sessionContext, request, requestInfo)) {
+                onPollingRequestCompleted(sessionContext, requestInfo, false);
+            }
+        }
+    }
 
-    private void sendRequest(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig) {
-        sendRequest(sessionContext, communicationConfig, Collections.emptyMap());
+    private void onPollingRequestCompleted(DeviceSessionContext sessionContext, RequestInfo requestInfo, boolean timedOut) {
+        pollingScheduler.onRequestCompleted(sessionContext, timedOut);
+        if (requestInfo.getPendingPollRequests().decrementAndGet() == 0) {
+            pollingScheduler.onPollCompleted(sessionContext);
+        }
     }
 
     private void sendRequest(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig, Map<String, String> values) {
-        PDU request = pduService.createPdu(sessionContext, communicationConfig, values);
         RequestInfo requestInfo = new RequestInfo(communicationConfig.getSpec(), communicationConfig.getAllMappings());
-        sendRequest(sessionContext, request, requestInfo);
+        for (PDU request : pduService.createPdus(sessionContext, communicationConfig, values, maxRequestOids)) {
+            sendRequest(sessionContext, request, requestInfo);
+        }
     }
 
-    private void sendRequest(DeviceSessionContext sessionContext, PDU request, RequestInfo requestInfo) {
+    private boolean sendRequest(DeviceSessionContext sessionContext, PDU request, RequestInfo requestInfo) {
         if (request.size() > 0) {
             log.trace("Executing SNMP request for device {}. Variables bindings: {}", sessionContext.getDeviceId(), request.getVariableBindings());
             try {
                 snmp.send(request, sessionContext.getTarget(), requestInfo, sessionContext);
+                return true;
             } catch (IOException e) {
                 log.error("Failed to send SNMP request to device {}: {}", sessionContext.getDeviceId(), e.toString());
             }
         }
+        return false;
     }
 
     public void onAttributeUpdate(DeviceSessionContext sessionContext, TransportProtos.AttributeUpdateNotificationMsg attributeUpdateNotification) {
@@ -223,6 +230,14 @@ public class SnmpTransportService implements TbTransportService {
     public void processResponseEvent(DeviceSessionContext sessionContext, ResponseEvent event) {
         ((Snmp) event.getSource()).cancel(event.getRequest(), sessionContext);
 
+        RequestInfo requestInfo = (RequestInfo) event.getUserObject();
+        if (requestInfo != null && requestInfo.isPolling()) {
+            onPollingRequestCompleted(sessionContext, requestInfo, event.getError() == null && event.getResponse() == null);
+        }
+        if (!sessionContext.isActive()) {
+            return;
+        }
+
         if (event.getError() != null) {
             log.warn("SNMP response error: {}", event.getError().toString());
             return;
@@ -234,7 +249,6 @@ public class SnmpTransportService implements TbTransportService {
             return;
         }
 
-        RequestInfo requestInfo = (RequestInfo) event.getUserObject();
         responseProcessingExecutor.execute(() -> {
             processResponse(sessionContext, response, requestInfo);
         });
@@ -318,9 +332,6 @@ public class SnmpTransportService implements TbTransportService {
     @PreDestroy
     public void shutdown() {
         log.info("Stopping SNMP transport!");
-        if (queryingExecutor != null) {
-            queryingExecutor.shutdownNow();
-        }
         if (responseProcessingExecutor != null) {
             responseProcessingExecutor.shutdownNow();
         }
@@ -339,6 +350,9 @@ public class SnmpTransportService implements TbTransportService {
         private Integer requestId;
         private SnmpCommunicationSpec communicationSpec;
         private List<SnmpMapping> responseMappings;
+        private boolean polling;
+        // requests of the poll that are not completed yet, the poll is completed with the last of them
+        private AtomicInteger pendingPollRequests;
 
         public RequestInfo(Integer requestId, SnmpCommunicationSpec communicationSpec, List<SnmpMapping> responseMappings) {
             this.requestId = requestId;
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.transport.snmp.config.RepeatingQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SnmpPollingSchedulerTest {
+
+    private static final long PERIOD_MS = 50;
+    private static final int REQUESTS_PER_POLL = 3;
+
+    @Mock(answer = Answers.RETURNS_MOCKS)
+    StatsFactory statsFactory;
+    @Mock
+    DeviceSessionContext sessionContext;
+    @Mock
+    RepeatingQueryingSnmpCommunicationConfig communicationConfig;
+
+    AtomicInteger pollsInFlight = new AtomicInteger();
+    AtomicInteger polls = new AtomicInteger();
+
+    SnmpPollingScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        when(sessionContext.isActive()).thenReturn(true);
+        when(sessionContext.getPollsInFlight()).thenReturn(pollsInFlight);
+        when(communicationConfig.getQueryingFrequencyMs()).thenReturn(PERIOD_MS);
+
+        scheduler = new SnmpPollingScheduler(statsFactory);
+        ReflectionTestUtils.setField(scheduler, "tickMs", 10L);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", 64);
+        ReflectionTestUtils.setField(scheduler, "maxInFlight", 100);
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerTarget", 2);
+        ReflectionTestUtils.setField(scheduler, "statsPrintIntervalMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.invokeMethod(scheduler, "init");
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void givenPollOfSeveralRequests_whenNotCompleted_thenLimitIsAppliedToPolls() throws InterruptedException {
+        scheduler.schedule(sessionContext, communicationConfig, () -> {
+            polls.incrementAndGet();
+            for (int i = 0; i < REQUESTS_PER_POLL; i++) {
+                scheduler.onRequestSent(sessionContext);
+            }
+        });
+
+        // every poll sends more requests than the per-target limit, yet two polls may be outstanding
+        Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> polls.get() == 2);
+        Thread.sleep(PERIOD_MS * 5);
+        Assert.assertEquals(2, polls.get());
+        Assert.assertEquals(2, pollsInFlight.get());
+
+        completePoll();
+        Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> polls.get() == 3);
+    }
+
+    @Test
+    public void givenFailingPoll_whenDispatched_thenPollIsCompleted() {
+        scheduler.schedule(sessionContext, communicationConfig, () -> {
+            polls.incrementAndGet();
+            throw new IllegalStateException("Failed to build the PDU");
+        });
+
+        // a leaked poll would block the target after the second cycle
+        Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> polls.get() >= 4);
+    }
+
+    private void completePoll() {
+        for (int i = 0; i < REQUESTS_PER_POLL; i++) {
+            scheduler.onRequestCompleted(sessionContext, false);
+        }
+        scheduler.onPollCompleted(sessionContext);
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Local store of OTA package data on the transport node. Chunks are served as read-only views
+ * of the stored package, so they can be written to the devices without copying.
+ */
+public interface TransportOtaPackageStore {
+
+    /**
+     * @param otaPackageId the OTA package id
+     * @param chunkSize    the chunk size, the whole package is returned if less than 1
+     * @param chunk        the chunk number
+     * @return read-only buffer with the chunk, empty buffer if the chunk is out of range,
+     * or null if the package data is not available
+     */
+    ByteBuffer get(String otaPackageId, int chunkSize, int chunk);
+
+    /**
+     * Copies the chunk into a new array, for the transports whose APIs only accept arrays.
+     */
+    default byte[] getBytes(String otaPackageId, int chunkSize, int chunk) {
+        ByteBuffer data = get(otaPackageId, chunkSize, chunk);
+        if (data == null) {
+            return null;
+        }
+        byte[] result = new byte[data.remaining()];
+        data.get(result);
+        return result;
+    }
+
+    void evict(String otaPackageId);
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.util.TbTransportComponent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the OTA packages requested by the devices in local files and memory-maps them,
+ * so the package is fetched from the OTA package data cache once per transport node
+ * and every chunk is a slice of the mapped file instead of a copy on the heap.
+ */
+@Slf4j
+@Component
+@TbTransportComponent
+public class DefaultTransportOtaPackageStore implements TransportOtaPackageStore {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    private final OtaPackageDataCache otaPackageDataCache;
+    private final TbServiceInfoProvider serviceInfoProvider;
+
+    @Value("${transport.ota.store.dir:${java.io.tmpdir}/tb-transport-ota}")
+    private String storeDir;
+    @Value("${transport.ota.store.max_packages:16}")
+    private long maxPackages;
+
+    private Path storePath;
+    private Cache<String, ByteBuffer> packages;
+
+    public DefaultTransportOtaPackageStore(OtaPackageDataCache otaPackageDataCache, TbServiceInfoProvider serviceInfoProvider) {
+        this.otaPackageDataCache = otaPackageDataCache;
+        this.serviceInfoProvider = serviceInfoProvider;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        // several transports may run on the same host, each of them owns a subdirectory named after its service id
+        String serviceDir = serviceInfoProvider.getServiceId().replaceAll("[^a-zA-Z0-9._-]", "_");
+        storePath = Paths.get(storeDir).resolve(serviceDir);
+        Files.createDirectories(storePath);
+        // files of the previous run of this service are not tracked, packages may have been deleted since then
+        try (Stream<Path> files = Files.list(storePath)) {
+            files.forEach(this::delete);
+        }
+        packages = Caffeine.newBuilder()
+                .maximumSize(maxPackages)
+                .executor(MoreExecutors.directExecutor())
+                .<String, ByteBuffer>removalListener((otaPackageId, data, cause) -> {
+                    if (otaPackageId != null) {
+                        // the mapping stays valid until the buffer is collected, chunks that are being written are not affected
+                        delete(storePath.resolve(otaPackageId));
+                    }
+                })
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (packages != null) {
+            packages.invalidateAll();
+        }
+    }
+
+    @Override
+    public ByteBuffer get(String otaPackageId, int chunkSize, int chunk) {
+        ByteBuffer data = packages.get(otaPackageId, this::load);
+        if (data == null) {
+            return null;
+        }
+        if (chunkSize < 1) {
+            return data.duplicate();
+        }
+        long startIndex = (long) chunkSize * chunk;
+        if (startIndex >= data.capacity()) {
+            return EMPTY;
+        }
+        int start = (int) startIndex;
+        ByteBuffer result = data.duplicate();
+        result.position(start).limit(start + Math.min(data.capacity() - start, chunkSize));
+        return result.slice();
+    }
+
+    @Override
+    public void evict(String otaPackageId) {
+        packages.invalidate(otaPackageId);
+    }
+
+    private ByteBuffer load(String otaPackageId) {
+        byte[] data = otaPackageDataCache.get(otaPackageId);
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        Path file = storePath.resolve(otaPackageId);
+        Path tmpFile = storePath.resolve(otaPackageId + TMP_FILE_SUFFIX);
+        try {
+            Files.write(tmpFile, data);
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                log.debug("[{}] Stored OTA package of {} bytes in {}", otaPackageId, data.length, file);
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } catch (IOException e) {
+            log.warn("[{}] Failed to store OTA package in {}, serving it from the heap", otaPackageId, storePath, e);
+            delete(tmpFile);
+            delete(file);
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete OTA package file {}", file, e);
+        }
+    }
+
+}
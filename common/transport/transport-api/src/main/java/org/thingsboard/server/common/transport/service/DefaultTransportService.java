@@ -35,6 +35,7 @@ import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.DeviceProfile;
 import org.thingsboard.server.common.data.DeviceTransportType;
 import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.OtaPackageInfo;
 import org.thingsboard.server.common.data.ResourceType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.Tenant;
@@ -49,6 +50,7 @@ import org.thingsboard.server.common.data.id.TenantProfileId;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
 import org.thingsboard.server.common.msg.queue.ServiceQueue;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
@@ -60,6 +62,7 @@ import org.thingsboard.server.common.stats.StatsType;
 import org.thingsboard.server.common.transport.DeviceUpdatedEvent;
 import org.thingsboard.server.common.transport.SessionMsgListener;
 import org.thingsboard.server.common.transport.TransportDeviceProfileCache;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
 import org.thingsboard.server.common.transport.TransportResourceCache;
 import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.TransportServiceCallback;
@@ -91,6 +94,7 @@ import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
 import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
 import org.thingsboard.server.queue.provider.TbTransportQueueFactory;
 import org.thingsboard.server.queue.scheduler.SchedulerComponent;
+import org.thingsboard.server.queue.tracing.TbMsgTracingService;
 import org.thingsboard.server.queue.usagestats.TbApiUsageClient;
 import org.thingsboard.server.queue.util.TbTransportComponent;
 
@@ -141,6 +145,18 @@ public class DefaultTransportService implements TransportService {
     private int notificationsPollDuration;
     @Value("${transport.stats.enabled:false}")
     private boolean statsEnabled;
+    @Value("${transport.credentials_cache.enabled:true}")
+    private boolean credentialsCacheEnabled;
+    @Value("${transport.credentials_cache.max_size:500000}")
+    private long credentialsCacheMaxSize;
+    @Value("${transport.credentials_cache.ttl:300000}")
+    private long credentialsCacheTtl;
+    @Value("${transport.credentials_cache.batch.enabled:true}")
+    private boolean credentialsBatchEnabled;
+    @Value("${transport.credentials_cache.batch.max_size:100}")
+    private int credentialsBatchMaxSize;
+    @Value("${transport.credentials_cache.batch.linger_ms:5}")
+    private long credentialsBatchLingerMs;
 
     private final Map<String, Number> statsMap = new LinkedHashMap<>();
 
@@ -158,6 +174,8 @@ public class DefaultTransportService implements TransportService {
     private final SchedulerComponent scheduler;
     private final ApplicationEventPublisher eventPublisher;
     private final TransportResourceCache transportResourceCache;
+    private final TbMsgTracingService msgTracingService;
+    private final TransportOtaPackageStore otaPackageStore;
 
     protected TbQueueRequestTemplate<TbProtoQueueMsg<TransportApiRequestMsg>, TbProtoQueueMsg<TransportApiResponseMsg>> transportApiRequestTemplate;
     protected TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> ruleEngineMsgProducer;
@@ -170,6 +188,7 @@ public class DefaultTransportService implements TransportService {
 
     protected ExecutorService transportCallbackExecutor;
     private ExecutorService mainConsumerExecutor;
+    private TransportCredentialsCache credentialsCache;
 
     private final ConcurrentMap<UUID, SessionMetaData> sessions = new ConcurrentHashMap<>();
     private final ConcurrentMap<UUID, SessionActivityData> sessionsActivity = new ConcurrentHashMap<>();
@@ -186,7 +205,8 @@ public class DefaultTransportService implements TransportService {
                                    TransportTenantProfileCache tenantProfileCache,
                                    TbApiUsageClient apiUsageClient, TransportRateLimitService rateLimitService,
                                    DataDecodingEncodingService dataDecodingEncodingService, SchedulerComponent scheduler, TransportResourceCache transportResourceCache,
-                                   ApplicationEventPublisher eventPublisher) {
+                                   ApplicationEventPublisher eventPublisher, TbMsgTracingService msgTracingService,
+                                   TransportOtaPackageStore otaPackageStore) {
         this.serviceInfoProvider = serviceInfoProvider;
         this.queueProvider = queueProvider;
         this.producerProvider = producerProvider;
@@ -200,6 +220,8 @@ public class DefaultTransportService implements TransportService {
         this.scheduler = scheduler;
         this.transportResourceCache = transportResourceCache;
         this.eventPublisher = eventPublisher;
+        this.msgTracingService = msgTracingService;
+        this.otaPackageStore = otaPackageStore;
     }
 
     @PostConstruct
@@ -212,6 +234,13 @@ public class DefaultTransportService implements TransportService {
         this.scheduler.scheduleAtFixedRate(this::invalidateRateLimits, new Random().nextInt((int) sessionReportTimeout), sessionReportTimeout, TimeUnit.MILLISECONDS);
         transportApiRequestTemplate = queueProvider.createTransportApiRequestTemplate();
         transportApiRequestTemplate.setMessagesStats(transportApiStats);
+        if (credentialsCacheEnabled) {
+            credentialsCache = new TransportCredentialsCache(
+                    request -> Futures.transform(transportApiRequestTemplate.send(new TbProtoQueueMsg<>(UUID.randomUUID(), request)),
+                            TbProtoQueueMsg::getValue, MoreExecutors.directExecutor()),
+                    scheduler, credentialsCacheMaxSize, credentialsCacheTtl,
+                    credentialsBatchEnabled, credentialsBatchMaxSize, credentialsBatchLingerMs);
+        }
         ruleEngineMsgProducer = producerProvider.getRuleEngineMsgProducer();
         tbCoreMsgProducer = producerProvider.getTbCoreMsgProducer();
         transportNotificationsConsumer = queueProvider.createTransportNotificationsConsumer();
@@ -402,8 +431,14 @@ public class DefaultTransportService implements TransportService {
 
     private void doProcess(DeviceTransportType transportType, TbProtoQueueMsg<TransportApiRequestMsg> protoMsg,
                            TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
-        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
-            TransportProtos.ValidateDeviceCredentialsResponseMsg msg = tmp.getValue().getValidateCredResponseMsg();
+        ListenableFuture<TransportProtos.ValidateDeviceCredentialsResponseMsg> validateFuture;
+        if (credentialsCache != null) {
+            validateFuture = credentialsCache.validate(protoMsg.getValue());
+        } else {
+            validateFuture = Futures.transform(transportApiRequestTemplate.send(protoMsg),
+                    tmp -> tmp.getValue().getValidateCredResponseMsg(), MoreExecutors.directExecutor());
+        }
+        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(validateFuture, msg -> {
             ValidateDeviceCredentialsResponse.ValidateDeviceCredentialsResponseBuilder result = ValidateDeviceCredentialsResponse.builder();
             if (msg.hasDeviceInfo()) {
                 result.credentials(msg.getCredentialsBody());
@@ -890,6 +925,9 @@ public class DefaultTransportService implements TransportService {
                         onDeviceUpdate(device);
                         eventPublisher.publishEvent(new DeviceUpdatedEvent(device));
                     });
+                } else if (EntityType.OTA_PACKAGE.equals(entityType)) {
+                    Optional<OtaPackageInfo> otaPackageOpt = dataDecodingEncodingService.decode(msg.getData().toByteArray());
+                    otaPackageOpt.ifPresent(otaPackage -> otaPackageStore.evict(otaPackage.getId().toString()));
                 }
             } else if (toSessionMsg.hasEntityDeleteMsg()) {
                 TransportProtos.EntityDeleteMsg msg = toSessionMsg.getEntityDeleteMsg();
@@ -904,7 +942,12 @@ public class DefaultTransportService implements TransportService {
                 } else if (EntityType.DEVICE.equals(entityType)) {
                     rateLimitService.remove(new DeviceId(entityUuid));
                     onDeviceDeleted(new DeviceId(entityUuid));
+                } else if (EntityType.OTA_PACKAGE.equals(entityType)) {
+                    otaPackageStore.evict(entityUuid.toString());
                 }
+            } else if (toSessionMsg.hasDeviceCredentialsInvalidateMsg()) {
+                TransportProtos.DeviceCredentialsInvalidateMsg msg = toSessionMsg.getDeviceCredentialsInvalidateMsg();
+                invalidateCredentials(new UUID(msg.getDeviceIdMSB(), msg.getDeviceIdLSB()));
             } else if (toSessionMsg.hasResourceUpdateMsg()) {
                 TransportProtos.ResourceUpdateMsg msg = toSessionMsg.getResourceUpdateMsg();
                 TenantId tenantId = new TenantId(new UUID(msg.getTenantIdMSB(), msg.getTenantIdLSB()));
@@ -953,7 +996,14 @@ public class DefaultTransportService implements TransportService {
         });
     }
 
+    private void invalidateCredentials(UUID deviceId) {
+        if (credentialsCache != null) {
+            credentialsCache.invalidate(deviceId);
+        }
+    }
+
     private void onDeviceUpdate(Device device) {
+        invalidateCredentials(device.getId().getId());
         long deviceIdMSB = device.getId().getId().getMostSignificantBits();
         long deviceIdLSB = device.getId().getId().getLeastSignificantBits();
         long deviceProfileIdMSB = device.getDeviceProfileId().getId().getMostSignificantBits();
@@ -987,6 +1037,7 @@ public class DefaultTransportService implements TransportService {
     }
 
     private void onDeviceDeleted(DeviceId deviceId) {
+        invalidateCredentials(deviceId.getId());
         sessions.forEach((id, md) -> {
             DeviceId sessionDeviceId = new DeviceId(new UUID(md.getSessionInfo().getDeviceIdMSB(), md.getSessionInfo().getDeviceIdLSB()));
             if (sessionDeviceId.equals(deviceId)) {
@@ -1054,6 +1105,7 @@ public class DefaultTransportService implements TransportService {
                 .setTenantIdLSB(tenantId.getId().getLeastSignificantBits()).build();
         ruleEngineProducerStats.incrementTotal();
         StatsCallback wrappedCallback = new StatsCallback(callback, ruleEngineProducerStats);
+        msgTracingService.trace(tenantId, tbMsg, TbMsgTraceStage.QUEUE_PRODUCE);
         ruleEngineMsgProducer.send(tpi, new TbProtoQueueMsg<>(tbMsg.getId(), msg), wrappedCallback);
     }
 
@@ -1075,6 +1127,7 @@ public class DefaultTransportService implements TransportService {
         }
 
         TbMsg tbMsg = TbMsg.newMsg(queueName, sessionMsgType.name(), deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null);
+        msgTracingService.sample(tbMsg);
         sendToRuleEngine(tenantId, tbMsg, callback);
     }
 
@@ -0,0 +1,242 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceInfoProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiResponseMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokensRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokensResponseMsg;
+import org.thingsboard.server.queue.scheduler.SchedulerComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Transport side cache of successful device credentials validations.
+ * Concurrent validations of the same credentials share one transport API request,
+ * and access token validations that miss the cache are sent to the core in batches.
+ */
+@Slf4j
+class TransportCredentialsCache {
+
+    private final Function<TransportApiRequestMsg, ListenableFuture<TransportApiResponseMsg>> transportApi;
+    private final SchedulerComponent scheduler;
+    private final boolean batchEnabled;
+    private final int batchMaxSize;
+    private final long batchLingerMs;
+
+    private final Cache<TransportApiRequestMsg, ValidateDeviceCredentialsResponseMsg> validated;
+    private final ConcurrentMap<UUID, Set<TransportApiRequestMsg>> deviceRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TransportApiRequestMsg, SettableFuture<ValidateDeviceCredentialsResponseMsg>> inProgress = new ConcurrentHashMap<>();
+    // incremented on every invalidation, so the responses of requests sent before it are not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Object batchLock = new Object();
+    private List<PendingTokenValidation> batch = new ArrayList<>();
+    private volatile boolean batchSupported = true;
+
+    TransportCredentialsCache(Function<TransportApiRequestMsg, ListenableFuture<TransportApiResponseMsg>> transportApi,
+                              SchedulerComponent scheduler, long maxSize, long ttlMs,
+                              boolean batchEnabled, int batchMaxSize, long batchLingerMs) {
+        this.transportApi = transportApi;
+        this.scheduler = scheduler;
+        this.batchEnabled = batchEnabled && batchMaxSize > 1;
+        this.batchMaxSize = batchMaxSize;
+        this.batchLingerMs = batchLingerMs;
+        this.validated = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .executor(MoreExecutors.directExecutor())
+                .<TransportApiRequestMsg, ValidateDeviceCredentialsResponseMsg>removalListener((request, response, cause) -> {
+                    if (request != null && response != null && cause != RemovalCause.REPLACED) {
+                        deviceRequests.computeIfPresent(getDeviceId(response), (id, requests) -> {
+                            requests.remove(request);
+                            return requests.isEmpty() ? null : requests;
+                        });
+                    }
+                })
+                .build();
+    }
+
+    ListenableFuture<ValidateDeviceCredentialsResponseMsg> validate(TransportApiRequestMsg request) {
+        ValidateDeviceCredentialsResponseMsg cached = validated.getIfPresent(request);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> future = SettableFuture.create();
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> existing = inProgress.putIfAbsent(request, future);
+        if (existing != null) {
+            return existing;
+        }
+        long invalidationsBefore = invalidations.get();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> response;
+        if (batchEnabled && batchSupported && request.hasValidateTokenRequestMsg()) {
+            response = addToBatch(request.getValidateTokenRequestMsg().getToken());
+        } else {
+            response = send(request);
+        }
+        Futures.addCallback(response, new FutureCallback<>() {
+            @Override
+            public void onSuccess(ValidateDeviceCredentialsResponseMsg result) {
+                if (result.hasDeviceInfo() && invalidations.get() == invalidationsBefore) {
+                    put(request, result);
+                }
+                inProgress.remove(request);
+                future.set(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                inProgress.remove(request);
+                future.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    void invalidate(UUID deviceId) {
+        invalidations.incrementAndGet();
+        Set<TransportApiRequestMsg> requests = deviceRequests.remove(deviceId);
+        if (requests != null) {
+            log.trace("[{}] Invalidating {} cached credentials validations", deviceId, requests.size());
+            validated.invalidateAll(requests);
+        }
+    }
+
+    private void put(TransportApiRequestMsg request, ValidateDeviceCredentialsResponseMsg response) {
+        deviceRequests.computeIfAbsent(getDeviceId(response), id -> ConcurrentHashMap.newKeySet()).add(request);
+        validated.put(request, response);
+    }
+
+    private ListenableFuture<ValidateDeviceCredentialsResponseMsg> send(TransportApiRequestMsg request) {
+        return Futures.transform(sendToTransportApi(request), TransportApiResponseMsg::getValidateCredResponseMsg, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<TransportApiResponseMsg> sendToTransportApi(TransportApiRequestMsg request) {
+        try {
+            return transportApi.apply(request);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private ListenableFuture<ValidateDeviceCredentialsResponseMsg> addToBatch(String token) {
+        PendingTokenValidation validation = new PendingTokenValidation(token);
+        List<PendingTokenValidation> full = null;
+        synchronized (batchLock) {
+            batch.add(validation);
+            if (batch.size() >= batchMaxSize) {
+                full = batch;
+                batch = new ArrayList<>();
+            } else if (batch.size() == 1) {
+                scheduler.schedule(this::flush, batchLingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            sendBatch(full);
+        }
+        return validation.future;
+    }
+
+    private void flush() {
+        List<PendingTokenValidation> pending;
+        synchronized (batchLock) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            pending = batch;
+            batch = new ArrayList<>();
+        }
+        sendBatch(pending);
+    }
+
+    private void sendBatch(List<PendingTokenValidation> pending) {
+        if (pending.size() == 1) {
+            sendOneByOne(pending);
+            return;
+        }
+        ValidateDeviceTokensRequestMsg.Builder requestMsg = ValidateDeviceTokensRequestMsg.newBuilder();
+        pending.forEach(validation -> requestMsg.addTokens(validation.token));
+        TransportApiRequestMsg request = TransportApiRequestMsg.newBuilder().setValidateTokensRequestMsg(requestMsg).build();
+        Futures.addCallback(sendToTransportApi(request), new FutureCallback<>() {
+            @Override
+            public void onSuccess(TransportApiResponseMsg result) {
+                ValidateDeviceTokensResponseMsg responseMsg = result.getValidateTokensResponseMsg();
+                if (!result.hasValidateTokensResponseMsg() || responseMsg.getResponsesCount() != pending.size()) {
+                    // the core does not support batched validation yet
+                    if (batchSupported) {
+                        log.warn("Batched device token validation is not supported by the core service, falling back to single requests");
+                        batchSupported = false;
+                    }
+                    sendOneByOne(pending);
+                    return;
+                }
+                for (int i = 0; i < pending.size(); i++) {
+                    pending.get(i).future.set(responseMsg.getResponses(i));
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                pending.forEach(validation -> validation.future.setException(t));
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void sendOneByOne(List<PendingTokenValidation> pending) {
+        pending.forEach(validation -> validation.future.setFuture(send(validation.toRequest())));
+    }
+
+    private static UUID getDeviceId(ValidateDeviceCredentialsResponseMsg response) {
+        DeviceInfoProto deviceInfo = response.getDeviceInfo();
+        return new UUID(deviceInfo.getDeviceIdMSB(), deviceInfo.getDeviceIdLSB());
+    }
+
+    private static class PendingTokenValidation {
+        private final String token;
+        private final SettableFuture<ValidateDeviceCredentialsResponseMsg> future = SettableFuture.create();
+
+        private PendingTokenValidation(String token) {
+            this.token = token;
+        }
+
+        private TransportApiRequestMsg toRequest() {
+            return TransportApiRequestMsg.newBuilder()
+                    .setValidateTokenRequestMsg(ValidateDeviceTokenRequestMsg.newBuilder().setToken(token))
+                    .build();
+        }
+    }
+
+}
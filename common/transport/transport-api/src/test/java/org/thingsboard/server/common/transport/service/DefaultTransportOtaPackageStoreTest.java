@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class DefaultTransportOtaPackageStoreTest {
+
+    private static final String SERVICE_ID = "tb-transport-1";
+
+    private final String otaPackageId = UUID.randomUUID().toString();
+    private final byte[] data = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+    private Path baseDir;
+    private Path storeDir;
+    private OtaPackageDataCache otaPackageDataCache;
+    private DefaultTransportOtaPackageStore store;
+
+    @Before
+    public void before() throws IOException {
+        baseDir = Files.createTempDirectory("ota-store-test");
+        storeDir = baseDir.resolve(SERVICE_ID);
+        otaPackageDataCache = Mockito.mock(OtaPackageDataCache.class);
+        Mockito.when(otaPackageDataCache.get(otaPackageId)).thenReturn(data);
+        TbServiceInfoProvider serviceInfoProvider = Mockito.mock(TbServiceInfoProvider.class);
+        Mockito.when(serviceInfoProvider.getServiceId()).thenReturn(SERVICE_ID);
+        store = new DefaultTransportOtaPackageStore(otaPackageDataCache, serviceInfoProvider);
+        ReflectionTestUtils.setField(store, "storeDir", baseDir.toString());
+        ReflectionTestUtils.setField(store, "maxPackages", 2L);
+        store.init();
+    }
+
+    @After
+    public void after() throws IOException {
+        store.destroy();
+        try (Stream<Path> files = Files.list(baseDir)) {
+            files.forEach(this::delete);
+        }
+        Files.deleteIfExists(baseDir);
+    }
+
+    @Test
+    public void testChunksAreReadOnlySlicesOfStoredPackage() {
+        ByteBuffer chunk = store.get(otaPackageId, 4, 1);
+        Assert.assertTrue(chunk.isReadOnly());
+        Assert.assertEquals(ByteBuffer.wrap(new byte[]{5, 6, 7, 8}), chunk);
+        Assert.assertEquals(ByteBuffer.wrap(new byte[]{9, 10}), store.get(otaPackageId, 4, 2));
+        Assert.assertEquals(0, store.get(otaPackageId, 4, 3).remaining());
+        Assert.assertArrayEquals(data, store.getBytes(otaPackageId, 0, 0));
+        Assert.assertTrue(Files.exists(storeDir.resolve(otaPackageId)));
+        Mockito.verify(otaPackageDataCache, Mockito.times(1)).get(otaPackageId);
+    }
+
+    @Test
+    public void testMissingPackage() {
+        Assert.assertNull(store.get(UUID.randomUUID().toString(), 4, 0));
+    }
+
+    @Test
+    public void testEvictDeletesPackageFile() {
+        store.get(otaPackageId, 4, 0);
+        store.evict(otaPackageId);
+        Assert.assertFalse(Files.exists(storeDir.resolve(otaPackageId)));
+        Assert.assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), store.get(otaPackageId, 4, 0));
+        Mockito.verify(otaPackageDataCache, Mockito.times(2)).get(otaPackageId);
+    }
+
+    @Test
+    public void testInitKeepsFilesOfOtherServices() throws IOException {
+        Path otherServiceFile = Files.createDirectories(baseDir.resolve("tb-transport-2")).resolve(otaPackageId);
+        Files.write(otherServiceFile, data);
+        Files.write(storeDir.resolve(otaPackageId), data);
+
+        store.destroy();
+        store.init();
+
+        Assert.assertFalse(Files.exists(storeDir.resolve(otaPackageId)));
+        Assert.assertTrue(Files.exists(otherServiceFile));
+        delete(otherServiceFile);
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceInfoProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiResponseMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateBasicMqttCredRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokensResponseMsg;
+import org.thingsboard.server.queue.scheduler.SchedulerComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class TransportCredentialsCacheTest {
+
+    private final List<TransportApiRequestMsg> requests = new ArrayList<>();
+    private final List<SettableFuture<TransportApiResponseMsg>> responses = new ArrayList<>();
+
+    @Before
+    public void before() {
+        requests.clear();
+        responses.clear();
+    }
+
+    @Test
+    public void testConcurrentValidationsAreCoalescedAndCached() throws Exception {
+        TransportCredentialsCache cache = createCache(false);
+        TransportApiRequestMsg request = basicRequest("client", "user", "password");
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> first = cache.validate(request);
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> second = cache.validate(request);
+        Assert.assertEquals(1, requests.size());
+
+        UUID deviceId = UUID.randomUUID();
+        responses.get(0).set(TransportApiResponseMsg.newBuilder().setValidateCredResponseMsg(validResponse(deviceId)).build());
+        Assert.assertEquals(deviceId.getMostSignificantBits(), first.get().getDeviceInfo().getDeviceIdMSB());
+        Assert.assertSame(first.get(), second.get());
+
+        Assert.assertSame(first.get(), cache.validate(request).get());
+        Assert.assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testInvalidateRemovesCachedValidations() throws Exception {
+        TransportCredentialsCache cache = createCache(false);
+        TransportApiRequestMsg request = tokenRequest("token");
+        UUID deviceId = UUID.randomUUID();
+
+        cache.validate(request);
+        responses.get(0).set(TransportApiResponseMsg.newBuilder().setValidateCredResponseMsg(validResponse(deviceId)).build());
+        cache.validate(request);
+        Assert.assertEquals(1, requests.size());
+
+        cache.invalidate(deviceId);
+        cache.validate(request);
+        Assert.assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testFailedValidationsAreNotCached() {
+        TransportCredentialsCache cache = createCache(false);
+        TransportApiRequestMsg request = tokenRequest("token");
+
+        cache.validate(request);
+        responses.get(0).set(TransportApiResponseMsg.newBuilder().setValidateCredResponseMsg(ValidateDeviceCredentialsResponseMsg.getDefaultInstance()).build());
+        cache.validate(request);
+        Assert.assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testTokenValidationsAreBatched() throws Exception {
+        TransportCredentialsCache cache = createCache(true);
+        UUID firstDeviceId = UUID.randomUUID();
+        UUID secondDeviceId = UUID.randomUUID();
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> first = cache.validate(tokenRequest("first"));
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> second = cache.validate(tokenRequest("second"));
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(List.of("first", "second"), requests.get(0).getValidateTokensRequestMsg().getTokensList());
+
+        responses.get(0).set(TransportApiResponseMsg.newBuilder().setValidateTokensResponseMsg(ValidateDeviceTokensResponseMsg.newBuilder()
+                .addResponses(validResponse(firstDeviceId))
+                .addResponses(validResponse(secondDeviceId))).build());
+        Assert.assertEquals(firstDeviceId.getLeastSignificantBits(), first.get().getDeviceInfo().getDeviceIdLSB());
+        Assert.assertEquals(secondDeviceId.getLeastSignificantBits(), second.get().getDeviceInfo().getDeviceIdLSB());
+    }
+
+    @Test
+    public void testBatchFallsBackToSingleRequestsIfNotSupported() throws Exception {
+        TransportCredentialsCache cache = createCache(true);
+        UUID deviceId = UUID.randomUUID();
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> first = cache.validate(tokenRequest("first"));
+        cache.validate(tokenRequest("second"));
+        responses.get(0).set(TransportApiResponseMsg.getDefaultInstance());
+        Assert.assertEquals(3, requests.size());
+        Assert.assertEquals("first", requests.get(1).getValidateTokenRequestMsg().getToken());
+        Assert.assertEquals("second", requests.get(2).getValidateTokenRequestMsg().getToken());
+
+        responses.get(1).set(TransportApiResponseMsg.newBuilder().setValidateCredResponseMsg(validResponse(deviceId)).build());
+        Assert.assertTrue(first.get().hasDeviceInfo());
+
+        cache.validate(tokenRequest("third"));
+        Assert.assertEquals(4, requests.size());
+        Assert.assertTrue(requests.get(3).hasValidateTokenRequestMsg());
+    }
+
+    private TransportCredentialsCache createCache(boolean batchEnabled) {
+        return new TransportCredentialsCache(request -> {
+            requests.add(request);
+            SettableFuture<TransportApiResponseMsg> response = SettableFuture.create();
+            responses.add(response);
+            return response;
+        }, Mockito.mock(SchedulerComponent.class), 1000, 60000, batchEnabled, 2, 1000);
+    }
+
+    private static TransportApiRequestMsg tokenRequest(String token) {
+        return TransportApiRequestMsg.newBuilder()
+                .setValidateTokenRequestMsg(ValidateDeviceTokenRequestMsg.newBuilder().setToken(token)).build();
+    }
+
+    private static TransportApiRequestMsg basicRequest(String clientId, String userName, String password) {
+        return TransportApiRequestMsg.newBuilder()
+                .setValidateBasicMqttCredRequestMsg(ValidateBasicMqttCredRequestMsg.newBuilder()
+                        .setClientId(clientId).setUserName(userName).setPassword(password)).build();
+    }
+
+    private static ValidateDeviceCredentialsResponseMsg validResponse(UUID deviceId) {
+        return ValidateDeviceCredentialsResponseMsg.newBuilder()
+                .setDeviceInfo(DeviceInfoProto.newBuilder()
+                        .setDeviceIdMSB(deviceId.getMostSignificantBits())
+                        .setDeviceIdLSB(deviceId.getLeastSignificantBits()))
+                .build();
+    }
+
+}
@@ -63,7 +63,15 @@ public interface AlarmDao extends Dao<Alarm> {
 
     void createEntityAlarmRecord(EntityAlarm entityAlarm);
 
+    /**
+     * @return true if all the records were saved
+     */
+    boolean createEntityAlarmRecords(List<EntityAlarm> entityAlarms);
+
     List<EntityAlarm> findEntityAlarmRecords(TenantId tenantId, AlarmId id);
 
-    void deleteEntityAlarmRecords(TenantId tenantId, EntityId entityId);
+    /**
+     * @return ids of the alarms whose records were deleted
+     */
+    List<AlarmId> deleteEntityAlarmRecords(TenantId tenantId, EntityId entityId);
 }
@@ -23,6 +23,10 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -44,9 +48,7 @@ import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.query.AlarmData;
 import org.thingsboard.server.common.data.query.AlarmDataQuery;
 import org.thingsboard.server.common.data.relation.EntityRelation;
-import org.thingsboard.server.common.data.relation.EntityRelationsQuery;
-import org.thingsboard.server.common.data.relation.EntitySearchDirection;
-import org.thingsboard.server.common.data.relation.RelationsSearchParameters;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.dao.entity.AbstractEntityService;
 import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.exception.DataValidationException;
@@ -57,8 +59,10 @@ import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -68,6 +72,8 @@ import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.thingsboard.server.common.data.CacheConstants.ALARM_CACHE;
+import static org.thingsboard.server.common.data.CacheConstants.ALARM_PROPAGATION_CACHE;
 import static org.thingsboard.server.dao.service.Validator.validateId;
 
 @Service
@@ -86,11 +92,26 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
     @Autowired
     private EntityService entityService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sql.relations.max_level:50}")
+    private int maxRelationLevel;
+
+    @Value("${sql.alarms.create_threads:4}")
+    private int alarmCreationThreads;
+
     protected ExecutorService readResultsProcessingExecutor;
 
+    private ExecutorService alarmCreationExecutor;
+
     @PostConstruct
     public void startExecutor() {
         readResultsProcessingExecutor = Executors.newCachedThreadPool(ThingsBoardThreadFactory.forName("alarm-service"));
+        alarmCreationExecutor = Executors.newFixedThreadPool(alarmCreationThreads, ThingsBoardThreadFactory.forName("alarm-service-create"));
     }
 
     @PreDestroy
@@ -98,6 +119,9 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
         if (readResultsProcessingExecutor != null) {
             readResultsProcessingExecutor.shutdownNow();
         }
+        if (alarmCreationExecutor != null) {
+            alarmCreationExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -109,23 +133,10 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
     public AlarmOperationResult createOrUpdateAlarm(Alarm alarm, boolean alarmCreationEnabled) {
         alarmDataValidator.validate(alarm, Alarm::getTenantId);
         try {
-            if (alarm.getStartTs() == 0L) {
-                alarm.setStartTs(System.currentTimeMillis());
-            }
-            if (alarm.getEndTs() == 0L) {
-                alarm.setEndTs(alarm.getStartTs());
-            }
-            alarm.setCustomerId(entityService.fetchEntityCustomerId(alarm.getTenantId(), alarm.getOriginator()));
+            prepareAlarm(alarm);
             if (alarm.getId() == null) {
-                Alarm existing = alarmDao.findLatestByOriginatorAndType(alarm.getTenantId(), alarm.getOriginator(), alarm.getType()).get();
-                if (existing == null || existing.getStatus().isCleared()) {
-                    if (!alarmCreationEnabled) {
-                        throw new ApiUsageLimitsExceededException("Alarms creation is disabled");
-                    }
-                    return createAlarm(alarm);
-                } else {
-                    return updateAlarm(existing, alarm);
-                }
+                Alarm existing = findLatestByOriginatorAndType(alarm.getTenantId(), alarm.getOriginator(), alarm.getType()).get();
+                return createOrUpdateLatestAlarm(existing, alarm, alarmCreationEnabled);
             } else {
                 return updateAlarm(alarm).get();
             }
@@ -134,8 +145,73 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
         }
     }
 
+    @Override
+    public ListenableFuture<AlarmOperationResult> createOrUpdateAlarmAsync(Alarm alarm, boolean alarmCreationEnabled) {
+        alarmDataValidator.validate(alarm, Alarm::getTenantId);
+        ListenableFuture<Alarm> latest = alarm.getId() == null ?
+                findLatestByOriginatorAndType(alarm.getTenantId(), alarm.getOriginator(), alarm.getType()) : Futures.immediateFuture(null);
+        return Futures.transformAsync(latest, existing -> {
+            prepareAlarm(alarm);
+            if (alarm.getId() == null) {
+                return Futures.immediateFuture(createOrUpdateLatestAlarm(existing, alarm, alarmCreationEnabled));
+            } else {
+                return updateAlarm(alarm);
+            }
+        }, alarmCreationExecutor);
+    }
+
+    private void prepareAlarm(Alarm alarm) {
+        if (alarm.getStartTs() == 0L) {
+            alarm.setStartTs(System.currentTimeMillis());
+        }
+        if (alarm.getEndTs() == 0L) {
+            alarm.setEndTs(alarm.getStartTs());
+        }
+        alarm.setCustomerId(entityService.fetchEntityCustomerId(alarm.getTenantId(), alarm.getOriginator()));
+    }
+
+    private AlarmOperationResult createOrUpdateLatestAlarm(Alarm existing, Alarm alarm, boolean alarmCreationEnabled) throws InterruptedException, ExecutionException {
+        if (existing != null && !existing.getStatus().isCleared()) {
+            // the cached copy may miss an ack or clear done on another node, so the update is merged into the current row
+            existing = alarmDao.findById(existing.getTenantId(), existing.getId().getId());
+        }
+        if (existing == null || existing.getStatus().isCleared()) {
+            if (!alarmCreationEnabled) {
+                throw new ApiUsageLimitsExceededException("Alarms creation is disabled");
+            }
+            return createAlarm(alarm);
+        } else {
+            AlarmOperationResult result = updateAlarm(existing, alarm);
+            putLatestAlarmToCache(result.getAlarm());
+            return result;
+        }
+    }
+
+    @Override
     public ListenableFuture<Alarm> findLatestByOriginatorAndType(TenantId tenantId, EntityId originator, String type) {
-        return alarmDao.findLatestByOriginatorAndType(tenantId, originator, type);
+        Cache cache = cacheManager.getCache(ALARM_CACHE);
+        List<Object> key = toLatestAlarmCacheKey(tenantId, originator, type);
+        Alarm cached = cache.get(key, Alarm.class);
+        if (cached != null) {
+            return Futures.immediateFuture(new Alarm(cached));
+        }
+        return Futures.transform(alarmDao.findLatestByOriginatorAndType(tenantId, originator, type), alarm -> {
+            if (alarm != null) {
+                cache.putIfAbsent(key, new Alarm(alarm));
+                cache.put(alarm.getId(), key);
+            }
+            return alarm;
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void evictLatestAlarmFromCache(TenantId tenantId, AlarmId alarmId) {
+        Cache cache = cacheManager.getCache(ALARM_CACHE);
+        List<?> key = cache.get(alarmId, List.class);
+        if (key != null) {
+            cache.evict(key);
+            cache.evict(alarmId);
+        }
     }
 
     @Override
@@ -157,6 +233,8 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
             AlarmOperationResult result = new AlarmOperationResult(alarm, true, new ArrayList<>(getPropagationEntityIds(alarm)));
             deleteEntityRelations(tenantId, alarm.getId());
             alarmDao.deleteAlarm(tenantId, alarm);
+            evictLatestAlarmFromCache(alarm, true);
+            cacheManager.getCache(ALARM_PROPAGATION_CACHE).evict(alarm.getId());
             return result;
         } catch (ExecutionException | InterruptedException e) {
             throw new RuntimeException(e);
@@ -166,6 +244,7 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
     private AlarmOperationResult createAlarm(Alarm alarm) throws InterruptedException, ExecutionException {
         log.debug("New Alarm : {}", alarm);
         Alarm saved = alarmDao.save(alarm.getTenantId(), alarm);
+        putLatestAlarmToCache(saved);
         List<EntityId> propagatedEntitiesList = createEntityAlarmRecords(saved);
         return new AlarmOperationResult(saved, true, true, propagatedEntitiesList);
     }
@@ -175,29 +254,42 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
         if (alarm.isPropagate()) {
             Set<EntityId> parentEntities = getParentEntities(alarm);
             propagatedEntitiesList = new ArrayList<>(parentEntities.size() + 1);
-            for (EntityId parentId : parentEntities) {
-                propagatedEntitiesList.add(parentId);
-                createEntityAlarmRecord(alarm.getTenantId(), parentId, alarm);
-            }
+            propagatedEntitiesList.addAll(parentEntities);
             propagatedEntitiesList.add(alarm.getOriginator());
         } else {
             propagatedEntitiesList = Collections.singletonList(alarm.getOriginator());
         }
-        createEntityAlarmRecord(alarm.getTenantId(), alarm.getOriginator(), alarm);
+        List<EntityAlarm> entityAlarms = propagatedEntitiesList.stream()
+                .map(entityId -> new EntityAlarm(alarm.getTenantId(), entityId, alarm.getCreatedTime(), alarm.getType(), alarm.getCustomerId(), alarm.getId()))
+                .collect(Collectors.toList());
+        boolean allSaved;
+        try {
+            allSaved = alarmDao.createEntityAlarmRecords(entityAlarms);
+        } catch (Exception e) {
+            log.warn("[{}] Failed to create entity alarm records: {}", alarm.getTenantId(), entityAlarms, e);
+            allSaved = false;
+        }
+        if (alarm.isPropagate()) {
+            if (allSaved) {
+                putPropagationEntityIdsToCache(alarm.getId(), propagatedEntitiesList);
+            } else {
+                // the next lookup reads the records that were actually saved
+                cacheManager.getCache(ALARM_PROPAGATION_CACHE).evict(alarm.getId());
+            }
+        }
         return propagatedEntitiesList;
     }
 
     private Set<EntityId> getParentEntities(Alarm alarm) throws InterruptedException, ExecutionException {
-        EntityRelationsQuery query = new EntityRelationsQuery();
-        //TODO 3.1: @dlandiak we need to fetch max 3 levels and then fetch more if needed and there is at least one non-duplicate.
-        RelationsSearchParameters parameters = new RelationsSearchParameters(alarm.getOriginator(), EntitySearchDirection.TO, Integer.MAX_VALUE, false);
-        query.setParameters(parameters);
         List<String> propagateRelationTypes = alarm.getPropagateRelationTypes();
-        Stream<EntityRelation> relations = relationService.findByQuery(alarm.getTenantId(), query).get().stream();
+        Stream<EntityRelation> relations = relationService.findByToRecursivelyAsync(alarm.getTenantId(), alarm.getOriginator(),
+                RelationTypeGroup.COMMON, maxRelationLevel).get().stream();
         if (!CollectionUtils.isEmpty(propagateRelationTypes)) {
             relations = relations.filter(entityRelation -> propagateRelationTypes.contains(entityRelation.getType()));
         }
-        return relations.map(EntityRelation::getFrom).collect(Collectors.toCollection(LinkedHashSet::new));
+        return relations.map(EntityRelation::getFrom)
+                .filter(entityId -> !entityId.equals(alarm.getOriginator()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     private ListenableFuture<AlarmOperationResult> updateAlarm(Alarm update) {
@@ -209,7 +301,9 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
                 if (alarm == null) {
                     return null;
                 } else {
-                    return updateAlarm(alarm, update);
+                    AlarmOperationResult result = updateAlarm(alarm, update);
+                    evictLatestAlarmFromCache(result.getAlarm(), false);
+                    return result;
                 }
             }
         });
@@ -247,6 +341,7 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
                     alarm.setStatus(newStatus);
                     alarm.setAckTs(ackTime);
                     alarm = alarmDao.save(alarm.getTenantId(), alarm);
+                    evictLatestAlarmFromCache(alarm, false);
                     return new AlarmOperationResult(alarm, true, new ArrayList<>(getPropagationEntityIds(alarm)));
                 }
             }
@@ -270,6 +365,7 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
                         alarm.setDetails(details);
                     }
                     alarm = alarmDao.save(alarm.getTenantId(), alarm);
+                    evictLatestAlarmFromCache(alarm, false);
                     return new AlarmOperationResult(alarm, true, new ArrayList<>(getPropagationEntityIds(alarm)));
                 }
             }
@@ -351,7 +447,9 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
 
     @Override
     public void deleteEntityAlarmRelations(TenantId tenantId, EntityId entityId) {
-        alarmDao.deleteEntityAlarmRecords(tenantId, entityId);
+        List<AlarmId> alarmIds = alarmDao.deleteEntityAlarmRecords(tenantId, entityId);
+        Cache cache = cacheManager.getCache(ALARM_PROPAGATION_CACHE);
+        alarmIds.forEach(cache::evict);
     }
 
     private Alarm merge(Alarm existing, Alarm alarm) {
@@ -388,20 +486,43 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
 
     private Set<EntityId> getPropagationEntityIds(Alarm alarm) {
         if (alarm.isPropagate()) {
+            Cache cache = cacheManager.getCache(ALARM_PROPAGATION_CACHE);
+            @SuppressWarnings("unchecked")
+            List<EntityId> cached = cache.get(alarm.getId(), List.class);
+            if (cached != null) {
+                return new HashSet<>(cached);
+            }
             List<EntityAlarm> entityAlarms = alarmDao.findEntityAlarmRecords(alarm.getTenantId(), alarm.getId());
-            return entityAlarms.stream().map(EntityAlarm::getEntityId).collect(Collectors.toSet());
+            Set<EntityId> entityIds = entityAlarms.stream().map(EntityAlarm::getEntityId).collect(Collectors.toSet());
+            putPropagationEntityIdsToCache(alarm.getId(), entityIds);
+            return entityIds;
         } else {
             return Collections.singleton(alarm.getOriginator());
         }
     }
 
-    private void createEntityAlarmRecord(TenantId tenantId, EntityId entityId, Alarm alarm) {
-        EntityAlarm entityAlarm = new EntityAlarm(tenantId, entityId, alarm.getCreatedTime(), alarm.getType(), alarm.getCustomerId(), alarm.getId());
-        try {
-            alarmDao.createEntityAlarmRecord(entityAlarm);
-        } catch (Exception e) {
-            log.warn("[{}] Failed to create entity alarm record: {}", tenantId, entityAlarm, e);
-        }
+    private void putPropagationEntityIdsToCache(AlarmId alarmId, Collection<EntityId> entityIds) {
+        Cache cache = cacheManager.getCache(ALARM_PROPAGATION_CACHE);
+        cache.put(alarmId, new ArrayList<>(entityIds));
+    }
+
+    private void putLatestAlarmToCache(Alarm alarm) {
+        Cache cache = cacheManager.getCache(ALARM_CACHE);
+        List<Object> key = toLatestAlarmCacheKey(alarm.getTenantId(), alarm.getOriginator(), alarm.getType());
+        cache.put(key, new Alarm(alarm));
+        // lets other nodes find the entry by alarm id when they receive the eviction broadcast
+        cache.put(alarm.getId(), key);
+    }
+
+    private void evictLatestAlarmFromCache(Alarm alarm, boolean deleted) {
+        Cache cache = cacheManager.getCache(ALARM_CACHE);
+        cache.evict(toLatestAlarmCacheKey(alarm.getTenantId(), alarm.getOriginator(), alarm.getType()));
+        cache.evict(alarm.getId());
+        eventPublisher.publishEvent(new AlarmCacheEvictEvent(alarm.getTenantId(), alarm.getId(), deleted));
+    }
+
+    private List<Object> toLatestAlarmCacheKey(TenantId tenantId, EntityId originator, String type) {
+        return Arrays.asList(tenantId, originator.getEntityType(), originator.getId(), type);
     }
 
     private <T> ListenableFuture<T> getAndUpdate(TenantId tenantId, AlarmId alarmId, Function<Alarm, T> function) {
@@ -105,6 +105,7 @@ public class BaseAssetService extends AbstractEntityService implements AssetServ
         return assetDao.findAssetInfoById(tenantId, assetId.getId());
     }
 
+    @Cacheable(cacheNames = ASSET_CACHE, key = "{#tenantId, #assetId}")
     @Override
     public Asset findAssetById(TenantId tenantId, AssetId assetId) {
         log.trace("Executing findAssetById [{}]", assetId);
@@ -144,6 +145,7 @@ public class BaseAssetService extends AbstractEntityService implements AssetServ
                 throw t;
             }
         }
+        removeAssetFromCacheById(savedAsset.getTenantId(), savedAsset.getId());
         return savedAsset;
     }
 
@@ -181,6 +183,8 @@ public class BaseAssetService extends AbstractEntityService implements AssetServ
         removeAssetFromCacheByName(asset.getTenantId(), asset.getName());
 
         assetDao.removeById(tenantId, assetId.getId());
+
+        removeAssetFromCacheById(asset.getTenantId(), assetId);
     }
 
     private void removeAssetFromCacheByName(TenantId tenantId, String name) {
@@ -188,6 +192,11 @@ public class BaseAssetService extends AbstractEntityService implements AssetServ
         cache.evict(Arrays.asList(tenantId, name));
     }
 
+    private void removeAssetFromCacheById(TenantId tenantId, AssetId assetId) {
+        Cache cache = cacheManager.getCache(ASSET_CACHE);
+        cache.evict(Arrays.asList(tenantId, assetId));
+    }
+
     @Override
     public PageData<Asset> findAssetsByTenantId(TenantId tenantId, PageLink pageLink) {
         log.trace("Executing findAssetsByTenantId, tenantId [{}], pageLink [{}]", tenantId, pageLink);
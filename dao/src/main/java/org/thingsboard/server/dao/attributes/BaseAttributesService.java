@@ -30,6 +30,7 @@ import org.thingsboard.server.dao.service.Validator;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -63,6 +64,13 @@ public class BaseAttributesService implements AttributesService {
         return attributesDao.find(tenantId, entityId, scope, attributeKeys);
     }
 
+    @Override
+    public ListenableFuture<Map<String, List<AttributeKvEntry>>> findByScopes(TenantId tenantId, EntityId entityId, Collection<String> scopes, Collection<String> attributeKeys) {
+        scopes.forEach(scope -> validate(entityId, scope));
+        attributeKeys.forEach(attributeKey -> Validator.validateString(attributeKey, "Incorrect attribute key " + attributeKey));
+        return attributesDao.findByTypes(tenantId, entityId, scopes, attributeKeys);
+    }
+
     @Override
     public ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, String scope) {
         validate(entityId, scope);
@@ -39,6 +39,7 @@ import org.thingsboard.server.dao.service.Validator;
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -145,6 +146,43 @@ public class CachedAttributesService implements AttributesService {
 
     }
 
+    @Override
+    public ListenableFuture<Map<String, List<AttributeKvEntry>>> findByScopes(TenantId tenantId, EntityId entityId, Collection<String> scopes, Collection<String> attributeKeys) {
+        scopes.forEach(scope -> validate(entityId, scope));
+        attributeKeys.forEach(attributeKey -> Validator.validateString(attributeKey, "Incorrect attribute key " + attributeKey));
+
+        Map<String, List<AttributeKvEntry>> cachedAttributes = new HashMap<>();
+        Map<String, Set<String>> notFoundAttributeKeys = new HashMap<>();
+        for (String scope : scopes) {
+            Map<String, Cache.ValueWrapper> wrappedCachedAttributes = findCachedAttributes(entityId, scope, attributeKeys);
+            cachedAttributes.put(scope, wrappedCachedAttributes.values().stream()
+                    .map(wrappedCachedAttribute -> (AttributeKvEntry) wrappedCachedAttribute.get())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+            if (wrappedCachedAttributes.size() != attributeKeys.size()) {
+                Set<String> notFoundKeys = new HashSet<>(attributeKeys);
+                notFoundKeys.removeAll(wrappedCachedAttributes.keySet());
+                notFoundAttributeKeys.put(scope, notFoundKeys);
+            }
+        }
+        if (notFoundAttributeKeys.isEmpty()) {
+            return Futures.immediateFuture(cachedAttributes);
+        }
+
+        Set<String> keysToFetch = new HashSet<>();
+        notFoundAttributeKeys.values().forEach(keysToFetch::addAll);
+        ListenableFuture<Map<String, List<AttributeKvEntry>>> result = attributesDao.findByTypes(tenantId, entityId, notFoundAttributeKeys.keySet(), keysToFetch);
+        return Futures.transform(result, foundInDbAttributes -> {
+            notFoundAttributeKeys.forEach((scope, notFoundKeys) -> {
+                List<AttributeKvEntry> foundInDb = foundInDbAttributes.getOrDefault(scope, Collections.emptyList()).stream()
+                        .filter(attribute -> notFoundKeys.contains(attribute.getKey()))
+                        .collect(Collectors.toList());
+                cachedAttributes.put(scope, mergeDbAndCacheAttributes(entityId, scope, cachedAttributes.get(scope), notFoundKeys, foundInDb));
+            });
+            return cachedAttributes;
+        }, cacheExecutor);
+    }
+
     private Map<String, Cache.ValueWrapper> findCachedAttributes(EntityId entityId, String scope, Collection<String> attributeKeys) {
         Map<String, Cache.ValueWrapper> cachedAttributes = new HashMap<>();
         for (String attributeKey : attributeKeys) {
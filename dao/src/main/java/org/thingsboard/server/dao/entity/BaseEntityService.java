@@ -15,13 +15,18 @@
  */
 package org.thingsboard.server.dao.entity;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.HasCustomerId;
 import org.thingsboard.server.common.data.HasName;
 import org.thingsboard.server.common.data.id.AlarmId;
@@ -31,6 +36,7 @@ import org.thingsboard.server.common.data.id.DashboardId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.EntityViewId;
 import org.thingsboard.server.common.data.id.OtaPackageId;
 import org.thingsboard.server.common.data.id.RuleChainId;
@@ -55,6 +61,18 @@ import org.thingsboard.server.dao.rule.RuleChainService;
 import org.thingsboard.server.dao.tenant.TenantService;
 import org.thingsboard.server.dao.user.UserService;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 import static org.thingsboard.server.dao.model.ModelConstants.NULL_UUID;
 import static org.thingsboard.server.dao.service.Validator.validateId;
 
@@ -67,6 +85,15 @@ public class BaseEntityService extends AbstractEntityService implements EntitySe
 
     public static final String INCORRECT_TENANT_ID = "Incorrect tenantId ";
     public static final String INCORRECT_CUSTOMER_ID = "Incorrect customerId ";
+    private static final int ENTITY_NAMES_BATCH_SIZE = 1000;
+
+    @Value("${cache.entityNames.maxSize:100000}")
+    private long entityNamesCacheMaxSize;
+
+    @Value("${cache.entityNames.timeToLiveInSec:60}")
+    private long entityNamesCacheTtl;
+
+    private Cache<EntityId, String> entityNamesCache;
 
     @Autowired
     private AssetService assetService;
@@ -104,6 +131,16 @@ public class BaseEntityService extends AbstractEntityService implements EntitySe
     @Autowired
     private OtaPackageService otaPackageService;
 
+    @PostConstruct
+    public void init() {
+        if (entityNamesCacheMaxSize > 0) {
+            entityNamesCache = Caffeine.newBuilder()
+                    .maximumSize(entityNamesCacheMaxSize)
+                    .expireAfterWrite(entityNamesCacheTtl, TimeUnit.SECONDS)
+                    .build();
+        }
+    }
+
     @Override
     public long countEntitiesByQuery(TenantId tenantId, CustomerId customerId, EntityCountQuery query) {
         log.trace("Executing countEntitiesByQuery, tenantId [{}], customerId [{}], query [{}]", tenantId, customerId, query);
@@ -172,6 +209,85 @@ public class BaseEntityService extends AbstractEntityService implements EntitySe
         return entityName;
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, String>> fetchEntityNamesAsync(TenantId tenantId, Collection<? extends EntityId> entityIds) {
+        log.trace("Executing fetchEntityNamesAsync [{}]", entityIds);
+        Map<EntityId, String> cachedNames = new HashMap<>();
+        Map<EntityType, Set<UUID>> idsToFetch = new EnumMap<>(EntityType.class);
+        for (EntityId entityId : entityIds) {
+            String name = entityNamesCache != null ? entityNamesCache.getIfPresent(entityId) : null;
+            if (name != null) {
+                cachedNames.put(entityId, name);
+            } else {
+                idsToFetch.computeIfAbsent(entityId.getEntityType(), type -> new LinkedHashSet<>()).add(entityId.getId());
+            }
+        }
+        if (idsToFetch.isEmpty()) {
+            return Futures.immediateFuture(cachedNames);
+        }
+        List<ListenableFuture<Map<EntityId, String>>> futures = new ArrayList<>();
+        idsToFetch.forEach((entityType, ids) -> {
+            if (entityQueryDao.isEntityNameLookupSupported(entityType)) {
+                for (List<UUID> batch : Lists.partition(new ArrayList<>(ids), ENTITY_NAMES_BATCH_SIZE)) {
+                    ListenableFuture<Map<EntityId, String>> batchNames = Futures.transform(entityQueryDao.findEntityNamesByIdsAsync(tenantId, entityType, batch), names -> {
+                        Map<EntityId, String> result = new HashMap<>();
+                        names.forEach((id, name) -> result.put(EntityIdFactory.getByTypeAndUuid(entityType, id), name));
+                        return result;
+                    }, MoreExecutors.directExecutor());
+                    futures.add(Futures.catchingAsync(batchNames, Throwable.class, t -> {
+                        log.debug("[{}] Failed to fetch {} names in bulk, falling back to lookups by id", tenantId, entityType, t);
+                        return fetchEntityNamesById(tenantId, entityType, batch);
+                    }, MoreExecutors.directExecutor()));
+                }
+            } else {
+                futures.add(fetchEntityNamesById(tenantId, entityType, ids));
+            }
+        });
+        return Futures.transform(Futures.allAsList(futures), fetchedNames -> {
+            Map<EntityId, String> result = new HashMap<>(cachedNames);
+            fetchedNames.forEach(names -> names.forEach((entityId, name) -> {
+                if (name != null) {
+                    result.put(entityId, name);
+                    if (entityNamesCache != null) {
+                        entityNamesCache.put(entityId, name);
+                    }
+                }
+            }));
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Fetches the names one by one. The entities that failed to resolve are mapped to null, so a single failure does not fail the whole lookup.
+     */
+    private ListenableFuture<Map<EntityId, String>> fetchEntityNamesById(TenantId tenantId, EntityType entityType, Collection<UUID> ids) {
+        List<EntityId> entityIds = new ArrayList<>(ids.size());
+        List<ListenableFuture<String>> names = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            EntityId entityId = EntityIdFactory.getByTypeAndUuid(entityType, id);
+            entityIds.add(entityId);
+            try {
+                names.add(fetchEntityNameAsync(tenantId, entityId));
+            } catch (Exception e) {
+                names.add(Futures.immediateFailedFuture(e));
+            }
+        }
+        return Futures.transform(Futures.successfulAsList(names), fetchedNames -> {
+            Map<EntityId, String> result = new HashMap<>();
+            for (int i = 0; i < entityIds.size(); i++) {
+                result.put(entityIds.get(i), fetchedNames.get(i));
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void evictEntityName(EntityId entityId) {
+        if (entityNamesCache != null) {
+            entityNamesCache.invalidate(entityId);
+        }
+    }
+
     @Override
     public CustomerId fetchEntityCustomerId(TenantId tenantId, EntityId entityId) {
         log.trace("Executing fetchEntityCustomerId [{}]", entityId);
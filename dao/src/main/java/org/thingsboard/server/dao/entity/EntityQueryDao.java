@@ -15,6 +15,8 @@
  */
 package org.thingsboard.server.dao.entity;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
@@ -22,10 +24,18 @@ import org.thingsboard.server.common.data.query.EntityCountQuery;
 import org.thingsboard.server.common.data.query.EntityData;
 import org.thingsboard.server.common.data.query.EntityDataQuery;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 public interface EntityQueryDao {
 
     long countEntitiesByQuery(TenantId tenantId, CustomerId customerId, EntityCountQuery query);
 
     PageData<EntityData> findEntityDataByQuery(TenantId tenantId, CustomerId customerId, EntityDataQuery query);
 
+    boolean isEntityNameLookupSupported(EntityType entityType);
+
+    ListenableFuture<Map<UUID, String>> findEntityNamesByIdsAsync(TenantId tenantId, EntityType entityType, List<UUID> entityIds);
+
 }
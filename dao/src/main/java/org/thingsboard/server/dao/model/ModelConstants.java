@@ -581,6 +581,25 @@ public class ModelConstants {
     public static final String DOUBLE_VALUE_COLUMN = "dbl_v";
     public static final String JSON_VALUE_COLUMN = "json_v";
 
+    /**
+     * Timeseries rollup constants.
+     */
+    public static final String TS_KV_ROLLUP_CF = "ts_kv_rollup_cf";
+    public static final String TS_KV_ROLLUP_TABLE_NAME = "ts_kv_rollup";
+    public static final String ROLLUP_GRANULARITY_COLUMN = "granularity";
+    public static final String ROLLUP_COUNT_COLUMN = "cnt";
+    public static final String ROLLUP_LONG_COUNT_COLUMN = "long_cnt";
+    public static final String ROLLUP_LONG_SUM_COLUMN = "long_sum";
+    public static final String ROLLUP_LONG_MIN_COLUMN = "long_min";
+    public static final String ROLLUP_LONG_MAX_COLUMN = "long_max";
+    public static final String ROLLUP_DOUBLE_COUNT_COLUMN = "dbl_cnt";
+    public static final String ROLLUP_DOUBLE_SUM_COLUMN = "dbl_sum";
+    public static final String ROLLUP_DOUBLE_MIN_COLUMN = "dbl_min";
+    public static final String ROLLUP_DOUBLE_MAX_COLUMN = "dbl_max";
+    public static final String ROLLUP_FIRST_TS_COLUMN = "first_ts";
+    public static final String ROLLUP_LAST_TS_COLUMN = "last_ts";
+    public static final String ROLLUP_DIRTY_COLUMN = "dirty";
+
     protected static final String[] NONE_AGGREGATION_COLUMNS = new String[]{LONG_VALUE_COLUMN, DOUBLE_VALUE_COLUMN, BOOLEAN_VALUE_COLUMN, STRING_VALUE_COLUMN, JSON_VALUE_COLUMN, KEY_COLUMN, TS_COLUMN};
 
     protected static final String[] COUNT_AGGREGATION_COLUMNS = new String[]{count(LONG_VALUE_COLUMN), count(DOUBLE_VALUE_COLUMN), count(BOOLEAN_VALUE_COLUMN), count(STRING_VALUE_COLUMN), count(JSON_VALUE_COLUMN)};
@@ -52,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
@@ -366,15 +367,9 @@ public class BaseRelationService implements RelationService {
         validateTypeGroup(typeGroup);
         ListenableFuture<List<EntityRelation>> relations = relationDao.findAllByFromAsync(tenantId, from, typeGroup);
         return Futures.transformAsync(relations,
-                relations1 -> {
-                    List<ListenableFuture<EntityRelationInfo>> futures = new ArrayList<>();
-                    relations1.forEach(relation ->
-                            futures.add(fetchRelationInfoAsync(tenantId, relation,
-                                    EntityRelation::getTo,
-                                    EntityRelationInfo::setToName))
-                    );
-                    return Futures.successfulAsList(futures);
-                }, MoreExecutors.directExecutor());
+                relations1 -> fetchRelationsInfoAsync(tenantId, relations1,
+                        EntityRelation::getTo,
+                        EntityRelationInfo::setToName), MoreExecutors.directExecutor());
     }
 
     @Cacheable(cacheNames = RELATIONS_CACHE, key = "{#from, #relationType, #typeGroup, 'FROM'}")
@@ -448,25 +443,28 @@ public class BaseRelationService implements RelationService {
         validateTypeGroup(typeGroup);
         ListenableFuture<List<EntityRelation>> relations = relationDao.findAllByToAsync(tenantId, to, typeGroup);
         return Futures.transformAsync(relations,
-                relations1 -> {
-                    List<ListenableFuture<EntityRelationInfo>> futures = new ArrayList<>();
-                    relations1.forEach(relation ->
-                            futures.add(fetchRelationInfoAsync(tenantId, relation,
-                                    EntityRelation::getFrom,
-                                    EntityRelationInfo::setFromName))
-                    );
-                    return Futures.successfulAsList(futures);
-                }, MoreExecutors.directExecutor());
-    }
-
-    private ListenableFuture<EntityRelationInfo> fetchRelationInfoAsync(TenantId tenantId, EntityRelation relation,
-                                                                        Function<EntityRelation, EntityId> entityIdGetter,
-                                                                        BiConsumer<EntityRelationInfo, String> entityNameSetter) {
-        ListenableFuture<String> entityName = entityService.fetchEntityNameAsync(tenantId, entityIdGetter.apply(relation));
-        return Futures.transform(entityName, entityName1 -> {
-            EntityRelationInfo entityRelationInfo1 = new EntityRelationInfo(relation);
-            entityNameSetter.accept(entityRelationInfo1, entityName1);
-            return entityRelationInfo1;
+                relations1 -> fetchRelationsInfoAsync(tenantId, relations1,
+                        EntityRelation::getFrom,
+                        EntityRelationInfo::setFromName), MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<List<EntityRelationInfo>> fetchRelationsInfoAsync(TenantId tenantId, List<EntityRelation> relations,
+                                                                             Function<EntityRelation, EntityId> entityIdGetter,
+                                                                             BiConsumer<EntityRelationInfo, String> entityNameSetter) {
+        if (relations.isEmpty()) {
+            return Futures.immediateFuture(Collections.emptyList());
+        }
+        Set<EntityId> entityIds = new HashSet<>();
+        relations.forEach(relation -> entityIds.add(entityIdGetter.apply(relation)));
+        ListenableFuture<Map<EntityId, String>> entityNames = entityService.fetchEntityNamesAsync(tenantId, entityIds);
+        return Futures.transform(entityNames, entityNames1 -> {
+            List<EntityRelationInfo> relationInfos = new ArrayList<>(relations.size());
+            for (EntityRelation relation : relations) {
+                EntityRelationInfo entityRelationInfo = new EntityRelationInfo(relation);
+                entityNameSetter.accept(entityRelationInfo, entityNames1.get(entityIdGetter.apply(relation)));
+                relationInfos.add(entityRelationInfo);
+            }
+            return relationInfos;
         }, MoreExecutors.directExecutor());
     }
 
@@ -489,6 +487,14 @@ public class BaseRelationService implements RelationService {
         return relationDao.findAllByToAndType(tenantId, to, relationType, typeGroup);
     }
 
+    @Override
+    public ListenableFuture<List<EntityRelation>> findByToRecursivelyAsync(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup, int maxLevel) {
+        log.trace("Executing findByToRecursively [{}][{}][{}]", to, typeGroup, maxLevel);
+        validate(to);
+        validateTypeGroup(typeGroup);
+        return relationDao.findAllByToRecursivelyAsync(tenantId, to, typeGroup, maxLevel);
+    }
+
     @Override
     public ListenableFuture<List<EntityRelation>> findByQuery(TenantId tenantId, EntityRelationsQuery query) {
         //boolean fetchLastLevelOnly = true;
@@ -528,21 +534,15 @@ public class BaseRelationService implements RelationService {
         ListenableFuture<List<EntityRelation>> relations = findByQuery(tenantId, query);
         EntitySearchDirection direction = query.getParameters().getDirection();
         return Futures.transformAsync(relations,
-                relations1 -> {
-                    List<ListenableFuture<EntityRelationInfo>> futures = new ArrayList<>();
-                    relations1.forEach(relation ->
-                            futures.add(fetchRelationInfoAsync(tenantId, relation,
-                                    relation2 -> direction == EntitySearchDirection.FROM ? relation2.getTo() : relation2.getFrom(),
-                                    (EntityRelationInfo relationInfo, String entityName) -> {
-                                        if (direction == EntitySearchDirection.FROM) {
-                                            relationInfo.setToName(entityName);
-                                        } else {
-                                            relationInfo.setFromName(entityName);
-                                        }
-                                    }))
-                    );
-                    return Futures.successfulAsList(futures);
-                }, MoreExecutors.directExecutor());
+                relations1 -> fetchRelationsInfoAsync(tenantId, relations1,
+                        relation2 -> direction == EntitySearchDirection.FROM ? relation2.getTo() : relation2.getFrom(),
+                        (EntityRelationInfo relationInfo, String entityName) -> {
+                            if (direction == EntitySearchDirection.FROM) {
+                                relationInfo.setToName(entityName);
+                            } else {
+                                relationInfo.setFromName(entityName);
+                            }
+                        }), MoreExecutors.directExecutor());
     }
 
     @Override
@@ -39,6 +39,8 @@ public interface RelationDao {
 
     List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup);
 
+    ListenableFuture<List<EntityRelation>> findAllByToRecursivelyAsync(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup, int maxLevel);
+
     ListenableFuture<List<EntityRelation>> findAllByToAndType(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup);
 
     ListenableFuture<Boolean> checkRelation(TenantId tenantId, EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup);
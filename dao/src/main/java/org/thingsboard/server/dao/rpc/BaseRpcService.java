@@ -28,6 +28,10 @@ import org.thingsboard.server.common.data.rpc.Rpc;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 import org.thingsboard.server.dao.service.PaginatedRemover;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 import static org.thingsboard.server.dao.service.Validator.validateId;
 import static org.thingsboard.server.dao.service.Validator.validatePageLink;
 
@@ -85,6 +89,12 @@ public class BaseRpcService implements RpcService {
         return rpcDao.findAllByDeviceIdAndStatus(tenantId, deviceId, rpcStatus, pageLink);
     }
 
+    @Override
+    public List<Rpc> findAllByStatusAfter(Collection<TenantId> tenantIds, RpcStatus rpcStatus, long createdTime, UUID id, int limit) {
+        log.trace("Executing findAllByStatusAfter, tenantIds [{}], rpcStatus [{}], createdTime [{}], id [{}]", tenantIds, rpcStatus, createdTime, id);
+        return rpcDao.findAllByStatusAfter(tenantIds, rpcStatus, createdTime, id, limit);
+    }
+
     @Override
     public PageData<Rpc> findAllByDeviceId(TenantId tenantId, DeviceId deviceId, PageLink pageLink) {
         log.trace("Executing findAllByDeviceIdAndStatus, tenantId [{}], deviceId [{}], pageLink [{}]", tenantId, deviceId, pageLink);
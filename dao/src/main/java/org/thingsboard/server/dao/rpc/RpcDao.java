@@ -23,6 +23,10 @@ import org.thingsboard.server.common.data.rpc.Rpc;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 import org.thingsboard.server.dao.Dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 public interface RpcDao extends Dao<Rpc> {
     PageData<Rpc> findAllByDeviceId(TenantId tenantId, DeviceId deviceId, PageLink pageLink);
 
@@ -30,5 +34,7 @@ public interface RpcDao extends Dao<Rpc> {
 
     PageData<Rpc> findAllRpcByTenantId(TenantId tenantId, PageLink pageLink);
 
+    List<Rpc> findAllByStatusAfter(Collection<TenantId> tenantIds, RpcStatus rpcStatus, long createdTime, UUID id, int limit);
+
     Long deleteOutdatedRpcByTenantId(TenantId tenantId, Long expirationTime);
 }
@@ -32,4 +32,6 @@ public class TbSqlBlockingQueueParams {
     private final long statsPrintIntervalMs;
     private final String statsNamePrefix;
     private final boolean batchSortEnabled;
+    // 0 means unbounded queue, otherwise the elements that don't fit into the queue are dropped
+    private final int maxQueueSize;
 }
@@ -28,5 +28,5 @@ public interface EntityAlarmRepository extends CrudRepository<EntityAlarmEntity,
     List<EntityAlarmEntity> findAllByAlarmId(UUID alarmId);
 
     @Transactional
-    void deleteByEntityId(UUID id);
+    List<EntityAlarmEntity> deleteByEntityId(UUID id);
 }
@@ -18,6 +18,7 @@ package org.thingsboard.server.dao.sql.alarm;
 import com.google.common.util.concurrent.ListenableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Component;
@@ -49,6 +50,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Created by Valerii Sosliuk on 5/19/2017.
@@ -66,6 +68,9 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
     @Autowired
     private EntityAlarmRepository entityAlarmRepository;
 
+    @Autowired
+    private EntityAlarmInsertRepository entityAlarmInsertRepository;
+
     @Override
     protected Class<AlarmEntity> getEntityClass() {
         return AlarmEntity.class;
@@ -178,6 +183,27 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
         entityAlarmRepository.save(new EntityAlarmEntity(entityAlarm));
     }
 
+    @Override
+    public boolean createEntityAlarmRecords(List<EntityAlarm> entityAlarms) {
+        log.debug("Saving entities {}", entityAlarms);
+        try {
+            entityAlarmInsertRepository.save(entityAlarms.stream().map(EntityAlarmEntity::new).collect(Collectors.toList()));
+            return true;
+        } catch (DataAccessException e) {
+            log.debug("Failed to insert entity alarm records in batch, saving one by one", e);
+            boolean allSaved = true;
+            for (EntityAlarm entityAlarm : entityAlarms) {
+                try {
+                    createEntityAlarmRecord(entityAlarm);
+                } catch (Exception ex) {
+                    log.warn("[{}] Failed to create entity alarm record: {}", entityAlarm.getTenantId(), entityAlarm, ex);
+                    allSaved = false;
+                }
+            }
+            return allSaved;
+        }
+    }
+
     @Override
     public List<EntityAlarm> findEntityAlarmRecords(TenantId tenantId, AlarmId id) {
         log.trace("[{}] Try to find entity alarm records using [{}]", tenantId, id);
@@ -185,8 +211,10 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
     }
 
     @Override
-    public void deleteEntityAlarmRecords(TenantId tenantId, EntityId entityId) {
+    public List<AlarmId> deleteEntityAlarmRecords(TenantId tenantId, EntityId entityId) {
         log.trace("[{}] Try to delete entity alarm records using [{}]", tenantId, entityId);
-        entityAlarmRepository.deleteByEntityId(entityId.getId());
+        return entityAlarmRepository.deleteByEntityId(entityId.getId()).stream()
+                .map(entityAlarm -> new AlarmId(entityAlarm.getAlarmId()))
+                .collect(Collectors.toList());
     }
 }
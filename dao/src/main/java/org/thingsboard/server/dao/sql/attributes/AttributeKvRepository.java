@@ -24,6 +24,7 @@ import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.dao.model.sql.AttributeKvCompositeKey;
 import org.thingsboard.server.dao.model.sql.AttributeKvEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -36,6 +37,15 @@ public interface AttributeKvRepository extends CrudRepository<AttributeKvEntity,
                                                                            @Param("entityId") UUID entityId,
                                                                            @Param("attributeType") String attributeType);
 
+    @Query("SELECT a FROM AttributeKvEntity a WHERE a.id.entityType = :entityType " +
+            "AND a.id.entityId = :entityId " +
+            "AND a.id.attributeType IN :attributeTypes " +
+            "AND a.id.attributeKey IN :attributeKeys")
+    List<AttributeKvEntity> findAllByEntityTypeAndEntityIdAndAttributeTypesAndKeys(@Param("entityType") EntityType entityType,
+                                                                                   @Param("entityId") UUID entityId,
+                                                                                   @Param("attributeTypes") Collection<String> attributeTypes,
+                                                                                   @Param("attributeKeys") Collection<String> attributeKeys);
+
     @Transactional
     @Modifying
     @Query("DELETE FROM AttributeKvEntity a WHERE a.id.entityType = :entityType " +
@@ -39,9 +39,12 @@ import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -127,6 +130,17 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
                 DaoUtil.convertDataList(Lists.newArrayList(attributeKvRepository.findAllById(compositeKeys))));
     }
 
+    @Override
+    public ListenableFuture<Map<String, List<AttributeKvEntry>>> findByTypes(TenantId tenantId, EntityId entityId, Collection<String> attributeTypes, Collection<String> attributeKeys) {
+        return service.submit(() -> {
+            Map<String, List<AttributeKvEntry>> result = new HashMap<>();
+            attributeKvRepository.findAllByEntityTypeAndEntityIdAndAttributeTypesAndKeys(
+                    entityId.getEntityType(), entityId.getId(), attributeTypes, attributeKeys)
+                    .forEach(entity -> result.computeIfAbsent(entity.getId().getAttributeType(), type -> new ArrayList<>()).add(entity.toData()));
+            return result;
+        });
+    }
+
     @Override
     public ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, String attributeType) {
         return Futures.immediateFuture(
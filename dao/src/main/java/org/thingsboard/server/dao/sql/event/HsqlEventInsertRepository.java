@@ -20,6 +20,7 @@ import org.thingsboard.server.dao.model.sql.EventEntity;
 import org.thingsboard.server.dao.util.HsqlDao;
 
 import javax.persistence.Query;
+import java.util.List;
 
 @HsqlDao
 @Repository
@@ -36,6 +37,11 @@ public class HsqlEventInsertRepository extends AbstractEventInsertRepository {
         return saveAndGet(entity, INSERT_OR_UPDATE_ON_P_KEY_CONFLICT, INSERT_OR_UPDATE_ON_UNQ_KEY_CONFLICT);
     }
 
+    @Override
+    public void save(List<EventEntity> entities) {
+        entities.forEach(this::saveOrUpdate);
+    }
+
     @Override
     protected EventEntity doProcessSaveOrUpdate(EventEntity entity, String query) {
         getQuery(entity, query).executeUpdate();
@@ -66,6 +66,7 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DefaultEntityQueryRepository implements EntityQueryRepository {
     private static final Map<EntityType, String> entityTableMap = new HashMap<>();
+    private static final Map<EntityType, String> entityNameQueryMap = new HashMap<>();
     private static final String SELECT_PHONE = " CASE WHEN entity.entity_type = 'TENANT' THEN (select phone from tenant where id = entity_id)" +
             " WHEN entity.entity_type = 'CUSTOMER' THEN (select phone from customer where id = entity_id) END as phone";
     private static final String SELECT_ZIP = " CASE WHEN entity.entity_type = 'TENANT' THEN (select zip from tenant where id = entity_id)" +
@@ -236,6 +237,19 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
         entityTableMap.put(EntityType.TENANT, "tenant");
         entityTableMap.put(EntityType.API_USAGE_STATE, SELECT_API_USAGE_STATE);
         entityTableMap.put(EntityType.EDGE, "edge");
+
+        entityNameQueryMap.put(EntityType.ASSET, "select id, name from asset where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.DEVICE, "select id, name from device where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.ENTITY_VIEW, "select id, name from entity_view where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.EDGE, "select id, name from edge where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.RULE_CHAIN, "select id, name from rule_chain where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.DASHBOARD, "select id, title as name from dashboard where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.CUSTOMER, "select id, title as name from customer where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.TENANT, "select id, title as name from tenant where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.USER, "select id, email as name from tb_user where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.ALARM, "select id, type as name from alarm where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.TB_RESOURCE, "select id, title as name from resource where id in (:entity_ids)");
+        entityNameQueryMap.put(EntityType.OTA_PACKAGE, "select id, title as name from ota_package where id in (:entity_ids)");
     }
 
     public static EntityType[] RELATION_QUERY_ENTITY_TYPES = new EntityType[]{
@@ -465,6 +479,33 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
         });
     }
 
+    public static boolean isEntityNameLookupSupported(EntityType entityType) {
+        return entityNameQueryMap.containsKey(entityType);
+    }
+
+    @Override
+    public Map<UUID, String> findEntityNamesByIds(TenantId tenantId, EntityType entityType, List<UUID> entityIds) {
+        String nameQuery = entityNameQueryMap.get(entityType);
+        if (nameQuery == null) {
+            throw new IllegalArgumentException("Not supported entity type for name lookup: " + entityType);
+        }
+        Map<UUID, String> names = new HashMap<>();
+        if (entityIds.isEmpty()) {
+            return names;
+        }
+        QueryContext ctx = new QueryContext(new QuerySecurityContext(tenantId, null, entityType));
+        ctx.addUuidListParameter("entity_ids", entityIds);
+        long startTs = System.currentTimeMillis();
+        try {
+            jdbcTemplate.query(nameQuery, ctx, rs -> {
+                names.put((UUID) rs.getObject("id"), rs.getString("name"));
+            });
+        } finally {
+            queryLog.logQuery(ctx, nameQuery, System.currentTimeMillis() - startTs);
+        }
+        return names;
+    }
+
     private String buildEntityWhere(QueryContext ctx, EntityFilter entityFilter, List<EntityKeyMapping> entityFieldsFilters) {
         String permissionQuery = this.buildPermissionQuery(ctx, entityFilter);
         String entityFilterQuery = this.buildEntityFilterQuery(ctx, entityFilter);
@@ -15,8 +15,10 @@
  */
 package org.thingsboard.server.dao.sql.query;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
@@ -24,9 +26,14 @@ import org.thingsboard.server.common.data.query.EntityCountQuery;
 import org.thingsboard.server.common.data.query.EntityData;
 import org.thingsboard.server.common.data.query.EntityDataQuery;
 import org.thingsboard.server.dao.entity.EntityQueryDao;
+import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
-public class JpaEntityQueryDao implements EntityQueryDao {
+public class JpaEntityQueryDao extends JpaAbstractDaoListeningExecutorService implements EntityQueryDao {
 
     @Autowired
     private EntityQueryRepository entityQueryRepository;
@@ -40,4 +47,14 @@ public class JpaEntityQueryDao implements EntityQueryDao {
     public PageData<EntityData> findEntityDataByQuery(TenantId tenantId, CustomerId customerId, EntityDataQuery query) {
         return entityQueryRepository.findEntityDataByQuery(tenantId, customerId, query);
     }
+
+    @Override
+    public boolean isEntityNameLookupSupported(EntityType entityType) {
+        return DefaultEntityQueryRepository.isEntityNameLookupSupported(entityType);
+    }
+
+    @Override
+    public ListenableFuture<Map<UUID, String>> findEntityNamesByIdsAsync(TenantId tenantId, EntityType entityType, List<UUID> entityIds) {
+        return service.submit(() -> entityQueryRepository.findEntityNamesByIds(tenantId, entityType, entityIds));
+    }
 }
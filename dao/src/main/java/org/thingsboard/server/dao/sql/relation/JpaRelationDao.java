@@ -37,7 +37,12 @@ import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 
 import javax.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Created by Valerii Sosliuk on 5/29/2017.
@@ -90,6 +95,39 @@ public class JpaRelationDao extends JpaAbstractDaoListeningExecutorService imple
                         typeGroup.name()));
     }
 
+    @Override
+    public ListenableFuture<List<EntityRelation>> findAllByToRecursivelyAsync(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup, int maxLevel) {
+        return service.submit(() -> limitLevel(DaoUtil.convertDataList(
+                relationRepository.findAllByToIdAndToTypeAndRelationTypeGroupRecursively(
+                        to.getId(),
+                        to.getEntityType().name(),
+                        typeGroup.name())), to, maxLevel));
+    }
+
+    /**
+     * Keeps the relations found within the given number of levels from the entity, level by level.
+     */
+    private static List<EntityRelation> limitLevel(List<EntityRelation> relations, EntityId to, int maxLevel) {
+        Map<EntityId, List<EntityRelation>> relationsByTo = relations.stream().collect(Collectors.groupingBy(EntityRelation::getTo));
+        List<EntityRelation> result = new ArrayList<>(relations.size());
+        Set<EntityId> visited = new HashSet<>();
+        visited.add(to);
+        List<EntityId> level = Collections.singletonList(to);
+        for (int lvl = 0; lvl < maxLevel && !level.isEmpty(); lvl++) {
+            List<EntityId> nextLevel = new ArrayList<>();
+            for (EntityId entityId : level) {
+                for (EntityRelation relation : relationsByTo.getOrDefault(entityId, Collections.emptyList())) {
+                    result.add(relation);
+                    if (visited.add(relation.getFrom())) {
+                        nextLevel.add(relation.getFrom());
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return result;
+    }
+
     @Override
     public ListenableFuture<List<EntityRelation>> findAllByToAndType(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup) {
         return service.submit(() -> DaoUtil.convertDataList(
@@ -57,6 +57,26 @@ public interface RelationRepository
     List<RelationEntity> findAllByFromIdAndFromType(UUID fromId,
                                                     String fromType);
 
+    /**
+     * The rows of the recursive part are the relations themselves, so the union stops at the relations that are already
+     * found: each relation is visited once, however many paths lead to it and even if the relations form a cycle.
+     */
+    @Query(value = "WITH RECURSIVE related_entities(from_id, from_type, to_id, to_type, relation_type) AS (" +
+            " SELECT from_id, from_type, to_id, to_type, relation_type FROM relation" +
+            " WHERE to_id = :toId AND to_type = :toType AND relation_type_group = :relationTypeGroup" +
+            " UNION" +
+            " SELECT r.from_id, r.from_type, r.to_id, r.to_type, r.relation_type FROM relation r" +
+            " INNER JOIN related_entities re ON r.to_id = re.from_id AND r.to_type = re.from_type" +
+            " WHERE r.relation_type_group = :relationTypeGroup)" +
+            " SELECT r.* FROM relation r" +
+            " INNER JOIN related_entities re" +
+            " ON r.from_id = re.from_id AND r.from_type = re.from_type AND r.to_id = re.to_id AND r.to_type = re.to_type" +
+            " AND r.relation_type = re.relation_type AND r.relation_type_group = :relationTypeGroup",
+            nativeQuery = true)
+    List<RelationEntity> findAllByToIdAndToTypeAndRelationTypeGroupRecursively(@Param("toId") UUID toId,
+                                                                               @Param("toType") String toType,
+                                                                               @Param("relationTypeGroup") String relationTypeGroup);
+
     @Query("SELECT r FROM RelationEntity r WHERE " +
             "r.relationTypeGroup = 'RULE_NODE' AND r.toType = 'RULE_CHAIN' " +
             "AND r.toId in (SELECT id from RuleChainEntity where type = :ruleChainType )")
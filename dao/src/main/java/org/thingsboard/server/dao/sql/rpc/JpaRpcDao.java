@@ -17,6 +17,7 @@ package org.thingsboard.server.dao.sql.rpc;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.common.data.id.DeviceId;
@@ -30,7 +31,10 @@ import org.thingsboard.server.dao.model.sql.RpcEntity;
 import org.thingsboard.server.dao.rpc.RpcDao;
 import org.thingsboard.server.dao.sql.JpaAbstractDao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -64,6 +68,16 @@ public class JpaRpcDao extends JpaAbstractDao<RpcEntity, Rpc> implements RpcDao
         return DaoUtil.toPageData(rpcRepository.findAllByTenantId(tenantId.getId(), DaoUtil.toPageable(pageLink)));
     }
 
+    @Override
+    public List<Rpc> findAllByStatusAfter(Collection<TenantId> tenantIds, RpcStatus rpcStatus, long createdTime, UUID id, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        if (tenantIds == null) {
+            return DaoUtil.convertDataList(rpcRepository.findAllByStatusAfter(rpcStatus, createdTime, id, pageRequest));
+        }
+        List<UUID> tenantUuids = tenantIds.stream().map(TenantId::getId).collect(Collectors.toList());
+        return DaoUtil.convertDataList(rpcRepository.findAllByTenantIdInAndStatusAfter(tenantUuids, rpcStatus, createdTime, id, pageRequest));
+    }
+
     @Override
     public Long deleteOutdatedRpcByTenantId(TenantId tenantId, Long expirationTime) {
         return rpcRepository.deleteOutdatedRpcByTenantId(tenantId.getId(), expirationTime);
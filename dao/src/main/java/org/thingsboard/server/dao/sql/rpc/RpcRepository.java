@@ -23,6 +23,8 @@ import org.springframework.data.repository.query.Param;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 import org.thingsboard.server.dao.model.sql.RpcEntity;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface RpcRepository extends CrudRepository<RpcEntity, UUID> {
@@ -32,6 +34,23 @@ public interface RpcRepository extends CrudRepository<RpcEntity, UUID> {
 
     Page<RpcEntity> findAllByTenantId(UUID tenantId, Pageable pageable);
 
+    @Query("SELECT r FROM RpcEntity r WHERE r.status = :status " +
+            "AND (r.createdTime > :createdTime OR (r.createdTime = :createdTime AND r.id > :id)) " +
+            "ORDER BY r.createdTime, r.id")
+    List<RpcEntity> findAllByStatusAfter(@Param("status") RpcStatus status,
+                                         @Param("createdTime") long createdTime,
+                                         @Param("id") UUID id,
+                                         Pageable pageable);
+
+    @Query("SELECT r FROM RpcEntity r WHERE r.tenantId IN :tenantIds AND r.status = :status " +
+            "AND (r.createdTime > :createdTime OR (r.createdTime = :createdTime AND r.id > :id)) " +
+            "ORDER BY r.createdTime, r.id")
+    List<RpcEntity> findAllByTenantIdInAndStatusAfter(@Param("tenantIds") Collection<UUID> tenantIds,
+                                                      @Param("status") RpcStatus status,
+                                                      @Param("createdTime") long createdTime,
+                                                      @Param("id") UUID id,
+                                                      Pageable pageable);
+
     @Query(value = "WITH deleted AS (DELETE FROM rpc WHERE (tenant_id = :tenantId AND created_time < :expirationTime) IS TRUE RETURNING *) SELECT count(*) FROM deleted",
             nativeQuery = true)
     Long deleteOutdatedRpcByTenantId(@Param("tenantId") UUID tenantId, @Param("expirationTime") Long expirationTime);
@@ -26,6 +26,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 
 import javax.annotation.Nullable;
@@ -35,7 +36,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,6 +46,9 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
 
     protected static final long SECONDS_IN_DAY = TimeUnit.DAYS.toSeconds(1);
 
+    private static final String EXPORT_QUERY = "SELECT ts, bool_v, str_v, long_v, dbl_v, json_v FROM ts_kv " +
+            "WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? ORDER BY ts ASC";
+
     @Autowired
     protected ScheduledLogExecutorComponent logExecutor;
 
@@ -67,6 +73,9 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
     private long systemTtl;
 
+    @Value("${sql.ts.export_fetch_size:1000}")
+    private int exportFetchSize;
+
     public void cleanup(long systemTtl) {
         log.info("Going to cleanup old timeseries data using ttl: {}s", systemTtl);
         try (Connection connection = dataSource.getConnection();
@@ -86,6 +95,48 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
         }
     }
 
+    public void exportAll(TenantId tenantId, EntityId entityId, String key, long startTs, long endTs, Consumer<TsKvEntry> consumer) {
+        Optional<Integer> keyId = findKeyId(key);
+        if (keyId.isEmpty()) {
+            // the key was never saved, so there is nothing to export
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            // PostgreSQL only honors the fetch size when the cursor is opened inside a transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(exportFetchSize);
+                stmt.setObject(1, entityId.getId());
+                stmt.setInt(2, keyId.get());
+                stmt.setLong(3, startTs);
+                stmt.setLong(4, endTs);
+                try (ResultSet resultSet = stmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        consumer.accept(toTsKvEntry(key, resultSet));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            log.warn("[{}][{}] Failed to export timeseries for key {}", tenantId, entityId, key, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private TsKvEntry toTsKvEntry(String key, ResultSet resultSet) throws SQLException {
+        TsKvEntity entity = new TsKvEntity();
+        entity.setStrKey(key);
+        entity.setTs(resultSet.getLong(1));
+        entity.setBooleanValue(resultSet.getObject(2, Boolean.class));
+        entity.setStrValue(resultSet.getString(3));
+        entity.setLongValue(resultSet.getObject(4, Long.class));
+        entity.setDoubleValue(resultSet.getObject(5, Double.class));
+        entity.setJsonValue(resultSet.getString(6));
+        return entity.toData();
+    }
+
     protected ListenableFuture<List<TsKvEntry>> processFindAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         List<ListenableFuture<List<TsKvEntry>>> futures = queries
                 .stream()
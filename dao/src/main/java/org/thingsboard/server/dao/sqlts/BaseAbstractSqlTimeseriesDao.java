@@ -81,6 +81,19 @@ public abstract class BaseAbstractSqlTimeseriesDao extends JpaAbstractDaoListeni
         return keyId;
     }
 
+    protected Optional<Integer> findKeyId(String strKey) {
+        Integer keyId = tsKvDictionaryMap.get(strKey);
+        if (keyId == null) {
+            Optional<TsKvDictionary> tsKvDictionaryOptional = dictionaryRepository.findById(new TsKvDictionaryCompositeKey(strKey));
+            if (tsKvDictionaryOptional.isEmpty()) {
+                return Optional.empty();
+            }
+            keyId = tsKvDictionaryOptional.get().getKeyId();
+            tsKvDictionaryMap.put(strKey, keyId);
+        }
+        return Optional.of(keyId);
+    }
+
     protected ListenableFuture<List<TsKvEntry>> getTskvEntriesFuture(ListenableFuture<List<Optional<TsKvEntry>>> future) {
         return Futures.transform(future, new Function<List<Optional<TsKvEntry>>, List<TsKvEntry>>() {
             @Nullable
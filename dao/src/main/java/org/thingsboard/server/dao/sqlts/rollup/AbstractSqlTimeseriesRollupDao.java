@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
+import org.thingsboard.server.dao.timeseries.TimeseriesRollupDao;
+import org.thingsboard.server.dao.timeseries.TsKvRollup;
+import org.thingsboard.server.dao.timeseries.TsRollupGranularity;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public abstract class AbstractSqlTimeseriesRollupDao extends JpaAbstractDaoListeningExecutorService implements TimeseriesRollupDao {
+
+    protected static final String COLUMNS = "entity_id, key, granularity, ts, cnt, long_cnt, long_sum, long_min, long_max, dbl_cnt, dbl_sum, dbl_min, dbl_max, first_ts, last_ts, dirty";
+
+    private static final String SELECT_BY_RANGE = "SELECT ts, cnt, long_cnt, long_sum, long_min, long_max, dbl_cnt, dbl_sum, dbl_min, dbl_max, first_ts, last_ts, dirty FROM ts_kv_rollup " +
+            "WHERE entity_id = ? AND key = ? AND granularity = ? AND ts >= ? AND ts < ? ORDER BY ts";
+
+    private static final String DELETE_BY_RANGE = "DELETE FROM ts_kv_rollup WHERE entity_id = ? AND key = ? AND granularity = ? AND ts >= ? AND ts < ?";
+
+    private static final String DELETE_EXPIRED = "DELETE FROM ts_kv_rollup WHERE granularity = ? AND ts < ?";
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    protected abstract String getUpsertQuery();
+
+    @Override
+    public ListenableFuture<Void> save(TenantId tenantId, List<TsKvRollup> rollups) {
+        return service.submit(() -> {
+            jdbcTemplate.batchUpdate(getUpsertQuery(), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    TsKvRollup rollup = rollups.get(i);
+                    ps.setObject(1, rollup.getEntityId().getId());
+                    ps.setString(2, rollup.getKey());
+                    ps.setString(3, rollup.getGranularity().name());
+                    ps.setLong(4, rollup.getTs());
+                    ps.setLong(5, rollup.getCount());
+                    ps.setLong(6, rollup.getLongCount());
+                    ps.setLong(7, rollup.getLongSum());
+                    if (rollup.getLongCount() > 0) {
+                        ps.setLong(8, rollup.getLongMin());
+                        ps.setLong(9, rollup.getLongMax());
+                    } else {
+                        ps.setNull(8, Types.BIGINT);
+                        ps.setNull(9, Types.BIGINT);
+                    }
+                    ps.setLong(10, rollup.getDoubleCount());
+                    ps.setDouble(11, rollup.getDoubleSum());
+                    if (rollup.getDoubleCount() > 0) {
+                        ps.setDouble(12, rollup.getDoubleMin());
+                        ps.setDouble(13, rollup.getDoubleMax());
+                    } else {
+                        ps.setNull(12, Types.DOUBLE);
+                        ps.setNull(13, Types.DOUBLE);
+                    }
+                    if (rollup.getCount() > 0) {
+                        ps.setLong(14, rollup.getFirstTs());
+                        ps.setLong(15, rollup.getLastTs());
+                    } else {
+                        ps.setNull(14, Types.BIGINT);
+                        ps.setNull(15, Types.BIGINT);
+                    }
+                    ps.setBoolean(16, rollup.isDirty());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rollups.size();
+                }
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public ListenableFuture<List<TsKvRollup>> findAllAsync(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs) {
+        return service.submit(() -> jdbcTemplate.query(SELECT_BY_RANGE,
+                (rs, rowNum) -> toRollup(rs, entityId, key, granularity),
+                entityId.getId(), key, granularity.name(), startTs, endTs));
+    }
+
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs) {
+        return service.submit(() -> {
+            jdbcTemplate.update(DELETE_BY_RANGE, entityId.getId(), key, granularity.name(), startTs, endTs);
+            return null;
+        });
+    }
+
+    @Override
+    public void cleanup(long systemTtl) {
+        if (systemTtl <= 0) {
+            return;
+        }
+        long expirationTs = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(systemTtl);
+        for (TsRollupGranularity granularity : TsRollupGranularity.values()) {
+            int removed = jdbcTemplate.update(DELETE_EXPIRED, granularity.name(), expirationTs - granularity.getDurationMs());
+            log.info("Total {} timeseries rollups removed by TTL: [{}]", granularity, removed);
+        }
+    }
+
+    private static TsKvRollup toRollup(ResultSet rs, EntityId entityId, String key, TsRollupGranularity granularity) throws SQLException {
+        TsKvRollup rollup = new TsKvRollup(entityId, key, granularity, rs.getLong("ts"));
+        rollup.setCount(rs.getLong("cnt"));
+        rollup.setLongCount(rs.getLong("long_cnt"));
+        rollup.setLongSum(rs.getLong("long_sum"));
+        rollup.setLongMin(rs.getLong("long_min"));
+        rollup.setLongMax(rs.getLong("long_max"));
+        rollup.setDoubleCount(rs.getLong("dbl_cnt"));
+        rollup.setDoubleSum(rs.getDouble("dbl_sum"));
+        rollup.setDoubleMin(rs.getDouble("dbl_min"));
+        rollup.setDoubleMax(rs.getDouble("dbl_max"));
+        rollup.setFirstTs(rs.getLong("first_ts"));
+        rollup.setLastTs(rs.getLong("last_ts"));
+        rollup.setDirty(rs.getBoolean("dirty"));
+        return rollup;
+    }
+
+}
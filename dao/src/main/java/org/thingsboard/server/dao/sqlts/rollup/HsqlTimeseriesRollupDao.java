@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.dao.util.HsqlDao;
+import org.thingsboard.server.dao.util.SqlTsAnyDao;
+
+@SqlTsAnyDao
+@HsqlDao
+@Repository
+public class HsqlTimeseriesRollupDao extends AbstractSqlTimeseriesRollupDao {
+
+    private static final String UPSERT =
+            "MERGE INTO ts_kv_rollup USING(VALUES ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "T (" + COLUMNS + ") " +
+                    "ON (ts_kv_rollup.entity_id = T.entity_id " +
+                    "AND ts_kv_rollup.key = T.key " +
+                    "AND ts_kv_rollup.granularity = T.granularity " +
+                    "AND ts_kv_rollup.ts = T.ts) " +
+                    "WHEN MATCHED THEN UPDATE SET ts_kv_rollup.cnt = ts_kv_rollup.cnt + T.cnt, " +
+                    "ts_kv_rollup.long_cnt = ts_kv_rollup.long_cnt + T.long_cnt, " +
+                    "ts_kv_rollup.long_sum = ts_kv_rollup.long_sum + T.long_sum, " +
+                    "ts_kv_rollup.long_min = LEAST(COALESCE(ts_kv_rollup.long_min, T.long_min), COALESCE(T.long_min, ts_kv_rollup.long_min)), " +
+                    "ts_kv_rollup.long_max = GREATEST(COALESCE(ts_kv_rollup.long_max, T.long_max), COALESCE(T.long_max, ts_kv_rollup.long_max)), " +
+                    "ts_kv_rollup.dbl_cnt = ts_kv_rollup.dbl_cnt + T.dbl_cnt, " +
+                    "ts_kv_rollup.dbl_sum = ts_kv_rollup.dbl_sum + T.dbl_sum, " +
+                    "ts_kv_rollup.dbl_min = LEAST(COALESCE(ts_kv_rollup.dbl_min, T.dbl_min), COALESCE(T.dbl_min, ts_kv_rollup.dbl_min)), " +
+                    "ts_kv_rollup.dbl_max = GREATEST(COALESCE(ts_kv_rollup.dbl_max, T.dbl_max), COALESCE(T.dbl_max, ts_kv_rollup.dbl_max)), " +
+                    "ts_kv_rollup.first_ts = LEAST(COALESCE(ts_kv_rollup.first_ts, T.first_ts), COALESCE(T.first_ts, ts_kv_rollup.first_ts)), " +
+                    "ts_kv_rollup.last_ts = GREATEST(COALESCE(ts_kv_rollup.last_ts, T.last_ts), COALESCE(T.last_ts, ts_kv_rollup.last_ts)), " +
+                    "ts_kv_rollup.dirty = ts_kv_rollup.dirty OR T.dirty " +
+                    "OR COALESCE(T.first_ts <= ts_kv_rollup.last_ts AND ts_kv_rollup.first_ts <= T.last_ts, false) " +
+                    "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") " +
+                    "VALUES (T.entity_id, T.key, T.granularity, T.ts, T.cnt, T.long_cnt, T.long_sum, T.long_min, T.long_max, T.dbl_cnt, T.dbl_sum, T.dbl_min, T.dbl_max, T.first_ts, T.last_ts, T.dirty);";
+
+    @Override
+    protected String getUpsertQuery() {
+        return UPSERT;
+    }
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.dao.util.PsqlDao;
+import org.thingsboard.server.dao.util.SqlTsAnyDao;
+
+@SqlTsAnyDao
+@PsqlDao
+@Repository
+public class PsqlTimeseriesRollupDao extends AbstractSqlTimeseriesRollupDao {
+
+    private static final String UPSERT = "INSERT INTO ts_kv_rollup (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (entity_id, key, granularity, ts) DO UPDATE SET " +
+            "cnt = ts_kv_rollup.cnt + excluded.cnt, " +
+            "long_cnt = ts_kv_rollup.long_cnt + excluded.long_cnt, " +
+            "long_sum = ts_kv_rollup.long_sum + excluded.long_sum, " +
+            "long_min = LEAST(ts_kv_rollup.long_min, excluded.long_min), " +
+            "long_max = GREATEST(ts_kv_rollup.long_max, excluded.long_max), " +
+            "dbl_cnt = ts_kv_rollup.dbl_cnt + excluded.dbl_cnt, " +
+            "dbl_sum = ts_kv_rollup.dbl_sum + excluded.dbl_sum, " +
+            "dbl_min = LEAST(ts_kv_rollup.dbl_min, excluded.dbl_min), " +
+            "dbl_max = GREATEST(ts_kv_rollup.dbl_max, excluded.dbl_max), " +
+            "first_ts = LEAST(ts_kv_rollup.first_ts, excluded.first_ts), " +
+            "last_ts = GREATEST(ts_kv_rollup.last_ts, excluded.last_ts), " +
+            "dirty = ts_kv_rollup.dirty OR excluded.dirty " +
+            "OR COALESCE(excluded.first_ts <= ts_kv_rollup.last_ts AND ts_kv_rollup.first_ts <= excluded.last_ts, false);";
+
+    @Override
+    protected String getUpsertQuery() {
+        return UPSERT;
+    }
+
+}
@@ -45,6 +45,7 @@ import org.thingsboard.server.dao.service.Validator;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -86,6 +87,9 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Autowired
     private EntityViewService entityViewService;
 
+    @Autowired(required = false)
+    private TimeseriesRollupService timeseriesRollupService;
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAll(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         validate(entityId);
@@ -98,7 +102,14 @@ public class BaseTimeseriesService implements TimeseriesService {
                     queries.stream()
                             .filter(query -> keys.isEmpty() || keys.contains(query.getKey()))
                             .collect(Collectors.toList());
-            return timeseriesDao.findAllAsync(tenantId, entityView.getEntityId(), updateQueriesForEntityView(entityView, filteredQueries));
+            return findAllAsync(tenantId, entityView.getEntityId(), updateQueriesForEntityView(entityView, filteredQueries));
+        }
+        return findAllAsync(tenantId, entityId, queries);
+    }
+
+    private ListenableFuture<List<TsKvEntry>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
+        if (timeseriesRollupService != null) {
+            return timeseriesRollupService.findAllAsync(tenantId, entityId, queries);
         }
         return timeseriesDao.findAllAsync(tenantId, entityId, queries);
     }
@@ -118,6 +129,27 @@ public class BaseTimeseriesService implements TimeseriesService {
         return timeseriesLatestDao.findAllLatest(tenantId, entityId);
     }
 
+    @Override
+    public void exportAll(TenantId tenantId, EntityId entityId, List<String> keys, long startTs, long endTs, Consumer<TsKvEntry> consumer) {
+        validate(entityId);
+        keys.forEach(key -> Validator.validateString(key, "Incorrect key " + key));
+        if (startTs > endTs) {
+            throw new IncorrectParameterException("Incorrect time range: start ts is after end ts");
+        }
+        if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
+            EntityView entityView = entityViewService.findEntityViewById(tenantId, (EntityViewId) entityId);
+            List<String> viewKeys = entityView.getKeys() != null && entityView.getKeys().getTimeseries() != null ?
+                    entityView.getKeys().getTimeseries() : Collections.emptyList();
+            long viewStartTs = entityView.getStartTimeMs() != 0 ? Math.max(startTs, entityView.getStartTimeMs()) : startTs;
+            long viewEndTs = entityView.getEndTimeMs() != 0 ? Math.min(endTs, entityView.getEndTimeMs()) : endTs;
+            keys.stream()
+                    .filter(key -> viewKeys.isEmpty() || viewKeys.contains(key))
+                    .forEach(key -> timeseriesDao.exportAll(tenantId, entityView.getEntityId(), key, viewStartTs, viewEndTs, consumer));
+            return;
+        }
+        keys.forEach(key -> timeseriesDao.exportAll(tenantId, entityId, key, startTs, endTs, consumer));
+    }
+
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
         return timeseriesLatestDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId);
@@ -131,6 +163,9 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Override
     public void cleanup(long systemTtl) {
         timeseriesDao.cleanup(systemTtl);
+        if (timeseriesRollupService != null) {
+            timeseriesRollupService.cleanup(systemTtl);
+        }
     }
 
     @Override
@@ -197,6 +232,9 @@ public class BaseTimeseriesService implements TimeseriesService {
         }
         futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
         futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
+        if (timeseriesRollupService != null) {
+            timeseriesRollupService.update(tenantId, entityId, tsKvEntry);
+        }
     }
 
     private List<ReadTsKvQuery> updateQueriesForEntityView(EntityView entityView, List<ReadTsKvQuery> queries) {
@@ -257,6 +295,9 @@ public class BaseTimeseriesService implements TimeseriesService {
         futures.add(Futures.transform(timeseriesDao.remove(tenantId, entityId, query), v -> null, MoreExecutors.directExecutor()));
         futures.add(timeseriesLatestDao.removeLatest(tenantId, entityId, query));
         futures.add(Futures.transform(timeseriesDao.removePartition(tenantId, entityId, query), v -> null, MoreExecutors.directExecutor()));
+        if (timeseriesRollupService != null) {
+            futures.add(Futures.transform(timeseriesRollupService.remove(tenantId, entityId, query), v -> null, MoreExecutors.directExecutor()));
+        }
     }
 
     private static void validate(EntityId entityId) {
@@ -20,6 +20,7 @@ import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.select.Select;
 import com.google.common.base.Function;
@@ -56,14 +57,18 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
@@ -99,6 +104,9 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
     @Value("${cassandra.query.set_null_values_enabled}")
     private boolean setNullValuesEnabled;
 
+    @Value("${cassandra.query.ts_read_ahead_partitions:4}")
+    private int readAheadPartitions;
+
     private NoSqlTsPartitionDate tsFormat;
 
     private PreparedStatement partitionInsertStmt;
@@ -291,6 +299,37 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         }
     }
 
+    @Override
+    public void exportAll(TenantId tenantId, EntityId entityId, String key, long startTs, long endTs, Consumer<TsKvEntry> consumer) {
+        List<Long> partitions;
+        try {
+            partitions = getPartitionsFuture(tenantId, new BaseReadTsKvQuery(key, startTs, endTs), entityId, toPartitionTs(startTs), toPartitionTs(endTs)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        PreparedStatement proto = getExportStmt();
+        for (Long partition : partitions) {
+            BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(proto.bind());
+            stmtBuilder.setString(0, entityId.getEntityType().name());
+            stmtBuilder.setUuid(1, entityId.getId());
+            stmtBuilder.setString(2, key);
+            stmtBuilder.setLong(3, partition);
+            stmtBuilder.setLong(4, startTs);
+            stmtBuilder.setLong(5, endTs);
+            Statement<?> stmt = stmtBuilder.build();
+            while (true) {
+                AsyncResultSet resultSet = executeRead(tenantId, stmt);
+                for (Row row : resultSet.currentPage()) {
+                    consumer.accept(convertResultToTsKvEntry(key, row));
+                }
+                if (!resultSet.hasMorePages()) {
+                    break;
+                }
+                stmt = stmt.setPagingState(resultSet.getExecutionInfo().getPagingState());
+            }
+        }
+    }
+
     @Override
     public void cleanup(long systemTtl) {
         //Cleanup by TTL is native for Cassandra
@@ -306,12 +345,13 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             @Override
             public void onSuccess(@Nullable List<Long> partitions) {
                 TsKvQueryCursor cursor = new TsKvQueryCursor(entityId.getEntityType().name(), entityId.getId(), query, partitions);
-                findAllAsyncSequentiallyWithLimit(tenantId, cursor, resultFuture);
+                findAllAsyncSequentiallyWithLimit(tenantId, cursor, new ArrayDeque<>(), resultFuture);
             }
 
             @Override
             public void onFailure(Throwable t) {
                 log.error("[{}][{}] Failed to fetch partitions for interval {}-{}", entityId.getEntityType().name(), entityId.getId(), toPartitionTs(query.getStartTs()), toPartitionTs(query.getEndTs()), t);
+                resultFuture.setException(t);
             }
         }, readResultsProcessingExecutor);
 
@@ -323,56 +363,69 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         return tsFormat.truncatedTo(time).toInstant(ZoneOffset.UTC).toEpochMilli();
     }
 
-    private void findAllAsyncSequentiallyWithLimit(TenantId tenantId, final TsKvQueryCursor cursor, final SimpleListenableFuture<List<TsKvEntry>> resultFuture) {
-        if (cursor.isFull() || !cursor.hasNextPartition()) {
+    /**
+     * Reads the partitions in the cursor order, keeping up to {@code readAheadPartitions} partition queries in flight.
+     * Partitions are consumed strictly in order and pages of a partition are fetched only while the limit is not reached,
+     * so the read-ahead queries issued before the limit was reached are the only extra work.
+     */
+    private void findAllAsyncSequentiallyWithLimit(TenantId tenantId, final TsKvQueryCursor cursor, final Queue<TbResultSetFuture> readAhead,
+                                                   final SimpleListenableFuture<List<TsKvEntry>> resultFuture) {
+        if (!cursor.isFull()) {
+            while (readAhead.size() < Math.max(1, readAheadPartitions) && cursor.hasNextPartition()) {
+                readAhead.add(executeAsyncRead(tenantId, getFetchWithLimitStmt(cursor, cursor.getNextPartition())));
+            }
+        }
+        if (cursor.isFull() || readAhead.isEmpty()) {
             resultFuture.set(cursor.getData());
         } else {
-            PreparedStatement proto = getFetchStmt(Aggregation.NONE, cursor.getOrderBy());
-            BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(proto.bind());
-
-            stmtBuilder.setString(0, cursor.getEntityType());
-            stmtBuilder.setUuid(1, cursor.getEntityId());
-            stmtBuilder.setString(2, cursor.getKey());
-            stmtBuilder.setLong(3, cursor.getNextPartition());
-            stmtBuilder.setLong(4, cursor.getStartTs());
-            stmtBuilder.setLong(5, cursor.getEndTs());
-            stmtBuilder.setInt(6, cursor.getCurrentLimit());
-
-            BoundStatement stmt = stmtBuilder.build();
-
-            Futures.addCallback(executeAsyncRead(tenantId, stmt), new FutureCallback<TbResultSet>() {
+            TbResultSetFuture partitionFuture = readAhead.poll();
+            Futures.addCallback(partitionFuture, new FutureCallback<TbResultSet>() {
                 @Override
                 public void onSuccess(@Nullable TbResultSet result) {
                     if (result == null) {
-                        cursor.addData(convertResultToTsKvEntryList(Collections.emptyList()));
-                        findAllAsyncSequentiallyWithLimit(tenantId, cursor, resultFuture);
+                        findAllAsyncSequentiallyWithLimit(tenantId, cursor, readAhead, resultFuture);
                     } else {
-                        Futures.addCallback(result.allRows(readResultsProcessingExecutor), new FutureCallback<List<Row>>() {
+                        Futures.addCallback(result.rows(readResultsProcessingExecutor, cursor.getCurrentLimit()), new FutureCallback<List<Row>>() {
 
                             @Override
                             public void onSuccess(@Nullable List<Row> result) {
                                 cursor.addData(convertResultToTsKvEntryList(result == null ? Collections.emptyList() : result));
-                                findAllAsyncSequentiallyWithLimit(tenantId, cursor, resultFuture);
+                                findAllAsyncSequentiallyWithLimit(tenantId, cursor, readAhead, resultFuture);
                             }
 
                             @Override
                             public void onFailure(Throwable t) {
-                                log.error("[{}][{}] Failed to fetch data for query {}-{}", stmt, t);
+                                log.error("[{}][{}] Failed to fetch data for key {}", cursor.getEntityType(), cursor.getEntityId(), cursor.getKey(), t);
+                                resultFuture.setException(t);
                             }
                         }, readResultsProcessingExecutor);
-
-
                     }
                 }
 
                 @Override
                 public void onFailure(Throwable t) {
-                    log.error("[{}][{}] Failed to fetch data for query {}-{}", stmt, t);
+                    log.error("[{}][{}] Failed to fetch data for key {}", cursor.getEntityType(), cursor.getEntityId(), cursor.getKey(), t);
+                    resultFuture.setException(t);
                 }
             }, readResultsProcessingExecutor);
         }
     }
 
+    private BoundStatement getFetchWithLimitStmt(TsKvQueryCursor cursor, long partition) {
+        PreparedStatement proto = getFetchStmt(Aggregation.NONE, cursor.getOrderBy());
+        BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(proto.bind());
+
+        stmtBuilder.setString(0, cursor.getEntityType());
+        stmtBuilder.setUuid(1, cursor.getEntityId());
+        stmtBuilder.setString(2, cursor.getKey());
+        stmtBuilder.setLong(3, partition);
+        stmtBuilder.setLong(4, cursor.getStartTs());
+        stmtBuilder.setLong(5, cursor.getEndTs());
+        stmtBuilder.setInt(6, cursor.getCurrentLimit());
+
+        return stmtBuilder.build();
+    }
+
     private ListenableFuture<Optional<TsKvEntry>> findAndAggregateAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query, long minPartition, long maxPartition) {
         final Aggregation aggregation = query.getAggregation();
         final String key = query.getKey();
@@ -793,6 +846,18 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         }
     }
 
+    private PreparedStatement getExportStmt() {
+        return prepare(SELECT_PREFIX +
+                String.join(", ", ModelConstants.getFetchColumnNames(Aggregation.NONE)) + " FROM " + ModelConstants.TS_KV_CF
+                + " WHERE " + ModelConstants.ENTITY_TYPE_COLUMN + EQUALS_PARAM
+                + "AND " + ModelConstants.ENTITY_ID_COLUMN + EQUALS_PARAM
+                + "AND " + ModelConstants.KEY_COLUMN + EQUALS_PARAM
+                + "AND " + ModelConstants.PARTITION_COLUMN + EQUALS_PARAM
+                + "AND " + ModelConstants.TS_COLUMN + " >= ? "
+                + "AND " + ModelConstants.TS_COLUMN + " < ?"
+                + " ORDER BY " + ModelConstants.TS_COLUMN + " " + ASC_ORDER);
+    }
+
     private PreparedStatement[] initFetchStmt(String orderBy) {
         PreparedStatement[] fetchStmts = new PreparedStatement[Aggregation.values().length];
         for (Aggregation type : Aggregation.values()) {
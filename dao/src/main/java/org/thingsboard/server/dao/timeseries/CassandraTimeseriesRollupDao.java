@@ -0,0 +1,326 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.nosql.CassandraAbstractAsyncDao;
+import org.thingsboard.server.dao.nosql.TbResultSet;
+import org.thingsboard.server.dao.util.NoSqlTsDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Stores rollups in {@link ModelConstants#TS_KV_ROLLUP_CF}. Cassandra has no atomic min/max updates,
+ * so buckets are merged with read-modify-write guarded by lightweight transactions: the bucket is inserted
+ * with {@code IF NOT EXISTS} or updated {@code IF cnt = <read count>}, and the merge is retried when a
+ * concurrent flush from another node wins. Rows expire with {@code cassandra.query.ts_key_value_ttl}
+ * plus the bucket duration, so the rollups do not outlive the raw data.
+ */
+@Component
+@Slf4j
+@NoSqlTsDao
+public class CassandraTimeseriesRollupDao extends CassandraAbstractAsyncDao implements TimeseriesRollupDao {
+
+    private static final String VALUE_COLUMNS = String.join(",",
+            ModelConstants.ROLLUP_COUNT_COLUMN,
+            ModelConstants.ROLLUP_LONG_COUNT_COLUMN,
+            ModelConstants.ROLLUP_LONG_SUM_COLUMN,
+            ModelConstants.ROLLUP_LONG_MIN_COLUMN,
+            ModelConstants.ROLLUP_LONG_MAX_COLUMN,
+            ModelConstants.ROLLUP_DOUBLE_COUNT_COLUMN,
+            ModelConstants.ROLLUP_DOUBLE_SUM_COLUMN,
+            ModelConstants.ROLLUP_DOUBLE_MIN_COLUMN,
+            ModelConstants.ROLLUP_DOUBLE_MAX_COLUMN,
+            ModelConstants.ROLLUP_FIRST_TS_COLUMN,
+            ModelConstants.ROLLUP_LAST_TS_COLUMN,
+            ModelConstants.ROLLUP_DIRTY_COLUMN);
+
+    private static final String PARTITION_KEY_CONDITION = " WHERE " + ModelConstants.ENTITY_TYPE_COLUMN + " = ? "
+            + "AND " + ModelConstants.ENTITY_ID_COLUMN + " = ? "
+            + "AND " + ModelConstants.KEY_COLUMN + " = ? "
+            + "AND " + ModelConstants.ROLLUP_GRANULARITY_COLUMN + " = ? "
+            + "AND " + ModelConstants.PARTITION_COLUMN + " = ? ";
+
+    private static final int MAX_MERGE_ATTEMPTS = 10;
+
+    @Value("${cassandra.query.ts_key_value_ttl}")
+    private long systemTtl;
+
+    private PreparedStatement insertStmt;
+    private PreparedStatement updateStmt;
+    private PreparedStatement fetchStmt;
+    private PreparedStatement fetchRangeStmt;
+    private PreparedStatement deleteRangeStmt;
+    private final Lock stmtCreationLock = new ReentrantLock();
+
+    @Override
+    public ListenableFuture<Void> save(TenantId tenantId, List<TsKvRollup> rollups) {
+        List<ListenableFuture<Void>> futures = rollups.stream().map(rollup -> save(tenantId, rollup)).collect(Collectors.toList());
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<List<TsKvRollup>> findAllAsync(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs) {
+        List<ListenableFuture<List<TsKvRollup>>> futures = new ArrayList<>();
+        for (long partition = granularity.toPartitionTs(startTs); partition < endTs; partition += granularity.getPartitionDurationMs()) {
+            BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getFetchRangeStmt().bind());
+            bindPartitionKey(stmtBuilder, entityId, key, granularity, partition);
+            stmtBuilder.setLong(5, startTs);
+            stmtBuilder.setLong(6, endTs);
+            futures.add(getFutureAsync(executeAsyncRead(tenantId, stmtBuilder.build()), rs ->
+                    Futures.transform(rs.allRows(readResultsProcessingExecutor), rows -> rows.stream()
+                            .map(row -> toRollup(row, entityId, key, granularity))
+                            .collect(Collectors.toList()), readResultsProcessingExecutor)));
+        }
+        return Futures.transform(Futures.allAsList(futures),
+                results -> results.stream().flatMap(List::stream).collect(Collectors.toList()), MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs) {
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (long partition = granularity.toPartitionTs(startTs); partition < endTs; partition += granularity.getPartitionDurationMs()) {
+            BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getDeleteRangeStmt().bind());
+            bindPartitionKey(stmtBuilder, entityId, key, granularity, partition);
+            stmtBuilder.setLong(5, startTs);
+            stmtBuilder.setLong(6, endTs);
+            futures.add(getFuture(executeAsyncWrite(tenantId, stmtBuilder.build()), rs -> null));
+        }
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void cleanup(long systemTtl) {
+        //Cleanup by TTL is native for Cassandra
+    }
+
+    private ListenableFuture<Void> save(TenantId tenantId, TsKvRollup rollup) {
+        return merge(tenantId, rollup, 1);
+    }
+
+    private ListenableFuture<Void> merge(TenantId tenantId, TsKvRollup rollup, int attempt) {
+        BoundStatementBuilder fetchBuilder = new BoundStatementBuilder(getFetchStmt().bind());
+        bindPartitionKey(fetchBuilder, rollup.getEntityId(), rollup.getKey(), rollup.getGranularity(), rollup.getGranularity().toPartitionTs(rollup.getTs()));
+        fetchBuilder.setLong(5, rollup.getTs());
+        ListenableFuture<Boolean> applied = getFutureAsync(executeAsyncRead(tenantId, fetchBuilder.build()), rs -> {
+            Row row = rs.one();
+            if (row == null) {
+                return getFuture(executeAsyncWrite(tenantId, bindInsert(rollup)), TbResultSet::wasApplied);
+            }
+            TsKvRollup merged = toRollup(row, rollup.getEntityId(), rollup.getKey(), rollup.getGranularity());
+            long expectedCount = merged.getCount();
+            merged.merge(rollup);
+            return getFuture(executeAsyncWrite(tenantId, bindUpdate(merged, expectedCount)), TbResultSet::wasApplied);
+        });
+        return Futures.transformAsync(applied, wasApplied -> {
+            if (Boolean.TRUE.equals(wasApplied)) {
+                return Futures.immediateFuture(null);
+            } else if (attempt < MAX_MERGE_ATTEMPTS) {
+                log.trace("[{}][{}] Concurrent rollup update, retrying merge of bucket [{}]", rollup.getEntityId(), rollup.getKey(), rollup.getTs());
+                return merge(tenantId, rollup, attempt + 1);
+            } else {
+                return Futures.immediateFailedFuture(new IllegalStateException("Failed to merge rollup bucket " + rollup.getTs() + " after " + attempt + " attempts"));
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private Statement<?> bindInsert(TsKvRollup rollup) {
+        BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getInsertStmt().bind());
+        bindPartitionKey(stmtBuilder, rollup.getEntityId(), rollup.getKey(), rollup.getGranularity(), rollup.getGranularity().toPartitionTs(rollup.getTs()));
+        stmtBuilder.setLong(5, rollup.getTs());
+        bindValues(stmtBuilder, rollup, 6);
+        stmtBuilder.setInt(18, computeTtl(rollup.getGranularity()));
+        return stmtBuilder.build();
+    }
+
+    private Statement<?> bindUpdate(TsKvRollup rollup, long expectedCount) {
+        BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getUpdateStmt().bind());
+        stmtBuilder.setInt(0, computeTtl(rollup.getGranularity()));
+        bindValues(stmtBuilder, rollup, 1);
+        stmtBuilder.setString(13, rollup.getEntityId().getEntityType().name())
+                .setUuid(14, rollup.getEntityId().getId())
+                .setString(15, rollup.getKey())
+                .setString(16, rollup.getGranularity().name())
+                .setLong(17, rollup.getGranularity().toPartitionTs(rollup.getTs()))
+                .setLong(18, rollup.getTs())
+                .setLong(19, expectedCount);
+        return stmtBuilder.build();
+    }
+
+    private static void bindValues(BoundStatementBuilder stmtBuilder, TsKvRollup rollup, int from) {
+        stmtBuilder.setLong(from, rollup.getCount())
+                .setLong(from + 1, rollup.getLongCount())
+                .setLong(from + 2, rollup.getLongSum())
+                .setLong(from + 3, rollup.getLongMin())
+                .setLong(from + 4, rollup.getLongMax())
+                .setLong(from + 5, rollup.getDoubleCount())
+                .setDouble(from + 6, rollup.getDoubleSum())
+                .setDouble(from + 7, rollup.getDoubleMin())
+                .setDouble(from + 8, rollup.getDoubleMax())
+                .setLong(from + 9, rollup.getFirstTs())
+                .setLong(from + 10, rollup.getLastTs())
+                .setBoolean(from + 11, rollup.isDirty());
+    }
+
+    private int computeTtl(TsRollupGranularity granularity) {
+        // the bucket lives until its latest raw value expires
+        return systemTtl > 0 ? (int) (systemTtl + TimeUnit.MILLISECONDS.toSeconds(granularity.getDurationMs())) : 0;
+    }
+
+    private static void bindPartitionKey(BoundStatementBuilder stmtBuilder, EntityId entityId, String key, TsRollupGranularity granularity, long partition) {
+        stmtBuilder.setString(0, entityId.getEntityType().name())
+                .setUuid(1, entityId.getId())
+                .setString(2, key)
+                .setString(3, granularity.name())
+                .setLong(4, partition);
+    }
+
+    private static TsKvRollup toRollup(Row row, EntityId entityId, String key, TsRollupGranularity granularity) {
+        TsKvRollup rollup = new TsKvRollup(entityId, key, granularity, row.getLong(ModelConstants.TS_COLUMN));
+        rollup.setCount(row.getLong(ModelConstants.ROLLUP_COUNT_COLUMN));
+        rollup.setLongCount(row.getLong(ModelConstants.ROLLUP_LONG_COUNT_COLUMN));
+        rollup.setLongSum(row.getLong(ModelConstants.ROLLUP_LONG_SUM_COLUMN));
+        rollup.setLongMin(row.getLong(ModelConstants.ROLLUP_LONG_MIN_COLUMN));
+        rollup.setLongMax(row.getLong(ModelConstants.ROLLUP_LONG_MAX_COLUMN));
+        rollup.setDoubleCount(row.getLong(ModelConstants.ROLLUP_DOUBLE_COUNT_COLUMN));
+        rollup.setDoubleSum(row.getDouble(ModelConstants.ROLLUP_DOUBLE_SUM_COLUMN));
+        rollup.setDoubleMin(row.getDouble(ModelConstants.ROLLUP_DOUBLE_MIN_COLUMN));
+        rollup.setDoubleMax(row.getDouble(ModelConstants.ROLLUP_DOUBLE_MAX_COLUMN));
+        rollup.setFirstTs(row.getLong(ModelConstants.ROLLUP_FIRST_TS_COLUMN));
+        rollup.setLastTs(row.getLong(ModelConstants.ROLLUP_LAST_TS_COLUMN));
+        rollup.setDirty(row.getBoolean(ModelConstants.ROLLUP_DIRTY_COLUMN));
+        return rollup;
+    }
+
+    private PreparedStatement getInsertStmt() {
+        if (insertStmt == null) {
+            stmtCreationLock.lock();
+            try {
+                if (insertStmt == null) {
+                    insertStmt = prepare("INSERT INTO " + ModelConstants.TS_KV_ROLLUP_CF +
+                            "(" + ModelConstants.ENTITY_TYPE_COLUMN +
+                            "," + ModelConstants.ENTITY_ID_COLUMN +
+                            "," + ModelConstants.KEY_COLUMN +
+                            "," + ModelConstants.ROLLUP_GRANULARITY_COLUMN +
+                            "," + ModelConstants.PARTITION_COLUMN +
+                            "," + ModelConstants.TS_COLUMN +
+                            "," + VALUE_COLUMNS + ")" +
+                            " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)" +
+                            " IF NOT EXISTS USING TTL ?");
+                }
+            } finally {
+                stmtCreationLock.unlock();
+            }
+        }
+        return insertStmt;
+    }
+
+    private PreparedStatement getUpdateStmt() {
+        if (updateStmt == null) {
+            stmtCreationLock.lock();
+            try {
+                if (updateStmt == null) {
+                    updateStmt = prepare("UPDATE " + ModelConstants.TS_KV_ROLLUP_CF + " USING TTL ? SET " +
+                            ModelConstants.ROLLUP_COUNT_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_LONG_COUNT_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_LONG_SUM_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_LONG_MIN_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_LONG_MAX_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_DOUBLE_COUNT_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_DOUBLE_SUM_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_DOUBLE_MIN_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_DOUBLE_MAX_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_FIRST_TS_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_LAST_TS_COLUMN + " = ?, " +
+                            ModelConstants.ROLLUP_DIRTY_COLUMN + " = ?" +
+                            PARTITION_KEY_CONDITION +
+                            "AND " + ModelConstants.TS_COLUMN + " = ? " +
+                            "IF " + ModelConstants.ROLLUP_COUNT_COLUMN + " = ?");
+                }
+            } finally {
+                stmtCreationLock.unlock();
+            }
+        }
+        return updateStmt;
+    }
+
+    private PreparedStatement getFetchStmt() {
+        if (fetchStmt == null) {
+            stmtCreationLock.lock();
+            try {
+                if (fetchStmt == null) {
+                    fetchStmt = prepare("SELECT " + ModelConstants.TS_COLUMN + "," + VALUE_COLUMNS +
+                            " FROM " + ModelConstants.TS_KV_ROLLUP_CF + PARTITION_KEY_CONDITION
+                            + "AND " + ModelConstants.TS_COLUMN + " = ?");
+                }
+            } finally {
+                stmtCreationLock.unlock();
+            }
+        }
+        return fetchStmt;
+    }
+
+    private PreparedStatement getFetchRangeStmt() {
+        if (fetchRangeStmt == null) {
+            stmtCreationLock.lock();
+            try {
+                if (fetchRangeStmt == null) {
+                    fetchRangeStmt = prepare("SELECT " + ModelConstants.TS_COLUMN + "," + VALUE_COLUMNS +
+                            " FROM " + ModelConstants.TS_KV_ROLLUP_CF + PARTITION_KEY_CONDITION
+                            + "AND " + ModelConstants.TS_COLUMN + " >= ? "
+                            + "AND " + ModelConstants.TS_COLUMN + " < ?");
+                }
+            } finally {
+                stmtCreationLock.unlock();
+            }
+        }
+        return fetchRangeStmt;
+    }
+
+    private PreparedStatement getDeleteRangeStmt() {
+        if (deleteRangeStmt == null) {
+            stmtCreationLock.lock();
+            try {
+                if (deleteRangeStmt == null) {
+                    deleteRangeStmt = prepare("DELETE FROM " + ModelConstants.TS_KV_ROLLUP_CF + PARTITION_KEY_CONDITION
+                            + "AND " + ModelConstants.TS_COLUMN + " >= ? "
+                            + "AND " + ModelConstants.TS_COLUMN + " < ?");
+                }
+            } finally {
+                stmtCreationLock.unlock();
+            }
+        }
+        return deleteRangeStmt;
+    }
+
+}
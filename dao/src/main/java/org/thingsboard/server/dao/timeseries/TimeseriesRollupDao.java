@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.List;
+
+public interface TimeseriesRollupDao {
+
+    /**
+     * Merges the given partial aggregates into the stored buckets, creating the missing ones.
+     */
+    ListenableFuture<Void> save(TenantId tenantId, List<TsKvRollup> rollups);
+
+    ListenableFuture<List<TsKvRollup>> findAllAsync(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs);
+
+    ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, String key, TsRollupGranularity granularity, long startTs, long endTs);
+
+    /**
+     * Removes the buckets whose whole interval is older than the given TTL in seconds.
+     */
+    void cleanup(long systemTtl);
+
+}
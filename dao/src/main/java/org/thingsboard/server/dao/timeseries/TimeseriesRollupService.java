@@ -0,0 +1,382 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains minute/hour/day MIN/MAX/SUM/COUNT rollups of the saved timeseries and answers aggregation
+ * queries from the coarsest rollup whose buckets are aligned with the query intervals. When no rollup is aligned,
+ * the finest rollup whose bucket size divides the interval is used and the unaligned edges of each interval
+ * are read from the raw timeseries.
+ * <p>
+ * Updates are accumulated in memory and merged into the {@link TimeseriesRollupDao} periodically.
+ * Buckets stay visible to the queries while they are being saved and are merged back into the pending ones
+ * when the save fails, so they are retried by the next flush.
+ * A value saved into the timestamp range a bucket already covers may overwrite a counted one, so such buckets
+ * are marked dirty and the queries that touch them are executed against the raw timeseries.
+ * Once {@code max_pending_buckets} is reached, updates of new buckets are not aggregated: the buckets are only
+ * remembered by key, saved as dirty by the next flush and answered from the raw timeseries.
+ * Removing timeseries drops every bucket that overlaps the removed interval, which also clears the dirty ones.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "database.ts.rollup", value = "enabled", havingValue = "true")
+public class TimeseriesRollupService {
+
+    private static final List<TsRollupGranularity> COARSEST_FIRST = Lists.reverse(List.of(TsRollupGranularity.values()));
+
+    @Value("${database.ts.rollup.start_ts:0}")
+    private long rollupStartTs;
+
+    @Value("${database.ts.rollup.flush_interval_ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${database.ts.rollup.batch_size:1000}")
+    private int batchSize;
+
+    @Value("${database.ts.rollup.max_pending_buckets:100000}")
+    private int maxPendingBuckets;
+
+    @Value("${database.ts.rollup.max_query_buckets:10000}")
+    private long maxQueryBuckets;
+
+    @Value("${database.ts.rollup.max_edge_queries:100}")
+    private long maxEdgeQueries;
+
+    @Value("${database.ts.rollup.max_edge_values:1000}")
+    private int maxEdgeValues;
+
+    @Autowired
+    private TimeseriesDao timeseriesDao;
+
+    @Autowired
+    private TimeseriesRollupDao rollupDao;
+
+    private final ConcurrentMap<TsKvRollupKey, TsKvRollup> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TsKvRollupKey, TsKvRollup> flushing = new ConcurrentHashMap<>();
+    private final Set<TsKvRollupKey> overflowed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong overflowedUpdates = new AtomicLong();
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("ts-rollup-flush"));
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        flush();
+    }
+
+    public void update(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
+        for (TsRollupGranularity granularity : TsRollupGranularity.values()) {
+            TsKvRollupKey rollupKey = new TsKvRollupKey(tenantId, entityId, tsKvEntry.getKey(), granularity, granularity.toBucketTs(tsKvEntry.getTs()));
+            if (pending.size() >= maxPendingBuckets && !pending.containsKey(rollupKey)) {
+                overflowed.add(rollupKey);
+                overflowedUpdates.incrementAndGet();
+                continue;
+            }
+            pending.compute(rollupKey, (k, rollup) -> {
+                if (rollup == null) {
+                    rollup = new TsKvRollup(k.getEntityId(), k.getKey(), k.getGranularity(), k.getTs());
+                }
+                rollup.update(tsKvEntry);
+                return rollup;
+            });
+        }
+    }
+
+    public ListenableFuture<List<TsKvEntry>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
+        List<ListenableFuture<List<TsKvEntry>>> futures = new ArrayList<>(queries.size());
+        boolean rollupsUsed = false;
+        for (ReadTsKvQuery query : queries) {
+            Optional<TsRollupGranularity> granularity = getGranularity(query);
+            if (granularity.isPresent()) {
+                futures.add(findAllAsync(tenantId, entityId, query, granularity.get()));
+                rollupsUsed = true;
+            } else {
+                futures.add(timeseriesDao.findAllAsync(tenantId, entityId, Collections.singletonList(query)));
+            }
+        }
+        if (!rollupsUsed) {
+            return timeseriesDao.findAllAsync(tenantId, entityId, queries);
+        }
+        return Futures.transform(Futures.allAsList(futures),
+                results -> results.stream().flatMap(List::stream).collect(Collectors.toList()), MoreExecutors.directExecutor());
+    }
+
+    public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
+        pending.keySet().removeIf(k -> isRemoved(k, entityId, query));
+        overflowed.removeIf(k -> isRemoved(k, entityId, query));
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (TsRollupGranularity granularity : TsRollupGranularity.values()) {
+            futures.add(rollupDao.remove(tenantId, entityId, query.getKey(), granularity,
+                    granularity.toBucketTs(query.getStartTs()), query.getEndTs()));
+        }
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
+    public void cleanup(long systemTtl) {
+        rollupDao.cleanup(systemTtl);
+    }
+
+    private static boolean isRemoved(TsKvRollupKey rollupKey, EntityId entityId, DeleteTsKvQuery query) {
+        return rollupKey.getEntityId().equals(entityId) && rollupKey.getKey().equals(query.getKey())
+                && rollupKey.getTs() + rollupKey.getGranularity().getDurationMs() > query.getStartTs() && rollupKey.getTs() < query.getEndTs();
+    }
+
+    private Optional<TsRollupGranularity> getGranularity(ReadTsKvQuery query) {
+        if (query.getAggregation() == Aggregation.NONE || query.getStartTs() < rollupStartTs) {
+            return Optional.empty();
+        }
+        long intervals = getIntervals(query);
+        for (TsRollupGranularity granularity : COARSEST_FIRST) {
+            long durationMs = granularity.getDurationMs();
+            if (query.getInterval() % durationMs == 0 && Math.floorMod(query.getStartTs(), durationMs) == 0) {
+                return intervals * (query.getInterval() / durationMs) <= maxQueryBuckets ? Optional.of(granularity) : Optional.empty();
+            }
+        }
+        if (intervals + 1 > maxEdgeQueries) {
+            return Optional.empty();
+        }
+        // the finest granularity keeps the unaligned edges read from the raw timeseries the shortest
+        for (TsRollupGranularity granularity : TsRollupGranularity.values()) {
+            long durationMs = granularity.getDurationMs();
+            if (query.getInterval() % durationMs == 0 && query.getInterval() >= 2 * durationMs
+                    && intervals * (query.getInterval() / durationMs) <= maxQueryBuckets) {
+                return Optional.of(granularity);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static long getIntervals(ReadTsKvQuery query) {
+        return (query.getEndTs() - query.getStartTs() + query.getInterval() - 1) / query.getInterval();
+    }
+
+    /**
+     * The interval is a multiple of the bucket size, so every interval starts at the same offset within a bucket.
+     * Full buckets inside the intervals are read from the rollups and the buckets that contain an interval boundary
+     * are read from the raw timeseries.
+     */
+    private ListenableFuture<List<TsKvEntry>> findAllAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query, TsRollupGranularity granularity) {
+        long endTs = query.getStartTs() + getIntervals(query) * query.getInterval();
+        long offset = Math.floorMod(query.getStartTs(), granularity.getDurationMs());
+        long bucketsStartTs = offset == 0 ? query.getStartTs() : query.getStartTs() - offset + granularity.getDurationMs();
+        ListenableFuture<List<TsKvRollup>> rollupsFuture = rollupDao.findAllAsync(tenantId, entityId, query.getKey(), granularity, bucketsStartTs, endTs - offset);
+        ListenableFuture<Optional<List<TsKvEntry>>> edgesFuture = findEdgesAsync(tenantId, entityId, query, granularity, endTs, offset);
+        return Futures.transformAsync(Futures.allAsList(rollupsFuture, edgesFuture), ignored -> {
+            Optional<List<TsKvEntry>> edges = Futures.getDone(edgesFuture);
+            Optional<List<TsKvEntry>> result = edges.flatMap(values ->
+                    aggregate(tenantId, entityId, query, granularity, endTs, offset, Futures.getDone(rollupsFuture), values));
+            if (result.isPresent()) {
+                return Futures.immediateFuture(result.get());
+            } else {
+                log.trace("[{}][{}] Rollups are dirty, contain non-numeric values or too many edge values, falling back to raw query", entityId, query.getKey());
+                return timeseriesDao.findAllAsync(tenantId, entityId, Collections.singletonList(query));
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<Optional<List<TsKvEntry>>> findEdgesAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query,
+                                                                      TsRollupGranularity granularity, long endTs, long offset) {
+        if (offset == 0) {
+            return Futures.immediateFuture(Optional.of(Collections.emptyList()));
+        }
+        List<ListenableFuture<List<TsKvEntry>>> futures = new ArrayList<>();
+        for (long boundaryTs = query.getStartTs(); boundaryTs <= endTs; boundaryTs += query.getInterval()) {
+            long bucketTs = boundaryTs - offset;
+            long edgeStartTs = Math.max(bucketTs, query.getStartTs());
+            long edgeEndTs = Math.min(bucketTs + granularity.getDurationMs(), endTs);
+            ReadTsKvQuery edgeQuery = new BaseReadTsKvQuery(query.getKey(), edgeStartTs, edgeEndTs, edgeEndTs - edgeStartTs, maxEdgeValues, Aggregation.NONE, "ASC");
+            futures.add(timeseriesDao.findAllAsync(tenantId, entityId, Collections.singletonList(edgeQuery)));
+        }
+        return Futures.transform(Futures.allAsList(futures), edges -> {
+            List<TsKvEntry> values = new ArrayList<>();
+            for (List<TsKvEntry> edge : edges) {
+                if (edge.size() >= maxEdgeValues) {
+                    return Optional.empty();
+                }
+                values.addAll(edge);
+            }
+            return Optional.of(values);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private Optional<List<TsKvEntry>> aggregate(TenantId tenantId, EntityId entityId, ReadTsKvQuery query, TsRollupGranularity granularity,
+                                                long endTs, long offset, List<TsKvRollup> rollups, List<TsKvEntry> edgeValues) {
+        Map<Long, TsKvRollup> buckets = new HashMap<>();
+        rollups.forEach(rollup -> buckets.put(rollup.getTs(), rollup));
+        long durationMs = granularity.getDurationMs();
+        long innerOffset = offset == 0 ? 0 : durationMs - offset;
+        Map<Long, TsKvRollup> leadingEdges = new HashMap<>();
+        Map<Long, TsKvRollup> trailingEdges = new HashMap<>();
+        for (TsKvEntry value : edgeValues) {
+            long stepTs = query.getStartTs() + (value.getTs() - query.getStartTs()) / query.getInterval() * query.getInterval();
+            Map<Long, TsKvRollup> edges = value.getTs() < stepTs + innerOffset ? leadingEdges : trailingEdges;
+            edges.computeIfAbsent(stepTs, ts -> new TsKvRollup(entityId, query.getKey(), granularity, ts)).update(value);
+        }
+        List<TsKvEntry> result = new ArrayList<>();
+        for (long stepTs = query.getStartTs(); stepTs < endTs; stepTs += query.getInterval()) {
+            TsKvRollup interval = new TsKvRollup(entityId, query.getKey(), granularity, stepTs);
+            // the parts are merged in timestamp order, so only a real overlap marks the interval dirty
+            Optional.ofNullable(leadingEdges.get(stepTs)).ifPresent(interval::merge);
+            for (long bucketTs = stepTs + innerOffset; bucketTs + durationMs <= stepTs + query.getInterval(); bucketTs += durationMs) {
+                TsKvRollup stored = buckets.get(bucketTs);
+                if (stored != null) {
+                    interval.merge(stored);
+                }
+                TsKvRollupKey rollupKey = new TsKvRollupKey(tenantId, entityId, query.getKey(), granularity, bucketTs);
+                if (overflowed.contains(rollupKey)) {
+                    interval.setDirty(true);
+                }
+                TsKvRollup inFlight = flushing.get(rollupKey);
+                if (inFlight != null) {
+                    interval.merge(inFlight);
+                }
+                pending.computeIfPresent(rollupKey, (k, rollup) -> {
+                    interval.merge(rollup);
+                    return rollup;
+                });
+            }
+            Optional.ofNullable(trailingEdges.get(stepTs)).ifPresent(interval::merge);
+            if (interval.isDirty()) {
+                return Optional.empty();
+            }
+            if (interval.isEmpty()) {
+                continue;
+            }
+            if (query.getAggregation() != Aggregation.COUNT && !interval.isNumeric()) {
+                return Optional.empty();
+            }
+            interval.toTsKvEntry(query.getAggregation(), query.getKey(), stepTs + query.getInterval() / 2).ifPresent(result::add);
+        }
+        return Optional.of(result);
+    }
+
+    private void flush() {
+        if (pending.isEmpty() && overflowed.isEmpty()) {
+            return;
+        }
+        try {
+            // a bucket is never saved by two flushes at once, so the next flush waits for this one
+            flushAsync().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Failed to flush timeseries rollups", e);
+        }
+        long overflowedCount = overflowedUpdates.getAndSet(0);
+        if (overflowedCount > 0) {
+            log.warn("Marked buckets of {} timeseries rollup updates dirty, max pending buckets [{}] reached", overflowedCount, maxPendingBuckets);
+        }
+    }
+
+    private ListenableFuture<List<Void>> flushAsync() {
+        for (TsKvRollupKey rollupKey : overflowed) {
+            // the dirty bucket becomes pending before it stops being overflowed, so the queries never miss it
+            pending.compute(rollupKey, (k, rollup) -> {
+                if (rollup == null) {
+                    rollup = new TsKvRollup(k.getEntityId(), k.getKey(), k.getGranularity(), k.getTs());
+                }
+                rollup.setDirty(true);
+                return rollup;
+            });
+            overflowed.remove(rollupKey);
+        }
+        Map<TenantId, List<TsKvRollup>> rollupsByTenant = new HashMap<>();
+        for (TsKvRollupKey rollupKey : pending.keySet()) {
+            TsKvRollup rollup = pending.remove(rollupKey);
+            if (rollup != null) {
+                flushing.put(rollupKey, rollup);
+                rollupsByTenant.computeIfAbsent(rollupKey.getTenantId(), id -> new ArrayList<>()).add(rollup);
+            }
+        }
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        rollupsByTenant.forEach((tenantId, rollups) -> {
+            for (List<TsKvRollup> batch : Lists.partition(rollups, batchSize)) {
+                ListenableFuture<Void> saveFuture;
+                try {
+                    saveFuture = rollupDao.save(tenantId, batch);
+                } catch (Exception e) {
+                    saveFuture = Futures.immediateFailedFuture(e);
+                }
+                futures.add(Futures.catching(Futures.transform(saveFuture, v -> {
+                    batch.forEach(rollup -> flushing.remove(toKey(tenantId, rollup)));
+                    return null;
+                }, MoreExecutors.directExecutor()), Throwable.class, t -> {
+                    log.warn("[{}] Failed to save {} timeseries rollups, will retry", tenantId, batch.size(), t);
+                    batch.forEach(rollup -> restore(tenantId, rollup));
+                    return null;
+                }, MoreExecutors.directExecutor()));
+            }
+        });
+        return Futures.allAsList(futures);
+    }
+
+    private void restore(TenantId tenantId, TsKvRollup rollup) {
+        TsKvRollupKey rollupKey = toKey(tenantId, rollup);
+        pending.merge(rollupKey, rollup, (current, failed) -> {
+            current.merge(failed);
+            return current;
+        });
+        flushing.remove(rollupKey);
+    }
+
+    private static TsKvRollupKey toKey(TenantId tenantId, TsKvRollup rollup) {
+        return new TsKvRollupKey(tenantId, rollup.getEntityId(), rollup.getKey(), rollup.getGranularity(), rollup.getTs());
+    }
+
+}
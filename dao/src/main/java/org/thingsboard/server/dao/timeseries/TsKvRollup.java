@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.Optional;
+
+/**
+ * MIN/MAX/SUM/COUNT aggregate of a single timeseries key within one rollup bucket.
+ * Long and double values are tracked separately, so the aggregated results keep the same data types
+ * as the ones produced by the raw aggregation queries. {@code count} includes non-numeric values too.
+ * <p>
+ * {@code firstTs} and {@code lastTs} bound the timestamps of the aggregated values. A value whose timestamp
+ * falls into that range, or a merge of two aggregates with overlapping ranges, may count the same timestamp twice,
+ * so the bucket is marked {@code dirty} and must not be used to answer queries.
+ */
+@Data
+@NoArgsConstructor
+public class TsKvRollup {
+
+    private EntityId entityId;
+    private String key;
+    private TsRollupGranularity granularity;
+    private long ts;
+
+    private long count;
+    private long longCount;
+    private long longSum;
+    private long longMin;
+    private long longMax;
+    private long doubleCount;
+    private double doubleSum;
+    private double doubleMin;
+    private double doubleMax;
+    private long firstTs;
+    private long lastTs;
+    private boolean dirty;
+
+    public TsKvRollup(EntityId entityId, String key, TsRollupGranularity granularity, long ts) {
+        this.entityId = entityId;
+        this.key = key;
+        this.granularity = granularity;
+        this.ts = ts;
+    }
+
+    public void update(TsKvEntry entry) {
+        if (count > 0 && entry.getTs() >= firstTs && entry.getTs() <= lastTs) {
+            dirty = true;
+        }
+        firstTs = count > 0 ? Math.min(firstTs, entry.getTs()) : entry.getTs();
+        lastTs = count > 0 ? Math.max(lastTs, entry.getTs()) : entry.getTs();
+        count++;
+        switch (entry.getDataType()) {
+            case LONG:
+                entry.getLongValue().ifPresent(this::updateLong);
+                break;
+            case DOUBLE:
+                entry.getDoubleValue().ifPresent(this::updateDouble);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void merge(TsKvRollup other) {
+        dirty |= other.dirty;
+        if (other.count > 0) {
+            if (count > 0 && other.firstTs <= lastTs && firstTs <= other.lastTs) {
+                dirty = true;
+            }
+            firstTs = count > 0 ? Math.min(firstTs, other.firstTs) : other.firstTs;
+            lastTs = count > 0 ? Math.max(lastTs, other.lastTs) : other.lastTs;
+        }
+        count += other.count;
+        if (other.longCount > 0) {
+            longMin = longCount > 0 ? Math.min(longMin, other.longMin) : other.longMin;
+            longMax = longCount > 0 ? Math.max(longMax, other.longMax) : other.longMax;
+            longCount += other.longCount;
+            longSum += other.longSum;
+        }
+        if (other.doubleCount > 0) {
+            doubleMin = doubleCount > 0 ? Math.min(doubleMin, other.doubleMin) : other.doubleMin;
+            doubleMax = doubleCount > 0 ? Math.max(doubleMax, other.doubleMax) : other.doubleMax;
+            doubleCount += other.doubleCount;
+            doubleSum += other.doubleSum;
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isNumeric() {
+        return count == longCount + doubleCount;
+    }
+
+    public Optional<TsKvEntry> toTsKvEntry(Aggregation aggregation, String key, long ts) {
+        if (count == 0) {
+            return Optional.empty();
+        }
+        if (aggregation == Aggregation.COUNT) {
+            return Optional.of(new BasicTsKvEntry(ts, new LongDataEntry(key, count)));
+        }
+        if (longCount + doubleCount == 0) {
+            return Optional.empty();
+        }
+        boolean hasDouble = doubleCount > 0;
+        switch (aggregation) {
+            case AVG:
+                return Optional.of(new BasicTsKvEntry(ts, new DoubleDataEntry(key, (longSum + doubleSum) / (longCount + doubleCount))));
+            case SUM:
+                return Optional.of(new BasicTsKvEntry(ts, hasDouble ? new DoubleDataEntry(key, longSum + doubleSum) : new LongDataEntry(key, longSum)));
+            case MIN:
+                if (!hasDouble) {
+                    return Optional.of(new BasicTsKvEntry(ts, new LongDataEntry(key, longMin)));
+                }
+                return Optional.of(new BasicTsKvEntry(ts, new DoubleDataEntry(key, longCount > 0 ? Math.min(longMin, doubleMin) : doubleMin)));
+            case MAX:
+                if (!hasDouble) {
+                    return Optional.of(new BasicTsKvEntry(ts, new LongDataEntry(key, longMax)));
+                }
+                return Optional.of(new BasicTsKvEntry(ts, new DoubleDataEntry(key, longCount > 0 ? Math.max(longMax, doubleMax) : doubleMax)));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private void updateLong(long value) {
+        longMin = longCount > 0 ? Math.min(longMin, value) : value;
+        longMax = longCount > 0 ? Math.max(longMax, value) : value;
+        longSum += value;
+        longCount++;
+    }
+
+    private void updateDouble(double value) {
+        doubleMin = doubleCount > 0 ? Math.min(doubleMin, value) : value;
+        doubleMax = doubleCount > 0 ? Math.max(doubleMax, value) : value;
+        doubleSum += value;
+        doubleCount++;
+    }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bucket sizes of the pre-aggregated timeseries rollups, from the finest to the coarsest one.
+ * Buckets are aligned to the UTC epoch. Each granularity also defines the size of the Cassandra
+ * partition its buckets are stored in.
+ */
+public enum TsRollupGranularity {
+
+    MINUTE(TimeUnit.MINUTES.toMillis(1), TimeUnit.DAYS.toMillis(1)),
+    HOUR(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(30)),
+    DAY(TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(365));
+
+    @Getter
+    private final long durationMs;
+    @Getter
+    private final long partitionDurationMs;
+
+    TsRollupGranularity(long durationMs, long partitionDurationMs) {
+        this.durationMs = durationMs;
+        this.partitionDurationMs = partitionDurationMs;
+    }
+
+    public long toBucketTs(long ts) {
+        return ts - Math.floorMod(ts, durationMs);
+    }
+
+    public long toPartitionTs(long ts) {
+        return ts - Math.floorMod(ts, partitionDurationMs);
+    }
+
+}
@@ -43,13 +43,12 @@ import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -64,8 +63,8 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
     public static final String CONCURRENCY_LEVEL = "currBuffer";
 
     private final long maxWaitTime;
-    private final long pollMs;
-    private final BlockingQueue<AsyncTaskContext<T, V>> queue;
+    private final TenantFairQueue<AsyncTaskContext<T, V>> queue;
+    private final Semaphore permits;
     private final ExecutorService dispatcherExecutor;
     private final ExecutorService callbackExecutor;
     private final ScheduledExecutorService timeoutExecutor;
@@ -86,20 +85,20 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
 
     private final boolean printTenantNames;
 
-    public AbstractBufferedRateExecutor(int queueLimit, int concurrencyLimit, long maxWaitTime, int dispatcherThreads, int callbackThreads, long pollMs,
+    public AbstractBufferedRateExecutor(int queueLimit, int tenantQueueLimit, int concurrencyLimit, long maxWaitTime, int dispatcherThreads, int callbackThreads,
                                         boolean perTenantLimitsEnabled, String perTenantLimitsConfiguration, int printQueriesFreq, StatsFactory statsFactory,
                                         EntityService entityService, boolean printTenantNames) {
         this.maxWaitTime = maxWaitTime;
-        this.pollMs = pollMs;
         this.concurrencyLimit = concurrencyLimit;
         this.printQueriesFreq = printQueriesFreq;
-        this.queue = new LinkedBlockingDeque<>(queueLimit);
+        this.queue = new TenantFairQueue<>(queueLimit, tenantQueueLimit);
+        this.permits = new Semaphore(concurrencyLimit);
         this.dispatcherExecutor = Executors.newFixedThreadPool(dispatcherThreads, ThingsBoardThreadFactory.forName("nosql-" + getBufferName() + "-dispatcher"));
         this.callbackExecutor = ThingsBoardExecutors.newWorkStealingPool(callbackThreads, "nosql-" + getBufferName() + "-callback");
         this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("nosql-" + getBufferName() + "-timeout"));
         this.perTenantLimitsEnabled = perTenantLimitsEnabled;
         this.perTenantLimitsConfiguration = perTenantLimitsConfiguration;
-        this.stats = new BufferedRateExecutorStats(statsFactory);
+        this.stats = new BufferedRateExecutorStats(statsFactory, getBufferName());
         String concurrencyLevelKey = StatsType.RATE_EXECUTOR.getName() + "." + CONCURRENCY_LEVEL + getBufferName(); //metric name may change with buffer name suffix
         this.concurrencyLevel = statsFactory.createGauge(concurrencyLevelKey, new AtomicInteger(0));
 
@@ -130,12 +129,10 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
             }
         }
         if (!perTenantLimitReached) {
-            try {
-                stats.getTotalAdded().increment();
-                queue.add(new AsyncTaskContext<>(UUID.randomUUID(), task, settableFuture, System.currentTimeMillis()));
-            } catch (IllegalStateException e) {
+            stats.getTotalAdded().increment();
+            if (!queue.offer(task.getTenantId(), new AsyncTaskContext<>(UUID.randomUUID(), task, settableFuture, System.currentTimeMillis()))) {
                 stats.getTotalRejected().increment();
-                settableFuture.setException(e);
+                settableFuture.setException(new IllegalStateException("Queue full"));
             }
         }
         return result;
@@ -164,72 +161,83 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
     private void dispatch() {
         log.info("Buffered rate executor thread started");
         while (!Thread.interrupted()) {
-            int curLvl = concurrencyLevel.get();
+            try {
+                // the permit is released as soon as the launched task is completed, so the next task is dispatched without polling
+                permits.acquire();
+            } catch (InterruptedException e) {
+                break;
+            }
             AsyncTaskContext<T, V> taskCtx = null;
             try {
-                if (curLvl <= concurrencyLimit) {
-                    taskCtx = queue.take();
-                    final AsyncTaskContext<T, V> finalTaskCtx = taskCtx;
-                    if (printQueriesFreq > 0) {
-                        if (printQueriesIdx.incrementAndGet() >= printQueriesFreq) {
-                            printQueriesIdx.set(0);
-                            String query = queryToString(finalTaskCtx);
-                            log.info("[{}] Cassandra query: {}", taskCtx.getId(), query);
-                        }
+                taskCtx = queue.take();
+                concurrencyLevel.incrementAndGet();
+                final AsyncTaskContext<T, V> finalTaskCtx = taskCtx;
+                long waitTime = System.currentTimeMillis() - finalTaskCtx.getCreateTime();
+                stats.getQueueWaitTime().record(waitTime, TimeUnit.MILLISECONDS);
+                if (printQueriesFreq > 0) {
+                    if (printQueriesIdx.incrementAndGet() >= printQueriesFreq) {
+                        printQueriesIdx.set(0);
+                        String query = queryToString(finalTaskCtx);
+                        log.info("[{}] Cassandra query: {}", taskCtx.getId(), query);
                     }
-                    logTask("Processing", finalTaskCtx);
-                    concurrencyLevel.incrementAndGet();
-                    long timeout = finalTaskCtx.getCreateTime() + maxWaitTime - System.currentTimeMillis();
-                    if (timeout > 0) {
-                        stats.getTotalLaunched().increment();
-                        ListenableFuture<V> result = execute(finalTaskCtx);
-                        result = Futures.withTimeout(result, timeout, TimeUnit.MILLISECONDS, timeoutExecutor);
-                        Futures.addCallback(result, new FutureCallback<V>() {
-                            @Override
-                            public void onSuccess(@Nullable V result) {
-                                logTask("Releasing", finalTaskCtx);
-                                stats.getTotalReleased().increment();
-                                concurrencyLevel.decrementAndGet();
-                                finalTaskCtx.getFuture().set(result);
-                            }
+                }
+                logTask("Processing", finalTaskCtx);
+                long timeout = maxWaitTime - waitTime;
+                if (timeout > 0) {
+                    stats.getTotalLaunched().increment();
+                    ListenableFuture<V> result = execute(finalTaskCtx);
+                    result = Futures.withTimeout(result, timeout, TimeUnit.MILLISECONDS, timeoutExecutor);
+                    Futures.addCallback(result, new FutureCallback<V>() {
+                        @Override
+                        public void onSuccess(@Nullable V result) {
+                            logTask("Releasing", finalTaskCtx);
+                            stats.getTotalReleased().increment();
+                            release();
+                            finalTaskCtx.getFuture().set(result);
+                        }
 
-                            @Override
-                            public void onFailure(Throwable t) {
-                                if (t instanceof TimeoutException) {
-                                    logTask("Expired During Execution", finalTaskCtx);
-                                } else {
-                                    logTask("Failed", finalTaskCtx);
-                                }
-                                stats.getTotalFailed().increment();
-                                concurrencyLevel.decrementAndGet();
-                                finalTaskCtx.getFuture().setException(t);
-                                log.debug("[{}] Failed to execute task: {}", finalTaskCtx.getId(), finalTaskCtx.getTask(), t);
+                        @Override
+                        public void onFailure(Throwable t) {
+                            if (t instanceof TimeoutException) {
+                                logTask("Expired During Execution", finalTaskCtx);
+                            } else {
+                                logTask("Failed", finalTaskCtx);
                             }
-                        }, callbackExecutor);
-                    } else {
-                        logTask("Expired Before Execution", finalTaskCtx);
-                        stats.getTotalExpired().increment();
-                        concurrencyLevel.decrementAndGet();
-                        taskCtx.getFuture().setException(new TimeoutException());
-                    }
+                            stats.getTotalFailed().increment();
+                            release();
+                            finalTaskCtx.getFuture().setException(t);
+                            log.debug("[{}] Failed to execute task: {}", finalTaskCtx.getId(), finalTaskCtx.getTask(), t);
+                        }
+                    }, callbackExecutor);
                 } else {
-                    Thread.sleep(pollMs);
+                    logTask("Expired Before Execution", finalTaskCtx);
+                    stats.getTotalExpired().increment();
+                    release();
+                    taskCtx.getFuture().setException(new TimeoutException());
                 }
             } catch (InterruptedException e) {
+                permits.release();
                 break;
             } catch (Throwable e) {
                 if (taskCtx != null) {
                     log.debug("[{}] Failed to execute task: {}", taskCtx.getId(), taskCtx, e);
                     stats.getTotalFailed().increment();
-                    concurrencyLevel.decrementAndGet();
+                    release();
+                    taskCtx.getFuture().setException(e);
                 } else {
                     log.debug("Failed to queue task:", e);
+                    permits.release();
                 }
             }
         }
         log.info("Buffered rate executor thread stopped");
     }
 
+    private void release() {
+        concurrencyLevel.decrementAndGet();
+        permits.release();
+    }
+
     private void logTask(String action, AsyncTaskContext<T, V> taskCtx) {
         if (log.isTraceEnabled()) {
             if (taskCtx.getTask() instanceof CassandraStatementTask) {
@@ -296,6 +304,7 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
             StringBuilder statsBuilder = new StringBuilder();
 
             statsBuilder.append("queueSize").append(" = [").append(queueSize).append("] ");
+            statsBuilder.append("queuedTenants").append(" = [").append(queue.tenantsCount()).append("] ");
             stats.getStatsCounters().forEach(counter -> {
                 statsBuilder.append(counter.getName()).append(" = [").append(counter.get()).append("] ");
             });
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.util;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -32,6 +33,7 @@ import java.util.concurrent.ConcurrentMap;
 @Getter
 public class BufferedRateExecutorStats {
     private static final String TENANT_ID_TAG = "tenantId";
+    private static final String BUFFER_NAME_TAG = "bufferName";
 
 
     private static final String TOTAL_ADDED = "totalAdded";
@@ -41,6 +43,7 @@ public class BufferedRateExecutorStats {
     private static final String TOTAL_EXPIRED = "totalExpired";
     private static final String TOTAL_REJECTED = "totalRejected";
     private static final String TOTAL_RATE_LIMITED = "totalRateLimited";
+    private static final String QUEUE_WAIT_TIME = "queueWaitTime";
 
     private final StatsFactory statsFactory;
 
@@ -56,7 +59,9 @@ public class BufferedRateExecutorStats {
     private final StatsCounter totalRejected;
     private final StatsCounter totalRateLimited;
 
-    public BufferedRateExecutorStats(StatsFactory statsFactory) {
+    private final Timer queueWaitTime;
+
+    public BufferedRateExecutorStats(StatsFactory statsFactory, String bufferName) {
         this.statsFactory = statsFactory;
 
         String key = StatsType.RATE_EXECUTOR.getName();
@@ -68,6 +73,7 @@ public class BufferedRateExecutorStats {
         this.totalExpired = statsFactory.createStatsCounter(key, TOTAL_EXPIRED);
         this.totalRejected = statsFactory.createStatsCounter(key, TOTAL_REJECTED);
         this.totalRateLimited = statsFactory.createStatsCounter(key, TOTAL_RATE_LIMITED);
+        this.queueWaitTime = statsFactory.createTimer(key + "." + QUEUE_WAIT_TIME, BUFFER_NAME_TAG, bufferName);
 
         this.statsCounters.add(totalAdded);
         this.statsCounters.add(totalLaunched);
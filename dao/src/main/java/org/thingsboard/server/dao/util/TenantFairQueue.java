@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue that keeps a separate queue per tenant and takes the elements from the tenants in round-robin order,
+ * so a tenant with a lot of queued elements doesn't delay the elements of other tenants.
+ */
+public class TenantFairQueue<E> {
+
+    private final int maxSize;
+    private final int maxTenantSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<TenantId, Queue<E>> tenantQueues = new HashMap<>();
+    private final Queue<TenantId> tenantsOrder = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * @param maxSize       max number of elements of all tenants
+     * @param maxTenantSize max number of elements of a single tenant, 0 means that the tenant is limited by maxSize only
+     */
+    public TenantFairQueue(int maxSize, int maxTenantSize) {
+        this.maxSize = maxSize;
+        this.maxTenantSize = maxTenantSize > 0 ? Math.min(maxTenantSize, maxSize) : maxSize;
+    }
+
+    /**
+     * @return false if the queue of the tenant or the whole queue is full
+     */
+    public boolean offer(TenantId tenantId, E element) {
+        TenantId key = tenantId != null ? tenantId : TenantId.SYS_TENANT_ID;
+        lock.lock();
+        try {
+            if (size >= maxSize) {
+                return false;
+            }
+            Queue<E> tenantQueue = tenantQueues.get(key);
+            if (tenantQueue == null) {
+                tenantQueue = new ArrayDeque<>();
+                tenantQueues.put(key, tenantQueue);
+                tenantsOrder.add(key);
+            } else if (tenantQueue.size() >= maxTenantSize) {
+                return false;
+            }
+            tenantQueue.add(element);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            TenantId tenantId = tenantsOrder.poll();
+            Queue<E> tenantQueue = tenantQueues.get(tenantId);
+            E element = tenantQueue.poll();
+            size--;
+            if (tenantQueue.isEmpty()) {
+                tenantQueues.remove(tenantId);
+            } else {
+                tenantsOrder.add(tenantId);
+            }
+            return element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int tenantsCount() {
+        lock.lock();
+        try {
+            return tenantQueues.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -35,6 +35,27 @@ CREATE TABLE IF NOT EXISTS ts_kv_dictionary (
     CONSTRAINT ts_key_id_pkey PRIMARY KEY (key)
 );
 
+CREATE TABLE IF NOT EXISTS ts_kv_rollup
+(
+    entity_id   uuid         NOT NULL,
+    key         varchar(255) NOT NULL,
+    granularity varchar(16)  NOT NULL,
+    ts          bigint       NOT NULL,
+    cnt         bigint       NOT NULL,
+    long_cnt    bigint       NOT NULL,
+    long_sum    bigint       NOT NULL,
+    long_min    bigint,
+    long_max    bigint,
+    dbl_cnt     bigint       NOT NULL,
+    dbl_sum     double precision NOT NULL,
+    dbl_min     double precision,
+    dbl_max     double precision,
+    first_ts    bigint,
+    last_ts     bigint,
+    dirty       boolean      NOT NULL,
+    CONSTRAINT ts_kv_rollup_pkey PRIMARY KEY (entity_id, key, granularity, ts)
+);
+
 CREATE FUNCTION to_uuid(IN entity_id varchar)
   RETURNS UUID
   RETURN UUID(substring(entity_id, 8, 8) || '-' || substring(entity_id, 4, 4) || '-1' || substring(entity_id, 1, 3) ||
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.service;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +39,7 @@ import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
@@ -80,6 +82,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -121,6 +124,67 @@ public abstract class BaseEntityServiceTest extends AbstractServiceTest {
         tenantService.deleteTenant(tenantId);
     }
 
+    @Test
+    public void testFetchEntityNamesAsync() throws ExecutionException, InterruptedException {
+        List<EntityId> entityIds = new ArrayList<>();
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            Device device = new Device();
+            device.setTenantId(tenantId);
+            device.setName("Device" + i);
+            device.setType("default");
+            entityIds.add(deviceService.saveDevice(device).getId());
+        }
+        Asset asset = new Asset();
+        asset.setTenantId(tenantId);
+        asset.setName("Asset");
+        asset.setType("default");
+        entityIds.add(assetService.saveAsset(asset).getId());
+        DeviceId notExistingId = new DeviceId(Uuids.timeBased());
+        entityIds.add(notExistingId);
+
+        Map<EntityId, String> names = entityService.fetchEntityNamesAsync(tenantId, entityIds).get();
+        assertEquals(ENTITY_COUNT + 1, names.size());
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            assertEquals("Device" + i, names.get(entityIds.get(i)));
+        }
+        assertEquals("Asset", names.get(entityIds.get(ENTITY_COUNT)));
+        Assert.assertNull(names.get(notExistingId));
+
+        Map<EntityId, String> cachedNames = entityService.fetchEntityNamesAsync(tenantId, entityIds).get();
+        assertEquals(names, cachedNames);
+    }
+
+    @Test
+    public void testFetchEntityNamesAsyncAfterRename() throws ExecutionException, InterruptedException {
+        Device device = new Device();
+        device.setTenantId(tenantId);
+        device.setName("Device");
+        device.setType("default");
+        device = deviceService.saveDevice(device);
+        List<EntityId> entityIds = Collections.singletonList(device.getId());
+        assertEquals("Device", entityService.fetchEntityNamesAsync(tenantId, entityIds).get().get(device.getId()));
+
+        device.setName("Renamed device");
+        deviceService.saveDevice(device);
+        entityService.evictEntityName(device.getId());
+
+        assertEquals("Renamed device", entityService.fetchEntityNamesAsync(tenantId, entityIds).get().get(device.getId()));
+    }
+
+    @Test
+    public void testFetchEntityNamesAsyncWithUnsupportedEntityType() throws ExecutionException, InterruptedException {
+        Device device = new Device();
+        device.setTenantId(tenantId);
+        device.setName("Device");
+        device.setType("default");
+        device = deviceService.saveDevice(device);
+        RuleNodeId ruleNodeId = new RuleNodeId(Uuids.timeBased());
+
+        Map<EntityId, String> names = entityService.fetchEntityNamesAsync(tenantId, Arrays.asList(device.getId(), ruleNodeId)).get();
+        assertEquals("Device", names.get(device.getId()));
+        Assert.assertNull(names.get(ruleNodeId));
+    }
+
 
     @Test
     public void testCountEntitiesByQuery() throws InterruptedException {
@@ -25,6 +25,7 @@ import org.junit.Test;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.relation.EntityRelation;
 import org.thingsboard.server.common.data.relation.EntityRelationsQuery;
 import org.thingsboard.server.common.data.relation.EntitySearchDirection;
@@ -34,6 +35,7 @@ import org.thingsboard.server.common.data.relation.RelationsSearchParameters;
 import org.thingsboard.server.dao.exception.DataValidationException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -288,6 +290,88 @@ public abstract class BaseRelationServiceTest extends AbstractServiceTest {
         Assert.assertTrue(relations.contains(relationBC));
     }
 
+    @Test
+    public void testFindToRecursively() throws ExecutionException, InterruptedException {
+        // A -> B -> [C -> D, D]
+        AssetId assetA = new AssetId(Uuids.timeBased());
+        AssetId assetB = new AssetId(Uuids.timeBased());
+        AssetId assetC = new AssetId(Uuids.timeBased());
+        DeviceId deviceD = new DeviceId(Uuids.timeBased());
+
+        EntityRelation relationAB = new EntityRelation(assetA, assetB, EntityRelation.CONTAINS_TYPE);
+        EntityRelation relationBC = new EntityRelation(assetB, assetC, EntityRelation.MANAGES_TYPE);
+        EntityRelation relationBD = new EntityRelation(assetB, deviceD, EntityRelation.CONTAINS_TYPE);
+        EntityRelation relationCD = new EntityRelation(assetC, deviceD, EntityRelation.CONTAINS_TYPE);
+        EntityRelation relationAC = new EntityRelation(assetA, assetC, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.RULE_NODE);
+
+        saveRelation(relationAB);
+        saveRelation(relationBC);
+        saveRelation(relationBD);
+        saveRelation(relationCD);
+        saveRelation(relationAC);
+
+        List<EntityRelation> relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, deviceD, RelationTypeGroup.COMMON, 10).get();
+        Assert.assertEquals(4, relations.size());
+        Assert.assertTrue(relations.contains(relationAB));
+        Assert.assertTrue(relations.contains(relationBC));
+        Assert.assertTrue(relations.contains(relationBD));
+        Assert.assertTrue(relations.contains(relationCD));
+
+        relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, deviceD, RelationTypeGroup.COMMON, 1).get();
+        Assert.assertEquals(2, relations.size());
+        Assert.assertTrue(relations.contains(relationBD));
+        Assert.assertTrue(relations.contains(relationCD));
+
+        relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, assetC, RelationTypeGroup.RULE_NODE, 10).get();
+        Assert.assertEquals(1, relations.size());
+        Assert.assertTrue(relations.contains(relationAC));
+    }
+
+    @Test
+    public void testFindToRecursivelyCyclic() throws ExecutionException, InterruptedException {
+        // A -> B -> C -> A
+        AssetId assetA = new AssetId(Uuids.timeBased());
+        AssetId assetB = new AssetId(Uuids.timeBased());
+        AssetId assetC = new AssetId(Uuids.timeBased());
+
+        EntityRelation relationA = new EntityRelation(assetA, assetB, EntityRelation.CONTAINS_TYPE);
+        EntityRelation relationB = new EntityRelation(assetB, assetC, EntityRelation.CONTAINS_TYPE);
+        EntityRelation relationC = new EntityRelation(assetC, assetA, EntityRelation.CONTAINS_TYPE);
+
+        saveRelation(relationA);
+        saveRelation(relationB);
+        saveRelation(relationC);
+
+        List<EntityRelation> relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, assetA, RelationTypeGroup.COMMON, 100).get();
+        Assert.assertEquals(3, relations.size());
+        Assert.assertTrue(relations.contains(relationA));
+        Assert.assertTrue(relations.contains(relationB));
+        Assert.assertTrue(relations.contains(relationC));
+    }
+
+
+    @Test
+    public void testFindToRecursivelyDiamonds() throws ExecutionException, InterruptedException {
+        // 30 levels of two assets that both contain both assets of the next level: 2^30 paths lead to the device
+        int levels = 30;
+        DeviceId device = new DeviceId(Uuids.timeBased());
+        List<EntityId> nextLevel = Collections.singletonList(device);
+        for (int i = 0; i < levels; i++) {
+            List<EntityId> level = Arrays.asList(new AssetId(Uuids.timeBased()), new AssetId(Uuids.timeBased()));
+            for (EntityId from : level) {
+                for (EntityId to : nextLevel) {
+                    saveRelation(new EntityRelation(from, to, EntityRelation.CONTAINS_TYPE));
+                }
+            }
+            nextLevel = level;
+        }
+
+        List<EntityRelation> relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, device, RelationTypeGroup.COMMON, 100).get();
+        Assert.assertEquals(2 + (levels - 1) * 4, relations.size());
+
+        relations = relationService.findByToRecursivelyAsync(SYSTEM_TENANT_ID, device, RelationTypeGroup.COMMON, 2).get();
+        Assert.assertEquals(2 + 4, relations.size());
+    }
 
     @Test(expected = DataValidationException.class)
     public void testSaveRelationWithEmptyFrom() throws ExecutionException, InterruptedException {
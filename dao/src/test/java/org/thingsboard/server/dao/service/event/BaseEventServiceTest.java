@@ -35,6 +35,7 @@ import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.ZoneOffset;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseEventServiceTest extends AbstractServiceTest {
 
@@ -49,6 +50,17 @@ public abstract class BaseEventServiceTest extends AbstractServiceTest {
         Assert.assertEquals(saved, loaded.get());
     }
 
+    @Test
+    public void saveEventAsync() throws Exception {
+        DeviceId devId = new DeviceId(Uuids.timeBased());
+        Event event = generateEvent(null, devId, DataConstants.DEBUG_RULE_NODE, null);
+        Event saved = eventService.saveAsync(event).get(30, TimeUnit.SECONDS);
+        Optional<Event> loaded = eventService.findEvent(event.getTenantId(), event.getEntityId(), event.getType(), saved.getUid());
+        Assert.assertTrue(loaded.isPresent());
+        Assert.assertEquals(saved.getId(), loaded.get().getId());
+        Assert.assertEquals(saved.getBody(), loaded.get().getBody());
+    }
+
     @Test
     public void saveEventIfNotExists() throws Exception {
         DeviceId devId = new DeviceId(Uuids.timeBased());
@@ -472,6 +472,39 @@ public abstract class BaseTimeseriesServiceTest extends AbstractServiceTest {
         assertEquals(java.util.Optional.of(2L), list.get(2).getLongValue());
     }
 
+    @Test
+    public void testExportAll() throws Exception {
+        DeviceId deviceId = new DeviceId(Uuids.timeBased());
+        long startTs = TimeUnit.HOURS.toMillis(1);
+        // spans two partitions, the first one exceeds the Cassandra page size and the SQL fetch size
+        int count = 4500;
+        List<TsKvEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new BasicTsKvEntry(startTs + TimeUnit.SECONDS.toMillis(i), new LongDataEntry(LONG_KEY, (long) i)));
+        }
+        tsService.saveWithoutLatest(tenantId, deviceId, entries, 0).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        List<TsKvEntry> exported = new ArrayList<>();
+        tsService.exportAll(tenantId, deviceId, Collections.singletonList(LONG_KEY), startTs + 1, startTs + TimeUnit.SECONDS.toMillis(count), exported::add);
+
+        assertEquals(count - 1, exported.size());
+        for (int i = 0; i < exported.size(); i++) {
+            assertEquals(entries.get(i + 1).getTs(), exported.get(i).getTs());
+            assertEquals(java.util.Optional.of((long) i + 1), exported.get(i).getLongValue());
+        }
+    }
+
+    @Test
+    public void testExportAllOfUnknownKey() throws Exception {
+        DeviceId deviceId = new DeviceId(Uuids.timeBased());
+        saveEntries(deviceId, TS);
+
+        List<TsKvEntry> exported = new ArrayList<>();
+        tsService.exportAll(tenantId, deviceId, Collections.singletonList("unknownKey" + Uuids.timeBased()), 0, TS + 1, exported::add);
+
+        Assert.assertTrue(exported.isEmpty());
+    }
+
     private TsKvEntry save(DeviceId deviceId, long ts, long value) throws Exception {
         TsKvEntry entry = new BasicTsKvEntry(ts, new LongDataEntry(LONG_KEY, value));
         tsService.save(tenantId, deviceId, entry).get(MAX_TIMEOUT, TimeUnit.SECONDS);
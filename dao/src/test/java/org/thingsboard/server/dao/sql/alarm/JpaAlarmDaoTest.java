@@ -19,18 +19,27 @@ import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.thingsboard.server.common.data.alarm.Alarm;
+import org.thingsboard.server.common.data.alarm.EntityAlarm;
 import org.thingsboard.server.common.data.id.AlarmId;
 import org.thingsboard.server.common.data.alarm.AlarmStatus;
+import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.dao.AbstractJpaDaoTest;
 import org.thingsboard.server.dao.alarm.AlarmDao;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Valerii Sosliuk on 5/21/2017.
@@ -61,6 +70,37 @@ public class JpaAlarmDaoTest extends AbstractJpaDaoTest {
         assertEquals(alarm2Id, alarm.getId().getId());
     }
 
+    @Test
+    public void testCreateEntityAlarmRecordsWithConflict() {
+        UUID tenantId = UUID.fromString("5d3e9b40-3e96-11e7-a884-898080180d6b");
+        UUID originatorId = UUID.fromString("5d3e9b41-3e96-11e7-a884-898080180d6b");
+        UUID alarmId = UUID.fromString("5d3e9b42-3e96-11e7-a884-898080180d6b");
+        AssetId parentId = new AssetId(UUID.fromString("5d3e9b43-3e96-11e7-a884-898080180d6b"));
+        saveAlarm(alarmId, tenantId, originatorId, "TEST_ALARM");
+
+        EntityAlarm originatorRecord = toEntityAlarm(tenantId, new DeviceId(originatorId), alarmId);
+        assertTrue(alarmDao.createEntityAlarmRecords(Collections.singletonList(originatorRecord)));
+
+        // the batch fails on the existing originator record and falls back to the per-record upsert
+        EntityAlarm parentRecord = toEntityAlarm(tenantId, parentId, alarmId);
+        assertTrue(alarmDao.createEntityAlarmRecords(Arrays.asList(originatorRecord, parentRecord)));
+
+        Set<EntityId> entityIds = alarmDao.findEntityAlarmRecords(new TenantId(tenantId), new AlarmId(alarmId)).stream()
+                .map(EntityAlarm::getEntityId)
+                .collect(Collectors.toSet());
+        assertEquals(2, entityIds.size());
+        assertTrue(entityIds.contains(new DeviceId(originatorId)));
+        assertTrue(entityIds.contains(parentId));
+
+        List<AlarmId> alarmIds = alarmDao.deleteEntityAlarmRecords(new TenantId(tenantId), parentId);
+        assertEquals(Collections.singletonList(new AlarmId(alarmId)), alarmIds);
+        assertEquals(1, alarmDao.findEntityAlarmRecords(new TenantId(tenantId), new AlarmId(alarmId)).size());
+    }
+
+    private EntityAlarm toEntityAlarm(UUID tenantId, EntityId entityId, UUID alarmId) {
+        return new EntityAlarm(new TenantId(tenantId), entityId, System.currentTimeMillis(), "TEST_ALARM", null, new AlarmId(alarmId));
+    }
+
     private void saveAlarm(UUID id, UUID tenantId, UUID deviceId, String type) {
         Alarm alarm = new Alarm();
         alarm.setId(new AlarmId(id));
@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TimeseriesRollupServiceTest {
+
+    private static final String KEY = "temperature";
+    private static final long TS = TimeUnit.DAYS.toMillis(1);
+
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Mock
+    private TimeseriesRollupDao rollupDao;
+    @Mock
+    private TimeseriesDao timeseriesDao;
+
+    private TimeseriesRollupService rollupService;
+
+    @Before
+    public void setUp() {
+        rollupService = new TimeseriesRollupService();
+        ReflectionTestUtils.setField(rollupService, "rollupDao", rollupDao);
+        ReflectionTestUtils.setField(rollupService, "timeseriesDao", timeseriesDao);
+        ReflectionTestUtils.setField(rollupService, "batchSize", 1000);
+        ReflectionTestUtils.setField(rollupService, "maxPendingBuckets", 1000);
+        ReflectionTestUtils.setField(rollupService, "maxQueryBuckets", 1000L);
+        ReflectionTestUtils.setField(rollupService, "maxEdgeQueries", 100L);
+        ReflectionTestUtils.setField(rollupService, "maxEdgeValues", 1000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedFlushIsRetriedWithMergedBuckets() {
+        when(rollupDao.save(eq(tenantId), anyList()))
+                .thenReturn(Futures.immediateFailedFuture(new RuntimeException("unavailable")))
+                .thenReturn(Futures.immediateFuture(null));
+
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS, new LongDataEntry(KEY, 5L)));
+        ReflectionTestUtils.invokeMethod(rollupService, "flush");
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS + 1, new LongDataEntry(KEY, 7L)));
+        ReflectionTestUtils.invokeMethod(rollupService, "flush");
+
+        ArgumentCaptor<List<TsKvRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rollupDao, times(2)).save(eq(tenantId), captor.capture());
+        List<TsKvRollup> retried = captor.getAllValues().get(1);
+        Assert.assertEquals(TsRollupGranularity.values().length, retried.size());
+        for (TsKvRollup rollup : retried) {
+            Assert.assertEquals(2, rollup.getCount());
+            Assert.assertEquals(12, rollup.getLongSum());
+        }
+    }
+
+    @Test
+    public void testBucketsInFlightAreVisibleToQueries() throws Exception {
+        SettableFuture<Void> saveFuture = SettableFuture.create();
+        when(rollupDao.save(eq(tenantId), anyList())).thenReturn(saveFuture);
+        when(rollupDao.findAllAsync(eq(tenantId), eq(deviceId), eq(KEY), any(), anyLong(), anyLong()))
+                .thenReturn(Futures.immediateFuture(Collections.emptyList()));
+
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS, new LongDataEntry(KEY, 5L)));
+        ReflectionTestUtils.invokeMethod(rollupService, "flushAsync");
+
+        long interval = TimeUnit.MINUTES.toMillis(1);
+        List<TsKvEntry> result = rollupService.findAllAsync(tenantId, deviceId, Collections.singletonList(
+                new BaseReadTsKvQuery(KEY, TS, TS + interval, interval, 0, Aggregation.SUM))).get();
+        saveFuture.set(null);
+
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(5L, result.get(0).getLongValue().get().longValue());
+    }
+
+    @Test
+    public void testOverwrittenTimestampFallsBackToRawQuery() throws Exception {
+        TsKvRollup stored = new TsKvRollup(deviceId, KEY, TsRollupGranularity.MINUTE, TS);
+        stored.update(new BasicTsKvEntry(TS, new LongDataEntry(KEY, 5L)));
+        stored.update(new BasicTsKvEntry(TS + 10, new LongDataEntry(KEY, 6L)));
+        when(rollupDao.findAllAsync(eq(tenantId), eq(deviceId), eq(KEY), any(), anyLong(), anyLong()))
+                .thenReturn(Futures.immediateFuture(Collections.singletonList(stored)));
+        List<TsKvEntry> rawResult = Collections.singletonList(new BasicTsKvEntry(TS, new LongDataEntry(KEY, 13L)));
+        when(timeseriesDao.findAllAsync(eq(tenantId), eq(deviceId), anyList())).thenReturn(Futures.immediateFuture(rawResult));
+
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS + 10, new LongDataEntry(KEY, 8L)));
+
+        long interval = TimeUnit.MINUTES.toMillis(1);
+        List<TsKvEntry> result = rollupService.findAllAsync(tenantId, deviceId, Collections.singletonList(
+                new BaseReadTsKvQuery(KEY, TS, TS + interval, interval, 0, Aggregation.SUM))).get();
+
+        Assert.assertEquals(rawResult, result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBucketsOverMaxPendingAreSavedDirty() throws Exception {
+        ReflectionTestUtils.setField(rollupService, "maxPendingBuckets", TsRollupGranularity.values().length);
+        when(rollupDao.findAllAsync(eq(tenantId), eq(deviceId), eq(KEY), any(), anyLong(), anyLong()))
+                .thenReturn(Futures.immediateFuture(Collections.emptyList()));
+        List<TsKvEntry> rawResult = Collections.singletonList(new BasicTsKvEntry(TS, new LongDataEntry(KEY, 12L)));
+        when(timeseriesDao.findAllAsync(eq(tenantId), eq(deviceId), anyList())).thenReturn(Futures.immediateFuture(rawResult));
+        when(rollupDao.save(eq(tenantId), anyList())).thenReturn(Futures.immediateFuture(null));
+
+        long interval = TimeUnit.MINUTES.toMillis(1);
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS, new LongDataEntry(KEY, 5L)));
+        rollupService.update(tenantId, deviceId, new BasicTsKvEntry(TS + interval, new LongDataEntry(KEY, 7L)));
+
+        List<TsKvEntry> result = rollupService.findAllAsync(tenantId, deviceId, Collections.singletonList(
+                new BaseReadTsKvQuery(KEY, TS, TS + 2 * interval, interval, 0, Aggregation.SUM))).get();
+        Assert.assertEquals(rawResult, result);
+
+        ReflectionTestUtils.invokeMethod(rollupService, "flush");
+        ArgumentCaptor<List<TsKvRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rollupDao).save(eq(tenantId), captor.capture());
+        TsKvRollup overflowed = captor.getValue().stream()
+                .filter(rollup -> rollup.getGranularity() == TsRollupGranularity.MINUTE && rollup.getTs() == TS + interval)
+                .findFirst().orElseThrow();
+        Assert.assertTrue(overflowed.isDirty());
+        Assert.assertEquals(0, overflowed.getCount());
+    }
+
+    @Test
+    public void testUnalignedIntervalEdgesAreReadFromRawData() throws Exception {
+        long minute = TimeUnit.MINUTES.toMillis(1);
+        long startTs = TS + minute / 2;
+        TsKvRollup stored = new TsKvRollup(deviceId, KEY, TsRollupGranularity.MINUTE, TS + minute);
+        stored.update(new BasicTsKvEntry(TS + minute + 1, new LongDataEntry(KEY, 10L)));
+        when(rollupDao.findAllAsync(tenantId, deviceId, KEY, TsRollupGranularity.MINUTE, TS + minute, TS + 2 * minute))
+                .thenReturn(Futures.immediateFuture(Collections.singletonList(stored)));
+        when(timeseriesDao.findAllAsync(eq(tenantId), eq(deviceId), argThat(queries -> queries.get(0).getStartTs() == startTs)))
+                .thenReturn(Futures.immediateFuture(Collections.singletonList(new BasicTsKvEntry(startTs + 1, new LongDataEntry(KEY, 1L)))));
+        when(timeseriesDao.findAllAsync(eq(tenantId), eq(deviceId), argThat(queries -> queries.get(0).getStartTs() == TS + 2 * minute)))
+                .thenReturn(Futures.immediateFuture(Collections.singletonList(new BasicTsKvEntry(TS + 2 * minute + 1, new LongDataEntry(KEY, 2L)))));
+
+        List<TsKvEntry> result = rollupService.findAllAsync(tenantId, deviceId, Collections.singletonList(
+                new BaseReadTsKvQuery(KEY, startTs, startTs + 2 * minute, 2 * minute, 0, Aggregation.SUM))).get();
+
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(13L, result.get(0).getLongValue().get().longValue());
+        Assert.assertEquals(startTs + minute, result.get(0).getTs());
+    }
+
+}
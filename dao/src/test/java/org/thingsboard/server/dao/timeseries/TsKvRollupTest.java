@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.UUID;
+
+public class TsKvRollupTest {
+
+    private static final String KEY = "temperature";
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void testLongValuesKeepLongType() {
+        TsKvRollup rollup = newRollup();
+        rollup.update(new LongDataEntry(KEY, 5L));
+        rollup.update(new LongDataEntry(KEY, -3L));
+        rollup.update(new LongDataEntry(KEY, 10L));
+
+        Assert.assertEquals(12L, aggregate(rollup, Aggregation.SUM).getLongValue().get().longValue());
+        Assert.assertEquals(-3L, aggregate(rollup, Aggregation.MIN).getLongValue().get().longValue());
+        Assert.assertEquals(10L, aggregate(rollup, Aggregation.MAX).getLongValue().get().longValue());
+        Assert.assertEquals(3L, aggregate(rollup, Aggregation.COUNT).getLongValue().get().longValue());
+        Assert.assertEquals(4.0, aggregate(rollup, Aggregation.AVG).getDoubleValue().get(), 0.0);
+    }
+
+    @Test
+    public void testMergeOfMixedNumericValues() {
+        TsKvRollup first = newRollup();
+        first.update(new LongDataEntry(KEY, 4L));
+        TsKvRollup second = newRollup();
+        second.update(new DoubleDataEntry(KEY, 1.5));
+        second.update(new DoubleDataEntry(KEY, 6.5));
+
+        first.merge(second);
+        first.merge(newRollup());
+
+        Assert.assertEquals(3, first.getCount());
+        Assert.assertTrue(first.isNumeric());
+        TsKvEntry sum = aggregate(first, Aggregation.SUM);
+        Assert.assertEquals(DataType.DOUBLE, sum.getDataType());
+        Assert.assertEquals(12.0, sum.getDoubleValue().get(), 0.0);
+        Assert.assertEquals(1.5, aggregate(first, Aggregation.MIN).getDoubleValue().get(), 0.0);
+        Assert.assertEquals(6.5, aggregate(first, Aggregation.MAX).getDoubleValue().get(), 0.0);
+    }
+
+    @Test
+    public void testNonNumericValuesAreCountedOnly() {
+        TsKvRollup rollup = newRollup();
+        rollup.update(new StringDataEntry(KEY, "on"));
+        rollup.update(new LongDataEntry(KEY, 1L));
+
+        Assert.assertFalse(rollup.isNumeric());
+        Assert.assertEquals(2L, aggregate(rollup, Aggregation.COUNT).getLongValue().get().longValue());
+        Assert.assertFalse(newRollup().toTsKvEntry(Aggregation.COUNT, KEY, 0L).isPresent());
+    }
+
+    @Test
+    public void testBucketAlignment() {
+        long ts = 1_600_000_123_456L;
+        Assert.assertEquals(1_600_000_080_000L, TsRollupGranularity.MINUTE.toBucketTs(ts));
+        Assert.assertEquals(1_599_998_400_000L, TsRollupGranularity.HOUR.toBucketTs(ts));
+        Assert.assertEquals(1_599_955_200_000L, TsRollupGranularity.DAY.toBucketTs(ts));
+    }
+
+    private TsKvRollup newRollup() {
+        return new TsKvRollup(deviceId, KEY, TsRollupGranularity.MINUTE, 0L);
+    }
+
+    private static TsKvEntry aggregate(TsKvRollup rollup, Aggregation aggregation) {
+        return rollup.toTsKvEntry(aggregation, KEY, 0L).get();
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.UUID;
+
+public class TenantFairQueueTest {
+
+    private final TenantId noisyTenantId = new TenantId(UUID.randomUUID());
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+
+    @Test
+    public void testTenantsAreTakenInRoundRobinOrder() throws InterruptedException {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(100, 0);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(queue.offer(noisyTenantId, "noisy" + i));
+        }
+        Assert.assertTrue(queue.offer(tenantId, "task0"));
+        Assert.assertTrue(queue.offer(tenantId, "task1"));
+
+        Assert.assertEquals(7, queue.size());
+        Assert.assertEquals("noisy0", queue.take());
+        Assert.assertEquals("task0", queue.take());
+        Assert.assertEquals("noisy1", queue.take());
+        Assert.assertEquals("task1", queue.take());
+        Assert.assertEquals("noisy2", queue.take());
+        Assert.assertEquals("noisy3", queue.take());
+        Assert.assertEquals(1, queue.tenantsCount());
+    }
+
+    @Test
+    public void testTenantQueueLimit() {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(3, 2);
+        Assert.assertTrue(queue.offer(noisyTenantId, "noisy0"));
+        Assert.assertTrue(queue.offer(noisyTenantId, "noisy1"));
+        Assert.assertFalse(queue.offer(noisyTenantId, "noisy2"));
+        Assert.assertTrue(queue.offer(tenantId, "task0"));
+        Assert.assertFalse(queue.offer(tenantId, "task1"));
+        Assert.assertFalse(queue.offer(null, "system"));
+    }
+}
@@ -37,7 +37,9 @@ import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.common.data.rule.RuleNode;
 import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.asset.AssetService;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.cassandra.CassandraCluster;
@@ -46,6 +48,7 @@ import org.thingsboard.server.dao.dashboard.DashboardService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.edge.EdgeEventService;
 import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.entityview.EntityViewService;
 import org.thingsboard.server.dao.nosql.CassandraStatementTask;
 import org.thingsboard.server.dao.nosql.TbResultSetFuture;
@@ -224,6 +227,8 @@ public interface TbContext {
 
     RelationService getRelationService();
 
+    EntityService getEntityService();
+
     EntityViewService getEntityViewService();
 
     ResourceService getResourceService();
@@ -236,6 +241,8 @@ public interface TbContext {
 
     EdgeEventService getEdgeEventService();
 
+    StatsFactory getStatsFactory();
+
     ListeningExecutor getMailExecutor();
 
     ListeningExecutor getSmsExecutor();
@@ -258,6 +265,15 @@ public interface TbContext {
 
     void logJsEvalFailure();
 
+    /**
+     * Records the latency of the message sampled for tracing at the given stage.
+     * Does nothing if the message is not traced.
+     *
+     * @param msg - the message
+     * @param stage - the processing stage
+     */
+    void traceMsg(TbMsg msg, TbMsgTraceStage stage);
+
     String getServiceId();
 
     EventLoopGroup getSharedEventLoop();
@@ -15,38 +15,26 @@
  */
 package org.thingsboard.rule.engine.api.msg;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.ToString;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKey;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
-import org.thingsboard.server.common.msg.MsgType;
-import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
 
 import java.util.List;
 import java.util.Set;
 
 /**
- * @author Andrew Shvayka
+ * Keeps the original class name readable for FST encoded notifications exchanged with older nodes.
+ *
+ * @deprecated use {@link org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg}
  */
-@ToString
-@AllArgsConstructor
-public class DeviceAttributesEventNotificationMsg implements ToDeviceActorNotificationMsg {
+@Deprecated
+public class DeviceAttributesEventNotificationMsg extends org.thingsboard.server.common.msg.rule.engine.DeviceAttributesEventNotificationMsg {
 
-    @Getter
-    private final TenantId tenantId;
-    @Getter
-    private final DeviceId deviceId;
-    @Getter
-    private final Set<AttributeKey> deletedKeys;
-    @Getter
-    private final String scope;
-    @Getter
-    private final List<AttributeKvEntry> values;
-    @Getter
-    private final boolean deleted;
+    public DeviceAttributesEventNotificationMsg(TenantId tenantId, DeviceId deviceId, Set<AttributeKey> deletedKeys,
+                                                String scope, List<AttributeKvEntry> values, boolean deleted) {
+        super(tenantId, deviceId, deletedKeys, scope, values, deleted);
+    }
 
     public static DeviceAttributesEventNotificationMsg onUpdate(TenantId tenantId, DeviceId deviceId, String scope, List<AttributeKvEntry> values) {
         return new DeviceAttributesEventNotificationMsg(tenantId, deviceId, null, scope, values, false);
@@ -55,9 +43,4 @@ public class DeviceAttributesEventNotificationMsg implements ToDeviceActorNotifi
     public static DeviceAttributesEventNotificationMsg onDelete(TenantId tenantId, DeviceId deviceId, Set<AttributeKey> keys) {
         return new DeviceAttributesEventNotificationMsg(tenantId, deviceId, keys, null, null, true);
     }
-
-    @Override
-    public MsgType getMsgType() {
-        return MsgType.DEVICE_ATTRIBUTES_UPDATE_TO_DEVICE_ACTOR_MSG;
-    }
 }
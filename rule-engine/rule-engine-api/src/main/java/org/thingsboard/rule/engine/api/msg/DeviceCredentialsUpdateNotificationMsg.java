@@ -15,32 +15,19 @@
  */
 package org.thingsboard.rule.engine.api.msg;
 
-import lombok.Data;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.security.DeviceCredentials;
-import org.thingsboard.server.common.msg.MsgType;
-import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
 
 /**
- * @author Andrew Shvayka
+ * Keeps the original class name readable for FST encoded notifications exchanged with older nodes.
+ *
+ * @deprecated use {@link org.thingsboard.server.common.msg.rule.engine.DeviceCredentialsUpdateNotificationMsg}
  */
-@Data
-public class DeviceCredentialsUpdateNotificationMsg implements ToDeviceActorNotificationMsg {
-
-    private static final long serialVersionUID = -3956907402411126990L;
-
-    private final TenantId tenantId;
-    private final DeviceId deviceId;
-
-    /**
-     * LwM2M
-     * @return
-     */
-    private final DeviceCredentials deviceCredentials;
+@Deprecated
+public class DeviceCredentialsUpdateNotificationMsg extends org.thingsboard.server.common.msg.rule.engine.DeviceCredentialsUpdateNotificationMsg {
 
-    @Override
-    public MsgType getMsgType() {
-        return MsgType.DEVICE_CREDENTIALS_UPDATE_TO_DEVICE_ACTOR_MSG;
+    public DeviceCredentialsUpdateNotificationMsg(TenantId tenantId, DeviceId deviceId, DeviceCredentials deviceCredentials) {
+        super(tenantId, deviceId, deviceCredentials);
     }
 }
@@ -15,26 +15,18 @@
  */
 package org.thingsboard.rule.engine.api.msg;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
-import org.thingsboard.server.common.msg.MsgType;
-import org.thingsboard.server.common.msg.ToDeviceActorNotificationMsg;
 
-@Data
-@AllArgsConstructor
-public class DeviceNameOrTypeUpdateMsg implements ToDeviceActorNotificationMsg {
-
-    private static final long serialVersionUID = -5738949227650536685L;
-
-    private final TenantId tenantId;
-    private final DeviceId deviceId;
-    private final String deviceName;
-    private final String deviceType;
+/**
+ * Keeps the original class name readable for FST encoded notifications exchanged with older nodes.
+ *
+ * @deprecated use {@link org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg}
+ */
+@Deprecated
+public class DeviceNameOrTypeUpdateMsg extends org.thingsboard.server.common.msg.rule.engine.DeviceNameOrTypeUpdateMsg {
 
-    @Override
-    public MsgType getMsgType() {
-        return MsgType.DEVICE_NAME_OR_TYPE_UPDATE_TO_DEVICE_ACTOR_MSG;
+    public DeviceNameOrTypeUpdateMsg(TenantId tenantId, DeviceId deviceId, String deviceName, String deviceType) {
+        super(tenantId, deviceId, deviceName, deviceType);
     }
 }
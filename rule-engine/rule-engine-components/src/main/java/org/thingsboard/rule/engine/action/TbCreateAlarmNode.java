@@ -17,7 +17,7 @@ package org.thingsboard.rule.engine.action;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -133,14 +133,14 @@ public class TbCreateAlarmNode extends TbAbstractAlarmNode<TbCreateAlarmNodeConf
                         return buildAlarm(msg, details, ctx.getTenantId());
                     }, MoreExecutors.directExecutor());
         }
-        ListenableFuture<Alarm> asyncCreated = Futures.transform(asyncAlarm,
-                alarm -> ctx.getAlarmService().createOrUpdateAlarm(alarm), ctx.getDbCallbackExecutor());
+        ListenableFuture<Alarm> asyncCreated = Futures.transformAsync(asyncAlarm,
+                alarm -> ctx.getAlarmService().createOrUpdateAlarmAsync(alarm), ctx.getDbCallbackExecutor());
         return Futures.transform(asyncCreated, alarm -> new TbAlarmResult(true, false, false, alarm), MoreExecutors.directExecutor());
     }
 
     private ListenableFuture<TbAlarmResult> updateAlarm(TbContext ctx, TbMsg msg, Alarm existingAlarm, Alarm msgAlarm) {
         ctx.logJsEvalRequest();
-        ListenableFuture<Alarm> asyncUpdated = Futures.transform(buildAlarmDetails(ctx, msg, existingAlarm.getDetails()), (Function<JsonNode, Alarm>) details -> {
+        ListenableFuture<Alarm> asyncUpdated = Futures.transformAsync(buildAlarmDetails(ctx, msg, existingAlarm.getDetails()), (AsyncFunction<JsonNode, Alarm>) details -> {
             ctx.logJsEvalResponse();
             if (msgAlarm != null) {
                 existingAlarm.setSeverity(msgAlarm.getSeverity());
@@ -153,7 +153,7 @@ public class TbCreateAlarmNode extends TbAbstractAlarmNode<TbCreateAlarmNodeConf
             }
             existingAlarm.setDetails(details);
             existingAlarm.setEndTs(System.currentTimeMillis());
-            return ctx.getAlarmService().createOrUpdateAlarm(existingAlarm);
+            return ctx.getAlarmService().createOrUpdateAlarmAsync(existingAlarm);
         }, ctx.getDbCallbackExecutor());
 
         return Futures.transform(asyncUpdated, a -> new TbAlarmResult(false, true, false, a), MoreExecutors.directExecutor());
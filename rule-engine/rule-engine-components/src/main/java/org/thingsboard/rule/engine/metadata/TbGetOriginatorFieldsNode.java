@@ -45,6 +45,8 @@ import static org.thingsboard.common.util.DonAsynchron.withCallback;
         configDirective = "tbEnrichmentNodeOriginatorFieldsConfig")
 public class TbGetOriginatorFieldsNode implements TbNode {
 
+    private static final String NAME_FIELD = "name";
+
     private TbGetOriginatorFieldsConfiguration config;
 
     @Override
@@ -65,6 +67,13 @@ public class TbGetOriginatorFieldsNode implements TbNode {
     private ListenableFuture<Void> putEntityFields(TbContext ctx, EntityId entityId, TbMsg msg) {
         if (config.getFieldsMapping().isEmpty()) {
             return Futures.immediateFuture(null);
+        } else if (isNameOnlyMapping()) {
+            return Futures.transform(EntitiesFieldsAsyncLoader.findNameAsync(ctx, entityId),
+                    name -> {
+                        config.getFieldsMapping().values().forEach(metaKey -> msg.getMetaData().putValue(metaKey, name));
+                        return null;
+                    }, MoreExecutors.directExecutor()
+            );
         } else {
             return Futures.transform(EntitiesFieldsAsyncLoader.findAsync(ctx, entityId),
                     data -> {
@@ -80,6 +89,10 @@ public class TbGetOriginatorFieldsNode implements TbNode {
         }
     }
 
+    private boolean isNameOnlyMapping() {
+        return config.getFieldsMapping().size() == 1 && config.getFieldsMapping().containsKey(NAME_FIELD);
+    }
+
     @Override
     public void destroy() {
 
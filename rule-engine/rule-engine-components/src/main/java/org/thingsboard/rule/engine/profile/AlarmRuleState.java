@@ -194,6 +194,17 @@ class AlarmRuleState {
         }
     }
 
+    /**
+     * @param persisted whether the rule state is restored from the rule node state when the device state is reloaded
+     * @return true if the rule state may be dropped from memory. In-progress durations always require the periodic evaluation.
+     */
+    public boolean isIdle(boolean persisted) {
+        if (persisted && !AlarmConditionSpecType.DURATION.equals(spec.getType())) {
+            return true;
+        }
+        return state.getEventCount() == 0 && state.getLastEventTs() == 0 && state.getDuration() == 0;
+    }
+
     private AlarmEvalResult evalRepeating(DataSnapshot data, boolean active) {
         if (active && eval(alarmRule.getCondition(), data)) {
             state.setEventCount(state.getEventCount() + 1);
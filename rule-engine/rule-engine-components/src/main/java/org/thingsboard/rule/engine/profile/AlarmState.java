@@ -144,6 +144,15 @@ class AlarmState {
         return stateUpdate;
     }
 
+    public boolean isIdle(boolean persisted) {
+        for (AlarmRuleState state : createRulesSortedBySeverityDesc) {
+            if (!state.isIdle(persisted)) {
+                return false;
+            }
+        }
+        return clearState == null || clearState.isIdle(persisted);
+    }
+
     public boolean validateUpdate(SnapshotUpdate update, AlarmRuleState state) {
         if (update != null) {
             //Check that the update type and that keys match.
@@ -15,6 +15,8 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import lombok.Getter;
 import lombok.Setter;
 import org.thingsboard.server.common.data.device.profile.AlarmConditionFilterKey;
@@ -22,18 +24,27 @@ import org.thingsboard.server.common.data.device.profile.AlarmConditionKeyType;
 import org.thingsboard.server.common.data.query.EntityKey;
 import org.thingsboard.server.common.data.query.EntityKeyType;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Latest values of the device keys used by the alarm rules. Not thread safe: the snapshot is accessed by the rule node actor only.
+ */
 class DataSnapshot {
 
-    private volatile boolean ready;
+    // the same filter keys are shared by the snapshots of all devices with the same profile
+    private static final Interner<AlarmConditionFilterKey> KEY_INTERNER = Interners.newWeakInterner();
+
+    private static final int BASE_SIZE = 64;
+    private static final int ENTRY_SIZE = 72;
+    private static final int STRING_SIZE = 40;
+
     @Getter
     @Setter
     private long ts;
     private final Set<AlarmConditionFilterKey> keys;
-    private final Map<AlarmConditionFilterKey, EntityKeyValue> values = new ConcurrentHashMap<>();
+    private final Map<AlarmConditionFilterKey, EntityKeyValue> values = new HashMap<>();
 
     DataSnapshot(Set<AlarmConditionFilterKey> entityKeysToFetch) {
         this.keys = entityKeysToFetch;
@@ -69,7 +80,12 @@ class DataSnapshot {
 
     private boolean putIfKeyExists(AlarmConditionFilterKey key, EntityKeyValue value, boolean updateOfTs) {
         if (keys.contains(key)) {
-            EntityKeyValue oldValue = values.put(key, value);
+            EntityKeyValue oldValue = values.get(key);
+            if (oldValue != null) {
+                values.put(key, value);
+            } else {
+                values.put(KEY_INTERNER.intern(key), value);
+            }
             if (updateOfTs) {
                 return true;
             } else {
@@ -80,7 +96,25 @@ class DataSnapshot {
         }
     }
 
+    void putAll(DataSnapshot snapshot) {
+        snapshot.values.forEach((key, value) -> putIfKeyExists(key, value, false));
+    }
+
     EntityKeyValue getValue(AlarmConditionFilterKey key) {
         return values.get(key);
     }
+
+    /**
+     * @return rough estimate of the heap used by the snapshot values in bytes. Interned keys are not included.
+     */
+    long estimateSize() {
+        long size = BASE_SIZE + (long) values.size() * ENTRY_SIZE;
+        for (EntityKeyValue value : values.values()) {
+            String strValue = value.getStrValue() != null ? value.getStrValue() : value.getJsonValue();
+            if (strValue != null) {
+                size += STRING_SIZE + strValue.length();
+            }
+        }
+        return size;
+    }
 }
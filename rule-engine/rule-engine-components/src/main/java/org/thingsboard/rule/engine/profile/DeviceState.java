@@ -15,7 +15,11 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.JsonParser;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 import org.thingsboard.rule.engine.api.TbContext;
@@ -32,7 +36,6 @@ import org.thingsboard.server.common.data.device.profile.DeviceProfileAlarm;
 import org.thingsboard.server.common.data.exception.ApiUsageLimitsExceededException;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
-import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -40,17 +43,23 @@ import org.thingsboard.server.common.data.query.EntityKey;
 import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.session.SessionMsgType;
 import org.thingsboard.server.common.transport.adaptor.JsonConverter;
 import org.thingsboard.server.dao.sql.query.EntityKeyMapping;
 import org.thingsboard.common.util.JacksonUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -59,6 +68,11 @@ import java.util.stream.Collectors;
 @Slf4j
 class DeviceState {
 
+    private static final List<String> ATTRIBUTE_SCOPES = Arrays.asList(DataConstants.CLIENT_SCOPE, DataConstants.SHARED_SCOPE, DataConstants.SERVER_SCOPE);
+
+    private static final int BASE_SIZE = 256;
+    private static final int ALARM_STATE_SIZE = 512;
+
     private final boolean persistState;
     private final DeviceId deviceId;
     private final ProfileState deviceProfile;
@@ -67,6 +81,12 @@ class DeviceState {
     private DataSnapshot latestValues;
     private final ConcurrentMap<String, AlarmState> alarmStates = new ConcurrentHashMap<>();
     private final DynamicPredicateValueCtx dynamicPredicateValueCtx;
+    private final Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>();
+    private final Queue<TbMsg> pendingMsgs = new LinkedList<>();
+    private ListenableFuture<DataSnapshot> snapshotFuture;
+    private Set<AlarmConditionFilterKey> snapshotFutureKeys;
+    @Getter
+    private long lastActivityTs = System.currentTimeMillis();
 
     DeviceState(TbContext ctx, TbDeviceProfileNodeConfiguration config, DeviceId deviceId, ProfileState deviceProfile, RuleNodeState state) {
         this.persistState = config.isPersistAlarmRulesState();
@@ -103,11 +123,10 @@ class DeviceState {
         Set<AlarmConditionFilterKey> oldKeys = Set.copyOf(this.deviceProfile.getEntityKeys());
         this.deviceProfile.updateDeviceProfile(deviceProfile);
         if (latestValues != null) {
-            Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(this.deviceProfile.getEntityKeys());
-            keysToFetch.removeAll(oldKeys);
-            if (!keysToFetch.isEmpty()) {
-                addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, latestValues);
-            }
+            Set<AlarmConditionFilterKey> newKeys = new HashSet<>(this.deviceProfile.getEntityKeys());
+            newKeys.removeAll(oldKeys);
+            // new keys are fetched asynchronously before the next message is processed
+            keysToFetch.addAll(newKeys);
         }
         Set<String> newAlarmStateIds = this.deviceProfile.getAlarmSettings().stream().map(DeviceProfileAlarm::getId).collect(Collectors.toSet());
         alarmStates.keySet().removeIf(id -> !newAlarmStateIds.contains(id));
@@ -133,9 +152,121 @@ class DeviceState {
     }
 
     public void process(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
+        lastActivityTs = System.currentTimeMillis();
         if (latestValues == null) {
-            latestValues = fetchLatestValues(ctx, deviceId);
+            latestValues = new DataSnapshot(deviceProfile.getEntityKeys());
+            keysToFetch.addAll(deviceProfile.getEntityKeys());
+        }
+        if (pendingMsgs.isEmpty() && fetchSnapshotIfNeeded(ctx)) {
+            doProcess(ctx, msg);
+        } else {
+            pendingMsgs.add(msg);
+        }
+    }
+
+    void onSnapshotFetched(TbContext ctx) {
+        ListenableFuture<DataSnapshot> future = snapshotFuture;
+        if (future == null || !future.isDone()) {
+            return;
+        }
+        Set<AlarmConditionFilterKey> keys = snapshotFutureKeys;
+        snapshotFuture = null;
+        snapshotFutureKeys = null;
+        try {
+            applySnapshot(keys, future);
+            if (!fetchSnapshotIfNeeded(ctx)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("[{}][{}] Failed to fetch data snapshot", ctx.getSelfId(), deviceId, e);
+            TbMsg msg;
+            while ((msg = pendingMsgs.poll()) != null) {
+                ctx.tellFailure(msg, e);
+            }
+            return;
+        }
+        TbMsg msg;
+        while ((msg = pendingMsgs.poll()) != null) {
+            try {
+                doProcess(ctx, msg);
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        }
+    }
+
+    /**
+     * The state may be dropped from memory if nothing waits for the data snapshot and the alarm rules don't need the periodic evaluation.
+     * Once the device sends the next message, the state is created again from the persisted rule node state
+     * and the data snapshot and the current alarms are fetched from the database.
+     */
+    boolean isEvictable() {
+        if (!pendingMsgs.isEmpty() || snapshotFuture != null) {
+            return false;
+        }
+        for (AlarmState alarmState : alarmStates.values()) {
+            if (!alarmState.isIdle(persistState)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return rough estimate of the heap used by the state in bytes.
+     */
+    long estimateSize() {
+        long size = BASE_SIZE + (long) alarmStates.size() * ALARM_STATE_SIZE;
+        if (latestValues != null) {
+            size += latestValues.estimateSize();
+        }
+        return size;
+    }
+
+    List<TbMsg> drainPendingMsgs() {
+        List<TbMsg> msgs = new ArrayList<>(pendingMsgs);
+        pendingMsgs.clear();
+        return msgs;
+    }
+
+    /**
+     * Fetches the keys that are not part of the data snapshot yet.
+     *
+     * @return true if the snapshot is complete, false if the fetch is still in progress and the
+     * device profile node will be notified with the {@link TbDeviceProfileNode#SNAPSHOT_FETCHED_MSG_TYPE} message.
+     */
+    private boolean fetchSnapshotIfNeeded(TbContext ctx) throws ExecutionException {
+        if (snapshotFuture != null) {
+            return false;
+        }
+        while (!keysToFetch.isEmpty()) {
+            Set<AlarmConditionFilterKey> keys = new HashSet<>(keysToFetch);
+            keysToFetch.clear();
+            ListenableFuture<DataSnapshot> future = fetchSnapshotAsync(ctx, keys);
+            if (future.isDone()) {
+                applySnapshot(keys, future);
+            } else {
+                snapshotFuture = future;
+                snapshotFutureKeys = keys;
+                future.addListener(() -> ctx.tellSelf(TbMsg.newMsg(TbDeviceProfileNode.SNAPSHOT_FETCHED_MSG_TYPE, ctx.getTenantId(),
+                        TbMsgMetaData.EMPTY, deviceId.getId().toString()), 0L), MoreExecutors.directExecutor());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void applySnapshot(Set<AlarmConditionFilterKey> keys, ListenableFuture<DataSnapshot> future) throws ExecutionException {
+        try {
+            latestValues.putAll(Futures.getDone(future));
+        } catch (ExecutionException | CancellationException e) {
+            // keys will be fetched again with the next message
+            keysToFetch.addAll(keys);
+            throw e instanceof ExecutionException ? (ExecutionException) e : new ExecutionException(e);
         }
+    }
+
+    private void doProcess(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         boolean stateChanged = false;
         if (msg.getType().equals(SessionMsgType.POST_TELEMETRY_REQUEST.name())) {
             stateChanged = processTelemetry(ctx, msg);
@@ -313,63 +444,80 @@ class DeviceState {
         return EntityKeyType.ATTRIBUTE;
     }
 
-    private DataSnapshot fetchLatestValues(TbContext ctx, EntityId originator) throws ExecutionException, InterruptedException {
-        Set<AlarmConditionFilterKey> entityKeysToFetch = deviceProfile.getEntityKeys();
-        DataSnapshot result = new DataSnapshot(entityKeysToFetch);
-        addEntityKeysToSnapshot(ctx, originator, entityKeysToFetch, result);
-        return result;
-    }
-
-    private void addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) throws InterruptedException, ExecutionException {
+    private ListenableFuture<DataSnapshot> fetchSnapshotAsync(TbContext ctx, Set<AlarmConditionFilterKey> entityKeysToFetch) {
         Set<String> attributeKeys = new HashSet<>();
         Set<String> latestTsKeys = new HashSet<>();
+        Set<AlarmConditionFilterKey> entityFields = new HashSet<>();
 
-        Device device = null;
         for (AlarmConditionFilterKey entityKey : entityKeysToFetch) {
-            String key = entityKey.getKey();
             switch (entityKey.getType()) {
                 case ATTRIBUTE:
-                    attributeKeys.add(key);
+                    attributeKeys.add(entityKey.getKey());
                     break;
                 case TIME_SERIES:
-                    latestTsKeys.add(key);
+                    latestTsKeys.add(entityKey.getKey());
                     break;
                 case ENTITY_FIELD:
-                    if (device == null) {
-                        device = ctx.getDeviceService().findDeviceById(ctx.getTenantId(), new DeviceId(originator.getId()));
-                    }
-                    if (device != null) {
-                        switch (key) {
-                            case EntityKeyMapping.NAME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
-                                break;
-                            case EntityKeyMapping.TYPE:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
-                                break;
-                            case EntityKeyMapping.CREATED_TIME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
-                                break;
-                            case EntityKeyMapping.LABEL:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
-                                break;
-                        }
-                    }
+                    entityFields.add(entityKey);
                     break;
             }
         }
 
+        // every source fills its own snapshot, so the results are merged sequentially once all of them are fetched
+        List<ListenableFuture<DataSnapshot>> futures = new ArrayList<>();
+        if (!entityFields.isEmpty()) {
+            futures.add(Futures.transform(ctx.getDeviceService().findDeviceByIdAsync(ctx.getTenantId(), deviceId), device -> {
+                DataSnapshot snapshot = new DataSnapshot(entityKeysToFetch);
+                if (device != null) {
+                    addToSnapshot(snapshot, device, entityFields);
+                }
+                return snapshot;
+            }, MoreExecutors.directExecutor()));
+        }
         if (!latestTsKeys.isEmpty()) {
-            List<TsKvEntry> data = ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys).get();
-            for (TsKvEntry entry : data) {
-                if (entry.getValue() != null) {
-                    result.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
+            futures.add(Futures.transform(ctx.getTimeseriesService().findLatest(ctx.getTenantId(), deviceId, latestTsKeys), data -> {
+                DataSnapshot snapshot = new DataSnapshot(entityKeysToFetch);
+                for (TsKvEntry entry : data) {
+                    if (entry.getValue() != null) {
+                        snapshot.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
+                    }
                 }
-            }
+                return snapshot;
+            }, MoreExecutors.directExecutor()));
         }
         if (!attributeKeys.isEmpty()) {
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.CLIENT_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SHARED_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SERVER_SCOPE, attributeKeys).get());
+            futures.add(Futures.transform(ctx.getAttributesService().findByScopes(ctx.getTenantId(), deviceId, ATTRIBUTE_SCOPES, attributeKeys), data -> {
+                DataSnapshot snapshot = new DataSnapshot(entityKeysToFetch);
+                // the order of scopes matters: the server side attributes override the shared and the client side ones
+                for (String scope : ATTRIBUTE_SCOPES) {
+                    addToSnapshot(snapshot, data.getOrDefault(scope, Collections.emptyList()));
+                }
+                return snapshot;
+            }, MoreExecutors.directExecutor()));
+        }
+        return Futures.transform(Futures.allAsList(futures), snapshots -> {
+            DataSnapshot result = new DataSnapshot(entityKeysToFetch);
+            snapshots.forEach(result::putAll);
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void addToSnapshot(DataSnapshot snapshot, Device device, Set<AlarmConditionFilterKey> entityFields) {
+        for (AlarmConditionFilterKey entityKey : entityFields) {
+            switch (entityKey.getKey()) {
+                case EntityKeyMapping.NAME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
+                    break;
+                case EntityKeyMapping.TYPE:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
+                    break;
+                case EntityKeyMapping.CREATED_TIME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
+                    break;
+                case EntityKeyMapping.LABEL:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
+                    break;
+            }
         }
     }
 
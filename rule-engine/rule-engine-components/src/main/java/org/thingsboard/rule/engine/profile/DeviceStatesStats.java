@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.profile;
+
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.common.stats.StatsType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class DeviceStatesStats {
+
+    private static final String TRACKED_DEVICES = StatsType.RULE_ENGINE.getName() + ".deviceProfileTrackedDevices";
+    private static final String ESTIMATED_BYTES = StatsType.RULE_ENGINE.getName() + ".deviceProfileStateEstimatedBytes";
+    private static final String TENANT_ID_TAG = "tenantId";
+    private static final String RULE_NODE_ID_TAG = "ruleNodeId";
+
+    private final StatsFactory statsFactory;
+    private final String[] tags;
+    private final AtomicLong trackedDevices;
+    private final AtomicLong estimatedBytes;
+
+    private DeviceStatesStats(StatsFactory statsFactory, String[] tags, AtomicLong trackedDevices, AtomicLong estimatedBytes) {
+        this.statsFactory = statsFactory;
+        this.tags = tags;
+        this.trackedDevices = trackedDevices;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    static DeviceStatesStats forRuleNode(TbContext ctx) {
+        StatsFactory statsFactory = ctx.getStatsFactory();
+        if (statsFactory == null) {
+            return new DeviceStatesStats(null, null, new AtomicLong(), new AtomicLong());
+        }
+        String[] tags = {TENANT_ID_TAG, ctx.getTenantId().getId().toString(), RULE_NODE_ID_TAG, ctx.getSelfId().getId().toString()};
+        // the meter registry keeps the first registered gauge value only, so the gauges of the previous node instance must be removed by destroy()
+        return new DeviceStatesStats(statsFactory, tags,
+                statsFactory.createGauge(TRACKED_DEVICES, new AtomicLong(), tags),
+                statsFactory.createGauge(ESTIMATED_BYTES, new AtomicLong(), tags));
+    }
+
+    void update(long trackedDevices, long estimatedBytes) {
+        this.trackedDevices.set(trackedDevices);
+        this.estimatedBytes.set(estimatedBytes);
+    }
+
+    void destroy() {
+        update(0, 0);
+        if (statsFactory != null) {
+            statsFactory.removeGauge(TRACKED_DEVICES, tags);
+            statsFactory.removeGauge(ESTIMATED_BYTES, tags);
+        }
+    }
+
+    long getTrackedDevices() {
+        return trackedDevices.get();
+    }
+
+    long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+}
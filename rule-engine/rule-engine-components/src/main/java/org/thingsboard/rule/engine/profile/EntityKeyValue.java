@@ -19,41 +19,45 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.thingsboard.server.common.data.kv.DataType;
 
+/**
+ * Holds numeric and boolean values in a single primitive field to keep the data snapshot of the device compact.
+ */
 @EqualsAndHashCode
 class EntityKeyValue {
 
     @Getter
     private DataType dataType;
-    private Long lngValue;
-    private Double dblValue;
-    private Boolean boolValue;
+    private long primitiveValue;
     private String strValue;
 
     public Long getLngValue() {
-        return dataType == DataType.LONG ? lngValue : null;
+        return dataType == DataType.LONG ? primitiveValue : null;
     }
 
-    public void setLngValue(Long lngValue) {
+    public void setLngValue(long lngValue) {
         this.dataType = DataType.LONG;
-        this.lngValue = lngValue;
+        this.primitiveValue = lngValue;
+        this.strValue = null;
     }
 
     public Double getDblValue() {
-        return dataType == DataType.DOUBLE ? dblValue : null;
+        return dataType == DataType.DOUBLE ? Double.longBitsToDouble(primitiveValue) : null;
     }
 
-    public void setDblValue(Double dblValue) {
+    public void setDblValue(double dblValue) {
         this.dataType = DataType.DOUBLE;
-        this.dblValue = dblValue;
+        this.primitiveValue = Double.doubleToLongBits(dblValue);
+        this.strValue = null;
     }
 
     public Boolean getBoolValue() {
-        return dataType == DataType.BOOLEAN ? boolValue : null;
+        return dataType == DataType.BOOLEAN ? primitiveValue != 0 : null;
     }
 
-    public void setBoolValue(Boolean boolValue) {
+    public void setBoolValue(boolean boolValue) {
         this.dataType = DataType.BOOLEAN;
-        this.boolValue = boolValue;
+        this.primitiveValue = boolValue ? 1 : 0;
+        this.strValue = null;
     }
 
     public String getStrValue() {
@@ -62,11 +66,13 @@ class EntityKeyValue {
 
     public void setStrValue(String strValue) {
         this.dataType = DataType.STRING;
+        this.primitiveValue = 0;
         this.strValue = strValue;
     }
 
     public void setJsonValue(String jsonValue) {
         this.dataType = DataType.JSON;
+        this.primitiveValue = 0;
         this.strValue = jsonValue;
     }
 
@@ -40,11 +40,15 @@ import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.common.util.JacksonUtil;
 
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RuleNode(
@@ -63,17 +67,20 @@ public class TbDeviceProfileNode implements TbNode {
     private static final String PERIODIC_MSG_TYPE = "TbDeviceProfilePeriodicMsg";
     private static final String PROFILE_UPDATE_MSG_TYPE = "TbDeviceProfileUpdateMsg";
     private static final String DEVICE_UPDATE_MSG_TYPE = "TbDeviceUpdateMsg";
+    static final String SNAPSHOT_FETCHED_MSG_TYPE = "TbDeviceProfileSnapshotFetchedMsg";
 
     private TbDeviceProfileNodeConfiguration config;
     private RuleEngineDeviceProfileCache cache;
     private TbContext ctx;
     private final Map<DeviceId, DeviceState> deviceStates = new ConcurrentHashMap<>();
+    private DeviceStatesStats stats;
 
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
         this.config = TbNodeUtils.convert(configuration, TbDeviceProfileNodeConfiguration.class);
         this.cache = ctx.getDeviceProfileCache();
         this.ctx = ctx;
+        this.stats = DeviceStatesStats.forRuleNode(ctx);
         scheduleAlarmHarvesting(ctx, null);
         ctx.addDeviceProfileListeners(this::onProfileUpdate, this::onDeviceUpdate);
         if (config.isFetchAlarmRulesStateOnStart()) {
@@ -112,6 +119,11 @@ public class TbDeviceProfileNode implements TbNode {
             harvestAlarms(ctx, System.currentTimeMillis());
         } else if (msg.getType().equals(PROFILE_UPDATE_MSG_TYPE)) {
             updateProfile(ctx, new DeviceProfileId(UUID.fromString(msg.getData())));
+        } else if (msg.getType().equals(SNAPSHOT_FETCHED_MSG_TYPE)) {
+            DeviceState deviceState = deviceStates.get(new DeviceId(UUID.fromString(msg.getData())));
+            if (deviceState != null) {
+                deviceState.onSnapshotFetched(ctx);
+            }
         } else if (msg.getType().equals(DEVICE_UPDATE_MSG_TYPE)) {
             JsonNode data = JacksonUtil.toJsonNode(msg.getData());
             DeviceId deviceId = new DeviceId(UUID.fromString(data.get("deviceId").asText()));
@@ -147,13 +159,30 @@ public class TbDeviceProfileNode implements TbNode {
     @Override
     public void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
         // Cleanup the cache for all entities that are no longer assigned to current server partitions
-        deviceStates.entrySet().removeIf(entry -> !ctx.isLocalEntity(entry.getKey()));
+        deviceStates.entrySet().removeIf(entry -> {
+            if (!ctx.isLocalEntity(entry.getKey())) {
+                entry.getValue().drainPendingMsgs().forEach(pendingMsg -> handOver(ctx, pendingMsg));
+                return true;
+            } else {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Sends the message that waited for the data snapshot back to this rule node through the queue,
+     * so the alarm rules are evaluated by the server that owns the partition of the device now.
+     */
+    private void handOver(TbContext ctx, TbMsg msg) {
+        TbMsg handedOver = msg.copyWithRuleNodeId(msg.getRuleChainId(), ctx.getSelfId(), UUID.randomUUID());
+        ctx.enqueue(handedOver, msg.getQueueName(), () -> ctx.ack(msg), t -> ctx.tellFailure(msg, t));
     }
 
     @Override
     public void destroy() {
         ctx.removeListeners();
         deviceStates.clear();
+        stats.destroy();
     }
 
     protected DeviceState getOrCreateDeviceState(TbContext ctx, DeviceId deviceId, RuleNodeState rns) {
@@ -177,6 +206,46 @@ public class TbDeviceProfileNode implements TbNode {
         for (DeviceState state : deviceStates.values()) {
             state.harvestAlarms(ctx, ts);
         }
+        evictDeviceStates(ts);
+        long estimatedBytes = 0;
+        for (DeviceState state : deviceStates.values()) {
+            estimatedBytes += state.estimateSize();
+        }
+        stats.update(deviceStates.size(), estimatedBytes);
+    }
+
+    /**
+     * Removes the states of the devices that were idle for too long and the least recently active states above the limit.
+     * The evicted states are already persisted as rule node states (if enabled) and are created again on the next device message.
+     */
+    protected void evictDeviceStates(long ts) {
+        int evictedCount = 0;
+        if (config.getDeviceStateIdleTimeoutInMinutes() > 0) {
+            long idleThresholdTs = ts - TimeUnit.MINUTES.toMillis(config.getDeviceStateIdleTimeoutInMinutes());
+            Iterator<DeviceState> it = deviceStates.values().iterator();
+            while (it.hasNext()) {
+                DeviceState state = it.next();
+                if (state.getLastActivityTs() < idleThresholdTs && state.isEvictable()) {
+                    it.remove();
+                    evictedCount++;
+                }
+            }
+        }
+        int excess = deviceStates.size() - config.getMaxDeviceStates();
+        if (config.getMaxDeviceStates() > 0 && excess > 0) {
+            List<Map.Entry<DeviceId, DeviceState>> candidates = deviceStates.entrySet().stream()
+                    .filter(entry -> entry.getValue().isEvictable())
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().getLastActivityTs()))
+                    .limit(excess)
+                    .collect(Collectors.toList());
+            for (Map.Entry<DeviceId, DeviceState> entry : candidates) {
+                deviceStates.remove(entry.getKey());
+                evictedCount++;
+            }
+        }
+        if (evictedCount > 0) {
+            log.debug("[{}] Evicted {} device states, {} device states left", ctx.getSelfId(), evictedCount, deviceStates.size());
+        }
     }
 
     protected void updateProfile(TbContext ctx, DeviceProfileId deviceProfileId) throws ExecutionException, InterruptedException {
@@ -231,5 +300,15 @@ public class TbDeviceProfileNode implements TbNode {
         if (config.isPersistAlarmRulesState() && (state != null || !config.isFetchAlarmRulesStateOnStart())) {
             ctx.removeRuleNodeStateForEntity(deviceId);
         }
+        if (state != null) {
+            // messages that were waiting for the data snapshot are processed with the new device state
+            for (TbMsg msg : state.drainPendingMsgs()) {
+                try {
+                    onMsg(ctx, msg);
+                } catch (Exception e) {
+                    ctx.tellFailure(msg, e);
+                }
+            }
+        }
     }
 }
@@ -25,6 +25,10 @@ public class TbDeviceProfileNodeConfiguration implements NodeConfiguration<TbDev
 
     private boolean persistAlarmRulesState;
     private boolean fetchAlarmRulesStateOnStart;
+    // 0 means that the states of the idle devices are kept in memory until the partition change
+    private long deviceStateIdleTimeoutInMinutes;
+    // 0 means that the number of device states kept in memory is not limited
+    private int maxDeviceStates;
 
     @Override
     public TbDeviceProfileNodeConfiguration defaultConfiguration() {
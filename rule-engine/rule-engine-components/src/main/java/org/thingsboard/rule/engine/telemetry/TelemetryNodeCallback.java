@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import lombok.Data;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgTraceStage;
 
 import javax.annotation.Nullable;
 
@@ -32,6 +33,7 @@ class TelemetryNodeCallback implements FutureCallback<Void> {
 
     @Override
     public void onSuccess(@Nullable Void result) {
+        ctx.traceMsg(msg, TbMsgTraceStage.DB_FLUSH);
         ctx.tellSuccess(msg);
     }
 
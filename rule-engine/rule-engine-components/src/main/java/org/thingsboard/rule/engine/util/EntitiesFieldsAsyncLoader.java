@@ -32,6 +32,7 @@ import org.thingsboard.server.common.data.id.RuleChainId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.id.UserId;
 
+import java.util.Collections;
 import java.util.function.Function;
 
 public class EntitiesFieldsAsyncLoader {
@@ -67,6 +68,27 @@ public class EntitiesFieldsAsyncLoader {
         }
     }
 
+    public static ListenableFuture<String> findNameAsync(TbContext ctx, EntityId original) {
+        switch (original.getEntityType()) {
+            case TENANT:
+            case CUSTOMER:
+            case USER:
+            case ASSET:
+            case DEVICE:
+            case ALARM:
+            case RULE_CHAIN:
+            case ENTITY_VIEW:
+                return Futures.transformAsync(ctx.getEntityService().fetchEntityNamesAsync(ctx.getTenantId(), Collections.singletonList(original)),
+                        names -> {
+                            String name = names.get(original);
+                            return name != null ? Futures.immediateFuture(name)
+                                    : Futures.immediateFailedFuture(new RuntimeException("Entity not found!"));
+                        }, MoreExecutors.directExecutor());
+            default:
+                return Futures.immediateFailedFuture(new TbNodeException("Unexpected original EntityType " + original.getEntityType()));
+        }
+    }
+
     private static <T extends BaseData> ListenableFuture<EntityFieldsData> getAsync(
             ListenableFuture<T> future, Function<T, EntityFieldsData> converter) {
         return Futures.transformAsync(future, in -> in != null ?
@@ -129,7 +129,7 @@ public class TbAlarmNodeTest {
 
         when(detailsJs.executeJsonAsync(msg)).thenReturn(Futures.immediateFuture(null));
         when(alarmService.findLatestByOriginatorAndType(tenantId, originator, "SomeType")).thenReturn(Futures.immediateFuture(null));
-        doAnswer((Answer<Alarm>) invocationOnMock -> (Alarm) (invocationOnMock.getArguments())[0]).when(alarmService).createOrUpdateAlarm(any(Alarm.class));
+        doAnswer((Answer<ListenableFuture<Alarm>>) invocationOnMock -> Futures.immediateFuture((Alarm) (invocationOnMock.getArguments())[0])).when(alarmService).createOrUpdateAlarmAsync(any(Alarm.class));
 
         node.onMsg(ctx, msg);
 
@@ -198,7 +198,7 @@ public class TbAlarmNodeTest {
         when(detailsJs.executeJsonAsync(msg)).thenReturn(Futures.immediateFuture(null));
         when(alarmService.findLatestByOriginatorAndType(tenantId, originator, "SomeType")).thenReturn(Futures.immediateFuture(clearedAlarm));
 
-        doAnswer((Answer<Alarm>) invocationOnMock -> (Alarm) (invocationOnMock.getArguments())[0]).when(alarmService).createOrUpdateAlarm(any(Alarm.class));
+        doAnswer((Answer<ListenableFuture<Alarm>>) invocationOnMock -> Futures.immediateFuture((Alarm) (invocationOnMock.getArguments())[0])).when(alarmService).createOrUpdateAlarmAsync(any(Alarm.class));
 
         node.onMsg(ctx, msg);
 
@@ -246,7 +246,7 @@ public class TbAlarmNodeTest {
         when(detailsJs.executeJsonAsync(msg)).thenReturn(Futures.immediateFuture(null));
         when(alarmService.findLatestByOriginatorAndType(tenantId, originator, "SomeType")).thenReturn(Futures.immediateFuture(activeAlarm));
 
-        doAnswer((Answer<Alarm>) invocationOnMock -> (Alarm) (invocationOnMock.getArguments())[0]).when(alarmService).createOrUpdateAlarm(activeAlarm);
+        doAnswer((Answer<ListenableFuture<Alarm>>) invocationOnMock -> Futures.immediateFuture((Alarm) (invocationOnMock.getArguments())[0])).when(alarmService).createOrUpdateAlarmAsync(activeAlarm);
 
         node.onMsg(ctx, msg);
 
@@ -410,7 +410,7 @@ public class TbAlarmNodeTest {
 
         when(detailsJs.executeJsonAsync(msg)).thenReturn(Futures.immediateFuture(null));
         when(alarmService.findLatestByOriginatorAndType(tenantId, originator, "SomeType")).thenReturn(Futures.immediateFuture(null));
-        doAnswer((Answer<Alarm>) invocationOnMock -> (Alarm) (invocationOnMock.getArguments())[0]).when(alarmService).createOrUpdateAlarm(any(Alarm.class));
+        doAnswer((Answer<ListenableFuture<Alarm>>) invocationOnMock -> Futures.immediateFuture((Alarm) (invocationOnMock.getArguments())[0])).when(alarmService).createOrUpdateAlarmAsync(any(Alarm.class));
 
         node.onMsg(ctx, msg);
 
@@ -470,7 +470,7 @@ public class TbAlarmNodeTest {
 
         when(detailsJs.executeJsonAsync(msg)).thenReturn(Futures.immediateFuture(null));
         when(alarmService.findLatestByOriginatorAndType(tenantId, originator, "SomeType")).thenReturn(Futures.immediateFuture(null));
-        doAnswer((Answer<Alarm>) invocationOnMock -> (Alarm) (invocationOnMock.getArguments())[0]).when(alarmService).createOrUpdateAlarm(any(Alarm.class));
+        doAnswer((Answer<ListenableFuture<Alarm>>) invocationOnMock -> Futures.immediateFuture((Alarm) (invocationOnMock.getArguments())[0])).when(alarmService).createOrUpdateAlarmAsync(any(Alarm.class));
 
         node.onMsg(ctx, msg);
 
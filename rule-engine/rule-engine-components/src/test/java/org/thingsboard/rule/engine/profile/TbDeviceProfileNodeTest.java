@@ -19,9 +19,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -47,8 +51,10 @@ import org.thingsboard.server.common.data.device.profile.RepeatingAlarmCondition
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.query.BooleanFilterPredicate;
 import org.thingsboard.server.common.data.query.DynamicValue;
 import org.thingsboard.server.common.data.query.DynamicValueSourceType;
@@ -59,7 +65,13 @@ import org.thingsboard.server.common.data.query.NumericFilterPredicate;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+import org.thingsboard.server.common.msg.queue.ServiceQueue;
+import org.thingsboard.server.common.msg.queue.ServiceQueueKey;
+import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.session.SessionMsgType;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.common.stats.StatsType;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.model.sql.AttributeKvCompositeKey;
@@ -71,10 +83,12 @@ import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -98,6 +112,8 @@ public class TbDeviceProfileNodeTest {
     private DeviceService deviceService;
     @Mock
     private AttributesService attributesService;
+    @Mock
+    private StatsFactory statsFactory;
 
     private final TenantId tenantId = new TenantId(UUID.randomUUID());
     private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
@@ -123,6 +139,57 @@ public class TbDeviceProfileNodeTest {
         verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
     }
 
+    @Test
+    public void testLeastRecentlyActiveDeviceStateEviction() throws Exception {
+        ObjectNode configuration = mapper.createObjectNode();
+        configuration.put("maxDeviceStates", 1);
+        init(configuration);
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+        deviceProfileData.setAlarms(Collections.emptyList());
+        deviceProfile.setProfileData(deviceProfileData);
+
+        DeviceId anotherDeviceId = new DeviceId(UUID.randomUUID());
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(cache.get(tenantId, anotherDeviceId)).thenReturn(deviceProfile);
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        TbMsg msg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, msg);
+        Thread.sleep(10);
+        TbMsg anotherMsg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), anotherDeviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, anotherMsg);
+
+        node.harvestAlarms(ctx, System.currentTimeMillis());
+
+        // the state of the least recently active device is evicted and created again with the next message
+        node.onMsg(ctx, anotherMsg);
+        node.onMsg(ctx, msg);
+        verify(cache, Mockito.times(1)).get(tenantId, anotherDeviceId);
+        verify(cache, Mockito.times(2)).get(tenantId, deviceId);
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testStatsGaugesRemovedOnDestroy() throws Exception {
+        RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+        Mockito.when(ctx.getSelfId()).thenReturn(ruleNodeId);
+        Mockito.when(ctx.getStatsFactory()).thenReturn(statsFactory);
+        Mockito.when(statsFactory.createGauge(Mockito.anyString(), Mockito.any(AtomicLong.class), Mockito.any()))
+                .then(AdditionalAnswers.returnsArgAt(1));
+        init();
+
+        node.destroy();
+
+        String[] tags = {"tenantId", tenantId.getId().toString(), "ruleNodeId", ruleNodeId.getId().toString()};
+        verify(statsFactory).removeGauge(StatsType.RULE_ENGINE.getName() + ".deviceProfileTrackedDevices", tags);
+        verify(statsFactory).removeGauge(StatsType.RULE_ENGINE.getName() + ".deviceProfileStateEstimatedBytes", tags);
+    }
+
     @Test
     public void testEmptyProfile() throws Exception {
         init();
@@ -211,6 +278,114 @@ public class TbDeviceProfileNodeTest {
 
     }
 
+    @Test
+    public void testAlarmCreateWithAsyncSnapshotFetch() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        SettableFuture<List<TsKvEntry>> latestFuture = SettableFuture.create();
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature")))
+                .thenReturn(latestFuture);
+        Mockito.when(alarmService.findLatestByOriginatorAndType(tenantId, deviceId, "highTemperatureAlarm")).thenReturn(Futures.immediateFuture(null));
+        Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
+
+        TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
+        Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString())).thenReturn(theMsg);
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        TbMsg msg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, msg);
+        verify(ctx, Mockito.never()).tellSuccess(msg);
+
+        latestFuture.set(Collections.emptyList());
+        ArgumentCaptor<TbMsg> selfMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx).tellSelf(selfMsgCaptor.capture(), eq(0L));
+        node.onMsg(ctx, selfMsgCaptor.getValue());
+
+        verify(ctx).tellSuccess(msg);
+        verify(ctx).enqueueForTellNext(theMsg, "Alarm Created");
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testPendingMsgsHandedOverOnPartitionChange() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        RuleNodeId selfId = new RuleNodeId(UUID.randomUUID());
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature")))
+                .thenReturn(SettableFuture.create());
+        Mockito.when(ctx.isLocalEntity(deviceId)).thenReturn(false);
+        Mockito.when(ctx.getSelfId()).thenReturn(selfId);
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        TbMsg msg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, msg);
+        node.onPartitionChangeMsg(ctx, new PartitionChangeMsg(new ServiceQueueKey(new ServiceQueue(ServiceType.TB_RULE_ENGINE), tenantId),
+                Collections.emptySet()));
+
+        // the message waiting for the snapshot is processed by this rule node on the new owner of the partition
+        ArgumentCaptor<TbMsg> handedOverCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        ArgumentCaptor<Runnable> onSuccessCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(ctx).enqueue(handedOverCaptor.capture(), eq(msg.getQueueName()), onSuccessCaptor.capture(), Mockito.any());
+        Assert.assertEquals(selfId, handedOverCaptor.getValue().getRuleNodeId());
+        Assert.assertEquals(msg.getData(), handedOverCaptor.getValue().getData());
+        verify(ctx, Mockito.never()).ack(msg);
+
+        onSuccessCaptor.getValue().run();
+        verify(ctx).ack(msg);
+        verify(ctx, Mockito.never()).tellSuccess(msg);
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
     @Test
     public void testConstantKeyFilterSimple() throws Exception {
         init();
@@ -275,8 +450,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(attrListListenableFuture);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(attrListListenableFuture));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -358,8 +533,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(Futures.immediateFuture(Collections.emptyList()));
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(Futures.immediateFuture(Collections.emptyList())));
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn(Futures.immediateFuture(Optional.empty()));
         Mockito.when(attributesService.find(eq(tenantId), eq(tenantId), Mockito.anyString(), Mockito.anyString()))
@@ -431,8 +606,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFutureWithLess);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFutureWithLess));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -525,8 +700,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFuture);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFuture));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -649,8 +824,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(device);
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), eq(DataConstants.SERVER_SCOPE), Mockito.anyString()))
                 .thenReturn(emptyOptional);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listNoDurationAttribute);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listNoDurationAttribute));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -758,8 +933,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFuture);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFuture));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -874,8 +1049,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(device);
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), eq(DataConstants.SERVER_SCOPE), Mockito.anyString()))
                 .thenReturn(emptyOptional);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listNoDurationAttribute);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listNoDurationAttribute));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -970,8 +1145,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFuture);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFuture));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -1068,8 +1243,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFuture);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFuture));
 
         TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
         Mockito.when(ctx.newMsg(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString()))
@@ -1145,8 +1320,8 @@ public class TbDeviceProfileNodeTest {
                 .thenReturn(Futures.immediateFuture(null));
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFutureWithLess);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFutureWithLess));
         Mockito.when(ctx.getDeviceService().findDeviceById(tenantId, deviceId))
                 .thenReturn(device);
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), eq(DataConstants.SERVER_SCOPE), Mockito.anyString()))
@@ -1221,8 +1396,8 @@ public class TbDeviceProfileNodeTest {
         Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any()))
                 .thenAnswer(AdditionalAnswers.returnsFirstArg());
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFutureWithLess);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFutureWithLess));
         Mockito.when(attributesService.find(eq(tenantId), eq(tenantId), eq(DataConstants.SERVER_SCOPE), Mockito.anyString()))
                 .thenReturn(optionalListenableFutureWithLess);
 
@@ -1303,8 +1478,8 @@ public class TbDeviceProfileNodeTest {
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
         Mockito.when(ctx.getDeviceService().findDeviceById(tenantId, deviceId))
                 .thenReturn(device);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFutureWithLess);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFutureWithLess));
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn(emptyOptionalFuture);
         Mockito.when(attributesService.find(eq(tenantId), eq(tenantId), eq(DataConstants.SERVER_SCOPE),  Mockito.anyString()))
@@ -1389,8 +1564,8 @@ public class TbDeviceProfileNodeTest {
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
         Mockito.when(ctx.getDeviceService().findDeviceById(tenantId, deviceId))
                 .thenReturn(device);
-        Mockito.when(attributesService.find(eq(tenantId), eq(deviceId), Mockito.anyString(), Mockito.anySet()))
-                .thenReturn(listListenableFutureWithLess);
+        Mockito.when(attributesService.findByScopes(eq(tenantId), eq(deviceId), Mockito.anyCollection(), Mockito.anySet()))
+                .thenReturn(toScopedAttributes(listListenableFutureWithLess));
         Mockito.when(attributesService.find(eq(tenantId), eq(customerId), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn(emptyOptionalFuture);
         Mockito.when(attributesService.find(eq(tenantId), eq(tenantId), eq(DataConstants.SERVER_SCOPE),  Mockito.anyString()))
@@ -1411,14 +1586,22 @@ public class TbDeviceProfileNodeTest {
         verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
     }
 
+    private static ListenableFuture<Map<String, List<AttributeKvEntry>>> toScopedAttributes(ListenableFuture<List<AttributeKvEntry>> attributes) {
+        return Futures.transform(attributes, list -> Collections.singletonMap(DataConstants.SERVER_SCOPE, list), MoreExecutors.directExecutor());
+    }
+
     private void init() throws TbNodeException {
+        init(mapper.createObjectNode());
+    }
+
+    private void init(ObjectNode configuration) throws TbNodeException {
         Mockito.when(ctx.getTenantId()).thenReturn(tenantId);
         Mockito.when(ctx.getDeviceProfileCache()).thenReturn(cache);
         Mockito.when(ctx.getTimeseriesService()).thenReturn(timeseriesService);
         Mockito.when(ctx.getAlarmService()).thenReturn(alarmService);
         Mockito.when(ctx.getDeviceService()).thenReturn(deviceService);
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        TbNodeConfiguration nodeConfiguration = new TbNodeConfiguration(mapper.createObjectNode());
+        TbNodeConfiguration nodeConfiguration = new TbNodeConfiguration(configuration);
         node = new TbDeviceProfileNode();
         node.init(ctx, nodeConfiguration);
     }
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+
+import java.util.function.Consumer;
+
+/**
+ * Device publishing telemetry over the CoAP device API. RPC requests are not handled by CoAP devices.
+ */
+public class CoapSimulatedClient implements SimulatedClient {
+
+    private final CoapClient client;
+
+    public CoapSimulatedClient(SimulatorSettings settings, String accessToken) {
+        this.client = new CoapClient("coap://" + settings.getHost() + ":" + settings.getCoapPort() + "/api/v1/" + accessToken + "/telemetry");
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public void publishTelemetry(String deviceName, byte[] payload, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        client.post(new CoapHandler() {
+            @Override
+            public void onLoad(CoapResponse response) {
+                if (response.isSuccess()) {
+                    onSuccess.run();
+                } else {
+                    onFailure.accept(new IllegalStateException("Unexpected response code: " + response.getCode()));
+                }
+            }
+
+            @Override
+            public void onError() {
+                onFailure.accept(new IllegalStateException("CoAP request failed"));
+            }
+        }, payload, MediaTypeRegistry.APPLICATION_JSON);
+    }
+
+    @Override
+    public void disconnect() {
+        client.shutdown();
+    }
+
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.thingsboard.rest.client.RestClient;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Load generator that provisions a fleet of devices (optionally behind gateways), publishes telemetry over
+ * MQTT, HTTP or CoAP with the configured rate and reports the throughput and the end-to-end latency observed
+ * through WebSocket telemetry subscriptions. See README.md for the usage.
+ */
+@Slf4j
+public class DeviceSimulatorTool {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final SimulatorSettings settings;
+    private final SimulatorStats stats = new SimulatorStats();
+    private final TelemetryPayloadGenerator payloadGenerator;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<SimulatedDevice> devices = new ArrayList<>();
+    private final List<SimulatedDevice> gateways = new ArrayList<>();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+
+    private RestClient restClient;
+    private EventLoopGroup eventLoop;
+    private ScheduledExecutorService scheduler;
+    private TelemetryLatencyListener latencyListener;
+
+    public DeviceSimulatorTool(SimulatorSettings settings) {
+        this.settings = settings;
+        this.payloadGenerator = new TelemetryPayloadGenerator(settings);
+    }
+
+    public static void main(String[] args) {
+        SimulatorSettings settings = parseArgs(args);
+        DeviceSimulatorTool tool = new DeviceSimulatorTool(settings);
+        try {
+            tool.run();
+        } catch (Throwable th) {
+            log.error("Simulation failed", th);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        if (settings.getGatewayCount() > 0 && settings.getTransport() != SimulatorTransport.MQTT) {
+            throw new IllegalArgumentException("Gateways are supported by the MQTT transport only");
+        }
+        restClient = new RestClient(settings.getRestUrl());
+        restClient.login(settings.getUsername(), settings.getPassword());
+        try {
+            provision();
+            connect();
+            simulate();
+        } finally {
+            shutdown();
+            if (settings.isCleanup()) {
+                cleanup();
+            }
+        }
+        stats.printSummary();
+    }
+
+    private void provision() {
+        log.info("Provisioning [{}] devices and [{}] gateways", settings.getDeviceCount(), settings.getGatewayCount());
+        for (int i = 0; i < settings.getGatewayCount(); i++) {
+            gateways.add(getOrCreateDevice(settings.getNamePrefix() + "Gateway" + i, true));
+        }
+        for (int i = 0; i < settings.getDeviceCount(); i++) {
+            devices.add(getOrCreateDevice(settings.getNamePrefix() + i, false));
+        }
+    }
+
+    private SimulatedDevice getOrCreateDevice(String name, boolean gateway) {
+        Device device = restClient.getTenantDevice(name).orElseGet(() -> {
+            Device newDevice = new Device();
+            newDevice.setName(name);
+            newDevice.setType("default");
+            if (gateway) {
+                newDevice.setAdditionalInfo(mapper.createObjectNode().put("gateway", true));
+            }
+            return restClient.saveDevice(newDevice);
+        });
+        String accessToken = restClient.getDeviceCredentialsByDeviceId(device.getId())
+                .map(DeviceCredentials::getCredentialsId)
+                .orElseThrow(() -> new IllegalStateException("Device credentials not found for device: " + name));
+        return new SimulatedDevice(name, device.getId(), accessToken);
+    }
+
+    private void connect() throws Exception {
+        if (settings.getTransport() == SimulatorTransport.MQTT) {
+            eventLoop = new NioEventLoopGroup();
+        }
+        if (!gateways.isEmpty()) {
+            for (int i = 0; i < gateways.size(); i++) {
+                List<SimulatedDevice> children = new ArrayList<>();
+                for (int j = i; j < devices.size(); j += gateways.size()) {
+                    children.add(devices.get(j));
+                }
+                SimulatedClient client = new MqttSimulatedClient(settings, stats, eventLoop, gateways.get(i).getAccessToken(),
+                        children.stream().map(SimulatedDevice::getName).collect(Collectors.toList()));
+                connect(client);
+                children.forEach(child -> child.setClient(client));
+            }
+        } else {
+            for (SimulatedDevice device : devices) {
+                SimulatedClient client = createClient(device);
+                connect(client);
+                device.setClient(client);
+            }
+        }
+        log.info("Connected [{}] clients", clients.size());
+    }
+
+    private SimulatedClient createClient(SimulatedDevice device) {
+        switch (settings.getTransport()) {
+            case MQTT:
+                return new MqttSimulatedClient(settings, stats, eventLoop, device.getAccessToken());
+            case HTTP:
+                return new HttpSimulatedClient(settings, httpClient, device.getAccessToken());
+            case COAP:
+                return new CoapSimulatedClient(settings, device.getAccessToken());
+            default:
+                throw new IllegalArgumentException("Unsupported transport: " + settings.getTransport());
+        }
+    }
+
+    private void connect(SimulatedClient client) throws Exception {
+        client.connect();
+        clients.add(client);
+        if (clients.size() % 1000 == 0) {
+            log.info("Connected [{}] clients", clients.size());
+        }
+    }
+
+    private void simulate() throws Exception {
+        long startTs = System.currentTimeMillis();
+        if (settings.getLatencyDevices() > 0) {
+            latencyListener = new TelemetryLatencyListener(stats, startTs);
+            latencyListener.subscribe(httpClient, settings.getRestUrl(), restClient.getToken(), devices.stream()
+                    .limit(settings.getLatencyDevices())
+                    .map(SimulatedDevice::getId)
+                    .collect(Collectors.toList()));
+        }
+        scheduler = Executors.newScheduledThreadPool(settings.getPublishThreads());
+        long periodMicros = Math.max(1, (long) (TimeUnit.SECONDS.toMicros(1) / settings.getMsgRatePerDevice()));
+        for (SimulatedDevice device : devices) {
+            // spreads the first messages of the devices over the period to avoid bursts
+            long initialDelay = ThreadLocalRandom.current().nextLong(periodMicros);
+            scheduler.scheduleAtFixedRate(() -> publish(device), initialDelay, periodMicros, TimeUnit.MICROSECONDS);
+        }
+        scheduler.scheduleAtFixedRate(stats::printInterval, settings.getReportIntervalSeconds(),
+                settings.getReportIntervalSeconds(), TimeUnit.SECONDS);
+        log.info("Publishing [{}] msg/s per device over {} for [{}] seconds",
+                settings.getMsgRatePerDevice(), settings.getTransport(), settings.getDurationSeconds());
+        Thread.sleep(TimeUnit.SECONDS.toMillis(settings.getDurationSeconds()));
+        scheduler.shutdownNow();
+        // gives the server some time to deliver the updates of the last published messages
+        Thread.sleep(TimeUnit.SECONDS.toMillis(settings.getReportIntervalSeconds()));
+        stats.printInterval();
+    }
+
+    private void publish(SimulatedDevice device) {
+        try {
+            byte[] payload = payloadGenerator.generate(device.getSeq().incrementAndGet(), System.currentTimeMillis());
+            device.getClient().publishTelemetry(device.getName(), payload, stats::onPublished, e -> {
+                stats.onFailed();
+                log.debug("[{}] Failed to publish telemetry", device.getName(), e);
+            });
+        } catch (Exception e) {
+            stats.onFailed();
+            log.debug("[{}] Failed to publish telemetry", device.getName(), e);
+        }
+    }
+
+    private void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (latencyListener != null) {
+            latencyListener.close();
+        }
+        clients.forEach(SimulatedClient::disconnect);
+        if (eventLoop != null) {
+            eventLoop.shutdownGracefully();
+        }
+    }
+
+    private void cleanup() {
+        log.info("Removing simulated devices");
+        devices.forEach(device -> restClient.deleteDevice(device.getId()));
+        gateways.forEach(gateway -> restClient.deleteDevice(gateway.getId()));
+    }
+
+    private static SimulatorSettings parseArgs(String[] args) {
+        Options options = new Options();
+        options.addOption("url", "restUrl", true, "ThingsBoard REST API url, default: http://localhost:8080");
+        options.addOption("u", "username", true, "tenant administrator username, default: tenant@thingsboard.org");
+        options.addOption("p", "password", true, "tenant administrator password, default: tenant");
+        options.addOption("t", "transport", true, "device transport: MQTT, HTTP or COAP, default: MQTT");
+        options.addOption("host", "host", true, "MQTT and CoAP transport host, default: localhost");
+        options.addOption("mqttPort", "mqttPort", true, "MQTT transport port, default: 1883");
+        options.addOption("coapPort", "coapPort", true, "CoAP transport port, default: 5683");
+        options.addOption("qos", "qos", true, "MQTT QoS of the published telemetry, default: 1");
+        options.addOption("d", "devices", true, "number of simulated devices, default: 10");
+        options.addOption("g", "gateways", true, "number of gateways the devices are spread over (MQTT only), default: 0");
+        options.addOption("prefix", "namePrefix", true, "name prefix of the simulated devices, default: SimDevice");
+        options.addOption("r", "rate", true, "messages per second published by every device, default: 1");
+        options.addOption("duration", "duration", true, "duration of the simulation in seconds, default: 60");
+        options.addOption("keys", "keys", true, "number of telemetry keys in addition to the sequence number, default: 5");
+        options.addOption("tsArray", "tsArray", true, "number of timestamps per message, uses JSON array payloads when greater than 1, default: 1");
+        options.addOption("noRpc", "noRpc", false, "do not subscribe to and respond on RPC requests");
+        options.addOption("latency", "latencyDevices", true, "number of devices subscribed over WebSocket to measure the latency, default: 10");
+        options.addOption("report", "reportInterval", true, "interval of the statistics report in seconds, default: 5");
+        options.addOption("threads", "threads", true, "number of publishing threads, default: 4");
+        options.addOption("cleanup", "cleanup", false, "delete the simulated devices when the simulation is finished");
+
+        CommandLine cmd;
+        try {
+            cmd = new BasicParser().parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            new HelpFormatter().printHelp("device-simulator", options);
+            System.exit(1);
+            return null;
+        }
+
+        SimulatorSettings settings = new SimulatorSettings();
+        settings.setRestUrl(cmd.getOptionValue("restUrl", settings.getRestUrl()));
+        settings.setUsername(cmd.getOptionValue("username", settings.getUsername()));
+        settings.setPassword(cmd.getOptionValue("password", settings.getPassword()));
+        settings.setTransport(SimulatorTransport.valueOf(cmd.getOptionValue("transport", settings.getTransport().name()).toUpperCase()));
+        settings.setHost(cmd.getOptionValue("host", settings.getHost()));
+        settings.setMqttPort(Integer.parseInt(cmd.getOptionValue("mqttPort", Integer.toString(settings.getMqttPort()))));
+        settings.setCoapPort(Integer.parseInt(cmd.getOptionValue("coapPort", Integer.toString(settings.getCoapPort()))));
+        settings.setMqttQos(Integer.parseInt(cmd.getOptionValue("qos", Integer.toString(settings.getMqttQos()))));
+        settings.setDeviceCount(Integer.parseInt(cmd.getOptionValue("devices", Integer.toString(settings.getDeviceCount()))));
+        settings.setGatewayCount(Integer.parseInt(cmd.getOptionValue("gateways", Integer.toString(settings.getGatewayCount()))));
+        settings.setNamePrefix(cmd.getOptionValue("namePrefix", settings.getNamePrefix()));
+        settings.setMsgRatePerDevice(Double.parseDouble(cmd.getOptionValue("rate", Double.toString(settings.getMsgRatePerDevice()))));
+        settings.setDurationSeconds(Integer.parseInt(cmd.getOptionValue("duration", Integer.toString(settings.getDurationSeconds()))));
+        settings.setTelemetryKeys(Integer.parseInt(cmd.getOptionValue("keys", Integer.toString(settings.getTelemetryKeys()))));
+        settings.setTsPerMsg(Integer.parseInt(cmd.getOptionValue("tsArray", Integer.toString(settings.getTsPerMsg()))));
+        settings.setTimeseriesArray(settings.getTsPerMsg() > 1);
+        settings.setRpcResponder(!cmd.hasOption("noRpc"));
+        settings.setLatencyDevices(Integer.parseInt(cmd.getOptionValue("latencyDevices", Integer.toString(settings.getLatencyDevices()))));
+        settings.setReportIntervalSeconds(Integer.parseInt(cmd.getOptionValue("reportInterval", Integer.toString(settings.getReportIntervalSeconds()))));
+        settings.setPublishThreads(Integer.parseInt(cmd.getOptionValue("threads", Integer.toString(settings.getPublishThreads()))));
+        settings.setCleanup(cmd.hasOption("cleanup"));
+        return settings;
+    }
+
+    @Data
+    private static class SimulatedDevice {
+        private final String name;
+        private final DeviceId id;
+        private final String accessToken;
+        private final AtomicLong seq = new AtomicLong();
+        private volatile SimulatedClient client;
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Device publishing telemetry over the HTTP device API. RPC requests are not handled by HTTP devices.
+ */
+public class HttpSimulatedClient implements SimulatedClient {
+
+    private final HttpClient httpClient;
+    private final URI telemetryUri;
+
+    public HttpSimulatedClient(SimulatorSettings settings, HttpClient httpClient, String accessToken) {
+        this.httpClient = httpClient;
+        this.telemetryUri = URI.create(settings.getRestUrl() + "/api/v1/" + accessToken + "/telemetry");
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public void publishTelemetry(String deviceName, byte[] payload, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        HttpRequest request = HttpRequest.newBuilder(telemetryUri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null) {
+                onFailure.accept(e);
+            } else if (response.statusCode() / 100 == 2) {
+                onSuccess.run();
+            } else {
+                onFailure.accept(new IllegalStateException("Unexpected response status: " + response.statusCode()));
+            }
+        });
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+}
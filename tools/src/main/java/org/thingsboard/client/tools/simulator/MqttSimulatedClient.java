@@ -0,0 +1,170 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.mqtt.MqttClient;
+import org.thingsboard.mqtt.MqttClientConfig;
+import org.thingsboard.mqtt.MqttConnectResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Device or gateway connected over MQTT using the in-tree netty client.
+ * Gateway clients connect their child devices on start and publish telemetry on their behalf.
+ */
+@Slf4j
+public class MqttSimulatedClient implements SimulatedClient {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String DEVICE_TELEMETRY_TOPIC = "v1/devices/me/telemetry";
+    private static final String DEVICE_RPC_REQUEST_TOPIC = "v1/devices/me/rpc/request/+";
+    private static final String DEVICE_RPC_RESPONSE_TOPIC_PREFIX = "v1/devices/me/rpc/response/";
+    private static final String GATEWAY_TELEMETRY_TOPIC = "v1/gateway/telemetry";
+    private static final String GATEWAY_CONNECT_TOPIC = "v1/gateway/connect";
+    private static final String GATEWAY_RPC_TOPIC = "v1/gateway/rpc";
+    private static final byte[] RPC_RESPONSE = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private final SimulatorSettings settings;
+    private final SimulatorStats stats;
+    private final EventLoopGroup eventLoop;
+    private final String accessToken;
+    private final List<String> gatewayDevices;
+    private final MqttQoS qos;
+
+    private MqttClient client;
+
+    public MqttSimulatedClient(SimulatorSettings settings, SimulatorStats stats, EventLoopGroup eventLoop, String accessToken) {
+        this(settings, stats, eventLoop, accessToken, null);
+    }
+
+    public MqttSimulatedClient(SimulatorSettings settings, SimulatorStats stats, EventLoopGroup eventLoop, String accessToken, List<String> gatewayDevices) {
+        this.settings = settings;
+        this.stats = stats;
+        this.eventLoop = eventLoop;
+        this.accessToken = accessToken;
+        this.gatewayDevices = gatewayDevices != null ? gatewayDevices : Collections.emptyList();
+        this.qos = MqttQoS.valueOf(settings.getMqttQos());
+    }
+
+    private boolean isGateway() {
+        return !gatewayDevices.isEmpty();
+    }
+
+    @Override
+    public void connect() throws Exception {
+        MqttClientConfig config = new MqttClientConfig();
+        config.setClientId(accessToken);
+        config.setUsername(accessToken);
+        client = MqttClient.create(config, (topic, payload) -> log.trace("[{}] Unexpected message on topic [{}]", accessToken, topic));
+        client.setEventLoop(eventLoop);
+        MqttConnectResult result = client.connect(settings.getHost(), settings.getMqttPort()).get(30, TimeUnit.SECONDS);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Failed to connect MQTT client: " + result.getReturnCode());
+        }
+        if (isGateway()) {
+            for (String deviceName : gatewayDevices) {
+                publish(GATEWAY_CONNECT_TOPIC, toBytes(mapper.createObjectNode().put("device", deviceName)));
+            }
+            if (settings.isRpcResponder()) {
+                client.on(GATEWAY_RPC_TOPIC, this::onGatewayRpc, MqttQoS.AT_LEAST_ONCE).get(30, TimeUnit.SECONDS);
+            }
+        } else if (settings.isRpcResponder()) {
+            client.on(DEVICE_RPC_REQUEST_TOPIC, this::onDeviceRpc, MqttQoS.AT_LEAST_ONCE).get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void publishTelemetry(String deviceName, byte[] payload, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        String topic;
+        byte[] data;
+        if (isGateway()) {
+            topic = GATEWAY_TELEMETRY_TOPIC;
+            data = toGatewayPayload(deviceName, payload);
+        } else {
+            topic = DEVICE_TELEMETRY_TOPIC;
+            data = payload;
+        }
+        client.publish(topic, Unpooled.wrappedBuffer(data), qos).addListener(future -> {
+            if (future.isSuccess()) {
+                onSuccess.run();
+            } else {
+                onFailure.accept(future.cause());
+            }
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        if (client != null) {
+            client.disconnect();
+        }
+    }
+
+    private void onDeviceRpc(String topic, ByteBuf payload) {
+        String requestId = topic.substring(topic.lastIndexOf('/') + 1);
+        publish(DEVICE_RPC_RESPONSE_TOPIC_PREFIX + requestId, RPC_RESPONSE);
+        stats.onRpcHandled();
+    }
+
+    private void onGatewayRpc(String topic, ByteBuf payload) {
+        try {
+            JsonNode request = mapper.readTree(payload.toString(StandardCharsets.UTF_8));
+            JsonNode response = mapper.createObjectNode()
+                    .put("device", request.get("device").asText())
+                    .put("id", request.get("data").get("id").asInt())
+                    .set("data", mapper.readTree(RPC_RESPONSE));
+            publish(GATEWAY_RPC_TOPIC, toBytes(response));
+            stats.onRpcHandled();
+        } catch (Exception e) {
+            log.warn("[{}] Failed to process gateway RPC request", accessToken, e);
+        }
+    }
+
+    private void publish(String topic, byte[] data) {
+        client.publish(topic, Unpooled.wrappedBuffer(data), MqttQoS.AT_LEAST_ONCE);
+    }
+
+    private static byte[] toGatewayPayload(String deviceName, byte[] payload) {
+        boolean array = payload.length > 0 && payload[0] == '[';
+        StringBuilder sb = new StringBuilder(payload.length + deviceName.length() + 8);
+        sb.append('"').append(deviceName).append("\":");
+        if (!array) {
+            sb.append('[');
+        }
+        sb.append(new String(payload, StandardCharsets.UTF_8));
+        if (!array) {
+            sb.append(']');
+        }
+        return ("{" + sb + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(JsonNode node) {
+        return node.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import java.util.function.Consumer;
+
+/**
+ * Connection of a single simulated device or gateway to one of the device transports.
+ */
+public interface SimulatedClient {
+
+    void connect() throws Exception;
+
+    /**
+     * Publishes telemetry of the device identified by the name. The name is only used by gateway clients.
+     */
+    void publishTelemetry(String deviceName, byte[] payload, Runnable onSuccess, Consumer<Throwable> onFailure);
+
+    void disconnect();
+
+}
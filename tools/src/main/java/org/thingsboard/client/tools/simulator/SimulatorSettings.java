@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import lombok.Data;
+
+@Data
+public class SimulatorSettings {
+
+    private String restUrl = "http://localhost:8080";
+    private String username = "tenant@thingsboard.org";
+    private String password = "tenant";
+
+    private SimulatorTransport transport = SimulatorTransport.MQTT;
+    private String host = "localhost";
+    private int mqttPort = 1883;
+    private int coapPort = 5683;
+    private int mqttQos = 1;
+
+    private int deviceCount = 10;
+    // 0 means that devices connect directly, otherwise devices are spread over gateways (MQTT only)
+    private int gatewayCount = 0;
+    private String namePrefix = "SimDevice";
+
+    private double msgRatePerDevice = 1.0;
+    private int durationSeconds = 60;
+    private int telemetryKeys = 5;
+    private boolean timeseriesArray = false;
+    private int tsPerMsg = 1;
+
+    private boolean rpcResponder = true;
+    private int latencyDevices = 10;
+    private int reportIntervalSeconds = 5;
+    private int publishThreads = 4;
+    private boolean cleanup = false;
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class SimulatorStats {
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rpcHandled = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final long startTs = System.currentTimeMillis();
+    private long lastReportTs = startTs;
+    private long lastPublished;
+
+    public void onPublished() {
+        published.increment();
+    }
+
+    public void onFailed() {
+        failed.increment();
+    }
+
+    public void onRpcHandled() {
+        rpcHandled.increment();
+    }
+
+    public void onLatency(long latencyMs) {
+        latency.record(latencyMs);
+    }
+
+    public synchronized void printInterval() {
+        long now = System.currentTimeMillis();
+        long total = published.sum();
+        double rate = (total - lastPublished) * 1000.0 / Math.max(1, now - lastReportTs);
+        lastPublished = total;
+        lastReportTs = now;
+        log.info("Published: [{}] ({} msg/s), failed: [{}], rpc handled: [{}], latency p50/p95/p99/max: [{}/{}/{}/{}] ms",
+                total, String.format("%.1f", rate), failed.sum(), rpcHandled.sum(),
+                latency.getPercentile(50), latency.getPercentile(95), latency.getPercentile(99), latency.getMax());
+    }
+
+    public void printSummary() {
+        long duration = Math.max(1, System.currentTimeMillis() - startTs);
+        long total = published.sum();
+        log.info("===== Simulation summary =====");
+        log.info("Duration: [{}] s", duration / 1000);
+        log.info("Published: [{}], failed: [{}], average throughput: [{}] msg/s",
+                total, failed.sum(), String.format("%.1f", total * 1000.0 / duration));
+        log.info("RPC requests handled: [{}]", rpcHandled.sum());
+        log.info("End-to-end latency samples: [{}], mean: [{}] ms", latency.getCount(), String.format("%.1f", latency.getMean()));
+        log.info("Latency p50: [{}] ms, p90: [{}] ms, p95: [{}] ms, p99: [{}] ms, p99.9: [{}] ms, max: [{}] ms",
+                latency.getPercentile(50), latency.getPercentile(90), latency.getPercentile(95),
+                latency.getPercentile(99), latency.getPercentile(99.9), latency.getMax());
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.DeviceId;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscribes to the latest "seq" telemetry of the sampled devices and measures the end-to-end latency
+ * as the difference between the time the update is received and the telemetry timestamp set by the publisher.
+ */
+@Slf4j
+public class TelemetryLatencyListener implements WebSocket.Listener {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final SimulatorStats stats;
+    private final long startTs;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private WebSocket webSocket;
+
+    public TelemetryLatencyListener(SimulatorStats stats, long startTs) {
+        this.stats = stats;
+        this.startTs = startTs;
+    }
+
+    public void subscribe(HttpClient httpClient, String restUrl, String token, List<DeviceId> deviceIds) throws Exception {
+        String wsUrl = restUrl.replaceFirst("^http", "ws") + "/api/ws/plugins/telemetry?token=" + token;
+        webSocket = httpClient.newWebSocketBuilder().buildAsync(URI.create(wsUrl), this).get(30, TimeUnit.SECONDS);
+        ObjectNode cmds = mapper.createObjectNode();
+        ArrayNode tsSubCmds = cmds.putArray("tsSubCmds");
+        for (int i = 0; i < deviceIds.size(); i++) {
+            tsSubCmds.addObject()
+                    .put("entityType", "DEVICE")
+                    .put("entityId", deviceIds.get(i).getId().toString())
+                    .put("scope", "LATEST_TELEMETRY")
+                    .put("keys", TelemetryPayloadGenerator.SEQ_KEY)
+                    .put("cmdId", i + 1);
+        }
+        webSocket.sendText(mapper.writeValueAsString(cmds), true).get(30, TimeUnit.SECONDS);
+        log.info("Subscribed to telemetry updates of [{}] devices", deviceIds.size());
+    }
+
+    public void close() {
+        if (webSocket != null) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        buffer.append(data);
+        if (last) {
+            long receivedTs = System.currentTimeMillis();
+            String msg = buffer.toString();
+            buffer.setLength(0);
+            try {
+                processUpdate(mapper.readTree(msg), receivedTs);
+            } catch (Exception e) {
+                log.warn("Failed to process WebSocket update: {}", msg, e);
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        log.warn("WebSocket error", error);
+    }
+
+    private void processUpdate(JsonNode update, long receivedTs) {
+        JsonNode values = update.path("data").path(TelemetryPayloadGenerator.SEQ_KEY);
+        if (!values.isArray()) {
+            return;
+        }
+        for (JsonNode value : values) {
+            long ts = value.get(0).asLong();
+            // skips the initial values of the subscription that were published before the simulation start
+            if (ts >= startTs) {
+                stats.onLatency(receivedTs - ts);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2016-2021 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds telemetry payloads in the "ts/values" format accepted by all device transports.
+ * Every payload contains the "seq" key that is used to correlate published messages with WebSocket updates.
+ */
+public class TelemetryPayloadGenerator {
+
+    public static final String SEQ_KEY = "seq";
+
+    private final int telemetryKeys;
+    private final boolean timeseriesArray;
+    private final int tsPerMsg;
+
+    public TelemetryPayloadGenerator(SimulatorSettings settings) {
+        this.telemetryKeys = settings.getTelemetryKeys();
+        this.timeseriesArray = settings.isTimeseriesArray();
+        this.tsPerMsg = Math.max(1, settings.getTsPerMsg());
+    }
+
+    /**
+     * @return JSON object for a single timestamp or JSON array of "tsPerMsg" entries ending with the given timestamp.
+     */
+    public byte[] generate(long seq, long ts) {
+        StringBuilder sb = new StringBuilder(64 + telemetryKeys * 24 * (timeseriesArray ? tsPerMsg : 1));
+        if (timeseriesArray) {
+            sb.append('[');
+            for (int i = tsPerMsg - 1; i >= 0; i--) {
+                appendEntry(sb, seq, ts - i);
+                if (i > 0) {
+                    sb.append(',');
+                }
+            }
+            sb.append(']');
+        } else {
+            appendEntry(sb, seq, ts);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean isArray() {
+        return timeseriesArray;
+    }
+
+    private void appendEntry(StringBuilder sb, long seq, long ts) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sb.append("{\"ts\":").append(ts).append(",\"values\":{\"").append(SEQ_KEY).append("\":").append(seq);
+        for (int i = 0; i < telemetryKeys; i++) {
+            sb.append(",\"key").append(i).append("\":");
+            switch (i % 3) {
+                case 0:
+                    sb.append(random.nextInt(100));
+                    break;
+                case 1:
+                    sb.append(Math.round(random.nextDouble() * 10000) / 100.0);
+                    break;
+                default:
+                    sb.append(random.nextBoolean());
+            }
+        }
+        sb.append("}}");
+    }
+
+}